@@ -0,0 +1,159 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import cat_combination.FilledDependency;
+import cat_combination.RuleInstancesParams;
+import chart_parser.ChartParser;
+import chart_parser.OracleFscoreDecoder;
+import chart_parser.ViterbiDecoder;
+import io.Params;
+import io.Preface;
+import io.Sentence;
+import io.Sentences;
+import joptsimple.OptionException;
+import joptsimple.OptionParser;
+import joptsimple.OptionSet;
+import model.ModelBundle;
+import model.ParserModel;
+
+/*
+ * compiles the lexicon, features and weights files of a model into a
+ * binary model bundle (see ModelBundle), which Parser and ParserBeam load
+ * with --model instead of the text files; --pruneThreshold and --weightType
+ * (double, float or short) make smaller, less accurate bundles, and the log
+ * reports how much was pruned and the errors from quantizing
+ *
+ * with --evalInput (a supertagged dev set) and --evalGoldDeps (its gold
+ * dependencies), the compiled bundle is then used to parse the dev set and
+ * the log reports the labelled dependency precision, recall and F-score
+ * next to the bundle size, so that the accuracy cost of pruning and
+ * quantizing can be seen; the scores count the same dependencies as the
+ * evaluate script (see IgnoreDepsEval), but are no substitute for it
+ */
+
+public class CompileModel {
+	public static void main(String[] args) {
+		OptionParser optionParser = Params.getCompileModelOptionParser();
+		OptionSet options = null;
+
+		try {
+			options = optionParser.parse(args);
+			if ( options.has("help") ) {
+				optionParser.printHelpOn(System.out);
+				return;
+			}
+		} catch ( OptionException e ) {
+			System.err.println(e.getMessage());
+			return;
+		} catch ( IOException e ) {
+			System.err.println(e);
+			return;
+		}
+
+		String lexiconFile = (String) options.valueOf("lexiconFile");
+		String featuresFile = (String) options.valueOf("featuresFile");
+		String weightsFile = (String) options.valueOf("weights");
+		boolean compactWeights = (Boolean) options.valueOf("compactWeights");
+		double pruneThreshold = (Double) options.valueOf("pruneThreshold");
+		ModelBundle.WeightType weightType = ModelBundle.WeightType.fromString((String) options.valueOf("weightType"));
+		String outputFile = (String) options.valueOf("output");
+		String logFile = (String) options.valueOf("log");
+		String evalInputFile = (String) options.valueOf("evalInput");
+		String evalGoldDepsFile = (String) options.valueOf("evalGoldDeps");
+
+		System.setProperty("logLevel", options.has("verbose") ? "trace" : "info");
+		System.setProperty("logFile", logFile);
+		final Logger logger = LogManager.getLogger(CompileModel.class);
+
+		logger.info(Params.printOptions(options));
+
+		try {
+			ModelBundle.compile(lexiconFile, featuresFile, weightsFile, compactWeights, pruneThreshold, weightType, outputFile);
+
+			if ( evalInputFile != null ) {
+				evaluate(options, outputFile, evalInputFile, evalGoldDepsFile, logger);
+			}
+		} catch ( IOException e ) {
+			logger.error(e);
+		}
+	}
+
+	/*
+	 * parses the dev set with the bundle, as Parser would, and compares the
+	 * dependencies on the Viterbi parses with the gold ones
+	 */
+	private static void evaluate(OptionSet options, String bundleFile, String inputFile, String goldDepsFile, Logger logger) throws IOException {
+		int MAX_WORDS = (Integer) options.valueOf("maxWords");
+		int MAX_SUPERCATS = (Integer) options.valueOf("maxSupercats");
+		String grammarDir = (String) options.valueOf("grammarDir");
+		boolean altMarkedup = (Boolean) options.valueOf("altMarkedup");
+		boolean eisnerNormalForm = (Boolean) options.valueOf("eisnerNormalForm");
+		boolean adaptiveSupertagging = (Boolean) options.valueOf("adaptiveSupertagging");
+		double[] betas = Params.betasArray((String) options.valueOf("betas"));
+
+		RuleInstancesParams ruleInstancesParams = new RuleInstancesParams(true, false, false, false, false, false, grammarDir);
+		ParserModel model = new ParserModel(grammarDir, altMarkedup,
+				eisnerNormalForm, ruleInstancesParams, new ModelBundle(bundleFile), false, false);
+		model.features.packFeatureIDs();
+
+		ChartParser parser = new ChartParser(model, MAX_WORDS, MAX_SUPERCATS,
+				false, adaptiveSupertagging, betas);
+		ViterbiDecoder viterbiDecoder = new ViterbiDecoder();
+		// only used to read the gold dependencies, and for the ignored ones
+		OracleFscoreDecoder gold = new OracleFscoreDecoder(parser.categories, false, true, false);
+
+		int numSentences = 0;
+		int numParsed = 0;
+		long numGoldDeps = 0;
+		long numParserDeps = 0;
+		long numCorrectDeps = 0;
+
+		try ( BufferedReader in = new BufferedReader(new FileReader(inputFile));
+				BufferedReader goldIn = new BufferedReader(new FileReader(goldDepsFile)) ) {
+
+			Preface.readPreface(in);
+			Preface.readPreface(goldIn);
+
+			Sentences sentences = new Sentences(in, null, parser.categories, MAX_WORDS);
+
+			while ( sentences.hasNext() ) {
+				parser.parseSentence(sentences.next());
+				gold.readDeps(goldIn, parser.categories);
+
+				Sentence sentence = parser.sentence;
+				numSentences++;
+				numGoldDeps += gold.numGoldDepsIgnoreEval(sentence);
+
+				if ( parser.maxWordsExceeded || parser.maxSuperCatsExceeded
+						|| !parser.calcScores() || !viterbiDecoder.decode(parser.chart, sentence) ) {
+					continue;
+				}
+
+				numParsed++;
+
+				for ( FilledDependency dep : viterbiDecoder.parserDeps ) {
+					if ( !gold.ignoreDeps.ignoreDependency(dep, sentence) ) {
+						numParserDeps++;
+
+						if ( gold.containsGoldDep(dep) ) {
+							numCorrectDeps++;
+						}
+					}
+				}
+			}
+		}
+
+		double precision = numParserDeps > 0 ? (double) (numCorrectDeps) / numParserDeps : 0.0;
+		double recall = numGoldDeps > 0 ? (double) (numCorrectDeps) / numGoldDeps : 0.0;
+		double fscore = precision + recall > 0.0 ? 2 * precision * recall / (precision + recall) : 0.0;
+
+		logger.info("Parsed " + numParsed + " of " + numSentences + " dev sentences");
+		logger.info("Dev set labelled precision " + precision + ", recall " + recall + ", F-score " + fscore
+				+ " with a bundle of " + new File(bundleFile).length() + " bytes");
+	}
+}
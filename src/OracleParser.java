@@ -11,8 +11,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.io.IoBuilder;
 
+import cat_combination.RuleCounts;
 import cat_combination.RuleInstancesParams;
-import cat_combination.Rules;
 import chart_parser.ChartParser;
 import chart_parser.OracleDecoder;
 import chart_parser.OracleDepsSumDecoder;
@@ -203,23 +203,25 @@ public class OracleParser {
 				oracleDecoder.printRuleInstances(rules);
 			}
 
+			RuleCounts counts = parser.rules.counts;
+
 			logger.info("Rule counts:");
-			logger.info("Forward application: " + Rules.forwardAppCount);
-			logger.info("Backward application: " + Rules.backwardAppCount);
-			logger.info("Forward Composition: " + Rules.forwardCompCount);
-			logger.info("Backward Composition: " + Rules.backwardCompCount);
-			logger.info("Backward Cross Composition: " + Rules.backwardCrossCount);
-			logger.info("Generalised Forward Composition: " + Rules.genForwardCompCount);
-			logger.info("Generalised Backward Composition: " + Rules.genBackwardCompCount);
-			logger.info("Generalised Backward Cross Composition: " + Rules.genBackwardCrossCount);
-			logger.info("Apposition: " + Rules.appositionCount);
-			logger.info("Right punct: " + Rules.rightPunctCount);
-			logger.info("Left punct: " + Rules.leftPunctCount);
-			logger.info("Left punct conj: " + Rules.leftPunctConjCount);
-			logger.info("Left comma type-change: " + Rules.leftCommaTCCount);
-			logger.info("Right comma type-change: " + Rules.rightCommaTCCount);
-			logger.info("Conj count: " + Rules.conjCount);
-			logger.info("Funny conj count: " + Rules.funnyConjCount);
+			logger.info("Forward application: " + counts.forwardAppCount);
+			logger.info("Backward application: " + counts.backwardAppCount);
+			logger.info("Forward Composition: " + counts.forwardCompCount);
+			logger.info("Backward Composition: " + counts.backwardCompCount);
+			logger.info("Backward Cross Composition: " + counts.backwardCrossCount);
+			logger.info("Generalised Forward Composition: " + counts.genForwardCompCount);
+			logger.info("Generalised Backward Composition: " + counts.genBackwardCompCount);
+			logger.info("Generalised Backward Cross Composition: " + counts.genBackwardCrossCount);
+			logger.info("Apposition: " + counts.appositionCount);
+			logger.info("Right punct: " + counts.rightPunctCount);
+			logger.info("Left punct: " + counts.leftPunctCount);
+			logger.info("Left punct conj: " + counts.leftPunctConjCount);
+			logger.info("Left comma type-change: " + counts.leftCommaTCCount);
+			logger.info("Right comma type-change: " + counts.rightCommaTCCount);
+			logger.info("Conj count: " + counts.conjCount);
+			logger.info("Funny conj count: " + counts.funnyConjCount);
 		} catch ( FileNotFoundException e ) {
 			logger.error(e);
 		} catch ( IOException e ) {
@@ -1,24 +1,33 @@
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import cat_combination.RuleInstancesParams;
+import cat_combination.UnifyCache;
 import chart_parser.ChartParser;
 import chart_parser.ViterbiDecoder;
 import io.Params;
 import io.Preface;
+import io.Sentence;
 import io.Sentences;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
+import model.FeatureHashing;
 import model.Lexicon;
+import model.ModelBundle;
+import model.ParserModel;
+import utils.OrderedWorkerPool;
+import utils.Pair;
 
 public class Parser {
 	public static void main(String[] args) {
@@ -45,6 +54,7 @@ public class Parser {
 		String grammarDir = (String) options.valueOf("grammarDir");
 		String lexiconFile = (String) options.valueOf("lexiconFile");
 		String featuresFile = (String) options.valueOf("featuresFile");
+		int featureHashBits = (Integer) options.valueOf("featureHashBits");
 
 		RuleInstancesParams ruleInstancesParams = new RuleInstancesParams(true, false, false, false, false, false, grammarDir);
 
@@ -59,8 +69,18 @@ public class Parser {
 		String outputFile = (String) options.valueOf("output");
 		String logFile = (String) options.valueOf("log");
 		String weightsFile = (String) options.valueOf("weights");
+		String modelFile = (String) options.valueOf("model");
+		boolean mapWeights = (Boolean) options.valueOf("mapWeights");
 		int fromSentence = (Integer) options.valueOf("from");
 		int toSentence = (Integer) options.valueOf("to");
+		int numThreads = (Integer) options.valueOf("threads");
+		int numSpanThreads = (Integer) options.valueOf("spanThreads");
+		int numLoadThreads = (Integer) options.valueOf("loadThreads");
+		int unifyCacheSize = (Integer) options.valueOf("unifyCache");
+		UnifyCache.Eviction unifyCacheEviction = UnifyCache.Eviction.fromString((String) options.valueOf("unifyCacheEviction"));
+		boolean arena = (Boolean) options.valueOf("arena");
+		boolean offHeapChart = (Boolean) options.valueOf("offHeapChart");
+		String offHeapChartDir = (String) options.valueOf("offHeapChartDir");
 
 		System.setProperty("logLevel", options.has("verbose") ? "trace" : "info");
 		System.setProperty("logFile", logFile);
@@ -68,55 +88,116 @@ public class Parser {
 
 		logger.info(Params.printOptions(options));
 
-		Lexicon lexicon = null;
-		ChartParser parser = null;
+		ArrayList<Pair<ChartParser, ViterbiDecoder>> workers = new ArrayList<Pair<ChartParser, ViterbiDecoder>>();
 
 		try {
-			lexicon = new Lexicon(lexiconFile);
-			parser = new ChartParser(grammarDir, altMarkedup,
-					eisnerNormalForm, MAX_WORDS, MAX_SUPERCATS,
-					oracleFscore, adaptiveSupertagging, ruleInstancesParams,
-					lexicon, featuresFile, weightsFile, false, compactWeights, betas);
+			ParserModel model;
+
+			if ( modelFile != null ) {
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, new ModelBundle(modelFile), false, mapWeights);
+			} else if ( featureHashBits > 0 ) {
+				// shared by the parsers, so no collision statistics
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, new Lexicon(lexiconFile),
+						new FeatureHashing(featureHashBits, false), weightsFile, false);
+			} else if ( numLoadThreads > 1 ) {
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, lexiconFile,
+						featuresFile, weightsFile, false, compactWeights, numLoadThreads);
+			} else {
+				Lexicon lexicon = new Lexicon(lexiconFile);
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, lexicon,
+						featuresFile, weightsFile, false, compactWeights);
+			}
+			model.features.packFeatureIDs();
+
+			for ( int i = 0; i < Math.max(numThreads, 1); i++ ) {
+				ChartParser parser = new ChartParser(model, MAX_WORDS, MAX_SUPERCATS,
+						oracleFscore, adaptiveSupertagging, betas);
+				parser.setSpanThreads(numSpanThreads);
+				parser.setUnifyCache(unifyCacheSize, unifyCacheEviction);
+				// off-heap storage comes from the arenas, so needs them
+				parser.setArena(arena || offHeapChart, offHeapChart,
+						offHeapChartDir.isEmpty() ? null : new File(offHeapChartDir));
+				workers.add(new Pair<ChartParser, ViterbiDecoder>(parser, new ViterbiDecoder()));
+			}
 		} catch ( IOException e ) {
 			logger.error(e);
 			return;
 		}
 
-		ViterbiDecoder viterbiDecoder = new ViterbiDecoder();
-
 		try ( BufferedReader in = new BufferedReader(new FileReader(inputFile));
 				PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(outputFile))) ) {
 
 			Preface.readPreface(in);
 			Preface.printPreface(out);
 
-			Sentences sentences = new Sentences(in, null, parser.categories, MAX_WORDS);
+			Sentences sentences = new Sentences(in, null, workers.get(0).x.categories, MAX_WORDS);
 			sentences.skip(fromSentence - 1);
 
-			for ( int numSentence = fromSentence; numSentence <= toSentence && sentences.hasNext(); numSentence++ ) {
-				logger.info("Parsing sentence " + numSentence);
+			if ( workers.size() == 1 ) {
+				Pair<ChartParser, ViterbiDecoder> worker = workers.get(0);
 
-				parser.parseSentence(sentences.next());
-
-				if ( !parser.maxWordsExceeded && !parser.maxSuperCatsExceeded ) {
-					boolean success = parser.calcScores();
-
-					if ( success ) {
-						viterbiDecoder.decode(parser.chart, parser.sentence);
-						viterbiDecoder.print(out, parser.categories.dependencyRelations, parser.sentence);
+				for ( int numSentence = fromSentence; numSentence <= toSentence && sentences.hasNext(); numSentence++ ) {
+					parse(worker.x, worker.y, numSentence, sentences.next(), out, logger);
+				}
+			} else {
+				OrderedWorkerPool.Job<Pair<ChartParser, ViterbiDecoder>, Pair<Integer, Sentence>> job =
+						new OrderedWorkerPool.Job<Pair<ChartParser, ViterbiDecoder>, Pair<Integer, Sentence>>() {
+					@Override
+					public void run(Pair<ChartParser, ViterbiDecoder> worker, Pair<Integer, Sentence> item, PrintWriter[] outs) throws IOException {
+						parse(worker.x, worker.y, item.x, item.y, outs[0], logger);
+					}
+				};
 
-						parser.sentence.printC_line(out);
-					} else {
-						logger.info("No root category.");
+				try ( OrderedWorkerPool<Pair<ChartParser, ViterbiDecoder>, Pair<Integer, Sentence>> pool =
+						new OrderedWorkerPool<Pair<ChartParser, ViterbiDecoder>, Pair<Integer, Sentence>>(workers, job, out) ) {
+					for ( int numSentence = fromSentence; numSentence <= toSentence && sentences.hasNext(); numSentence++ ) {
+						pool.submit(new Pair<Integer, Sentence>(numSentence, sentences.next()));
 					}
-				}
 
-				out.println();
+					pool.finish();
+				}
 			}
 		} catch ( FileNotFoundException e ) {
 			logger.error(e);
 		} catch ( IOException e ) {
 			logger.error(e);
 		}
+
+		if ( unifyCacheSize > 0 ) {
+			long unifyCacheHits = 0;
+			long unifyCacheLookups = 0;
+
+			for ( Pair<ChartParser, ViterbiDecoder> worker : workers ) {
+				unifyCacheHits += worker.x.unifyCacheHits();
+				unifyCacheLookups += worker.x.unifyCacheHits() + worker.x.unifyCacheMisses();
+			}
+
+			logger.info("Unify cache hits: " + unifyCacheHits + " of " + unifyCacheLookups + " lookups");
+		}
+	}
+
+	private static void parse(ChartParser parser, ViterbiDecoder viterbiDecoder, int numSentence, Sentence sentence, PrintWriter out, Logger logger) throws IOException {
+		logger.info("Parsing sentence " + numSentence);
+
+		parser.parseSentence(sentence);
+
+		if ( !parser.maxWordsExceeded && !parser.maxSuperCatsExceeded ) {
+			boolean success = parser.calcScores();
+
+			if ( success ) {
+				viterbiDecoder.decode(parser.chart, parser.sentence);
+				viterbiDecoder.print(out, parser.categories.dependencyRelations, parser.sentence);
+
+				parser.sentence.printC_line(out);
+			} else {
+				logger.info("No root category.");
+			}
+		}
+
+		out.println();
 	}
 }
@@ -1,23 +1,32 @@
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import cat_combination.RuleInstancesParams;
+import cat_combination.UnifyCache;
 import chart_parser.ChartParserBeam;
 import io.Params;
 import io.Preface;
+import io.Sentence;
 import io.Sentences;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
+import model.FeatureHashing;
 import model.Lexicon;
+import model.ModelBundle;
+import model.ParserModel;
+import utils.OrderedWorkerPool;
+import utils.Pair;
 
 public class ParserBeam {
 	public static void main(String[] args) {
@@ -43,6 +52,7 @@ public class ParserBeam {
 		String grammarDir = (String) options.valueOf("grammarDir");
 		String lexiconFile = (String) options.valueOf("lexiconFile");
 		String featuresFile = (String) options.valueOf("featuresFile");
+		int featureHashBits = (Integer) options.valueOf("featureHashBits");
 
 		RuleInstancesParams ruleInstancesParams = new RuleInstancesParams(true, false, false, false, false, false, grammarDir);
 
@@ -51,6 +61,7 @@ public class ParserBeam {
 		boolean newFeatures = (Boolean) options.valueOf("newFeatures");
 		boolean compactWeights = (Boolean) options.valueOf("compactWeights");
 		boolean cubePruning = (Boolean) options.valueOf("cubePruning");
+		boolean streamingBeam = (Boolean) options.valueOf("streamingBeam");
 		boolean depnn = options.has("depnn");
 
 		String modelDir = null;
@@ -65,9 +76,9 @@ public class ParserBeam {
 			nnNegThres = (Double) options.valueOf("nnNegThres");
 		}
 
-		boolean skimmer = (Boolean) options.valueOf("skimmer");
-		boolean printChartDeps = (Boolean) options.valueOf("printChartDeps");
-		boolean printChartFeatures = (Boolean) options.valueOf("printChartFeatures");
+		final boolean skimmer = (Boolean) options.valueOf("skimmer");
+		final boolean printChartDeps = (Boolean) options.valueOf("printChartDeps");
+		final boolean printChartFeatures = (Boolean) options.valueOf("printChartFeatures");
 		double[] betas = Params.betasArray((String) options.valueOf("betas"));
 		int beamSize = (Integer) options.valueOf("beamSize");
 		double beta = (Double) options.valueOf("beta");
@@ -76,8 +87,18 @@ public class ParserBeam {
 		String outputFile = (String) options.valueOf("output");
 		String logFile = (String) options.valueOf("log");
 		String weightsFile = (String) options.valueOf("weights");
+		String modelFile = (String) options.valueOf("model");
+		boolean mapWeights = (Boolean) options.valueOf("mapWeights");
 		int fromSentence = (Integer) options.valueOf("from");
 		int toSentence = (Integer) options.valueOf("to");
+		int numThreads = (Integer) options.valueOf("threads");
+		int numSpanThreads = (Integer) options.valueOf("spanThreads");
+		int numLoadThreads = (Integer) options.valueOf("loadThreads");
+		int unifyCacheSize = (Integer) options.valueOf("unifyCache");
+		UnifyCache.Eviction unifyCacheEviction = UnifyCache.Eviction.fromString((String) options.valueOf("unifyCacheEviction"));
+		boolean arena = (Boolean) options.valueOf("arena");
+		boolean offHeapChart = (Boolean) options.valueOf("offHeapChart");
+		String offHeapChartDir = (String) options.valueOf("offHeapChartDir");
 
 		System.setProperty("logLevel", options.has("verbose") ? "trace" : "info");
 		System.setProperty("logFile", logFile);
@@ -85,17 +106,44 @@ public class ParserBeam {
 
 		logger.info(Params.printOptions(options));
 
-		Lexicon lexicon = null;
-		ChartParserBeam parser = null;
+		ArrayList<ChartParserBeam> parsers = new ArrayList<ChartParserBeam>();
 
 		try {
-			lexicon = new Lexicon(lexiconFile);
-			parser = new ChartParserBeam(grammarDir, altMarkedup,
-					eisnerNormalForm, MAX_WORDS,
-					ruleInstancesParams, lexicon, featuresFile, weightsFile,
-					newFeatures, compactWeights, cubePruning, betas, beamSize, beta);
-			if ( depnn ) {
-				parser.initDepNN(modelDir, nnHardLabels, nnPosThres, nnNegThres);
+			ParserModel model;
+
+			if ( modelFile != null ) {
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, new ModelBundle(modelFile), newFeatures, mapWeights);
+			} else if ( featureHashBits > 0 ) {
+				// shared by the parsers, so no collision statistics
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, new Lexicon(lexiconFile),
+						new FeatureHashing(featureHashBits, false), weightsFile, newFeatures);
+			} else if ( numLoadThreads > 1 ) {
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, lexiconFile,
+						featuresFile, weightsFile, newFeatures, compactWeights, numLoadThreads);
+			} else {
+				Lexicon lexicon = new Lexicon(lexiconFile);
+				model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, lexicon,
+						featuresFile, weightsFile, newFeatures, compactWeights);
+			}
+			model.features.packFeatureIDs();
+
+			for ( int i = 0; i < Math.max(numThreads, 1); i++ ) {
+				ChartParserBeam parser = new ChartParserBeam(model, MAX_WORDS,
+						cubePruning, betas, beamSize, beta);
+				parser.setSpanThreads(numSpanThreads);
+				parser.setUnifyCache(unifyCacheSize, unifyCacheEviction);
+				// off-heap storage comes from the arenas, so needs them
+				parser.setArena(arena || offHeapChart, offHeapChart,
+						offHeapChartDir.isEmpty() ? null : new File(offHeapChartDir));
+				parser.setStreamingBeam(streamingBeam);
+				if ( depnn ) {
+					parser.initDepNN(modelDir, nnHardLabels, nnPosThres, nnNegThres);
+				}
+				parsers.add(parser);
 			}
 		} catch ( IOException e ) {
 			logger.error(e);
@@ -120,44 +168,34 @@ public class ParserBeam {
 				Preface.printPreface(outChartFeatures);
 			}
 
-			Sentences sentences = new Sentences(in, null, parser.categories, MAX_WORDS);
+			Sentences sentences = new Sentences(in, null, parsers.get(0).categories, MAX_WORDS);
 			sentences.skip(fromSentence - 1);
 
-			for ( int numSentence = fromSentence; numSentence <= toSentence && sentences.hasNext(); numSentence++ ) {
-				logger.info("Parsing sentence " + numSentence);
-
-				parser.parseSentence(sentences.next());
+			if ( parsers.size() == 1 ) {
+				ChartParserBeam parser = parsers.get(0);
 
-				if ( !parser.maxWordsExceeded ) {
-					boolean success = parser.root();
-
-					if ( success ) {
-						parser.printDeps(out, parser.categories.dependencyRelations, parser.sentence);
-						parser.sentence.printC_line(out);
-					} else {
-						logger.info("No root category.");
-
-						if ( skimmer ) {
-							logger.info("Calling skimmer");
-							parser.skimmer(out, parser.categories.dependencyRelations, parser.sentence);
-							parser.sentence.printC_line(out);
-						}
+				for ( int numSentence = fromSentence; numSentence <= toSentence && sentences.hasNext(); numSentence++ ) {
+					parse(parser, numSentence, sentences.next(), skimmer, printChartDeps, printChartFeatures,
+							out, outChartDeps, outFeatures, outChartFeatures, logger);
+				}
+			} else {
+				OrderedWorkerPool.Job<ChartParserBeam, Pair<Integer, Sentence>> job =
+						new OrderedWorkerPool.Job<ChartParserBeam, Pair<Integer, Sentence>>() {
+					@Override
+					public void run(ChartParserBeam parser, Pair<Integer, Sentence> item, PrintWriter[] outs) throws IOException {
+						parse(parser, item.x, item.y, skimmer, printChartDeps, printChartFeatures,
+								outs[0], outs[1], outs[2], outs[3], logger);
 					}
+				};
 
-					if ( printChartFeatures ) {
-						parser.printFeatures(outFeatures, parser.sentence);
+				try ( OrderedWorkerPool<ChartParserBeam, Pair<Integer, Sentence>> pool =
+						new OrderedWorkerPool<ChartParserBeam, Pair<Integer, Sentence>>(parsers, job,
+								out, outChartDeps, outFeatures, outChartFeatures) ) {
+					for ( int numSentence = fromSentence; numSentence <= toSentence && sentences.hasNext(); numSentence++ ) {
+						pool.submit(new Pair<Integer, Sentence>(numSentence, sentences.next()));
 					}
-				}
 
-				out.println();
-
-				if ( printChartDeps ) {
-					parser.printChartDeps(outChartDeps, parser.categories.dependencyRelations, parser.sentence);
-				}
-
-				if ( printChartFeatures ) {
-					outFeatures.println();
-					parser.printChartFeatures(outChartFeatures, parser.sentence);
+					pool.finish();
 				}
 			}
 		} catch ( FileNotFoundException e ) {
@@ -165,5 +203,58 @@ public class ParserBeam {
 		} catch ( IOException e ) {
 			logger.error(e);
 		}
+
+		if ( unifyCacheSize > 0 ) {
+			long unifyCacheHits = 0;
+			long unifyCacheLookups = 0;
+
+			for ( ChartParserBeam parser : parsers ) {
+				unifyCacheHits += parser.unifyCacheHits();
+				unifyCacheLookups += parser.unifyCacheHits() + parser.unifyCacheMisses();
+			}
+
+			logger.info("Unify cache hits: " + unifyCacheHits + " of " + unifyCacheLookups + " lookups");
+		}
+	}
+
+	private static void parse(ChartParserBeam parser, int numSentence, Sentence sentence,
+			boolean skimmer, boolean printChartDeps, boolean printChartFeatures,
+			PrintWriter out, PrintWriter outChartDeps, PrintWriter outFeatures, PrintWriter outChartFeatures,
+			Logger logger) throws IOException {
+		logger.info("Parsing sentence " + numSentence);
+
+		parser.parseSentence(sentence);
+
+		if ( !parser.maxWordsExceeded ) {
+			boolean success = parser.root();
+
+			if ( success ) {
+				parser.printDeps(out, parser.categories.dependencyRelations, parser.sentence);
+				parser.sentence.printC_line(out);
+			} else {
+				logger.info("No root category.");
+
+				if ( skimmer ) {
+					logger.info("Calling skimmer");
+					parser.skimmer(out, parser.categories.dependencyRelations, parser.sentence);
+					parser.sentence.printC_line(out);
+				}
+			}
+
+			if ( printChartFeatures ) {
+				parser.printFeatures(outFeatures, parser.sentence);
+			}
+		}
+
+		out.println();
+
+		if ( printChartDeps ) {
+			parser.printChartDeps(outChartDeps, parser.categories.dependencyRelations, parser.sentence);
+		}
+
+		if ( printChartFeatures ) {
+			outFeatures.println();
+			parser.printChartFeatures(outChartFeatures, parser.sentence);
+		}
 	}
 }
@@ -17,7 +17,9 @@ import io.Sentences;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
+import model.FeatureHashing;
 import model.Lexicon;
+import model.ParserModel;
 import training.PrintForest;
 
 public class PrintForests {
@@ -45,6 +47,7 @@ public class PrintForests {
 		String grammarDir = (String) options.valueOf("grammarDir");
 		String lexiconFile = (String) options.valueOf("lexiconFile");
 		String featuresFile = (String) options.valueOf("featuresFile");
+		int featureHashBits = (Integer) options.valueOf("featureHashBits");
 
 		RuleInstancesParams ruleInstancesParams = new RuleInstancesParams(true, false, false, false, false, false, grammarDir);
 
@@ -75,10 +78,20 @@ public class PrintForests {
 
 		try {
 			lexicon = new Lexicon(lexiconFile);
-			parser = new ChartParser(grammarDir, altMarkedup,
-					eisnerNormalForm, MAX_WORDS, MAX_SUPERCATS,
-					oracleFscore, adaptiveSupertagging, ruleInstancesParams,
-					lexicon, featuresFile, null, false, false, betas);
+			if ( featureHashBits > 0 ) {
+				// the forests are in terms of hashed IDs, for TrainLogLinear
+				ParserModel model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, lexicon,
+						new FeatureHashing(featureHashBits, true), null, false);
+				parser = new ChartParser(model, MAX_WORDS, MAX_SUPERCATS,
+						oracleFscore, adaptiveSupertagging, betas);
+			} else {
+				parser = new ChartParser(grammarDir, altMarkedup,
+						eisnerNormalForm, MAX_WORDS, MAX_SUPERCATS,
+						oracleFscore, adaptiveSupertagging, ruleInstancesParams,
+						lexicon, featuresFile, null, false, false, betas);
+			}
+			parser.chart.setLeafScores(true);
 			oracleDecoder = new OracleDepsSumDecoder(parser.categories, false, true, true);
 		} catch ( IOException e ) {
 			logger.error(e);
@@ -120,6 +133,10 @@ public class PrintForests {
 					forest.print(out, parser.chart, parser.sentence);
 				}
 			}
+
+			if ( featureHashBits > 0 ) {
+				parser.features.getHashing().logStats(logger);
+			}
 		} catch ( FileNotFoundException e ) {
 			logger.error(e);
 		} catch ( IOException e ) {
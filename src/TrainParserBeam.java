@@ -22,7 +22,9 @@ import io.Sentences;
 import joptsimple.OptionException;
 import joptsimple.OptionParser;
 import joptsimple.OptionSet;
+import model.FeatureHashing;
 import model.Lexicon;
+import model.ParserModel;
 
 public class TrainParserBeam {
 	public static void main(String[] args) {
@@ -48,6 +50,7 @@ public class TrainParserBeam {
 		String grammarDir = (String) options.valueOf("grammarDir");
 		String lexiconFile = (String) options.valueOf("lexiconFile");
 		String featuresFile = (String) options.valueOf("featuresFile");
+		int featureHashBits = (Integer) options.valueOf("featureHashBits");
 
 		RuleInstancesParams ruleInstancesParams = new RuleInstancesParams(true, false, false, false, false, false, grammarDir);
 
@@ -98,11 +101,20 @@ public class TrainParserBeam {
 
 		try {
 			lexicon = new Lexicon(lexiconFile);
-			parser = new ChartTrainParserBeam(grammarDir, altMarkedup,
-					eisnerNormalForm, MAX_WORDS,
-					ruleInstancesParams, lexicon, featuresFile, weightsFile,
-					newFeatures, cubePruning, betas, beamSize, beta, parallelUpdate,
-					updateLogP, updateDepNN);
+			if ( featureHashBits > 0 ) {
+				ParserModel model = new ParserModel(grammarDir, altMarkedup,
+						eisnerNormalForm, ruleInstancesParams, lexicon,
+						new FeatureHashing(featureHashBits, true), weightsFile, newFeatures);
+				parser = new ChartTrainParserBeam(model, MAX_WORDS,
+						cubePruning, betas, beamSize, beta, parallelUpdate,
+						updateLogP, updateDepNN);
+			} else {
+				parser = new ChartTrainParserBeam(grammarDir, altMarkedup,
+						eisnerNormalForm, MAX_WORDS,
+						ruleInstancesParams, lexicon, featuresFile, weightsFile,
+						newFeatures, cubePruning, betas, beamSize, beta, parallelUpdate,
+						updateLogP, updateDepNN);
+			}
 			oracleDecoder = new OracleDepsSumDecoder(parser.categories, false, true ,true);
 			parser.setOracleDecoder(oracleDecoder);
 			if ( depnn ) {
@@ -172,6 +184,10 @@ public class TrainParserBeam {
 
 					Preface.printPreface(outIter);
 					parser.printWeights(outIter, numTrainInstances);
+
+					if ( featureHashBits > 0 ) {
+						parser.features.getHashing().logStats(logger);
+					}
 				}
 			}
 
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import io.Sentence;
 import lexicon.Categories;
 import lexicon.Category;
+import lexicon.CategoryInterner;
 import lexicon.VarID;
 
 public class Combinators {
@@ -14,10 +15,15 @@ public class Combinators {
 	RuleInstancesParams ruleInstancesParams; // settings determine which seen_rule instances are used
 	RuleInstances coordinationRuleInstances;
 	RuleInstances backwardCompRuleInstances;
+	RuleCounts counts;
+	CategoryInterner interner;
+	SuperCategoryArena arena; // null unless SuperCategories are allocated from an arena
 
-	public Combinators(boolean eisnerNormalForm, Categories categories, RuleInstancesParams ruleInstancesParams) throws IOException {
+	public Combinators(boolean eisnerNormalForm, Categories categories, RuleInstancesParams ruleInstancesParams, RuleCounts counts) throws IOException {
 		this.ruleInstancesParams = ruleInstancesParams;
 		this.eisnerNormalForm = eisnerNormalForm;
+		this.counts = counts;
+		this.interner = categories.interner;
 		unification = new Unify();
 		if (ruleInstancesParams.getConj()) {
 			coordinationRuleInstances = new RuleInstances(ruleInstancesParams.getDirectory() + "/conj_rule_instances", categories);
@@ -27,6 +33,17 @@ public class Combinators {
 		}
 	}
 
+	public Combinators(Combinators other, RuleCounts counts) {
+		this.ruleInstancesParams = other.ruleInstancesParams;
+		this.eisnerNormalForm = other.eisnerNormalForm;
+		this.counts = counts;
+		this.interner = other.interner;
+		unification = new Unify(other.unification);
+		arena = (other.arena != null) ? other.arena.emptyCopy() : null;
+		coordinationRuleInstances = other.coordinationRuleInstances;
+		backwardCompRuleInstances = other.backwardCompRuleInstances;
+	}
+
 	private boolean application(SuperCategory leftSuperCat, SuperCategory rightSuperCat, boolean FWD_APP, ArrayList<SuperCategory> results, Sentence sentence) {
 		/*
 		 * note that unification doesn't know anything about Variable objects,
@@ -74,24 +91,24 @@ public class Combinators {
 
 		Category resultCat;
 		if (FWD_APP) {
-			resultCat = Category.TransVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
+			resultCat = interner.transVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
 		} else {
-			resultCat = Category.TransVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
+			resultCat = interner.transVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
 		}
 
 		SuperCategory resultSuperCat;
 		if (FWD_APP) {
-			resultSuperCat = SuperCategory.BinaryCombinator(resultCat, SuperCategory.FWD_APP, leftSuperCat, rightSuperCat, unification, sentence);
+			resultSuperCat = SuperCategory.BinaryCombinator(resultCat, SuperCategory.FWD_APP, leftSuperCat, rightSuperCat, unification, arena, sentence);
 		} else {
-			resultSuperCat = SuperCategory.BinaryCombinator(resultCat, SuperCategory.BWD_APP, leftSuperCat, rightSuperCat, unification, sentence);
+			resultSuperCat = SuperCategory.BinaryCombinator(resultCat, SuperCategory.BWD_APP, leftSuperCat, rightSuperCat, unification, arena, sentence);
 		}
 
 		if (resultSuperCat != null) {
 			results.add(resultSuperCat);
 			if (FWD_APP) {
-				Rules.forwardAppCount++;
+				counts.forwardAppCount++;
 			} else {
-				Rules.backwardAppCount++;
+				counts.backwardAppCount++;
 			}
 			return true;
 		} else {
@@ -178,12 +195,12 @@ public class Combinators {
 		// leftCat and rightCat not the best names here
 		Category leftCat, rightCat;
 		if (compositionType == SuperCategory.FWD_COMP) {
-			leftCat = Category.TransVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
-			rightCat = Category.TransVariable(rightSuperCat.cat.argument, unification.trans2, unification.feature);
+			leftCat = interner.transVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
+			rightCat = interner.transVariable(rightSuperCat.cat.argument, unification.trans2, unification.feature);
 		} else {
 			// applies to both BWD_COMP and BWD_CROSS
-			rightCat = Category.TransVariable(leftSuperCat.cat.argument, unification.trans1, unification.feature);
-			leftCat = Category.TransVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
+			rightCat = interner.transVariable(leftSuperCat.cat.argument, unification.trans1, unification.feature);
+			leftCat = interner.transVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
 		}
 
 		var1 = unification.trans1[var1]; // new variable for the "outer"
@@ -200,16 +217,16 @@ public class Combinators {
 			// backward-cross composition
 		}
 
-		resultCat = new Category(leftCat, slash, rightCat, var1, (short) (0), (short) (0));
-		resultSuperCat = SuperCategory.BinaryCombinator(resultCat, compositionType, leftSuperCat, rightSuperCat, unification, sentence);
+		resultCat = interner.complex(leftCat, slash, rightCat, var1, (short) (0), (short) (0));
+		resultSuperCat = SuperCategory.BinaryCombinator(resultCat, compositionType, leftSuperCat, rightSuperCat, unification, arena, sentence);
 		if (resultSuperCat != null) {
 			results.add(resultSuperCat);
 			if (compositionType == SuperCategory.FWD_COMP) {
-				Rules.forwardCompCount++;
+				counts.forwardCompCount++;
 			} else if (compositionType == SuperCategory.BWD_COMP) {
-				Rules.backwardCompCount++;
+				counts.backwardCompCount++;
 			} else if (compositionType == SuperCategory.BWD_CROSS) {
-				Rules.backwardCrossCount++;
+				counts.backwardCrossCount++;
 			}
 			return true;
 		} else {
@@ -328,42 +345,42 @@ public class Combinators {
 		SuperCategory resultSuperCat;
 		byte innerVar;
 		if (compositionType == SuperCategory.FWD_COMP) {
-			innerResult = Category.TransVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
-			innerArgument = Category.TransVariable(rightSuperCat.cat.result.argument, unification.trans2, unification.feature);
+			innerResult = interner.transVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
+			innerArgument = interner.transVariable(rightSuperCat.cat.result.argument, unification.trans2, unification.feature);
 			innerVar = unification.trans2[rightSuperCat.cat.result.var];
-			newResult = new Category(innerResult, rightSuperCat.cat.result.slash, innerArgument, innerVar, rightSuperCat.cat.result.relID, rightSuperCat.cat.result.lrange);
-			newArgument = Category.TransVariable(rightSuperCat.cat.argument, unification.trans2, unification.feature);
+			newResult = interner.complex(innerResult, rightSuperCat.cat.result.slash, innerArgument, innerVar, rightSuperCat.cat.result.relID, rightSuperCat.cat.result.lrange);
+			newArgument = interner.transVariable(rightSuperCat.cat.argument, unification.trans2, unification.feature);
 		} else {
 			// BWD_CROSS case
-			innerResult = Category.TransVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
-			innerArgument = Category.TransVariable(leftSuperCat.cat.result.argument, unification.trans1, unification.feature);
+			innerResult = interner.transVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
+			innerArgument = interner.transVariable(leftSuperCat.cat.result.argument, unification.trans1, unification.feature);
 			innerVar = unification.trans1[leftSuperCat.cat.result.var];
-			newResult = new Category(innerResult, leftSuperCat.cat.result.slash, innerArgument, innerVar, leftSuperCat.cat.result.relID, leftSuperCat.cat.result.lrange);
-			newArgument = Category.TransVariable(leftSuperCat.cat.argument, unification.trans1, unification.feature);
+			newResult = interner.complex(innerResult, leftSuperCat.cat.result.slash, innerArgument, innerVar, leftSuperCat.cat.result.relID, leftSuperCat.cat.result.lrange);
+			newArgument = interner.transVariable(leftSuperCat.cat.argument, unification.trans1, unification.feature);
 		}
 		var1 = unification.trans1[var1]; // new variable for the "outer"
 		// variable on the new category
 
 		if (compositionType == SuperCategory.FWD_COMP) {
-			newCategory = new Category(newResult, rightSuperCat.cat.slash, newArgument, var1, rightSuperCat.cat.relID, rightSuperCat.cat.lrange);
+			newCategory = interner.complex(newResult, rightSuperCat.cat.slash, newArgument, var1, rightSuperCat.cat.relID, rightSuperCat.cat.lrange);
 		} else {
 			// BWD_CROSS case
-			newCategory = new Category(newResult, leftSuperCat.cat.slash, newArgument, var1, leftSuperCat.cat.relID, rightSuperCat.cat.lrange);
+			newCategory = interner.complex(newResult, leftSuperCat.cat.slash, newArgument, var1, leftSuperCat.cat.relID, rightSuperCat.cat.lrange);
 		}
 
 		if (compositionType == SuperCategory.FWD_COMP) {
-			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.FWD_COMP | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, sentence);
+			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.FWD_COMP | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, arena, sentence);
 		} else {
 			// BWD_CROSS case
-			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.BWD_CROSS | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, sentence);
+			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.BWD_CROSS | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, arena, sentence);
 		}
 
 		if (resultSuperCat != null) {
 			results.add(resultSuperCat);
 			if (compositionType == SuperCategory.FWD_COMP) {
-				Rules.genForwardCompCount++;
+				counts.genForwardCompCount++;
 			} else if (compositionType == SuperCategory.BWD_CROSS) {
-				Rules.genBackwardCrossCount++;
+				counts.genBackwardCrossCount++;
 			}
 			return true;
 		} else {
@@ -505,47 +522,47 @@ public class Combinators {
 		SuperCategory resultSuperCat;
 		byte innerVar, innerInnerVar;
 		if (compositionType == SuperCategory.FWD_COMP) {
-			innerInnerResult = Category.TransVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
-			innerInnerArgument = Category.TransVariable(rightSuperCat.cat.result.result.argument, unification.trans2, unification.feature);
+			innerInnerResult = interner.transVariable(leftSuperCat.cat.result, unification.trans1, unification.feature);
+			innerInnerArgument = interner.transVariable(rightSuperCat.cat.result.result.argument, unification.trans2, unification.feature);
 			innerInnerVar = unification.trans2[rightSuperCat.cat.result.result.var];
-			innerResult = new Category(innerInnerResult, rightSuperCat.cat.result.result.slash, innerInnerArgument, innerInnerVar, rightSuperCat.cat.result.result.relID, rightSuperCat.cat.result.result.lrange);
-			innerArgument = Category.TransVariable(rightSuperCat.cat.result.argument, unification.trans2, unification.feature);
+			innerResult = interner.complex(innerInnerResult, rightSuperCat.cat.result.result.slash, innerInnerArgument, innerInnerVar, rightSuperCat.cat.result.result.relID, rightSuperCat.cat.result.result.lrange);
+			innerArgument = interner.transVariable(rightSuperCat.cat.result.argument, unification.trans2, unification.feature);
 			innerVar = unification.trans2[rightSuperCat.cat.result.var];
-			newResult = new Category(innerResult, rightSuperCat.cat.result.slash, innerArgument, innerVar, rightSuperCat.cat.result.relID, rightSuperCat.cat.result.lrange);
-			newArgument = Category.TransVariable(rightSuperCat.cat.argument, unification.trans2, unification.feature);
+			newResult = interner.complex(innerResult, rightSuperCat.cat.result.slash, innerArgument, innerVar, rightSuperCat.cat.result.relID, rightSuperCat.cat.result.lrange);
+			newArgument = interner.transVariable(rightSuperCat.cat.argument, unification.trans2, unification.feature);
 		} else {
 			// BWD_CROSS case
-			innerInnerResult = Category.TransVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
-			innerInnerArgument = Category.TransVariable(leftSuperCat.cat.result.result.argument, unification.trans1, unification.feature);
+			innerInnerResult = interner.transVariable(rightSuperCat.cat.result, unification.trans2, unification.feature);
+			innerInnerArgument = interner.transVariable(leftSuperCat.cat.result.result.argument, unification.trans1, unification.feature);
 			innerInnerVar = unification.trans1[leftSuperCat.cat.result.result.var];
-			innerResult = new Category(innerInnerResult, leftSuperCat.cat.result.result.slash, innerInnerArgument, innerInnerVar, leftSuperCat.cat.result.result.relID, leftSuperCat.cat.result.result.lrange);
-			innerArgument = Category.TransVariable( leftSuperCat.cat.result.argument, unification.trans1, unification.feature);
+			innerResult = interner.complex(innerInnerResult, leftSuperCat.cat.result.result.slash, innerInnerArgument, innerInnerVar, leftSuperCat.cat.result.result.relID, leftSuperCat.cat.result.result.lrange);
+			innerArgument = interner.transVariable( leftSuperCat.cat.result.argument, unification.trans1, unification.feature);
 			innerVar = unification.trans1[leftSuperCat.cat.result.var];
-			newResult = new Category(innerResult, leftSuperCat.cat.result.slash, innerArgument, innerVar, leftSuperCat.cat.result.relID, leftSuperCat.cat.result.lrange);
-			newArgument = Category.TransVariable(leftSuperCat.cat.argument, unification.trans1, unification.feature);
+			newResult = interner.complex(innerResult, leftSuperCat.cat.result.slash, innerArgument, innerVar, leftSuperCat.cat.result.relID, leftSuperCat.cat.result.lrange);
+			newArgument = interner.transVariable(leftSuperCat.cat.argument, unification.trans1, unification.feature);
 		}
 		var1 = unification.trans1[var1]; // new variable for the "outer"
 		// variable on the new category
 
 		if (compositionType == SuperCategory.FWD_COMP) {
-			newCategory = new Category(newResult, rightSuperCat.cat.slash, newArgument, var1, rightSuperCat.cat.relID, rightSuperCat.cat.lrange);
+			newCategory = interner.complex(newResult, rightSuperCat.cat.slash, newArgument, var1, rightSuperCat.cat.relID, rightSuperCat.cat.lrange);
 		} else {
 			// BWD_CROSS case
-			newCategory = new Category(newResult, leftSuperCat.cat.slash, newArgument, var1, leftSuperCat.cat.relID, rightSuperCat.cat.lrange);
+			newCategory = interner.complex(newResult, leftSuperCat.cat.slash, newArgument, var1, leftSuperCat.cat.relID, rightSuperCat.cat.lrange);
 		}
 
 		if (compositionType == SuperCategory.FWD_COMP) {
-			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.FWD_COMP | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, sentence);
+			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.FWD_COMP | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, arena, sentence);
 		} else {
 			// BWD_CROSS case
-			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.BWD_CROSS | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, sentence);
+			resultSuperCat = SuperCategory.BinaryCombinator(newCategory, (short) (SuperCategory.BWD_CROSS | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, arena, sentence);
 		}
 		if (resultSuperCat != null) {
 			results.add(resultSuperCat);
 			if (compositionType == SuperCategory.FWD_COMP) {
-				Rules.genForwardCompCount++;
+				counts.genForwardCompCount++;
 			} else if (compositionType == SuperCategory.BWD_CROSS) {
-				Rules.genBackwardCrossCount++;
+				counts.genBackwardCrossCount++;
 			}
 			return true;
 		} else {
@@ -630,13 +647,13 @@ public class Combinators {
 		 * constructor
 		 */
 		unification.addVars1(leftSuperCat.cat);
-		SuperCategory resultSuperCat = SuperCategory.BinaryCombinator(leftSuperCat.cat, (short) (SuperCategory.BWD_COMP | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, sentence);
+		SuperCategory resultSuperCat = SuperCategory.BinaryCombinator(leftSuperCat.cat, (short) (SuperCategory.BWD_COMP | SuperCategory.RECURSIVE), leftSuperCat, rightSuperCat, unification, arena, sentence);
 		/*
 		 * the BinaryCombinator can return null, to rule out some pathological
 		 * cases in which numActiveVars > nuMVars
 		 */
 		if (resultSuperCat != null) {
-			Rules.genBackwardCompCount++;
+			counts.genBackwardCompCount++;
 			results.add(resultSuperCat);
 			return true;
 		} else {
@@ -679,9 +696,9 @@ public class Combinators {
 		 * are effectively immutable; they only get copied when they need to be
 		 * changed, eg when using the TransVariable constructor
 		 */
-		Category cat = new Category(rightSuperCat.cat, Category.BWD_SLASH, rightSuperCat.cat, VarID.NONE, (short) (0), (short) (0));
+		Category cat = interner.complex(rightSuperCat.cat, Category.BWD_SLASH, rightSuperCat.cat, VarID.NONE, (short) (0), (short) (0));
 		results.add(SuperCategory.Coordination(cat, SuperCategory.CONJ, leftSuperCat, rightSuperCat));
-		Rules.conjCount++;
+		counts.conjCount++;
 		return true;
 	}
 
@@ -697,7 +714,7 @@ public class Combinators {
 		}
 
 		results.add(SuperCategory.Punct(rightSuperCat.cat, SuperCategory.FUNNY_CONJ, leftSuperCat, rightSuperCat, rightSuperCat));
-		Rules.funnyConjCount++;
+		counts.funnyConjCount++;
 		return true;
 	}
 
@@ -706,7 +723,7 @@ public class Combinators {
 	public boolean apposition(SuperCategory leftSuperCat, SuperCategory rightSuperCat, ArrayList<SuperCategory> results) {
 		if ((leftSuperCat.cat.isNP() && rightSuperCat.cat.isNP()) || (leftSuperCat.cat.isSdcl() && rightSuperCat.cat.isSdcl())) {
 			results.add(SuperCategory.Apposition(SuperCategory.APPO, leftSuperCat, rightSuperCat));
-			Rules.appositionCount++;
+			counts.appositionCount++;
 			return true;
 		} else {
 			return false;
@@ -68,6 +68,19 @@ public class Dependency implements Comparable<Dependency> {
 		this.lrange = (lrange > other.lrange) ? lrange : other.lrange;
 	}
 
+	/*
+	 * same as the constructor above, but returns other itself if the new
+	 * dependency would be identical to it (dependencies are never changed, so
+	 * SuperCategories can share them)
+	 */
+	public static Dependency translate(Dependency other, byte var, short lrange) {
+		if ( var == other.var && lrange <= other.lrange ) {
+			return other;
+		}
+
+		return new Dependency(other, var, lrange, true);
+	}
+
 	/*
 	 * goes through the Category object collecting all the relations, creating
 	 * dependencies for each one
@@ -89,10 +102,10 @@ public class Dependency implements Comparable<Dependency> {
 	 */
 	private static void get(Variable variable, Category cat, short ruleID, ArrayList<Dependency> resultDeps) {
 		if ( cat.relID != 0 ) {
-			for ( short filler : variable.fillers ) {
-				if ( filler == Variable.SENTINEL ) {
-					break;
-				} else if ( filler != 0 ) {
+			for ( int i = 0; i < variable.numFillers(); i++ ) {
+				short filler = variable.filler(i);
+
+				if ( filler != 0 ) {
 					resultDeps.add(new Dependency(cat.relID, filler, cat.var, ruleID));
 				}
 			}
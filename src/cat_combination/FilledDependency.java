@@ -1,8 +1,6 @@
 package cat_combination;
 
 import java.io.PrintWriter;
-import java.util.ArrayList;
-
 import io.Sentence;
 import lexicon.Categories;
 import lexicon.Relation;
@@ -13,6 +11,11 @@ import utils.Hash;
  * this is the class for filled dependencies; very similar to
  * Dependency (for unfilled deps), but with a constant for the filler*
  *
+ * SuperCategories keep their filled dependencies packed into longs (see
+ * pack()), so objects only get created when the dependencies of a parse
+ * are output; the packed form has relID, headIndex and fillerIndex in the
+ * low KEY_BITS bits, which are the fields equals() compares, so key() of
+ * two packed dependencies is equal iff the dependencies are equal
  */
 
 public class FilledDependency implements Comparable<FilledDependency> {
@@ -24,6 +27,15 @@ public class FilledDependency implements Comparable<FilledDependency> {
 
 	public final short conjFactor; // average divisor for multiple slot fillers in max-recall decoder
 
+	public static final long[] NONE = new long[0];
+
+	public static final int KEY_BITS = 48;
+	public static final long KEY_MASK = (1L << KEY_BITS) - 1;
+
+	private static final int UNARY_RULE_SHIFT = KEY_BITS;
+	private static final int CONJ_FACTOR_SHIFT = UNARY_RULE_SHIFT + 8;
+	private static final int LRANGE_SHIFT = CONJ_FACTOR_SHIFT + 4;
+
 	public FilledDependency(short relID,
 			short headIndex,
 			short fillerIndex,
@@ -57,14 +69,94 @@ public class FilledDependency implements Comparable<FilledDependency> {
 		}
 	}
 
-	public static ArrayList<FilledDependency> fromUnfilled(Dependency dep, Variable var, short lrange, ArrayList<FilledDependency> deps) {
+	private FilledDependency(long packed) {
+		this.relID = relID(packed);
+		this.headIndex = headIndex(packed);
+		this.fillerIndex = fillerIndex(packed);
+		this.unaryRuleID = unaryRuleID(packed);
+		this.conjFactor = conjFactor(packed);
+		this.lrange = lrange(packed);
+	}
+
+	public static FilledDependency unpack(long packed) {
+		return new FilledDependency(packed);
+	}
+
+	/**
+	 * Packs the dependencies of dep filled by the fillers of var into deps,
+	 * as the FilledDependency(Dependency, short, short, short) constructor
+	 * would create them.
+	 *
+	 * @param dep unfilled dependency
+	 * @param var filled variable
+	 * @param lrange lrange of the filled dependencies; 0 to use dep's
+	 * @param deps packed dependencies
+	 * @param numDeps number of dependencies in deps already
+	 * @return number of dependencies in deps afterwards
+	 */
+	public static int fromUnfilled(Dependency dep, Variable var, short lrange, long[] deps, int numDeps) {
 		short conjFactor = var.countFillers();
 
-		for ( int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++ ) {
-			deps.add(new FilledDependency(dep, var.fillers[i], conjFactor, lrange));
+		for ( int i = 0; i < var.numFillers(); i++ ) {
+			short fillerIndex = var.filler(i);
+
+			if ( fillerIndex == 0 ) {
+				throw new Error("expecting a non-zero filler index when constructing the filled dependency!");
+			}
+
+			deps[numDeps++] = pack(dep.relID, dep.headIndex, fillerIndex, dep.unaryRuleID, conjFactor, (lrange != 0) ? lrange : dep.lrange);
+		}
+
+		return numDeps;
+	}
+
+	public long pack() {
+		return pack(relID, headIndex, fillerIndex, unaryRuleID, conjFactor, lrange);
+	}
+
+	public static long pack(short relID, short headIndex, short fillerIndex, short unaryRuleID, short conjFactor, short lrange) {
+		if ( relID < 0 || headIndex < 0 || fillerIndex < 0 || (unaryRuleID & ~0xFF) != 0 || (conjFactor & ~0xF) != 0 || (lrange & ~0xF) != 0 ) {
+			throw new IllegalArgumentException("Dependency fields out of range: " + headIndex + " " + relID + " " + fillerIndex + " " + unaryRuleID);
 		}
 
-		return deps;
+		return (relID & 0xFFFFL)
+				| (headIndex & 0xFFFFL) << 16
+				| (fillerIndex & 0xFFFFL) << 32
+				| (long) (unaryRuleID) << UNARY_RULE_SHIFT
+				| (long) (conjFactor) << CONJ_FACTOR_SHIFT
+				| (long) (lrange) << LRANGE_SHIFT;
+	}
+
+	/**
+	 * @param packed packed dependency
+	 * @return the fields of packed which equals() compares; never negative
+	 */
+	public static long key(long packed) {
+		return packed & KEY_MASK;
+	}
+
+	public static short relID(long packed) {
+		return (short) (packed);
+	}
+
+	public static short headIndex(long packed) {
+		return (short) (packed >>> 16);
+	}
+
+	public static short fillerIndex(long packed) {
+		return (short) (packed >>> 32);
+	}
+
+	public static short unaryRuleID(long packed) {
+		return (short) ((packed >>> UNARY_RULE_SHIFT) & 0xFF);
+	}
+
+	public static short conjFactor(long packed) {
+		return (short) ((packed >>> CONJ_FACTOR_SHIFT) & 0xF);
+	}
+
+	public static short lrange(long packed) {
+		return (short) ((packed >>> LRANGE_SHIFT) & 0xF);
 	}
 
 	@Override
@@ -140,26 +140,35 @@ public class IgnoreDepsEval {
 
 	// returns true if the dependency is in the class of ignored deps
 	public boolean ignoreDependency(FilledDependency dep, Sentence sentence) {
-		if (ruleIDs.contains(dep.unaryRuleID)) {
+		return ignoreDependency(dep.relID, dep.headIndex, dep.fillerIndex, dep.unaryRuleID, sentence);
+	}
+
+	// same for a packed dependency (see FilledDependency.pack())
+	public boolean ignoreDependency(long dep, Sentence sentence) {
+		return ignoreDependency(FilledDependency.relID(dep), FilledDependency.headIndex(dep), FilledDependency.fillerIndex(dep), FilledDependency.unaryRuleID(dep), sentence);
+	}
+
+	private boolean ignoreDependency(short relID, short headIndex, short fillerIndex, short unaryRuleID, Sentence sentence) {
+		if (ruleIDs.contains(unaryRuleID)) {
 			return true;
 		}
 
-		HashSet<Short> ruleIDsSet = relRuleIDs.get(dep.relID);
-		if (ruleIDsSet != null && ruleIDsSet.contains(dep.unaryRuleID)) {
+		HashSet<Short> ruleIDsSet = relRuleIDs.get(relID);
+		if (ruleIDsSet != null && ruleIDsSet.contains(unaryRuleID)) {
 			return true;
 		}
 
 		// note word indices start at 1 not 0
 		DependencyStringWords depStringWords = new DependencyStringWords(
-				dep.relID, sentence.words.get(dep.headIndex - 1), EMPTY_FILLER,
-				dep.unaryRuleID);
+				relID, sentence.words.get(headIndex - 1), EMPTY_FILLER,
+				unaryRuleID);
 		if (unfilledDeps.contains(depStringWords)) {
 			return true;
 		}
 
-		depStringWords = new DependencyStringWords(dep.relID,
-				sentence.words.get(dep.headIndex - 1),
-				sentence.words.get(dep.fillerIndex - 1), dep.unaryRuleID);
+		depStringWords = new DependencyStringWords(relID,
+				sentence.words.get(headIndex - 1),
+				sentence.words.get(fillerIndex - 1), unaryRuleID);
 		if (filledDeps.contains(depStringWords)) {
 			return true;
 		}
@@ -13,6 +13,7 @@ public class PunctRules {
 	RuleInstances rightPunctRuleInstances;
 	RuleInstances leftPunctRuleInstances;
 	RuleInstances leftPunctConjRuleInstances;
+	RuleCounts counts;
 
 	/*
 	 * needs categories in order to have access to pre-built type-changed
@@ -32,8 +33,9 @@ public class PunctRules {
 	private final Category NPbNP;
 
 	public PunctRules(Categories categories,
-			RuleInstancesParams ruleInstancesParams) throws IOException {
+			RuleInstancesParams ruleInstancesParams, RuleCounts counts) throws IOException {
 		this.ruleInstancesParams = ruleInstancesParams;
+		this.counts = counts;
 
 		if (ruleInstancesParams.getRightPunct()) {
 			rightPunctRuleInstances = new RuleInstances(
@@ -60,6 +62,23 @@ public class PunctRules {
 		NPbNP = categories.getCategory("NP\\NP");
 	}
 
+	public PunctRules(PunctRules other, RuleCounts counts) {
+		this.ruleInstancesParams = other.ruleInstancesParams;
+		this.counts = counts;
+
+		rightPunctRuleInstances = other.rightPunctRuleInstances;
+		leftPunctRuleInstances = other.leftPunctRuleInstances;
+		leftPunctConjRuleInstances = other.leftPunctConjRuleInstances;
+
+		this.categories = other.categories;
+
+		SbS = other.SbS;
+		SfS = other.SfS;
+		SbNPbSbNP = other.SbNPbSbNP;
+		SbNPfSbNP = other.SbNPfSbNP;
+		NPbNP = other.NPbNP;
+	}
+
 	/*
 	 * rightPunct and leftPunct the same - do some refactoring here
 	 */
@@ -77,7 +96,7 @@ public class PunctRules {
 		SuperCategory resultSuperCat = SuperCategory.Punct(leftSuperCat.cat,
 				(short) (SuperCategory.RIGHT_PUNCT | INHERITED_FLAGS),
 				leftSuperCat, rightSuperCat, leftSuperCat);
-		Rules.rightPunctCount++;
+		counts.rightPunctCount++;
 
 		results.add(resultSuperCat);
 		return true;
@@ -98,7 +117,7 @@ public class PunctRules {
 		SuperCategory resultSuperCat = SuperCategory.Punct(rightSuperCat.cat,
 				(short) (SuperCategory.LEFT_PUNCT | INHERITED_FLAGS),
 				leftSuperCat, rightSuperCat, rightSuperCat);
-		Rules.leftPunctCount++;
+		counts.leftPunctCount++;
 		results.add(resultSuperCat);
 		return true;
 	}
@@ -112,9 +131,9 @@ public class PunctRules {
 		 * aside from the flag on the SuperCategory, this is the same as the
 		 * coordination rule in Combinators
 		 */
-		Category cat = new Category(rightSuperCat.cat, Category.BWD_SLASH,
+		Category cat = categories.interner.complex(rightSuperCat.cat, Category.BWD_SLASH,
 				rightSuperCat.cat, VarID.NONE, (short) (0), (short) (0));
-		Rules.leftPunctConjCount++;
+		counts.leftPunctConjCount++;
 		results.add(SuperCategory.Coordination(cat,
 				(short) (SuperCategory.LEFT_PUNCT | SuperCategory.CONJ),
 				leftSuperCat, rightSuperCat));
@@ -192,7 +211,7 @@ public class PunctRules {
 		if (cat.isNP()) { // 55: NP , -> S/S
 			addSuperCat(SfS, leftSuperCat, rightSuperCat, leftSuperCat,
 					(short) (55), flags, false, results);
-			Rules.rightCommaTCCount++;
+			counts.rightCommaTCCount++;
 			return true;
 		} else if (cat.isSdclfSdcl()) {
 			// S[dcl]/S[dcl] , ->
@@ -208,7 +227,7 @@ public class PunctRules {
 			addSuperCat(SbS, leftSuperCat, rightSuperCat, leftSuperCat,
 					(short) (53), flags, true, results);
 			// 53: S\S
-			Rules.rightCommaTCCount++;
+			counts.rightCommaTCCount++;
 			return true;
 		} else if (cat.isSdclbSdcl() && !leftSuperCat.coordinated()) {
 			// 54:
@@ -217,7 +236,7 @@ public class PunctRules {
 			// S/S
 			addSuperCat(SfS, leftSuperCat, rightSuperCat, leftSuperCat,
 					(short) (54), flags, true, results);
-			Rules.rightCommaTCCount++;
+			counts.rightCommaTCCount++;
 			return true;
 		} else {
 			return false;
@@ -236,7 +255,7 @@ public class PunctRules {
 			// 56: , NP -> (S\NP)\(S\NP)
 			addSuperCat(SbNPbSbNP, leftSuperCat, rightSuperCat, rightSuperCat,
 					(short) (56), flags, false, results);
-			Rules.leftCommaTCCount++;
+			counts.leftCommaTCCount++;
 			return true;
 		} else {
 			return false;
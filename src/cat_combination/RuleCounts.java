@@ -0,0 +1,27 @@
+package cat_combination;
+
+/*
+ * counts for how many times the rules are used; each Rules object owns
+ * one of these (and shares it with its Combinators and PunctRules), so
+ * that parsers running on different threads don't write to the same
+ * counters
+ */
+
+public class RuleCounts {
+	public int forwardAppCount;
+	public int backwardAppCount;
+	public int forwardCompCount;
+	public int genForwardCompCount;
+	public int backwardCompCount;
+	public int genBackwardCompCount;
+	public int backwardCrossCount;
+	public int genBackwardCrossCount;
+	public int appositionCount;
+	public int rightPunctCount;
+	public int leftPunctCount;
+	public int leftPunctConjCount;
+	public int leftCommaTCCount;
+	public int rightCommaTCCount;
+	public int conjCount;
+	public int funnyConjCount;
+}
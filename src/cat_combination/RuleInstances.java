@@ -9,24 +9,56 @@ import java.util.HashSet;
 import io.Preface;
 import lexicon.Categories;
 import lexicon.Category;
+import utils.LongHashSet;
 
 public class RuleInstances {
 	HashSet<RuleCategoryPair> ruleInstances;
 
+	/*
+	 * the same pairs as pairs of equivalence IDs (see
+	 * lexicon.CategoryInterner), so that checking a pair of interned
+	 * categories is a single probe into a table of longs; only used while
+	 * all the pairs are interned
+	 */
+	LongHashSet internedInstances;
+	boolean allInterned;
+
 	public RuleInstances(String ruleInstancesFile, Categories categories) throws IOException {
 		ruleInstances = new HashSet<RuleCategoryPair>();
+		internedInstances = new LongHashSet();
+		allInterned = true;
 		if (ruleInstancesFile != null) {
 			readRuleInstances(ruleInstancesFile, categories);
 		}
 	}
 
 	public boolean contains(Category cat1, Category cat2) {
+		int equivalenceID1 = cat1.getEquivalenceID();
+		int equivalenceID2 = cat2.getEquivalenceID();
+
+		if ( allInterned && equivalenceID1 != Category.NO_ID && equivalenceID2 != Category.NO_ID ) {
+			return internedInstances.contains(key(equivalenceID1, equivalenceID2));
+		}
+
 		RuleCategoryPair catPair = new RuleCategoryPair(cat1, cat2);
 		return ruleInstances.contains(catPair);
 	}
 
 	public void add(RuleCategoryPair catPair) {
 		ruleInstances.add(catPair);
+
+		int equivalenceID1 = catPair.cat1.getEquivalenceID();
+		int equivalenceID2 = catPair.cat2.getEquivalenceID();
+
+		if ( equivalenceID1 != Category.NO_ID && equivalenceID2 != Category.NO_ID ) {
+			internedInstances.add(key(equivalenceID1, equivalenceID2));
+		} else {
+			allInterned = false;
+		}
+	}
+
+	private static long key(int equivalenceID1, int equivalenceID2) {
+		return ((long) (equivalenceID1) << 32) | equivalenceID2;
 	}
 
 	public void print(PrintWriter out) {
@@ -48,7 +80,7 @@ public class RuleInstances {
 				Category cat2 = categories.canonize(catString2);
 				RuleCategoryPair catPair = new RuleCategoryPair(cat1, cat2);
 
-				ruleInstances.add(catPair);
+				add(catPair);
 			}
 		} catch (IOException e) {
 			throw e;
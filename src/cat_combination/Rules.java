@@ -22,23 +22,8 @@ public class Rules {
 	 * type-raised categories (for Unary)
 	 */
 
-	// global counts for how many times the rules are used:
-	public static int forwardAppCount;
-	public static int backwardAppCount;
-	public static int forwardCompCount;
-	public static int genForwardCompCount;
-	public static int backwardCompCount;
-	public static int genBackwardCompCount;
-	public static int backwardCrossCount;
-	public static int genBackwardCrossCount;
-	public static int appositionCount;
-	public static int rightPunctCount;
-	public static int leftPunctCount;
-	public static int leftPunctConjCount;
-	public static int leftCommaTCCount;
-	public static int rightCommaTCCount;
-	public static int conjCount;
-	public static int funnyConjCount;
+	// counts for how many times the rules are used by this parser:
+	public RuleCounts counts;
 
 	/*
 	 * these flags are calculated by the static ruleFlags method below and used
@@ -54,6 +39,36 @@ public class Rules {
 	private static final int BRACKET = 7;
 	private static final int NFLAGS = 8;
 
+	/*
+	 * rule classes are the flags above, plus one for categories with too
+	 * many arguments to combine with anything (see combine)
+	 */
+	private static final int MANY_ARGS = NFLAGS;
+	private static final int NUM_RULE_CLASSES = NFLAGS + 1;
+
+	/*
+	 * bit r of COMBINABLE[l] is set if the switch in combine has a case for
+	 * left flags l and right flags r; needs to be kept in line with combine
+	 */
+	private static final int[] COMBINABLE = new int[NUM_RULE_CLASSES];
+
+	static {
+		allow(NONE, NONE, BACKWARD, PERIOD, COLON, BRACKET, COMMA);
+		allow(FORWARD, NONE, FORWARD, BACKWARD, CONJ, PERIOD, COLON, BRACKET, COMMA);
+		allow(BACKWARD, BACKWARD, PERIOD, COLON, BRACKET, COMMA);
+		allow(CONJ, NONE, FORWARD, BACKWARD);
+		allow(PERIOD, NONE, FORWARD, BACKWARD);
+		allow(COLON, NONE, FORWARD, BACKWARD);
+		allow(BRACKET, NONE, FORWARD, BACKWARD);
+		allow(COMMA, NONE, FORWARD, BACKWARD);
+	}
+
+	private static void allow(int leftFlags, int... rightFlags) {
+		for ( int flags : rightFlags ) {
+			COMBINABLE[leftFlags] |= 1 << flags;
+		}
+	}
+
 	public static final Logger logger = LogManager.getLogger(Rules.class);
 
 	public Rules(boolean eisnerNormalForm, Categories categories, RuleInstancesParams ruleInstancesParams) throws IOException {
@@ -63,9 +78,63 @@ public class Rules {
 			allRuleInstances = null;
 		}
 
-		combinators = new Combinators(eisnerNormalForm, categories, ruleInstancesParams);
+		counts = new RuleCounts();
+		combinators = new Combinators(eisnerNormalForm, categories, ruleInstancesParams, counts);
 		unaryRules = new UnaryRules(categories);
-		punctRules = new PunctRules(categories, ruleInstancesParams);
+		punctRules = new PunctRules(categories, ruleInstancesParams, counts);
+	}
+
+	/*
+	 * shares the categories and the (read-only) rule instances with other,
+	 * but gets its own unification scratch space and counts, so that the two
+	 * objects can be used on different threads
+	 */
+	public Rules(Rules other) {
+		allRuleInstances = other.allRuleInstances;
+
+		counts = new RuleCounts();
+		combinators = new Combinators(other.combinators, counts);
+		unaryRules = other.unaryRules;
+		punctRules = new PunctRules(other.punctRules, counts);
+	}
+
+	/**
+	 * Sets up a cache for the category-level part of unification (see
+	 * UnifyCache); copies of this object made afterwards get an empty cache
+	 * of the same kind.
+	 * 
+	 * @param size maximum number of entries; 0 (or less) turns the cache off
+	 * @param eviction eviction policy
+	 */
+	public void setUnifyCache(int size, UnifyCache.Eviction eviction) {
+		combinators.unification.cache = (size > 0) ? new UnifyCache(size, eviction) : null;
+	}
+
+	/**
+	 * @return the unification cache, or null if there isn't one
+	 */
+	public UnifyCache getUnifyCache() {
+		return combinators.unification.cache;
+	}
+
+	/**
+	 * Sets the SuperCategoryArena binary SuperCategories are allocated from;
+	 * copies of this object made afterwards get their own empty copy of it.
+	 * 
+	 * @param arena arena, or null to allocate on the heap as usual
+	 */
+	public void setArena(SuperCategoryArena arena) {
+		combinators.arena = arena;
+	}
+
+	/**
+	 * Releases everything allocated from the arena (if any); SuperCategories
+	 * built since the last reset must not be used afterwards.
+	 */
+	public void resetArena() {
+		if ( combinators.arena != null ) {
+			combinators.arena.reset();
+		}
 	}
 
 	public boolean combine(SuperCategory leftSuperCat, SuperCategory rightSuperCat, ArrayList<SuperCategory> results,  Sentence sentence) {
@@ -225,6 +294,222 @@ public class Rules {
 		}
 	}
 
+	/**
+	 * Returns the rule class of a category: pairs of categories whose
+	 * classes aren't combinable never combine.
+	 * 
+	 * @param cat category
+	 * @return rule class, from 0 to NUM_RULE_CLASSES - 1
+	 */
+	private static int ruleClass(Category cat) {
+		if (cat.numArgs > 5) {
+			return MANY_ARGS;
+		}
+
+		return ruleFlags(cat);
+	}
+
+	/*
+	 * join keys: apart from the pairs with punctuation or a conjunction on
+	 * the left (see leftGroup and rightGroup), every case of combine starts
+	 * by unifying a part of the left category with a part of the right one,
+	 * and Unify fails straight away unless the two parts have the same
+	 * unification hash (see Category.getUhash), which covers the atoms, the
+	 * slashes and the structure, but not the features or variables
+	 *
+	 * the keys of a category are the hashes of the parts of it which can be
+	 * unified, tagged with what the part is on the right category, so that
+	 * two categories can only combine if they have a key in common:
+	 *
+	 * SELF_KEY: the right category itself (forward application; apposition)
+	 * RESULT_KEY: a result of a forward right category, down to three deep
+	 * (forward composition, including the generalised rules)
+	 * ARGUMENT_KEY: the argument of a backward right category (backward
+	 * application, backward and backward crossed composition)
+	 *
+	 * keys need to be kept in line with combine and with mayCombine
+	 */
+	private static final int SELF_KEY = 0;
+	private static final int RESULT_KEY = 1;
+	private static final int ARGUMENT_KEY = 2;
+	public static final int MAX_LEFT_JOIN_KEYS = 6;
+	public static final int MAX_RIGHT_JOIN_KEYS = 4;
+
+	// the groups of pairs which combine without unification:
+	public static final int NO_GROUP = -1;
+	private static final int PUNCT_GROUP = 0; // punctuation on the right
+	private static final int PLAIN_GROUP = 1; // conj or punctuation on the left
+	public static final int NUM_JOIN_GROUPS = 2;
+
+	private static long joinKey(int part, Category cat) {
+		return cat.getUhash() * 3 + part;
+	}
+
+	/**
+	 * @param rightCat right category
+	 * @param keys array of at least MAX_RIGHT_JOIN_KEYS keys, filled with
+	 * the keys of rightCat
+	 * @return number of keys
+	 */
+	public static int rightJoinKeys(Category rightCat, long[] keys) {
+		int numKeys = 0;
+
+		switch (ruleClass(rightCat)) {
+			case NONE: // fall through
+			case CONJ:
+				keys[numKeys++] = joinKey(SELF_KEY, rightCat);
+				break;
+			case FORWARD:
+				keys[numKeys++] = joinKey(SELF_KEY, rightCat);
+				for (Category result = rightCat.result; result != null && numKeys <= 3; result = result.result) {
+					keys[numKeys++] = joinKey(RESULT_KEY, result);
+				}
+				break;
+			case BACKWARD:
+				keys[numKeys++] = joinKey(SELF_KEY, rightCat);
+				keys[numKeys++] = joinKey(ARGUMENT_KEY, rightCat.argument);
+				break;
+			default:
+				break;
+		}
+
+		return numKeys;
+	}
+
+	/**
+	 * @param leftCat left category
+	 * @param keys array of at least MAX_LEFT_JOIN_KEYS keys, filled with
+	 * the keys which a right category has to share with leftCat
+	 * @return number of keys
+	 */
+	public static int leftJoinKeys(Category leftCat, long[] keys) {
+		int numKeys = 0;
+
+		switch (ruleClass(leftCat)) {
+			case NONE:
+				keys[numKeys++] = joinKey(SELF_KEY, leftCat);
+				keys[numKeys++] = joinKey(ARGUMENT_KEY, leftCat);
+				break;
+			case FORWARD:
+				keys[numKeys++] = joinKey(SELF_KEY, leftCat.argument);
+				keys[numKeys++] = joinKey(RESULT_KEY, leftCat.argument);
+				keys[numKeys++] = joinKey(ARGUMENT_KEY, leftCat);
+				for (Category result = leftCat.result; result != null && numKeys < MAX_LEFT_JOIN_KEYS; result = result.result) {
+					keys[numKeys++] = joinKey(ARGUMENT_KEY, result);
+				}
+				break;
+			case BACKWARD:
+				keys[numKeys++] = joinKey(ARGUMENT_KEY, leftCat);
+				for (Category result = leftCat.result; result != null && numKeys < 3; result = result.result) {
+					keys[numKeys++] = joinKey(ARGUMENT_KEY, result);
+				}
+				break;
+			default:
+				break;
+		}
+
+		return numKeys;
+	}
+
+	/**
+	 * @param leftCat left category
+	 * @return group of the right categories which leftCat combines with
+	 * without unification, or NO_GROUP
+	 */
+	public static int leftGroup(Category leftCat) {
+		switch (ruleClass(leftCat)) {
+			case NONE: // fall through
+			case FORWARD: // |
+			case BACKWARD:
+				return PUNCT_GROUP;
+			case MANY_ARGS:
+				return NO_GROUP;
+			default:
+				return PLAIN_GROUP;
+		}
+	}
+
+	/**
+	 * @param rightCat right category
+	 * @return group of rightCat, for leftGroup, or NO_GROUP
+	 */
+	public static int rightGroup(Category rightCat) {
+		switch (ruleClass(rightCat)) {
+			case NONE: // fall through
+			case FORWARD: // |
+			case BACKWARD:
+				return PLAIN_GROUP;
+			case CONJ: // fall through
+			case MANY_ARGS: // |
+				return NO_GROUP;
+			default:
+				return PUNCT_GROUP;
+		}
+	}
+
+	/**
+	 * Checks the conditions which the join keys stand for on one pair of
+	 * categories.
+	 * 
+	 * @return false if combine can't give any results for the two
+	 * categories, true if it might
+	 */
+	public static boolean mayCombine(Category leftCat, Category rightCat) {
+		int leftClass = ruleClass(leftCat);
+		int rightClass = ruleClass(rightCat);
+
+		if ((COMBINABLE[leftClass] & (1 << rightClass)) == 0) {
+			return false;
+		}
+
+		int group = leftGroup(leftCat);
+		if (group != NO_GROUP && group == rightGroup(rightCat)) {
+			return true;
+		}
+
+		switch (leftClass) {
+			case NONE:
+				if (rightClass == NONE) {
+					return leftCat.getUhash() == rightCat.getUhash();
+				} else {
+					return leftCat.getUhash() == rightCat.argument.getUhash();
+				}
+			case FORWARD:
+				long argument = leftCat.argument.getUhash();
+				if (argument == rightCat.getUhash()) {
+					return true;
+				} else if (rightClass == FORWARD) {
+					return hasResult(rightCat, argument, 3);
+				} else if (rightClass == BACKWARD) {
+					argument = rightCat.argument.getUhash();
+					return leftCat.getUhash() == argument || hasResult(leftCat, argument, 3);
+				}
+				return false;
+			case BACKWARD:
+				argument = rightCat.argument.getUhash();
+				return leftCat.getUhash() == argument || hasResult(leftCat, argument, 2);
+			default:
+				return false;
+		}
+	}
+
+	/*
+	 * whether one of the first depth results of cat has the unification hash
+	 */
+	private static boolean hasResult(Category cat, long uhash, int depth) {
+		Category result = cat.result;
+
+		for (int i = 0; i < depth && result != null; i++) {
+			if (result.getUhash() == uhash) {
+				return true;
+			}
+
+			result = result.result;
+		}
+
+		return false;
+	}
+
 	public void typeChange(ArrayList<SuperCategory> leftSuperCats, ArrayList<SuperCategory> results) {
 		unaryRules.typeChange(leftSuperCats, results);
 	}
@@ -14,12 +14,21 @@ import lexicon.TypeRaisedCategory;
 import lexicon.VarID;
 import utils.Hash;
 import utils.IntWrapper;
+import utils.LongSlab;
 
 public class SuperCategory {
 	public final Category cat;
 
 	public ArrayList<Dependency> unfilledDeps = null;
-	public ArrayList<FilledDependency> filledDeps = null;
+
+	/*
+	 * filled dependencies, packed (see FilledDependency.pack()); read them
+	 * with numFilledDeps() and filledDep(), since they're kept off the heap,
+	 * in filledDepsSlab (count first), when the arena is off-heap
+	 */
+	private long[] filledDeps = null;
+	private LongSlab filledDepsSlab = null;
+	private int filledDepsOffset;
 
 	/*
 	 * used to record how the category was built (eg coordination) which then
@@ -47,25 +56,37 @@ public class SuperCategory {
 	public SuperCategory next = null;
 
 	// used in the CategoryEquivalence hashMap
-	private final Hash equivalenceHash;
+	private final long equivalenceHash;
 
-	// all the scores and marked fields used by the various decoders:
+	// the scores and marked fields used by all the decoders:
 	public double maxEquivScore;
 	public SuperCategory maxEquivSuperCat = null;
 
 	public double score = 0.0;
-	public double inside = 0.0;
-	public double outside = 0.0;
-	public double disjInside = 0.0;
-
-	public double logPScore = 0.0;
-	public double depnnScore = 0.0;
 
 	// used to mark active nodes
 	public int marker = 0;
-	public int goldMarker = 0;
 
-	public boolean marked = false;
+	/*
+	 * the fields only used by some of the decoders (inside-outside, the
+	 * oracle decoders, the dependency network scores) and by training; plain
+	 * Viterbi parsing doesn't need them, so each SuperCategory only gets a
+	 * DecoderState when one of them is first written
+	 */
+	public static class DecoderState {
+		public double inside = 0.0;
+		public double outside = 0.0;
+		public double disjInside = 0.0;
+
+		public double logPScore = 0.0;
+		public double depnnScore = 0.0;
+
+		public int goldMarker = 0;
+
+		public boolean marked = false;
+	}
+
+	private DecoderState state = null;
 
 	/*
 	 * perhaps not great design having this here, but need it for the oracle
@@ -88,28 +109,26 @@ public class SuperCategory {
 	public SuperCategory(short headIndex, Category cat, short flags) {
 		this.cat = cat;
 		this.unfilledDeps = Dependency.getDependencies(headIndex, cat, (short) (0)); // last argument is ruleID
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = cat.getNumVars();
 		this.numActiveVars = this.numVars; // same as numVars since lexical category
 		this.vars = new Variable[this.numVars];
 
 		for ( int i = 0; i < numVars; i++ ) {
-			vars[i] = new Variable();
+			vars[i] = Variable.UNFILLED_VARIABLE;
 		}
 
 		this.leftChild = null;
 		this.rightChild = null;
 
 		if ( cat.var != VarID.NONE ) {
-			this.vars[cat.var] = new Variable(headIndex);
+			this.vars[cat.var] = Variable.filled(headIndex);
 		} else {
 			throw new Error("shouldn't we have a variable on a lexical category?!");
 		}
 
 		this.equivalenceHash = equivalenceHash();
-
-		this.outside = 0.0;
 	}
 
 	public static SuperCategory Lexical(short headIndex, Category cat, short flags) {
@@ -119,20 +138,24 @@ public class SuperCategory {
 	/*
 	 * sentence argument only used by numFilledDeps() and for the oracleFscore
 	 * decoder - maybe there's a nicer solution
+	 *
+	 * the Variable array and unfilled dependency list come from arena, unless
+	 * it's null
 	 */
 	public SuperCategory(Category cat,
 			short flags,
 			SuperCategory leftChild,
 			SuperCategory rightChild,
 			Unify unification,
+			SuperCategoryArena arena,
 			Sentence sentence) {
 		this.cat = cat;
-		this.unfilledDeps = new ArrayList<Dependency>();
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.unfilledDeps = (arena != null) ? arena.dependencies() : new ArrayList<Dependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = unification.numVariables; // numActiveVars from Unification
 		this.numActiveVars = cat.getNumVars(); // numVars from the resulting category
-		this.vars = new Variable[this.numVars];
+		this.vars = (arena != null) ? arena.variables(this.numVars) : new Variable[this.numVars];
 		this.leftChild = leftChild;
 		this.rightChild = rightChild;
 		this.next = null;
@@ -148,7 +171,7 @@ public class SuperCategory {
 		 * 
 		 * note ignore i = 0, which corresponds to the "NONE" Variable
 		 */
-		this.vars[0] = new Variable(); // the other variables get created below
+		this.vars[0] = Variable.UNFILLED_VARIABLE; // the other variables get created below
 
 		for ( int i = 1; i < numVars; i++ ) {
 			// old sanity check from C&C:
@@ -157,7 +180,14 @@ public class SuperCategory {
 			}
 
 			// chains together any filler chains on unifying variables
-			vars[i] = new Variable(leftChild.vars[unification.old1[i]], rightChild.vars[unification.old2[i]]);
+			vars[i] = Variable.unify(leftChild.vars[unification.old1[i]], rightChild.vars[unification.old2[i]]);
+		}
+
+		int numFilled = countFilledDeps(leftChild.unfilledDeps, unification.trans1) + countFilledDeps(rightChild.unfilledDeps, unification.trans2);
+		boolean offHeap = numFilled > 0 && arena != null && arena.isOffHeap();
+		if ( numFilled > 0 ) {
+			filledDeps = offHeap ? arena.filledDepsBuffer(numFilled) : new long[numFilled];
+			numFilled = 0;
 		}
 
 		for ( Dependency dep : leftChild.unfilledDeps ) {
@@ -170,9 +200,9 @@ public class SuperCategory {
 			short lrange = 0;
 
 			if ( vars[var].isFilled() ) {
-				filledDeps = FilledDependency.fromUnfilled(dep, vars[var], lrange, filledDeps);
+				numFilled = FilledDependency.fromUnfilled(dep, vars[var], lrange, filledDeps, numFilled);
 			} else {
-				unfilledDeps.add(new Dependency(dep, var, lrange, true));
+				unfilledDeps.add(Dependency.translate(dep, var, lrange));
 			}
 		}
 
@@ -186,21 +216,49 @@ public class SuperCategory {
 			short lrange = 0;
 
 			if ( vars[var].isFilled() ) {
-				filledDeps = FilledDependency.fromUnfilled(dep, vars[var], lrange, filledDeps);
+				numFilled = FilledDependency.fromUnfilled(dep, vars[var], lrange, filledDeps, numFilled);
 			} else {
-				unfilledDeps.add(new Dependency(dep, var, lrange, true));
+				unfilledDeps.add(Dependency.translate(dep, var, lrange));
 			}
 		}
 
+		if ( offHeap ) {
+			filledDepsSlab = arena.getSlab();
+			filledDepsOffset = arena.storeFilledDeps(filledDeps, numFilled);
+			filledDeps = null;
+		}
+
 		this.equivalenceHash = equivalenceHash();
 		/*
 		 * this gets used by the oracleFscore decoder to split equivalence
 		 * classes by the number of dependencies produced
 		 */
-		this.outside = leftChild.outside + rightChild.outside + numFilledDeps(sentence);
+		setOutside(leftChild.getOutside() + rightChild.getOutside() + numFilledDeps(sentence));
+	}
+
+	/*
+	 * number of filled dependencies the binary constructor creates from deps,
+	 * so that it can allocate filledDeps once
+	 */
+	private int countFilledDeps(ArrayList<Dependency> deps, byte[] trans) {
+		int numFilled = 0;
+
+		for ( Dependency dep : deps ) {
+			byte var = trans[dep.var];
+
+			if ( var != VarID.NONE && vars[var].isFilled() ) {
+				numFilled += vars[var].numFillers();
+			}
+		}
+
+		return numFilled;
 	}
 
 	public static SuperCategory BinaryCombinator(Category cat, short flags, SuperCategory leftChild, SuperCategory rightChild, Unify unification, Sentence sentence) {
+		return BinaryCombinator(cat, flags, leftChild, rightChild, unification, null, sentence);
+	}
+
+	public static SuperCategory BinaryCombinator(Category cat, short flags, SuperCategory leftChild, SuperCategory rightChild, Unify unification, SuperCategoryArena arena, Sentence sentence) {
 		/*
 		 * there are some pathological cases where this appears to happen, so
 		 * just rule these out as ungrammatical
@@ -209,7 +267,7 @@ public class SuperCategory {
 			return null;
 		}
 
-		return new SuperCategory(cat, flags, leftChild, rightChild, unification, sentence);
+		return new SuperCategory(cat, flags, leftChild, rightChild, unification, arena, sentence);
 	}
 
 	public SuperCategory(Category cat,
@@ -218,7 +276,7 @@ public class SuperCategory {
 			SuperCategory rightChild) {
 		this.cat = cat;
 		this.unfilledDeps = new ArrayList<Dependency>(rightChild.unfilledDeps);
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = rightChild.numVars;
 		this.numActiveVars = rightChild.numActiveVars;
@@ -232,10 +290,10 @@ public class SuperCategory {
 			throw new Error("numActiveVars > numVars!");
 		}
 
-		vars[0] = new Variable(); // the other variables get created below
+		vars[0] = Variable.UNFILLED_VARIABLE; // the other variables get created below
 		// copying Variables from non-conj category
 		for ( int i = 1; i < numVars; i++ ) {
-			vars[i] = new Variable(rightChild.vars[i]);
+			vars[i] = Variable.chain(rightChild.vars[i]);
 		}
 
 		// need this check? just makes sure that conj cat has a head
@@ -265,7 +323,7 @@ public class SuperCategory {
 		 * this gets used by the oracleFscore decoder to split equivalence
 		 * classes by the number of dependencies produced
 		 */
-		this.outside = leftChild.outside + rightChild.outside;
+		setOutside(leftChild.getOutside() + rightChild.getOutside());
 	}
 
 	public static SuperCategory Coordination(Category cat, short flags, SuperCategory leftSuperCat, SuperCategory rightSuperCat) {
@@ -285,7 +343,7 @@ public class SuperCategory {
 			SuperCategory variablesSuperCat) {
 		this.cat = cat;
 		this.unfilledDeps = new ArrayList<Dependency>(variablesSuperCat.unfilledDeps);
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = variablesSuperCat.numVars;
 		this.numActiveVars = variablesSuperCat.numActiveVars;
@@ -304,7 +362,7 @@ public class SuperCategory {
 		 * this gets used by the oracleFscore decoder to split equivalence
 		 * classes by the number of dependencies produced
 		 */
-		this.outside = leftChild.outside + rightChild.outside;
+		setOutside(leftChild.getOutside() + rightChild.getOutside());
 	}
 
 	public static SuperCategory Punct(Category cat, short flags, SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory variablesSuperCat) {
@@ -320,14 +378,14 @@ public class SuperCategory {
 			short ruleID) {
 		this.cat = cat;
 		this.unfilledDeps = new ArrayList<Dependency>();
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = cat.getNumVars();
 		this.numActiveVars = numVars;
 		vars = new Variable[numVars];
 
 		for ( int i = 0; i < numVars; i++ ) {
-			vars[i] = new Variable();
+			vars[i] = Variable.UNFILLED_VARIABLE;
 		}
 
 		this.leftChild = leftSuperCat;
@@ -365,10 +423,7 @@ public class SuperCategory {
 		 * this gets used by the oracleFscore decoder to split equivalence
 		 * classes by the number of dependencies produced
 		 */
-		this.outside = leftChild.outside;
-		if ( rightChild != null ) {
-			outside += rightChild.outside;
-		}
+		setOutside(leftChild.getOutside() + (rightChild != null ? rightChild.getOutside() : 0.0));
 	}
 
 	/*
@@ -387,14 +442,14 @@ public class SuperCategory {
 			SuperCategory leftSuperCat) {
 		this.cat = trCat.cat;
 		this.unfilledDeps = new ArrayList<Dependency>();
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = cat.getNumVars();
 		this.numActiveVars = numVars;
 		this.vars = new Variable[numVars];
 
 		for ( int i = 0; i < numVars; i++ ) {
-			vars[i] = new Variable();
+			vars[i] = Variable.UNFILLED_VARIABLE;
 		}
 
 		this.leftChild = leftSuperCat;
@@ -402,7 +457,7 @@ public class SuperCategory {
 		this.next = null;
 
 		// note can't be at the end of the defn because there is a return statement earlier!
-		this.outside = leftChild.outside;
+		setOutside(leftChild.getOutside());
 
 		// old sanity check from C&C; numActiveVars should never be greater than numVars:
 		if ( numActiveVars > numVars ) {
@@ -450,18 +505,18 @@ public class SuperCategory {
 			SuperCategory rightSuperCat) {
 		this.cat = leftSuperCat.cat;
 		this.unfilledDeps = new ArrayList<Dependency>();
-		this.filledDeps = new ArrayList<FilledDependency>();
+		this.filledDeps = FilledDependency.NONE;
 		this.flags = flags;
 		this.numVars = 2;
 		this.numActiveVars = numVars;
 		this.vars = new Variable[numVars];
 
 		for ( int i = 0; i < numVars; i++ ) {
-			vars[i] = new Variable();
+			vars[i] = Variable.UNFILLED_VARIABLE;
 		}
 
-		// calling this constructor directly is a little ugly (?)
-		vars[1] = new Variable(leftSuperCat.vars[1], rightSuperCat.vars[1]);
+		// calling Variable.unify directly is a little ugly (?)
+		vars[1] = Variable.unify(leftSuperCat.vars[1], rightSuperCat.vars[1]);
 
 		this.leftChild = leftSuperCat;
 		this.rightChild = rightSuperCat;
@@ -472,7 +527,7 @@ public class SuperCategory {
 		 * this gets used by the oracleFscore decoder to split equivalence
 		 * classes by the number of dependencies produced
 		 */
-		this.outside = leftChild.outside + rightChild.outside;
+		setOutside(leftChild.getOutside() + rightChild.getOutside());
 	}
 
 	public static SuperCategory Apposition(short flags, SuperCategory leftSuperCat, SuperCategory rightSuperCat) {
@@ -485,8 +540,8 @@ public class SuperCategory {
 		}
 
 		int numDeps = 0;
-		for ( FilledDependency dep : filledDeps ) {
-			if ( !ignoreDeps.ignoreDependency(dep, sentence) ) {
+		for ( int i = 0; i < numFilledDeps(); i++ ) {
+			if ( !ignoreDeps.ignoreDependency(filledDep(i), sentence) ) {
 				numDeps++;
 			}
 		}
@@ -494,12 +549,35 @@ public class SuperCategory {
 		return numDeps;
 	}
 
+	/**
+	 * @return number of filled dependencies
+	 */
+	public int numFilledDeps() {
+		if ( filledDeps != null ) {
+			return filledDeps.length;
+		}
+
+		return (int) (filledDepsSlab.get(filledDepsOffset));
+	}
+
+	/**
+	 * @param index index of a filled dependency, less than numFilledDeps()
+	 * @return the packed filled dependency (see FilledDependency.pack())
+	 */
+	public long filledDep(int index) {
+		if ( filledDeps != null ) {
+			return filledDeps[index];
+		}
+
+		return filledDepsSlab.get(filledDepsOffset + 1 + index);
+	}
+
 	/*
 	 * categories are equivalent if they have the same syntactic type (got thro'
 	 * the category's ehash) and have the same unfilled dependencies (got thro'
 	 * both the relation and the variables)
 	 */
-	private Hash equivalenceHash() {
+	private long equivalenceHash() {
 		Hash h = new Hash(cat.getEhash());
 
 		for ( Dependency dep : unfilledDeps ) {
@@ -510,20 +588,20 @@ public class SuperCategory {
 			// numActiveVars is always 1 more than the real number
 			for ( int j = 1; j != Variable.NUM_FILLERS; j++ ) {
 				// note the start index is 1
-				h.plusEqual(vars[i].fillers[j]);
+				h.plusEqual(vars[i].filler(j));
 			}
 		}
 
-		return h;
+		return h.value();
 	}
 
 	public long getEhash() {
-		return equivalenceHash.value();
+		return equivalenceHash;
 	}
 
 	@Override
 	public int hashCode() {
-		return (int) (equivalenceHash.value());
+		return (int) (equivalenceHash);
 	}
 
 	@Override
@@ -534,7 +612,7 @@ public class SuperCategory {
 
 		SuperCategory cother = (SuperCategory) other;
 
-		if ( this.equivalenceHash.value() != cother.equivalenceHash.value() ) {
+		if ( this.equivalenceHash != cother.equivalenceHash ) {
 			return false;
 		}
 
@@ -586,6 +664,55 @@ public class SuperCategory {
 		};
 	}
 
+	/**
+	 * @return the decoder fields of this SuperCategory, allocating them if
+	 * necessary
+	 */
+	public DecoderState state() {
+		if ( state == null ) {
+			state = new DecoderState();
+		}
+
+		return state;
+	}
+
+	public boolean hasState() {
+		return state != null;
+	}
+
+	/*
+	 * the getters below read the decoder fields without allocating them
+	 */
+	public double getInside() {
+		return state != null ? state.inside : 0.0;
+	}
+
+	public double getLogPScore() {
+		return state != null ? state.logPScore : 0.0;
+	}
+
+	public double getOutside() {
+		return state != null ? state.outside : 0.0;
+	}
+
+	public double getDepnnScore() {
+		return state != null ? state.depnnScore : 0.0;
+	}
+
+	public int getGoldMarker() {
+		return state != null ? state.goldMarker : 0;
+	}
+
+	public boolean isMarked() {
+		return state != null && state.marked;
+	}
+
+	private void setOutside(double outside) {
+		if ( outside != 0.0 ) {
+			state().outside = outside;
+		}
+	}
+
 	public void markActive() {
 		marker = 1;
 	}
@@ -628,8 +755,8 @@ public class SuperCategory {
 
 	public void printFilledDeps(Relations relations) {
 		logger.info("printing deps:");
-		for ( FilledDependency dep : filledDeps ) {
-			logger.info(dep);
+		for ( int i = 0; i < numFilledDeps(); i++ ) {
+			logger.info(FilledDependency.unpack(filledDep(i)));
 		}
 	}
 
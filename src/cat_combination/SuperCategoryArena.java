@@ -0,0 +1,166 @@
+package cat_combination;
+
+import java.io.File;
+import java.util.ArrayList;
+
+import lexicon.VarID;
+import utils.LongSlab;
+
+/*
+ * per-sentence pool of the Variable arrays and unfilled dependency lists
+ * which binary SuperCategories need; everything handed out since the last
+ * reset() belongs to the current sentence, and reset() makes it all
+ * available again in constant time (lists are cleared when they're handed
+ * out again), so once the pool has grown to fit the longest sentence,
+ * building a chart allocates far less
+ *
+ * an off-heap arena also keeps the filled dependencies of the
+ * SuperCategories in a LongSlab, in direct memory or in a file mapped into
+ * memory, so that the charts of very long sentences put less pressure on
+ * the heap and the garbage collector
+ *
+ * SuperCategories built from the arena must not be used after the next
+ * reset(), which the parser does at the start of each sentence (and each
+ * beta level); each parser thread has its own arena, so there's no locking
+ */
+
+public class SuperCategoryArena {
+	private static final int INITIAL_SIZE = 1024;
+
+	private final Variable[][][] variables; // indexed by array length
+	private final int[] numVariables;
+
+	private ArrayList<ArrayList<Dependency>> dependencies;
+	private int numDependencies;
+
+	private final boolean offHeap;
+	private final File slabDir; // null unless the slab is file-backed
+	private LongSlab slab; // null unless offHeap, created when first needed
+	private long[] filledDepsBuffer;
+
+	public SuperCategoryArena() {
+		this(false, null);
+	}
+
+	/**
+	 * @param offHeap whether to keep filled dependencies off the heap
+	 * @param slabDir directory for the file backing them, or null to keep
+	 * them in direct memory
+	 */
+	public SuperCategoryArena(boolean offHeap, File slabDir) {
+		this.variables = new Variable[VarID.NUM_VARS + 1][][];
+		this.numVariables = new int[VarID.NUM_VARS + 1];
+		this.dependencies = new ArrayList<ArrayList<Dependency>>(INITIAL_SIZE);
+		this.numDependencies = 0;
+		this.offHeap = offHeap;
+		this.slabDir = slabDir;
+		this.filledDepsBuffer = new long[16];
+	}
+
+	/**
+	 * @return a new empty arena with the same settings
+	 */
+	public SuperCategoryArena emptyCopy() {
+		return new SuperCategoryArena(offHeap, slabDir);
+	}
+
+	public boolean isOffHeap() {
+		return offHeap;
+	}
+
+	/**
+	 * @return the slab holding the filled dependencies of an off-heap arena
+	 */
+	public LongSlab getSlab() {
+		if ( slab == null ) {
+			slab = (slabDir != null) ? new LongSlab(slabDir) : new LongSlab();
+		}
+
+		return slab;
+	}
+
+	/**
+	 * @param length array length, at most VarID.NUM_VARS
+	 * @return an array for the Variables of a SuperCategory; its elements
+	 * are left over from earlier sentences, so all of them need setting
+	 */
+	public Variable[] variables(int length) {
+		Variable[][] pool = variables[length];
+		int index = numVariables[length]++;
+
+		if ( pool == null ) {
+			pool = variables[length] = new Variable[INITIAL_SIZE][];
+		} else if ( index == pool.length ) {
+			Variable[][] newPool = new Variable[2 * pool.length][];
+			System.arraycopy(pool, 0, newPool, 0, pool.length);
+			pool = variables[length] = newPool;
+		}
+
+		Variable[] vars = pool[index];
+		if ( vars == null ) {
+			vars = pool[index] = new Variable[length];
+		}
+
+		return vars;
+	}
+
+	/**
+	 * @return an empty list for the unfilled dependencies of a SuperCategory
+	 */
+	public ArrayList<Dependency> dependencies() {
+		if ( numDependencies == dependencies.size() ) {
+			dependencies.add(new ArrayList<Dependency>());
+		}
+
+		ArrayList<Dependency> deps = dependencies.get(numDependencies++);
+		deps.clear();
+		return deps;
+	}
+
+	/**
+	 * @param size number of filled dependencies
+	 * @return scratch array of at least size longs, for collecting filled
+	 * dependencies before storeFilledDeps()
+	 */
+	public long[] filledDepsBuffer(int size) {
+		if ( size > filledDepsBuffer.length ) {
+			filledDepsBuffer = new long[Math.max(size, 2 * filledDepsBuffer.length)];
+		}
+
+		return filledDepsBuffer;
+	}
+
+	/**
+	 * Copies filled dependencies into the slab, preceded by their number.
+	 * 
+	 * @param deps packed filled dependencies
+	 * @param numDeps number of dependencies in deps
+	 * @return offset of the copy in the slab
+	 */
+	public int storeFilledDeps(long[] deps, int numDeps) {
+		LongSlab slab = getSlab();
+		int offset = slab.allocate(numDeps + 1);
+
+		slab.set(offset, numDeps);
+		for ( int i = 0; i < numDeps; i++ ) {
+			slab.set(offset + 1 + i, deps[i]);
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Makes everything handed out so far available again.
+	 */
+	public void reset() {
+		for ( int i = 0; i < numVariables.length; i++ ) {
+			numVariables[i] = 0;
+		}
+
+		numDependencies = 0;
+
+		if ( slab != null ) {
+			slab.reset();
+		}
+	}
+}
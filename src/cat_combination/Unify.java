@@ -16,9 +16,16 @@ import utils.ByteWrapper;
  */
 public class Unify {
 	/*
-	 * table which stores matching variables during unification
+	 * the matching variables found during unification, as pairs of
+	 * variables packed into var1 * NUM_VARS + var2; headPairs lists the
+	 * pairs found by the current unification, and headStamps[pair] ==
+	 * generation marks them, so that nothing needs clearing between
+	 * unifications
 	 */
-	byte[][] heads;
+	private final int[] headStamps;
+	private final int[] headPairs;
+	private int numHeadPairs;
+	private int generation;
 
 	/*
 	 * features on S get unified, eg S[X] and S[dcl]; but dealing with features
@@ -38,11 +45,20 @@ public class Unify {
 	public ByteWrapper order; // used by the reordering methods in Category
 	public byte[] seen; // used by the reordering methods in Category
 
-	short lrange1[];
-	short lrange2[];
+	// scratch space for reorderVariables:
+	private final byte[] tmp1;
+	private final byte[] tmp2;
+
+	// memo of the category-level unifications; null if not caching:
+	UnifyCache cache;
+
+	private static final GrammaticalFeature NO_FEATURE = new GrammaticalFeature(GrammaticalFeature.NONE);
 
 	public Unify() {
-		heads = new byte[VarID.NUM_VARS][VarID.NUM_VARS];
+		headStamps = new int[VarID.NUM_VARS * VarID.NUM_VARS];
+		headPairs = new int[VarID.NUM_VARS * VarID.NUM_VARS];
+		numHeadPairs = 0;
+		generation = 0;
 
 		trans1 = new byte[VarID.NUM_VARS];
 		trans2 = new byte[VarID.NUM_VARS];
@@ -55,30 +71,44 @@ public class Unify {
 			seen[i] = VarID.NONE;
 		}
 
-		lrange1 = new short[VarID.NUM_VARS];
-		lrange2 = new short[VarID.NUM_VARS];
+		tmp1 = new byte[VarID.NUM_VARS];
+		tmp2 = new byte[VarID.NUM_VARS];
+	}
+
+	/*
+	 * new scratch space, with an empty cache of the same kind as other's
+	 */
+	public Unify(Unify other) {
+		this();
+
+		if (other.cache != null) {
+			cache = new UnifyCache(other.cache);
+		}
 	}
 
 	/*
 	 * a single unify object is created as part of a single rules object which
 	 * is a member of the parser object; hence we need to clear the unify object
-	 * for each new category pair
+	 * for each new category pair; clear1 takes constant time, since most
+	 * unifications fail
 	 * 
 	 * clear2 is only called when the unification has succeeded
 	 */
 	private void clear1() {
-		for (byte[] row : heads) {
-			// need this for multidimensional array
-			Arrays.fill(row, VarID.NONE);
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(headStamps, 0);
+			generation = 0;
 		}
-		Arrays.fill(lrange1, (short) (0));
-		Arrays.fill(lrange2, (short) (0));
-		feature = new GrammaticalFeature(GrammaticalFeature.NONE);
-		Arrays.fill(seen, VarID.NONE);
-		order.value = (byte) (0);
+		generation++;
+		numHeadPairs = 0;
+
+		feature = NO_FEATURE;
 	}
 
 	private void clear2() {
+		Arrays.fill(seen, VarID.NONE);
+		order.value = (byte) (0);
+
 		Arrays.fill(trans1, (byte) (0));
 		Arrays.fill(trans2, (byte) (0));
 		Arrays.fill(old1, (byte) (0));
@@ -91,6 +121,9 @@ public class Unify {
 	 * unify method; if the unification is successful, the
 	 * newVarsForUnifiedPairs method is called which produces a new set of
 	 * variables
+	 *
+	 * the outcome only depends on the two categories, so for interned
+	 * categories it can come from the cache
 	 */
 	boolean unify(Category cat1, Category cat2) {
 		// quick check first on the hash values
@@ -98,6 +131,27 @@ public class Unify {
 			return false;
 		}
 
+		if (cache == null || cat1.getID() == Category.NO_ID || cat2.getID() == Category.NO_ID) {
+			return unifyCategories(cat1, cat2);
+		}
+
+		if (cache.lookup(cat1, cat2)) {
+			if (!cache.unifies()) {
+				return false;
+			}
+
+			Arrays.fill(seen, VarID.NONE);
+			order.value = (byte) (0);
+			cache.restore(this);
+			return true;
+		}
+
+		boolean unified = unifyCategories(cat1, cat2);
+		cache.store(cat1, cat2, unified, this);
+		return unified;
+	}
+
+	private boolean unifyCategories(Category cat1, Category cat2) {
 		clear1();
 
 		if (unifyRecursive(cat1, cat2)) {
@@ -128,7 +182,7 @@ public class Unify {
 			} else if (!cat1.hasFeatureVar()) { // cat1 has constant or no
 				// feature
 				if (!cat2.hasFeatureVar()) { // cat2 has constant or no feature
-					if (!cat1.feature.equals(cat2.feature))
+					if (cat1.feature.value() != cat2.feature.value())
 					{
 						return false; // feature clash (one of the features
 						// could be NONE and still clash)
@@ -167,7 +221,11 @@ public class Unify {
 			}
 		}
 
-		heads[cat1.var][cat2.var] = 1;
+		int pair = cat1.var * VarID.NUM_VARS + cat2.var;
+		if (headStamps[pair] != generation) {
+			headStamps[pair] = generation;
+			headPairs[numHeadPairs++] = pair;
+		}
 
 		/*
 		 * comment from C&C: // assumes that we don't have the case //
@@ -208,26 +266,47 @@ public class Unify {
 	 * eg never have: (N{X}/N{X})/(N{X}/N{X}) combining with N{X}/N{Y} are we
 	 * guaranteed this from the markedup file? Should we be looking for such
 	 * cases and failing unification?
+	 * 
+	 * the pairs are visited in order of the cat1 variable and then the cat2
+	 * variable, as in a scan of the whole NUM_VARS x NUM_VARS table
 	 */
 	void newVarsForUnifiedPairs() {
 		clear2();
+		sortHeadPairs();
+
 		numVariables = 1;
-		for (byte i = 0; i < VarID.NUM_VARS; i++) {
-			for (byte j = 0; j < VarID.NUM_VARS; j++) {
-				if (heads[i][j] != 0) {
-					trans1[i] = numVariables;
-					trans2[j] = numVariables;
-					old1[numVariables] = i;
-					old2[numVariables] = j;
-
-					numVariables++;
-
-					if (numVariables > VarID.NUM_VARS) {
-						throw new Error(
-								"too many variables created during unification");
-					}
-				}
+		for (int k = 0; k < numHeadPairs; k++) {
+			byte i = (byte) (headPairs[k] / VarID.NUM_VARS);
+			byte j = (byte) (headPairs[k] % VarID.NUM_VARS);
+
+			trans1[i] = numVariables;
+			trans2[j] = numVariables;
+			old1[numVariables] = i;
+			old2[numVariables] = j;
+
+			numVariables++;
+
+			if (numVariables > VarID.NUM_VARS) {
+				throw new Error(
+						"too many variables created during unification");
+			}
+		}
+	}
+
+	/*
+	 * insertion sort, since there are only ever a handful of pairs
+	 */
+	private void sortHeadPairs() {
+		for (int k = 1; k < numHeadPairs; k++) {
+			int pair = headPairs[k];
+			int l = k - 1;
+
+			while (l >= 0 && headPairs[l] > pair) {
+				headPairs[l + 1] = headPairs[l];
+				l--;
 			}
+
+			headPairs[l + 1] = pair;
 		}
 	}
 
@@ -302,8 +381,8 @@ public class Unify {
 		}
 		numVariables = (byte) (order.value + 1);
 
-		byte[] tmp1 = Arrays.copyOf(old1, old1.length);
-		byte[] tmp2 = Arrays.copyOf(old2, old2.length);
+		System.arraycopy(old1, 0, tmp1, 0, old1.length);
+		System.arraycopy(old2, 0, tmp2, 0, old2.length);
 
 		Arrays.fill(old1, (byte) (0));
 		Arrays.fill(old2, (byte) (0));
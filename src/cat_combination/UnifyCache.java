@@ -0,0 +1,197 @@
+package cat_combination;
+
+import java.util.Arrays;
+
+import lexicon.Category;
+import lexicon.GrammaticalFeature;
+import lexicon.VarID;
+
+/*
+ * bounded memo of the category-level part of unification: for a pair of
+ * interned categories (see lexicon.CategoryInterner), whether they unify
+ * and, if so, the resulting feature and variable tables; the SuperCategory
+ * level checks (filled variables etc.) still get done for every pair
+ *
+ * entries live in flat arrays, so neither lookups nor insertions allocate;
+ * the eviction policy decides which entry a new one replaces:
+ *
+ * DIRECT: each pair has a single slot, and a new pair overwrites whatever
+ * is there
+ * LRU: each pair can go in any of the WAYS slots of its set, and a new
+ * pair replaces the least recently used one
+ *
+ * each Unify object has its own cache, so there's no locking
+ */
+
+public class UnifyCache {
+	public enum Eviction {
+		DIRECT, LRU;
+
+		public static Eviction fromString(String eviction) {
+			try {
+				return valueOf(eviction.toUpperCase());
+			} catch ( IllegalArgumentException e ) {
+				throw new IllegalArgumentException("Unknown eviction policy: " + eviction);
+			}
+		}
+	}
+
+	private static final int WAYS = 4;
+	private static final long EMPTY = -1L;
+	private static final int VARS = VarID.NUM_VARS;
+
+	private final Eviction eviction;
+	private final int capacity;
+	private final int setMask;
+	private final int ways;
+
+	private final long[] keys;
+	private final long[] lastUsed;
+	private final boolean[] unifies;
+	private final byte[] numVariables;
+	private final GrammaticalFeature[] features;
+	private final byte[] tables; // trans1, trans2, old1, old2 of slot i start at 4*VARS*i
+
+	private long tick;
+	private int slot; // slot of the last lookup, or where to store on a miss
+
+	public long hits;
+	public long misses;
+
+	/**
+	 * @param size maximum number of entries; rounded up to a power of two
+	 * @param eviction eviction policy
+	 */
+	public UnifyCache(int size, Eviction eviction) {
+		if ( size <= 0 ) {
+			throw new IllegalArgumentException("Cache size must be positive: " + size);
+		}
+
+		this.eviction = eviction;
+		this.ways = (eviction == Eviction.LRU) ? WAYS : 1;
+
+		int capacity = ways;
+		while ( capacity < size ) {
+			capacity *= 2;
+		}
+		this.capacity = capacity;
+		this.setMask = capacity / ways - 1;
+
+		this.keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		this.lastUsed = new long[capacity];
+		this.unifies = new boolean[capacity];
+		this.numVariables = new byte[capacity];
+		this.features = new GrammaticalFeature[capacity];
+		this.tables = new byte[4 * VARS * capacity];
+	}
+
+	/**
+	 * Returns a cache with the same size and eviction policy, but no
+	 * entries or counts.
+	 */
+	public UnifyCache(UnifyCache other) {
+		this(other.capacity, other.eviction);
+	}
+
+	public int capacity() {
+		return capacity;
+	}
+
+	public Eviction getEviction() {
+		return eviction;
+	}
+
+	public double hitRate() {
+		long lookups = hits + misses;
+		return lookups == 0 ? 0.0 : (double) (hits) / lookups;
+	}
+
+	/**
+	 * Looks up a pair of categories; on a hit the entry can be read with
+	 * unifies() and restore(), on a miss the result should be given to
+	 * store().
+	 *
+	 * @param cat1 first category; must be interned
+	 * @param cat2 second category; must be interned
+	 * @return true if the pair is in the cache
+	 */
+	boolean lookup(Category cat1, Category cat2) {
+		long key = key(cat1, cat2);
+		int first = (hash(key) & setMask) * ways;
+		int oldest = first;
+
+		for ( int i = first; i < first + ways; i++ ) {
+			if ( keys[i] == key ) {
+				lastUsed[i] = ++tick;
+				slot = i;
+				hits++;
+				return true;
+			}
+
+			if ( lastUsed[i] < lastUsed[oldest] ) {
+				oldest = i;
+			}
+		}
+
+		slot = oldest;
+		misses++;
+		return false;
+	}
+
+	boolean unifies() {
+		return unifies[slot];
+	}
+
+	/*
+	 * copies the cached tables of the last hit into unification
+	 */
+	void restore(Unify unification) {
+		int start = 4 * VARS * slot;
+
+		unification.feature = features[slot];
+		unification.numVariables = numVariables[slot];
+		System.arraycopy(tables, start, unification.trans1, 0, VARS);
+		System.arraycopy(tables, start + VARS, unification.trans2, 0, VARS);
+		System.arraycopy(tables, start + 2 * VARS, unification.old1, 0, VARS);
+		System.arraycopy(tables, start + 3 * VARS, unification.old2, 0, VARS);
+	}
+
+	/*
+	 * stores the outcome of unifying cat1 and cat2 in the slot chosen by the
+	 * last (missed) lookup
+	 */
+	void store(Category cat1, Category cat2, boolean unified, Unify unification) {
+		keys[slot] = key(cat1, cat2);
+		lastUsed[slot] = ++tick;
+		unifies[slot] = unified;
+
+		if ( unified ) {
+			int start = 4 * VARS * slot;
+
+			features[slot] = unification.feature;
+			numVariables[slot] = unification.numVariables;
+			System.arraycopy(unification.trans1, 0, tables, start, VARS);
+			System.arraycopy(unification.trans2, 0, tables, start + VARS, VARS);
+			System.arraycopy(unification.old1, 0, tables, start + 2 * VARS, VARS);
+			System.arraycopy(unification.old2, 0, tables, start + 3 * VARS, VARS);
+		} else {
+			features[slot] = null;
+		}
+	}
+
+	private static long key(Category cat1, Category cat2) {
+		return ((long) (cat1.getID()) << 32) | (cat2.getID() & 0xFFFFFFFFL);
+	}
+
+	/*
+	 * finaliser from splitmix64, since the IDs are small and consecutive
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h;
+	}
+}
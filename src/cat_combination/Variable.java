@@ -1,22 +1,26 @@
 package cat_combination;
 
-import java.util.Arrays;
-
 public class Variable {
 	/*
 	 * A Variable object is essentially an array which can store words an array
 	 * is needed to deal with coordination cases, eg "apples and pears"
-	 * 
+	 *
 	 * There are 2 cases: - unfilled, which means the variable is yet to be
 	 * unified with a constant (word) - filled, which means it has unified with
 	 * a word (represented as a position index)
-	 * 
+	 *
 	 * There are also 2 subcases: - no chain, which means we haven't collected
 	 * any constants - chain, which means we have
-	 * 
+	 *
 	 * chaining occurs when we have eg "and pears", so that "pears" is stored on
 	 * the array but we're still waiting to unify with the other conjunct long
 	 * chains can occur with eg "and pears and bananas and coconuts"
+	 *
+	 * the NUM_FILLERS shorts of the array are packed into two longs, four
+	 * fillers each, and Variables are immutable, so the unfilled Variable and
+	 * the single word Variables of short sentences are shared, and unifying
+	 * or chaining a Variable returns an existing one when nothing changes;
+	 * SuperCategories share Variables with their children
 	 */
 
 	final static int NUM_FILLERS = 8; // maximum number of words allowed in
@@ -25,57 +29,77 @@ public class Variable {
 	final static public short SENTINEL = 32767; // assumes sentence positions
 	// never get this big
 
-	public short[] fillers;
-
-	// can we create a default constructor called by all these which
-	// creates memory for the fillers array?
+	private final static int NUM_CACHED = 256; // single word Variables shared
 
 	/*
-	 * unfilled variable the first position in the array indicates whether the
-	 * variable is filled
+	 * the first position indicates whether the variable is filled; as in the
+	 * C&C array version, the last position of an unfilled or single word
+	 * variable is 0 rather than SENTINEL
 	 */
-	public Variable() {
-		fillers = new short[NUM_FILLERS];
-		Arrays.fill(fillers, 1, NUM_FILLERS - 1, SENTINEL);
-		fillers[0] = UNFILLED;
+	public final static Variable UNFILLED_VARIABLE = new Variable(pack(UNFILLED, SENTINEL, SENTINEL, SENTINEL), pack(SENTINEL, SENTINEL, SENTINEL, (short) (0)));
+
+	private final static Variable[] filledVariables = new Variable[NUM_CACHED];
+
+	static {
+		for ( short position = 1; position < NUM_CACHED; position++ ) {
+			filledVariables[position] = new Variable(position);
+		}
+	}
+
+	private final long low; // fillers 0 to 3, filler 0 in the lowest bits
+	private final long high; // fillers 4 to 7
+	private final byte numFillers; // number of fillers before the first SENTINEL
+
+	private Variable(long low, long high) {
+		this.low = low;
+		this.high = high;
+
+		byte numFillers = 0;
+		while ( numFillers < NUM_FILLERS && filler(numFillers) != SENTINEL ) {
+			numFillers++;
+		}
+		this.numFillers = numFillers;
 	}
 
 	/*
 	 * filled variable the first position in the array stores the word's
 	 * position in the sentence
 	 */
-	public Variable(short position) {
-		fillers = new short[NUM_FILLERS];
-		Arrays.fill(fillers, 1, NUM_FILLERS - 1, SENTINEL);
-		fillers[0] = position;
+	private Variable(short position) {
+		this(UNFILLED_VARIABLE.low & ~0xFFFFL | (position & 0xFFFFL), UNFILLED_VARIABLE.high);
+	}
+
+	public static Variable filled(short position) {
+		if ( position > UNFILLED && position < NUM_CACHED ) {
+			return filledVariables[position];
+		}
+
+		return new Variable(position);
 	}
 
 	/*
-	 * "if" condition allows the other Variable to be filled, which creates the
-	 * unfilled chained case
+	 * allows the other Variable to be filled, which creates the unfilled
+	 * chained case (the other's fillers shifted along by one); any other
+	 * Variable gives the unfilled Variable
 	 */
-	public Variable(Variable other) {
-		fillers = new short[NUM_FILLERS];
-		if (other.isFilled()) {
-			fillers[0] = UNFILLED;
-			System.arraycopy(other.fillers, 0, fillers, 1, NUM_FILLERS - 1);
-		} else {
-			Arrays.fill(fillers, 1, NUM_FILLERS - 1, SENTINEL);
-			fillers[0] = UNFILLED;
+	public static Variable chain(Variable other) {
+		if ( !other.isFilled() ) {
+			return UNFILLED_VARIABLE;
 		}
+
+		return new Variable(other.low << 16, (other.high << 16) | (other.low >>> 48));
 	}
 
 	/*
-	 * unifying two variables to construct a new one
+	 * unifying two variables to construct a new one; returns one of the
+	 * arguments if the result has the same fillers
 	 */
-	public Variable(Variable v1, Variable v2) {
-		fillers = new short[NUM_FILLERS];
-
+	public static Variable unify(Variable v1, Variable v2) {
 		int v1Index = 0;
 		int v2Index = 0;
-		if (v1.fillers[0] == UNFILLED) {
+		if (v1.filler(0) == UNFILLED) {
 			v1Index++;
-		} else if (v2.fillers[0] == UNFILLED)
+		} else if (v2.filler(0) == UNFILLED)
 		{
 			v2Index++;
 			// } else
@@ -89,22 +113,71 @@ public class Variable {
 
 		/*
 		 * shifts along both arrays until this array is full; "zero" elements
-		 * are SENTINELS which have the *maximum* value
+		 * are SENTINELS which have the *maximum* value (as are positions off
+		 * the end of an array)
 		 */
-		for (int i = 0; i < fillers.length; i++) {
-			if (v1.fillers[v1Index] < v2.fillers[v2Index]) {
-				fillers[i] = v1.fillers[v1Index];
+		long low = 0;
+		long high = 0;
+		for (int i = 0; i < NUM_FILLERS; i++) {
+			short filler1 = v1.filler(v1Index);
+			short filler2 = v2.filler(v2Index);
+			long filler;
+
+			if (filler1 < filler2) {
+				filler = filler1 & 0xFFFFL;
 				v1Index++;
 			} else {
-				fillers[i] = v2.fillers[v2Index];
+				filler = filler2 & 0xFFFFL;
 				v2Index++;
 			}
+
+			if ( i < 4 ) {
+				low |= filler << (16 * i);
+			} else {
+				high |= filler << (16 * (i - 4));
+			}
+		}
+
+		if ( low == v1.low && high == v1.high ) {
+			return v1;
+		} else if ( low == v2.low && high == v2.high ) {
+			return v2;
+		} else if ( low == UNFILLED_VARIABLE.low && high == UNFILLED_VARIABLE.high ) {
+			return UNFILLED_VARIABLE;
 		}
+
+		return new Variable(low, high);
+	}
+
+	/**
+	 * @param index position in the array, from 0 to NUM_FILLERS - 1
+	 * @return filler at index; SENTINEL past the end of the array
+	 */
+	public short filler(int index) {
+		if ( index >= NUM_FILLERS ) {
+			return SENTINEL;
+		}
+
+		long fillers = index < 4 ? low : high;
+		return (short) (fillers >>> (16 * (index & 3)));
+	}
+
+	/**
+	 * @return number of fillers before the first SENTINEL, some of which may
+	 * be UNFILLED
+	 */
+	public int numFillers() {
+		return numFillers;
 	}
 
 	@Override
 	public int hashCode() {
-		return Arrays.hashCode(fillers);
+		// same as Arrays.hashCode on the C&C array
+		int hash = 1;
+		for ( int i = 0; i < NUM_FILLERS; i++ ) {
+			hash = 31 * hash + filler(i);
+		}
+		return hash;
 	}
 
 	@Override
@@ -115,23 +188,23 @@ public class Variable {
 
 		Variable cother = (Variable) other;
 
-		return Arrays.equals(this.fillers, cother.fillers);
+		return low == cother.low && high == cother.high;
 	}
 
 	public boolean isUnfilled() {
-		return fillers[0] == UNFILLED;
+		return filler(0) == UNFILLED;
 	}
 
 	public boolean isFilled() {
-		return fillers[0] > UNFILLED;
+		return filler(0) > UNFILLED;
 	}
 
 	public boolean isSingleConst() {
-		return fillers[1] == SENTINEL && isFilled();
+		return filler(1) == SENTINEL && isFilled();
 	}
 
 	public Boolean isSet() {
-		return fillers[1] != SENTINEL;
+		return filler(1) != SENTINEL;
 	}
 
 	public Boolean isUnfilledNoChain() {
@@ -139,18 +212,17 @@ public class Variable {
 	}
 
 	short getFiller() {
-		return fillers[0];
+		return filler(0);
 	}
 
 	short countFillers() {
-		short count = 0;
-		for (int i = 0; i < fillers.length; i++) {
-			if (fillers[i] == SENTINEL) {
-				break;
-			} else {
-				count++;
-			}
-		}
-		return count;
+		return numFillers;
+	}
+
+	private static long pack(short filler0, short filler1, short filler2, short filler3) {
+		return (filler0 & 0xFFFFL)
+				| (filler1 & 0xFFFFL) << 16
+				| (filler2 & 0xFFFFL) << 32
+				| (filler3 & 0xFFFFL) << 48;
 	}
 }
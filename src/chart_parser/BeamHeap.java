@@ -0,0 +1,175 @@
+package chart_parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import cat_combination.SuperCategory;
+
+/*
+ * the best beamSize supercategories offered to a cell so far, among those
+ * within beta of the best score so far; used by the streaming beam of
+ * ChartParserBeam, so that a supercategory which can't make it into the
+ * beam is dropped as soon as it has been scored
+ *
+ * the heap keeps the worst of the best at the top; ties between equal
+ * scores go to the supercategory offered first, as in Cell.applyBeam()
+ */
+
+public class BeamHeap {
+	private SuperCategory[] heap;
+	private long[] order;
+	// the order in which the supercategories in heap were offered
+
+	private int size;
+	private long numOffered;
+	private double maxScore;
+
+	private int beamSize;
+	private double beta;
+
+	public BeamHeap() {
+		this.heap = new SuperCategory[0];
+		this.order = new long[0];
+	}
+
+	/**
+	 * Empties the heap, and sets the beam parameters for the next cell.
+	 * 
+	 * @param beamSize beam size (positive)
+	 * @param beta beta (negative)
+	 */
+	public void reset(int beamSize, double beta) {
+		if ( beamSize <= 0 ) {
+			throw new IllegalArgumentException("Streaming beam needs a positive beam size.");
+		}
+
+		clear();
+
+		if ( heap.length != beamSize ) {
+			heap = new SuperCategory[beamSize];
+			order = new long[beamSize];
+		}
+
+		this.beamSize = beamSize;
+		this.beta = beta;
+	}
+
+	/**
+	 * Offers a scored supercategory to the beam.
+	 * 
+	 * @param superCat supercategory
+	 * @return true if the supercategory is in the beam for now, false if it
+	 * can't be in the final beam
+	 */
+	public boolean offer(SuperCategory superCat) {
+		long superCatOrder = numOffered++;
+
+		if ( numOffered == 1 || Double.compare(superCat.score, maxScore) > 0 ) {
+			maxScore = superCat.score;
+		}
+
+		// the max only goes up, so this is safe against the final cutoff
+		if ( superCat.score < maxScore + beta ) {
+			return false;
+		}
+
+		if ( size < beamSize ) {
+			heap[size] = superCat;
+			order[size] = superCatOrder;
+			siftUp(size++);
+			return true;
+		}
+
+		if ( !better(superCat, superCatOrder, 0) ) {
+			return false;
+		}
+
+		heap[0] = superCat;
+		order[0] = superCatOrder;
+		siftDown(0);
+		return true;
+	}
+
+	/**
+	 * Appends the beam to superCategories, best first, dropping the
+	 * supercategories which have fallen more than beta below the max since
+	 * they were offered; empties the heap.
+	 * 
+	 * @param superCategories list the beam is added to
+	 */
+	public void drainTo(ArrayList<SuperCategory> superCategories) {
+		double cutoff = maxScore + beta;
+		SuperCategory[] best = new SuperCategory[size];
+		int numBest = size;
+
+		while ( size > 0 ) {
+			best[size - 1] = heap[0];
+			heap[0] = heap[size - 1];
+			order[0] = order[size - 1];
+			heap[--size] = null;
+			siftDown(0);
+		}
+
+		for ( int i = 0; i < numBest && best[i].score >= cutoff; i++ ) {
+			superCategories.add(best[i]);
+		}
+
+		clear();
+	}
+
+	public void clear() {
+		Arrays.fill(heap, 0, size, null);
+		size = 0;
+		numOffered = 0;
+	}
+
+	private boolean better(SuperCategory superCat, long superCatOrder, int pos) {
+		int comparison = Double.compare(superCat.score, heap[pos].score);
+		return comparison > 0 || (comparison == 0 && superCatOrder < order[pos]);
+	}
+
+	private void siftUp(int pos) {
+		while ( pos > 0 ) {
+			int parent = (pos - 1) / 2;
+			if ( !better(heap[parent], order[parent], pos) ) {
+				break;
+			}
+
+			swap(parent, pos);
+			pos = parent;
+		}
+	}
+
+	private void siftDown(int pos) {
+		while ( true ) {
+			int worst = pos;
+			int left = 2 * pos + 1;
+			int right = left + 1;
+
+			if ( left < size && better(heap[worst], order[worst], left) ) {
+				worst = left;
+			}
+
+			if ( right < size && better(heap[worst], order[worst], right) ) {
+				worst = right;
+			}
+
+			if ( worst == pos ) {
+				break;
+			}
+
+			swap(worst, pos);
+			pos = worst;
+		}
+	}
+
+	private void swap(int i, int j) {
+		SuperCategory tmpSuperCat = heap[i];
+		heap[i] = heap[j];
+		heap[j] = tmpSuperCat;
+
+		long tmpOrder = order[i];
+		order[i] = order[j];
+		order[j] = tmpOrder;
+	}
+}
@@ -1,38 +1,180 @@
 package chart_parser;
 
-import java.util.HashMap;
+import java.util.Arrays;
 
 import cat_combination.SuperCategory;
 
 public class CategoryEquivalence {
 	/*
-	 * keys are triples of (position, span, SuperCategory); value becomes the *last*
-	 * SuperCategory in the linked list of equivalents
+	 * open-addressing table keyed on (position, span, equivalence hash of
+	 * the SuperCategory); the value is the *last* SuperCategory in the
+	 * linked list of equivalents, and SuperCategories with the same key are
+	 * compared with equivalent() before being linked
+	 *
+	 * a slot is in use only if its stamp is the current epoch, so clear()
+	 * just moves on to the next epoch instead of touching the table; the
+	 * table starts small and doubles when half full, so it grows with the
+	 * sentences instead of being sized for the longest one
+	 *
+	 * values of earlier epochs are not nulled out, so the table keeps the
+	 * SuperCategories of the last long sentence reachable until their slots
+	 * are reused
 	 */
-	// should refactor into Hashmap<EquivKey, LinkedList<SuperCategory>>!
-	private HashMap<EquivKey, SuperCategory> equiv;
+	private static final int MIN_CAPACITY = 1024;
+
+	private int[] stamps;
+	private int[] positions;
+	private int[] spans;
+	private long[] hashes;
+	private SuperCategory[] values;
+
+	private int epoch;
+	private int size;
+	private int mask;
+
+	private final boolean concurrent;
 
 	public CategoryEquivalence(int initCapacity) {
-		equiv = new HashMap<EquivKey, SuperCategory>(initCapacity);
+		this(initCapacity, false);
+	}
+
+	/*
+	 * initCapacity is only a hint: the table never starts bigger than
+	 * MIN_CAPACITY
+	 *
+	 * a concurrent table allows cells to be filled on different threads;
+	 * add() is then synchronized, but the linked list of equivalents needs
+	 * no locking, since all the equivalents of a category are in the same
+	 * cell and are added by the same thread
+	 */
+	public CategoryEquivalence(int initCapacity, boolean concurrent) {
+		this.concurrent = concurrent;
+		this.epoch = 1;
+		allocate(Math.min(tableSize(initCapacity), MIN_CAPACITY));
 	}
 
 	/*
 	 * returns true if equivalent category not already there, false otherwise
 	 */
 	public boolean add(int position, int span, SuperCategory superCat) {
-		EquivKey equivKey = new EquivKey(position, span, superCat);
-		SuperCategory previousValue = equiv.put(equivKey, superCat);
-		// put() returns the previous value, or null if there was no mapping for the key
-		
-		if (previousValue != null) {
-			previousValue.next = superCat;
-			return false;
+		if ( concurrent ) {
+			synchronized ( this ) {
+				return addEquivalent(position, span, superCat);
+			}
 		} else {
-			return true;
+			return addEquivalent(position, span, superCat);
 		}
 	}
 
 	public void clear() {
-		equiv.clear();
+		epoch++;
+		size = 0;
+
+		if ( epoch == 0 ) {
+			// stamps have wrapped around; forget all of them once
+			Arrays.fill(stamps, 0);
+			epoch = 1;
+		}
+	}
+
+	/*
+	 * the equivalence hash of superCat; subclasses which add to the key
+	 * have to mix it in here and check it in equivalent()
+	 */
+	protected long hash(SuperCategory superCat) {
+		return superCat.getEhash();
+	}
+
+	protected boolean equivalent(SuperCategory previous, SuperCategory superCat) {
+		return previous.equals(superCat);
+	}
+
+	private boolean addEquivalent(int position, int span, SuperCategory superCat) {
+		long hash = hash(superCat);
+		int slot = slot(position, span, hash);
+
+		while ( stamps[slot] == epoch ) {
+			if ( hashes[slot] == hash && positions[slot] == position && spans[slot] == span
+					&& equivalent(values[slot], superCat) ) {
+				values[slot].next = superCat;
+				values[slot] = superCat;
+				return false;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		if ( 2 * (size + 1) > stamps.length ) {
+			resize();
+			slot = slot(position, span, hash);
+
+			while ( stamps[slot] == epoch ) {
+				slot = (slot + 1) & mask;
+			}
+		}
+
+		put(slot, position, span, hash, superCat);
+		return true;
+	}
+
+	private void put(int slot, int position, int span, long hash, SuperCategory superCat) {
+		stamps[slot] = epoch;
+		positions[slot] = position;
+		spans[slot] = span;
+		hashes[slot] = hash;
+		values[slot] = superCat;
+		size++;
+	}
+
+	private void allocate(int capacity) {
+		stamps = new int[capacity];
+		positions = new int[capacity];
+		spans = new int[capacity];
+		hashes = new long[capacity];
+		values = new SuperCategory[capacity];
+		mask = capacity - 1;
+		size = 0;
+	}
+
+	private void resize() {
+		int[] oldStamps = stamps;
+		int[] oldPositions = positions;
+		int[] oldSpans = spans;
+		long[] oldHashes = hashes;
+		SuperCategory[] oldValues = values;
+
+		allocate(2 * oldStamps.length);
+
+		for ( int i = 0; i < oldStamps.length; i++ ) {
+			if ( oldStamps[i] == epoch ) {
+				int slot = slot(oldPositions[i], oldSpans[i], oldHashes[i]);
+
+				while ( stamps[slot] == epoch ) {
+					slot = (slot + 1) & mask;
+				}
+
+				put(slot, oldPositions[i], oldSpans[i], oldHashes[i], oldValues[i]);
+			}
+		}
+	}
+
+	// same combination as used in the equiv class in C&C, then mixed
+	// (finaliser from splitmix64) since the low bits pick the slot
+	private int slot(int position, int span, long hash) {
+		long h = (hash * 92821 + position) * 92821 + span;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h & mask;
+	}
+
+	private static int tableSize(int capacity) {
+		int tableSize = 1;
+
+		while ( tableSize < 2 * capacity && tableSize < (1 << 30) ) {
+			tableSize <<= 1;
+		}
+
+		return tableSize;
 	}
 }
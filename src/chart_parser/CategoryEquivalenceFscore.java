@@ -1,41 +1,25 @@
 package chart_parser;
 
-import java.util.HashMap;
-
 import cat_combination.SuperCategory;
 
-public class CategoryEquivalenceFscore {
+public class CategoryEquivalenceFscore extends CategoryEquivalence {
 	/*
-	 * keys are tuples of (position, span, SuperCategory, d); value becomes the
-	 * *last* SuperCategory in the linked list of equivalents
+	 * as CategoryEquivalence, but the key also includes d, the maximum number
+	 * of dependencies (p.90 of Auli's thesis), which is kept in the outside
+	 * field of the SuperCategory (not ideal naming, but better to use an
+	 * existing field rather than a new one)
 	 */
-	// should refactor into Hashmap<EquivKeyFscore, LinkedList<SuperCategory>>!
-	private HashMap<EquivKeyFscore, SuperCategory> equiv;
-
 	public CategoryEquivalenceFscore(int initCapacity) {
-		equiv = new HashMap<EquivKeyFscore, SuperCategory>(initCapacity);
+		super(initCapacity);
 	}
 
-	/*
-	 * returns true if equivalent category not already there, false otherwise
-	 */
-	public boolean add(int position, int span, SuperCategory superCat) {
-		double d = superCat.outside;
-		// not ideal naming, but better to use existing field rather than use a new one
-		EquivKeyFscore equivKey = new EquivKeyFscore(position, span, superCat, d);
-		SuperCategory value = equiv.get(equivKey);
-		equiv.put(equivKey, superCat);
-		// overrides the previous value (if there was one)
-
-		if (value != null) {
-			value.next = superCat;
-			return false;
-		} else {
-			return true;
-		}
+	@Override
+	protected long hash(SuperCategory superCat) {
+		return superCat.getEhash() * 92821 + (int) (superCat.getOutside());
 	}
 
-	public void clear() {
-		equiv.clear();
+	@Override
+	protected boolean equivalent(SuperCategory previous, SuperCategory superCat) {
+		return previous.getOutside() == superCat.getOutside() && previous.equals(superCat);
 	}
 }
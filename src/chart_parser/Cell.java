@@ -1,130 +1,276 @@
 package chart_parser;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
 
 import cat_combination.SuperCategory;
-import utils.Pair;
 
 public class Cell {
 	private ArrayList<SuperCategory> superCategories;
-	private ArrayList<LinkedList<SuperCategory>> preSuperCategories;
 
-	public Cell() {
+	/*
+	 * sorted lists of supercategories from cube pruning, one per pair of
+	 * cells combined, stored end to end; preSuperCategoryEnds holds the end
+	 * of each list
+	 */
+	private ArrayList<SuperCategory> preSuperCategories;
+	private int[] preSuperCategoryEnds;
+	private int numPreSuperCategoryLists;
+	private int[] mergePositions;
+	private SuperCategoryHeap mergeQueue;
+
+	/*
+	 * the chart this cell belongs to; the cell keeps the chart's count of
+	 * supercategories up to date as it adds and prunes them
+	 */
+	private Chart chart;
+
+	/*
+	 * the streaming beam, while the cell is being filled with one (see
+	 * startBeam())
+	 */
+	private BeamHeap beamHeap;
+	private boolean streaming;
+
+	/*
+	 * join index of the supercategories, for combining this cell as the
+	 * right cell of a pair (see JoinIndex); built on first use, and dropped
+	 * by every method which changes the supercategories
+	 */
+	private JoinIndex joinIndex;
+	private boolean indexed;
+
+	public Cell(Chart chart) {
+		this.chart = chart;
 		this.superCategories = new ArrayList<SuperCategory>();
-		this.preSuperCategories = new ArrayList<LinkedList<SuperCategory>>();
+		this.preSuperCategories = new ArrayList<SuperCategory>();
+		this.preSuperCategoryEnds = new int[0];
+		this.mergePositions = new int[0];
 	}
 
 	public ArrayList<SuperCategory> getSuperCategories() {
 		return superCategories;
 	}
 
-	public ArrayList<LinkedList<SuperCategory>> getPreSuperCategories() {
-		return preSuperCategories;
+	/**
+	 * Returns the join index of the supercategories, building it if the
+	 * cell has changed since it was last built. Cells of shorter spans are
+	 * complete by the time they are combined, so the index is built once per
+	 * cell; it's synchronized since the cells of a span can be filled
+	 * concurrently, using the same cells on the right.
+	 * 
+	 * @return join index
+	 */
+	public synchronized JoinIndex joinIndex() {
+		if ( !indexed ) {
+			if ( joinIndex == null ) {
+				joinIndex = new JoinIndex();
+			}
+
+			joinIndex.index(superCategories);
+			indexed = true;
+		}
+
+		return joinIndex;
+	}
+
+	/*
+	 * called whenever the supercategories change; the cell isn't being read
+	 * by other threads at that point
+	 */
+	protected void changed() {
+		indexed = false;
+	}
+
+	/**
+	 * Adds a supercategory to the current list of preSuperCategories; the
+	 * list is closed with endPreSuperCategories().
+	 * 
+	 * @param superCat supercategory
+	 */
+	public void addPreSuperCategory(SuperCategory superCat) {
+		preSuperCategories.add(superCat);
+	}
+
+	/**
+	 * Closes the current list of preSuperCategories, sorting it in descending
+	 * order of scores; the sort is stable, so equal scores stay in the order
+	 * they were added.
+	 */
+	public void endPreSuperCategories() {
+		int start = preSuperCategoryStart(numPreSuperCategoryLists);
+		int end = preSuperCategories.size();
+
+		// insertion sort, since the lists are short and mostly sorted already
+		for ( int i = start + 1; i < end; i++ ) {
+			SuperCategory superCat = preSuperCategories.get(i);
+			int j = i;
+
+			while ( j > start && superCat.compareToScore(preSuperCategories.get(j - 1)) < 0 ) {
+				preSuperCategories.set(j, preSuperCategories.get(j - 1));
+				j--;
+			}
+
+			preSuperCategories.set(j, superCat);
+		}
+
+		if ( numPreSuperCategoryLists == preSuperCategoryEnds.length ) {
+			preSuperCategoryEnds = Arrays.copyOf(preSuperCategoryEnds, Math.max(8, 2 * numPreSuperCategoryLists));
+		}
+
+		preSuperCategoryEnds[numPreSuperCategoryLists++] = end;
+	}
+
+	private int preSuperCategoryStart(int list) {
+		return list == 0 ? 0 : preSuperCategoryEnds[list - 1];
 	}
 
 	/**
 	 * Filters ArrayList of superCategories to contain less or equal than beamSize
-	 * superCategories, with scores more or equal than maxScore + beta.
+	 * superCategories, with scores more or equal than maxScore + beta, sorted
+	 * in descending order of scores.
 	 * 
-	 * The method sorts the list, finds the cutoff element (index), and removes 
-	 * all elements from the cutoff element (inclusive) onwards.
+	 * The method finds the maximum score and drops the elements below the
+	 * cutoff in one pass, then selects the best beamSize of the rest with a
+	 * bounded heap, so only the survivors are ever sorted. Ties between equal
+	 * scores are broken by the order in which the supercategories were added
+	 * to the cell (earlier first), which is the order a stable sort of the
+	 * whole cell would give; the order matters, since it decides which
+	 * supercategories are combined first in the cells above.
+	 * 
+	 * If beamSize is not positive, the whole cell is sorted and kept.
 	 * 
 	 * @param beamSize beam size
 	 * @param beta beta (negative)
 	 */
 	public void applyBeam(int beamSize, double beta) {
-		if (!superCategories.isEmpty()) {
+		if (superCategories.isEmpty()) {
+			return;
+		}
+
+		changed();
+
+		if ( beamSize <= 0 ) {
 			// sorts in descending order of scores
 			Collections.sort(superCategories, SuperCategory.scoreComparator());
+			return;
+		}
 
-			if ( beamSize > 0 ) {
-				double maxScore = superCategories.get(0).score;
-				double cutoff = maxScore + beta;
+		int listSize = superCategories.size();
 
-				int index = getIndexFast(superCategories, cutoff);
-				int finalSize = Math.min(beamSize, index);
+		double maxScore = superCategories.get(0).score;
+		for ( int i = 1; i < listSize; i++ ) {
+			if ( Double.compare(superCategories.get(i).score, maxScore) > 0 ) {
+				maxScore = superCategories.get(i).score;
+			}
+		}
 
-				int listSize = superCategories.size();
-				if (finalSize < listSize) {
-					superCategories.subList(finalSize, listSize).clear();
-					superCategories.trimToSize();
-					Chart.setNumSuperCategories(Chart.getNumSuperCategories() - (listSize - finalSize));
-				}
+		double cutoff = maxScore + beta;
+
+		// move the elements within beta of the max to the front, keeping their order
+		int numInBeta = 0;
+		for ( int i = 0; i < listSize; i++ ) {
+			SuperCategory superCat = superCategories.get(i);
+			if ( superCat.score >= cutoff ) {
+				superCategories.set(numInBeta++, superCat);
 			}
 		}
+
+		int finalSize = Math.min(beamSize, numInBeta);
+
+		if ( numInBeta > beamSize ) {
+			SuperCategory[] best = selectBest(numInBeta, beamSize);
+			superCategories.clear();
+			superCategories.addAll(Arrays.asList(best));
+		} else {
+			superCategories.subList(numInBeta, listSize).clear();
+			// stable, so equal scores stay in the order they were added
+			Collections.sort(superCategories, SuperCategory.scoreComparator());
+		}
+
+		if (finalSize < listSize) {
+			superCategories.trimToSize();
+			chart.addNumSuperCategories(-(listSize - finalSize));
+		}
 	}
 
-	/**
-	 * Returns the index of the element of the list with the largest score strictly
-	 * lesser than cutoff.
-	 * 
-	 * The method assumes that the list is not empty and is sorted in descending
-	 * order.
-	 * 
-	 * The method returns list.size() + 1 if all elements are greater than the
-	 * cutoff.
-	 * 
-	 * @param list list of supercategories
-	 * @param cutoff cutoff
-	 * @return index of element with largest score strictly lesser than cutoff
+	/*
+	 * returns the best k of the first n superCategories in descending order
+	 * (ties go to the lower index), keeping the worst of the best k seen so
+	 * far at the top of a heap of indices
 	 */
-	private int getIndex(ArrayList<SuperCategory> list, double cutoff) {
-		Iterator<SuperCategory> itr = superCategories.iterator();
+	private SuperCategory[] selectBest(int n, int k) {
+		int[] heap = new int[k];
+		int heapSize = 0;
 
-		int index = 0;
-		while (itr.hasNext()) {
-			SuperCategory superCat = itr.next();
-			if (superCat.score < cutoff) {
-				break;
+		for ( int i = 0; i < n; i++ ) {
+			if ( heapSize < k ) {
+				heap[heapSize] = i;
+				siftUp(heap, heapSize++);
+			} else if ( better(i, heap[0]) ) {
+				heap[0] = i;
+				siftDown(heap, 0, heapSize);
 			}
-			index++;
 		}
 
-		return index;
+		// the heap pops the worst first, so fill from the end
+		SuperCategory[] best = new SuperCategory[k];
+		while ( heapSize > 0 ) {
+			best[heapSize - 1] = superCategories.get(heap[0]);
+			heap[0] = heap[--heapSize];
+			siftDown(heap, 0, heapSize);
+		}
+
+		return best;
 	}
 
-	/**
-	 * Returns the index of the element of the list with the largest score strictly
-	 * lesser than cutoff.
-	 * 
-	 * The method assumes that the list is not empty and is sorted in descending
-	 * order.
-	 * 
-	 * The method returns list.size() + 1 if all elements are greater than the
-	 * cutoff.
-	 * 
-	 * @param list list of supercategories
-	 * @param cutoff cutoff
-	 * @return index of element with largest score strictly lesser than cutoff
-	 */
-	private int getIndexFast(ArrayList<SuperCategory> list, double cutoff) {
-		int leftPtr = 0;
-		int rightPtr = list.size() - 1;
+	private boolean better(int i, int j) {
+		int comparison = Double.compare(superCategories.get(i).score, superCategories.get(j).score);
+		return comparison > 0 || (comparison == 0 && i < j);
+	}
 
-		while (true) {
-			if ( list.get(rightPtr).score >= cutoff ) {
-				return rightPtr + 1;
+	private void siftUp(int[] heap, int pos) {
+		while ( pos > 0 ) {
+			int parent = (pos - 1) / 2;
+			if ( !better(heap[parent], heap[pos]) ) {
+				break;
 			}
 
-			if ( list.get(leftPtr).score < cutoff ) {
-				return leftPtr;
+			swap(heap, parent, pos);
+			pos = parent;
+		}
+	}
+
+	private void siftDown(int[] heap, int pos, int heapSize) {
+		while ( true ) {
+			int worst = pos;
+			int left = 2 * pos + 1;
+			int right = left + 1;
+
+			if ( left < heapSize && better(heap[worst], heap[left]) ) {
+				worst = left;
 			}
 
-			int midPtr = (int) Math.floor((leftPtr + rightPtr)/2.0);
+			if ( right < heapSize && better(heap[worst], heap[right]) ) {
+				worst = right;
+			}
 
-			if ( list.get(midPtr).score >= cutoff ) {
-				leftPtr = midPtr + 1;
-			} else {
-				rightPtr = midPtr;
+			if ( worst == pos ) {
+				break;
 			}
+
+			swap(heap, worst, pos);
+			pos = worst;
 		}
 	}
 
+	private static void swap(int[] heap, int i, int j) {
+		int tmp = heap[i];
+		heap[i] = heap[j];
+		heap[j] = tmp;
+	}
+
 	/**
 	 * Merges the sorted lists of supercategories in preSuperCategories into a
 	 * list of size beamSize. The method uses a priority queue to merge the
@@ -135,45 +281,107 @@ public class Cell {
 	 * @param beamSize beamsize
 	 */
 	public void combinePreSuperCategories(int beamSize) {
-		PriorityQueue<Pair<SuperCategory, Integer>> queue =
-				new PriorityQueue<Pair<SuperCategory, Integer>>(beamSize,
-						new Comparator<Pair<SuperCategory, Integer>>(){
-					@Override
-					public int compare(Pair<SuperCategory, Integer> p1, Pair<SuperCategory, Integer> p2){
-						return p1.x.compareToScore(p2.x);
-					}});
-
-		for ( int i = 0; i < preSuperCategories.size(); i++ ) {
-			LinkedList<SuperCategory> preSuperCategory = preSuperCategories.get(i);
-			if ( !preSuperCategory.isEmpty() ) {
-				queue.add(new Pair<SuperCategory, Integer>(preSuperCategory.poll(), i));
+		changed();
+
+		if ( mergeQueue == null ) {
+			mergeQueue = new SuperCategoryHeap();
+		}
+
+		if ( mergePositions.length < numPreSuperCategoryLists ) {
+			mergePositions = new int[preSuperCategoryEnds.length];
+		}
+
+		for ( int i = 0; i < numPreSuperCategoryLists; i++ ) {
+			int start = preSuperCategoryStart(i);
+
+			if ( start < preSuperCategoryEnds[i] ) {
+				mergeQueue.add(preSuperCategories.get(start), i);
+				start++;
 			}
+
+			mergePositions[i] = start;
 		}
 
 		while ( superCategories.size() < beamSize ) {
-			if ( !queue.isEmpty() ) {
-				Pair<SuperCategory, Integer> top = queue.poll();
-				superCategories.add(top.x);
+			if ( !mergeQueue.isEmpty() ) {
+				SuperCategory top = mergeQueue.peekSuperCat();
+				int list = mergeQueue.peekTag();
+				mergeQueue.remove();
+				superCategories.add(top);
 
-				if ( !preSuperCategories.get(top.y).isEmpty() ) {
-					queue.add(new Pair<SuperCategory, Integer>(preSuperCategories.get(top.y).poll(), top.y));
+				if ( mergePositions[list] < preSuperCategoryEnds[list] ) {
+					mergeQueue.add(preSuperCategories.get(mergePositions[list]++), list);
 				}
 			} else {
 				break;
 			}
 		}
 
+		mergeQueue.clear();
+		clearPreSuperCategories();
+	}
+
+	private void clearPreSuperCategories() {
 		preSuperCategories.clear();
+		numPreSuperCategoryLists = 0;
+	}
+
+	/**
+	 * Starts filling the cell through a streaming beam: supercategories are
+	 * offered to the cell with offer(), and only the best beamSize of them
+	 * within beta of the max are kept; endBeam() then adds them to the cell,
+	 * in the same order as applyBeam() would leave them.
+	 * 
+	 * The method assumes the cell is empty.
+	 * 
+	 * @param beamSize beam size (positive)
+	 * @param beta beta (negative)
+	 */
+	public void startBeam(int beamSize, double beta) {
+		if ( beamHeap == null ) {
+			beamHeap = new BeamHeap();
+		}
+
+		beamHeap.reset(beamSize, beta);
+		streaming = true;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * Offers a scored supercategory to the streaming beam.
+	 * 
+	 * @param superCat supercategory
+	 * @return false if the supercategory has been dropped
+	 */
+	public boolean offer(SuperCategory superCat) {
+		return beamHeap.offer(superCat);
+	}
+
+	/**
+	 * Adds the supercategories which survived the streaming beam to the cell.
+	 */
+	public void endBeam() {
+		streaming = false;
+		changed();
+
+		int numSuperCats = superCategories.size();
+		beamHeap.drainTo(superCategories);
+		chart.addNumSuperCategories(superCategories.size() - numSuperCats);
 	}
 
 	public void add(SuperCategory superCat) {
+		changed();
 		superCategories.add(superCat);
-		Chart.setNumSuperCategories(Chart.getNumSuperCategories()+1);
+		chart.addNumSuperCategories(1);
 	}
 
 	public void add(ArrayList<SuperCategory> superCats) {
+		changed();
 		superCategories.addAll(superCats);
-		Chart.setNumSuperCategories(Chart.getNumSuperCategories()+superCats.size());
+		chart.addNumSuperCategories(superCats.size());
 	}
 
 	public int size() {
@@ -185,7 +393,14 @@ public class Cell {
 	}
 
 	public void clear() {
+		changed();
 		superCategories.clear();
-		preSuperCategories.clear();
+		clearPreSuperCategories();
+
+		if ( beamHeap != null ) {
+			beamHeap.clear();
+		}
+
+		streaming = false;
 	}
 }
@@ -7,6 +7,7 @@ import cat_combination.FilledDependency;
 import cat_combination.SuperCategory;
 import io.Sentence;
 import lexicon.Category;
+import utils.LongHashSet;
 
 public class CellTrainBeam extends Cell {
 	public double violation;
@@ -18,10 +19,12 @@ public class CellTrainBeam extends Cell {
 	private double maxScore = Double.NEGATIVE_INFINITY;
 
 	protected HashSet<FilledDependency> goldDeps;
+	protected LongHashSet goldDepKeys; // FilledDependency.key() of each of goldDeps
 
-	public CellTrainBeam() {
-		super();
+	public CellTrainBeam(Chart chart) {
+		super(chart);
 		this.goldDeps = new HashSet<FilledDependency>();
+		this.goldDepKeys = new LongHashSet();
 	}
 
 	/**
@@ -109,6 +112,15 @@ public class CellTrainBeam extends Cell {
 	 */
 	public void addDep(FilledDependency filledDep) {
 		goldDeps.add(filledDep);
+		goldDepKeys.add(FilledDependency.key(filledDep.pack()));
+	}
+
+	/**
+	 * @param filledDep packed dependency (see FilledDependency.pack())
+	 * @return true if the dependency is one of the gold dependencies
+	 */
+	public boolean containsGoldDep(long filledDep) {
+		return goldDepKeys.contains(FilledDependency.key(filledDep));
 	}
 
 	/**
@@ -145,9 +157,10 @@ public class CellTrainBeam extends Cell {
 	private int countGoldDeps(SuperCategory superCat, Sentence sentence, OracleDecoder oracleDecoder, ArrayList<Category> oracleSupertags) {
 		int numGoldSeen = 0;
 
-		for ( FilledDependency filledDep : superCat.filledDeps ) {
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filledDep = superCat.filledDep(i);
 			if ( !oracleDecoder.ignoreDeps.ignoreDependency(filledDep, sentence) ) {
-				if ( goldDeps.contains(filledDep) ) {
+				if ( containsGoldDep(filledDep) ) {
 					numGoldSeen++;
 				} else {
 					return -1;
@@ -187,8 +200,10 @@ public class CellTrainBeam extends Cell {
 
 	@Override
 	public void clear() {
+		changed();
 		getSuperCategories().clear();
 		goldDeps.clear();
+		goldDepKeys.clear();
 
 		sentIndex = 0;
 		maxScore = Double.NEGATIVE_INFINITY;
@@ -1,6 +1,8 @@
 package chart_parser;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
@@ -20,8 +22,12 @@ import model.Weights;
  * starts at 0, is given by:
  * index = (span - 1) * n - (span - 1) * (span - 2)/2 + position
  *
- * NUM_CATS_IN_CELL is used to guess at how big the hashMap inside
- * equiv should be initially
+ * cells are only allocated when a sentence needs them, and the array
+ * grows with the longest sentence seen so far rather than being sized
+ * for MAX_WORDS; clear() only touches the cells used since the last clear
+ *
+ * NUM_CATS_IN_CELL is used to guess at how big the table inside
+ * equiv should be initially (it grows as needed)
  */
 
 public class Chart {
@@ -33,6 +39,7 @@ public class Chart {
 	public int numCells;
 
 	public Cell[] chart;
+	// only the first numCells cells belong to the current sentence
 	public CategoryEquivalence equiv;
 	public CategoryEquivalenceFscore equivFscore;
 	public Relations relations;
@@ -40,30 +47,40 @@ public class Chart {
 
 	public Weights weights;
 
-	private static int numSuperCategories;
+	private final boolean trainingBeamParser;
+	private boolean leafScores;
+	// whether load() keeps the supertag scores in the leaves' decoder state
+	private int numUsedCells;
+	// cells used since the last clear()
+
+	// atomic since cells of the same span may be filled concurrently
+	private final AtomicInteger numSuperCategories = new AtomicInteger();
 
 	public static final Logger logger = LogManager.getLogger(Chart.class);
 
-	public static void setNumSuperCategories(int n) {
-		numSuperCategories = n;
+	public void setNumSuperCategories(int n) {
+		numSuperCategories.set(n);
+	}
+
+	public int getNumSuperCategories() {
+		return numSuperCategories.get();
 	}
 
-	public static int getNumSuperCategories() {
-		return numSuperCategories;
+	public void addNumSuperCategories(int n) {
+		numSuperCategories.addAndGet(n);
 	}
 
 	public Chart(int MAX_WORDS, Relations relations, boolean oracleFscore, boolean trainingBeamParser) {
 		this.MAX_WORDS = MAX_WORDS;
 		this.MAX_CELLS = (MAX_WORDS + 1) * MAX_WORDS / 2;
 
+		this.trainingBeamParser = trainingBeamParser;
+		this.leafScores = trainingBeamParser;
+
 		if (!trainingBeamParser) {
-			this.chart = new Cell[MAX_CELLS];
-			for (int i = 0; i < MAX_CELLS; i++) {
-				this.chart[i] = new Cell();
-			}
+			this.chart = new Cell[0];
 
 			int initCapacity = MAX_CELLS * NUM_CATS_IN_CELL;
-			// maybe this is too large?
 
 			if (oracleFscore) {
 				this.equivFscore = new CategoryEquivalenceFscore(initCapacity);
@@ -71,15 +88,41 @@ public class Chart {
 				this.equiv = new CategoryEquivalence(initCapacity);
 			}
 		} else {
-			this.chart = new CellTrainBeam[MAX_CELLS];
-			for (int i = 0; i < MAX_CELLS; i++) {
-				this.chart[i] = new CellTrainBeam();
-			}
+			this.chart = new CellTrainBeam[0];
 		}
 
 		this.relations = relations;
 	}
 
+	/**
+	 * Keeps the log probability and initial score of each lexical category
+	 * in its decoder state when loading a sentence, for training and for
+	 * printing forests; plain parsing only needs the score, so by default
+	 * the leaves get no decoder state (except in the training beam parser).
+	 * 
+	 * @param leafScores whether to keep the scores
+	 */
+	public void setLeafScores(boolean leafScores) {
+		this.leafScores = leafScores;
+	}
+
+	/**
+	 * Switches the category equivalence between a plain and a thread-safe
+	 * table. The thread-safe table is needed when cells of the same span are
+	 * filled concurrently; equivalence classes never span cells, so only the
+	 * table itself needs to be safe.
+	 * 
+	 * The method has no effect on charts used for oracle F-score decoding
+	 * or beam search, which don't use the equivalence.
+	 * 
+	 * @param concurrent whether the equivalence has to be thread-safe
+	 */
+	public void setConcurrent(boolean concurrent) {
+		if ( equiv != null ) {
+			equiv = new CategoryEquivalence(MAX_CELLS * NUM_CATS_IN_CELL, concurrent);
+		}
+	}
+
 	private int index(int position, int span) {
 		return ((span - 1) * numWords) - ((span - 1) * (span - 2) / 2) + position;
 	}
@@ -114,7 +157,7 @@ public class Chart {
 			cell(position, span).add(superCat);
 		} else {
 			logger.trace("found equivalent category!");
-			Chart.setNumSuperCategories(Chart.getNumSuperCategories()+1);
+			addNumSuperCategories(1);
 		}
 	}
 
@@ -122,7 +165,7 @@ public class Chart {
 		if (equivFscore.add(position, span, superCat)) {
 			cell(position, span).add(superCat);
 		} else {
-			Chart.setNumSuperCategories(Chart.getNumSuperCategories()+1);
+			addNumSuperCategories(1);
 		}
 	}
 
@@ -162,6 +205,9 @@ public class Chart {
 		numCells = (numWords + 1) * numWords / 2 + 1;
 		// numCells = (numWords + 1) * numWords / 2;
 
+		allocateCells(numCells);
+		numUsedCells = Math.max(numUsedCells, numCells);
+
 		for (int i = 0; i < numWords; i++) {
 			ArrayList<Supertag> supertags = (sentence.multiSupertags).get(i);
 			double probCutoff = (supertags.get(0)).probability * beta;
@@ -174,10 +220,14 @@ public class Chart {
 				Category cat = supertag.lexicalCategory;
 				SuperCategory superCat = SuperCategory.Lexical((short) (i + 1), cat, (short) (0));
 
-				superCat.logPScore = Math.log(supertag.probability);
-				superCat.score = weights.getLogP() * superCat.logPScore;
-				superCat.inside = superCat.score;
-				// used by PrintForest (since the depsSumDecoder already resets score)
+				double logPScore = Math.log(supertag.probability);
+				superCat.score = weights.getLogP() * logPScore;
+
+				if (leafScores) {
+					superCat.state().logPScore = logPScore;
+					superCat.state().inside = superCat.score;
+					// used by PrintForest (since the depsSumDecoder already resets score)
+				}
 
 				if (!beamParser) {
 					if (!oracleFscore) {
@@ -192,14 +242,35 @@ public class Chart {
 		}
 	}
 
+	/*
+	 * grows the array of cells to at least n cells, at least doubling it so
+	 * that a run of slightly longer sentences doesn't keep copying it
+	 */
+	private void allocateCells(int n) {
+		if ( n <= chart.length ) {
+			return;
+		}
+
+		int capacity = Math.max(n, Math.min(2 * chart.length, MAX_CELLS + 1));
+		Cell[] cells = Arrays.copyOf(chart, capacity);
+
+		for ( int i = chart.length; i < capacity; i++ ) {
+			cells[i] = trainingBeamParser ? new CellTrainBeam(this) : new Cell(this);
+		}
+
+		chart = cells;
+	}
+
 	/**
 	 * Clears chart.
 	 */
 	public void clear() {
-		for (Cell cell : chart) {
-			cell.clear();
+		for (int i = 0; i < numUsedCells; i++) {
+			chart[i].clear();
 		}
 
+		numUsedCells = 0;
+
 		if ( equiv != null ) {
 			equiv.clear();
 		}
@@ -208,6 +279,6 @@ public class Chart {
 			equivFscore.clear();
 		}
 
-		Chart.setNumSuperCategories(0);
+		setNumSuperCategories(0);
 	}
 }
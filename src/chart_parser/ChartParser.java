@@ -1,9 +1,16 @@
 package chart_parser;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,12 +19,15 @@ import cat_combination.FilledDependency;
 import cat_combination.RuleInstancesParams;
 import cat_combination.Rules;
 import cat_combination.SuperCategory;
+import cat_combination.SuperCategoryArena;
+import cat_combination.UnifyCache;
 import cat_combination.Variable;
 import io.Sentence;
 import lexicon.Categories;
 import lexicon.Relations;
 import model.Features;
 import model.Lexicon;
+import model.ParserModel;
 import model.Weights;
 import uk.ac.cam.cl.depnn.io.Feature;
 
@@ -29,6 +39,7 @@ public class ChartParser {
 	public boolean maxSuperCatsExceeded = false;
 	public boolean maxWordsExceeded = false;
 
+	public ParserModel model;
 	public Categories categories;
 	public Rules rules;
 	public Chart chart;
@@ -39,8 +50,22 @@ public class ChartParser {
 	public ArrayList<SuperCategory> results;
 	public ArrayList<Integer> featureIDs;
 
+	// right supercategories a left one may combine with (see combine):
+	protected final JoinIndex.Lookup joinLookup = new JoinIndex.Lookup();
+
 	public double[] betas;
 
+	/*
+	 * used to fill the cells of a span concurrently (see setSpanThreads);
+	 * each helper is a parser sharing this parser's model and chart, but with
+	 * its own results buffer, unification scratch space and feature IDs
+	 */
+	private ForkJoinPool spanPool;
+	private BlockingQueue<ChartParser> spanHelpers;
+
+	// shorter sentences are cheap enough to be parsed on one thread
+	private static final int MIN_WORDS_PARALLEL_SPANS = 20;
+
 	public static final Logger logger = LogManager.getLogger(ChartParser.class);
 
 	public ChartParser(
@@ -58,20 +83,33 @@ public class ChartParser {
 					boolean newFeatures,
 					boolean compactWeights,
 					double[] betas) throws IOException {
+		this(new ParserModel(grammarDir, altMarkedup, eisnerNormalForm,
+					ruleInstancesParams, lexicon, featuresFile, weightsFile,
+					newFeatures, compactWeights),
+				MAX_WORDS, MAX_SUPERCATS, oracleFscore, adaptiveSupertagging, betas);
+	}
+
+	/*
+	 * builds a parser on top of a (possibly shared) model; the parser only
+	 * allocates the per-sentence state: chart, rule scratch space and result
+	 * buffers
+	 */
+	public ChartParser(
+					ParserModel model,
+					int MAX_WORDS,
+					int MAX_SUPERCATS,
+					boolean oracleFscore,
+					boolean adaptiveSupertagging,
+					double[] betas) {
 		this.MAX_SUPERCATS = MAX_SUPERCATS;
 		this.oracleFscore = oracleFscore;
 		this.adaptiveSupertagging = adaptiveSupertagging;
-		this.categories = new Categories(grammarDir, altMarkedup);
-		this.rules = new Rules(eisnerNormalForm, categories, ruleInstancesParams);
-		this.lexicon = lexicon;
-
-		if ( compactWeights ) {
-			this.weights = new Weights();
-			this.features = new Features(featuresFile, weightsFile, weights, categories, newFeatures);
-		} else {
-			this.features = (featuresFile != null ? new Features(featuresFile, categories, newFeatures) : null);
-			this.weights = (weightsFile != null ? new Weights(weightsFile, features.numFeatures) : null);
-		}
+		this.model = model;
+		this.categories = model.categories;
+		this.rules = new Rules(model.rules);
+		this.lexicon = model.lexicon;
+		this.features = model.features;
+		this.weights = model.weights;
 
 		this.sentence = new Sentence(MAX_WORDS);
 		this.results = new ArrayList<SuperCategory>();
@@ -83,6 +121,262 @@ public class ChartParser {
 		this.betas = betas;
 	}
 
+	/*
+	 * builds a helper for filling cells concurrently: shares everything
+	 * read-only, as well as the chart, with parent
+	 */
+	protected ChartParser(ChartParser parent) {
+		this.MAX_SUPERCATS = parent.MAX_SUPERCATS;
+		this.oracleFscore = parent.oracleFscore;
+		this.adaptiveSupertagging = parent.adaptiveSupertagging;
+		this.model = parent.model;
+		this.categories = parent.categories;
+		this.rules = new Rules(parent.rules);
+		this.lexicon = parent.lexicon;
+		this.features = parent.features;
+		this.weights = parent.weights;
+
+		this.sentence = parent.sentence;
+		this.results = new ArrayList<SuperCategory>();
+		this.featureIDs = new ArrayList<Integer>();
+
+		this.chart = parent.chart;
+		this.betas = parent.betas;
+	}
+
+	/**
+	 * Returns a helper for filling cells concurrently. Subclasses which
+	 * override the cell filling methods need to return an instance of their
+	 * own class.
+	 * 
+	 * @return helper sharing this parser's model and chart
+	 */
+	protected ChartParser spanHelper() {
+		if ( getClass() != ChartParser.class ) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support concurrent cells.");
+		}
+
+		return new ChartParser(this);
+	}
+
+	/**
+	 * Sets the number of threads used to fill the cells of one span
+	 * concurrently. Since the cells of a span only depend on cells of shorter
+	 * spans, the cells of a span are filled in parallel with a barrier
+	 * between spans; the resulting chart is the same as the sequential one.
+	 * 
+	 * Oracle F-score charts are always filled sequentially.
+	 * 
+	 * @param numThreads number of threads; 1 (or less) fills cells sequentially
+	 */
+	public void setSpanThreads(int numThreads) {
+		if ( spanPool != null ) {
+			spanPool.shutdown();
+			spanPool = null;
+			spanHelpers = null;
+		}
+
+		if ( numThreads > 1 && !oracleFscore ) {
+			spanPool = new ForkJoinPool(numThreads);
+			spanHelpers = new ArrayBlockingQueue<ChartParser>(numThreads);
+
+			for ( int i = 0; i < numThreads; i++ ) {
+				spanHelpers.add(spanHelper());
+			}
+		}
+
+		chart.setConcurrent(spanPool != null);
+	}
+
+	/**
+	 * Sets up a cache for the category-level part of unification, for this
+	 * parser and its span helpers (see UnifyCache).
+	 * 
+	 * @param size maximum number of entries per thread; 0 (or less) turns
+	 * the cache off
+	 * @param eviction eviction policy
+	 */
+	public void setUnifyCache(int size, UnifyCache.Eviction eviction) {
+		rules.setUnifyCache(size, eviction);
+
+		if ( spanHelpers != null ) {
+			for ( ChartParser helper : spanHelpers ) {
+				helper.rules.setUnifyCache(size, eviction);
+			}
+		}
+	}
+
+	/**
+	 * Turns allocation of binary SuperCategories from a per-sentence arena
+	 * (see SuperCategoryArena) on or off, for this parser and its span
+	 * helpers; the chart is only valid until the next sentence is parsed.
+	 * 
+	 * @param arena whether to use arenas
+	 */
+	public void setArena(boolean arena) {
+		setArena(arena, false, null);
+	}
+
+	/**
+	 * As setArena(boolean), but the arenas can also keep the filled
+	 * dependencies of the chart off the heap (see LongSlab).
+	 * 
+	 * @param arena whether to use arenas
+	 * @param offHeap whether to keep filled dependencies off the heap
+	 * @param slabDir directory for the files backing the off-heap storage,
+	 * or null to use direct memory
+	 */
+	public void setArena(boolean arena, boolean offHeap, File slabDir) {
+		for ( Rules helperRules : allRules() ) {
+			helperRules.setArena(arena ? new SuperCategoryArena(offHeap, slabDir) : null);
+		}
+	}
+
+	/*
+	 * releases the SuperCategories of the previous chart; called before
+	 * clearing the chart
+	 */
+	protected void resetArenas() {
+		for ( Rules helperRules : allRules() ) {
+			helperRules.resetArena();
+		}
+	}
+
+	/**
+	 * @return number of unification cache hits, including the span helpers
+	 */
+	public long unifyCacheHits() {
+		long hits = 0;
+
+		for ( Rules helperRules : allRules() ) {
+			if ( helperRules.getUnifyCache() != null ) {
+				hits += helperRules.getUnifyCache().hits;
+			}
+		}
+
+		return hits;
+	}
+
+	/**
+	 * @return number of unification cache misses, including the span helpers
+	 */
+	public long unifyCacheMisses() {
+		long misses = 0;
+
+		for ( Rules helperRules : allRules() ) {
+			if ( helperRules.getUnifyCache() != null ) {
+				misses += helperRules.getUnifyCache().misses;
+			}
+		}
+
+		return misses;
+	}
+
+	private ArrayList<Rules> allRules() {
+		ArrayList<Rules> allRules = new ArrayList<Rules>();
+		allRules.add(rules);
+
+		if ( spanHelpers != null ) {
+			for ( ChartParser helper : spanHelpers ) {
+				allRules.add(helper.rules);
+			}
+		}
+
+		return allRules;
+	}
+
+	/**
+	 * Returns whether the cells of a span are to be filled concurrently; the
+	 * last span only has one cell, which is filled sequentially.
+	 * 
+	 * @param span span
+	 * @param numWords number of words in sentence
+	 * @return true if the cells of span should be filled by fillSpan()
+	 */
+	protected boolean parallelSpan(int span, int numWords) {
+		return spanPool != null && numWords >= MIN_WORDS_PARALLEL_SPANS && span < numWords;
+	}
+
+	/**
+	 * Fills the cells of a span concurrently, in the same way as the
+	 * sequential loop in parseSentence().
+	 * 
+	 * Each cell checks MAX_SUPERCATS before each combination, like the
+	 * sequential loop; since the number of supercategories in the chart only
+	 * grows, a chart in which the check fails here would also fail the check
+	 * in the sequential loop (at the latest at the start of the next span).
+	 * 
+	 * @param span span of the cells to be filled
+	 * @param numWords number of words in sentence
+	 * @return false if MAX_SUPERCATS has been exceeded, true otherwise
+	 * @throws IOException
+	 */
+	protected boolean fillSpan(final int span, final int numWords) throws IOException {
+		ArrayList<Callable<Boolean>> tasks = new ArrayList<Callable<Boolean>>(numWords - span + 1);
+
+		for (int i = 0; i <= numWords - span; i++) {
+			final int position = i;
+
+			tasks.add(new Callable<Boolean>() {
+				@Override
+				public Boolean call() throws Exception {
+					ChartParser helper = spanHelpers.take();
+
+					try {
+						helper.sentence = sentence;
+						return helper.fillCell(position, span, numWords);
+					} finally {
+						spanHelpers.put(helper);
+					}
+				}
+			});
+		}
+
+		boolean success = true;
+
+		try {
+			for ( Future<Boolean> future : spanPool.invokeAll(tasks) ) {
+				success &= future.get();
+			}
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new IOException(e);
+		} catch ( ExecutionException e ) {
+			if ( e.getCause() instanceof RuntimeException ) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+
+		return success;
+	}
+
+	/**
+	 * Fills one cell of the chart, assuming all cells of shorter spans have
+	 * been filled.
+	 * 
+	 * @param position position of the cell
+	 * @param span span of the cell
+	 * @param numWords number of words in sentence
+	 * @return false if MAX_SUPERCATS has been exceeded, true otherwise
+	 */
+	protected boolean fillCell(int position, int span, int numWords) {
+		for (int k = 1; k < span; k++) {
+			if (chart.getNumSuperCategories() > MAX_SUPERCATS) {
+				return false;
+			}
+
+			combine(chart.cell(position, k), chart.cell(position+k, span-k), position, span);
+		}
+
+		if (span < numWords) {
+			typeChange(chart.cell(position, span), position, span);
+			typeRaise(chart.cell(position, span), position, span);
+		}
+
+		return true;
+	}
+
 	public boolean parseSentence(Sentence sentence) throws IOException {
 		int betaLevel;
 
@@ -116,6 +410,7 @@ public class ChartParser {
 			logger.info("Trying beta level " + betaLevel + " with beta value " + betas[betaLevel]);
 
 			maxSuperCatsExceeded = false;
+			resetArenas();
 			chart.clear();
 			chart.load(sentence, betas[betaLevel], oracleFscore, false);
 
@@ -131,11 +426,21 @@ public class ChartParser {
 
 			jloop:
 			for (int j = 2; j <= numWords; j++) {
+				if (parallelSpan(j, numWords)) {
+					if (!fillSpan(j, numWords)) {
+						maxSuperCatsExceeded = true;
+						logger.info("MAX_SUPERCATS exceeded. (" + chart.getNumSuperCategories() + " > " + MAX_SUPERCATS + ")");
+						break jloop;
+					}
+
+					continue;
+				}
+
 				for (int i = 0; i <= numWords - j; i++) {
 					for (int k = 1; k < j; k++) {
-						if (Chart.getNumSuperCategories() > MAX_SUPERCATS) {
+						if (chart.getNumSuperCategories() > MAX_SUPERCATS) {
 							maxSuperCatsExceeded = true;
-							logger.info("MAX_SUPERCATS exceeded. (" + Chart.getNumSuperCategories() + " > " + MAX_SUPERCATS + ")");
+							logger.info("MAX_SUPERCATS exceeded. (" + chart.getNumSuperCategories() + " > " + MAX_SUPERCATS + ")");
 							break jloop;
 						}
 
@@ -177,12 +482,21 @@ public class ChartParser {
 		return true;
 	}
 
+	/*
+	 * only the pairs of supercategories which the join index of the right
+	 * cell finds get passed to rules.combine (see JoinIndex)
+	 */
 	public void combine(Cell leftCell, Cell rightCell, int position, int span) {
 		results.clear();
 
+		ArrayList<SuperCategory> rightSuperCats = rightCell.getSuperCategories();
+		JoinIndex rightIndex = rightCell.joinIndex();
+
 		for (SuperCategory leftSuperCat : leftCell.getSuperCategories()) {
-			for (SuperCategory rightSuperCat : rightCell.getSuperCategories()) {
-				boolean success = rules.combine(leftSuperCat, rightSuperCat, results, sentence);
+			rightIndex.lookup(leftSuperCat, joinLookup);
+
+			for (int j = 0; j < joinLookup.size; j++) {
+				boolean success = rules.combine(leftSuperCat, rightSuperCats.get(joinLookup.indices[j]), results, sentence);
 					if (success) {
 						logger.trace("success!: " + results.get(results.size() - 1).cat);
 					} else {
@@ -227,13 +541,7 @@ public class ChartParser {
 
 			// deal with the root features here separately;
 			// collectBinaryFeatures called separately from calcScore
-			featureIDs.clear();
-
-			features.collectRootFeatures(equiv, sentence, featureIDs);
-
-			for ( int featureID : featureIDs ) {
-				equiv.score += weights.getWeight(featureID);
-			}
+			equiv.score = features.scoreRoot(equiv, sentence, weights, equiv.score);
 		}
 	}
 
@@ -270,43 +578,16 @@ public class ChartParser {
 	}
 
 	private void calcScoreUnary(SuperCategory superCat) {
-		double score = 0.0;
-		featureIDs.clear();
-
-		features.collectUnaryFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			score += weights.getWeight(featureID);
-		}
-
-		superCat.score = score;
+		superCat.score = features.scoreUnary(superCat, sentence, weights, 0.0);
 	}
 
 	private void calcScoreBinary(SuperCategory superCat) {
-		double score = 0.0;
-		featureIDs.clear();
-
-		features.collectBinaryFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			score += weights.getWeight(featureID);
-		}
-
-		superCat.score = score;
+		superCat.score = features.scoreBinary(superCat, sentence, weights, 0.0);
 	}
 
 	private void calcScoreLeaf(SuperCategory superCat) {
-		double score = superCat.score;
 		// assume we already have the supertagger score
-		featureIDs.clear();
-
-		features.collectLeafFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			score += weights.getWeight(featureID);
-		}
-
-		superCat.score = score;
+		superCat.score = features.scoreLeaf(superCat, sentence, weights, superCat.score);
 	}
 
 	// copied from OracleDecoder (v. similar):
@@ -319,9 +600,10 @@ public class ChartParser {
 			}
 		}
 
-		for ( FilledDependency filled : superCat.filledDeps ) {
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
 			if (!ignoreDepsFlag || !oracle.ignoreDeps.ignoreDependency(filled, sentence)) {
-				deps.add(filled);
+				deps.add(FilledDependency.unpack(filled));
 			}
 		}
 	}
@@ -353,7 +635,7 @@ public class ChartParser {
 				Cell cell = chart.cell(i, j - i);
 				for (SuperCategory superCat : cell.getSuperCategories()) {
 					for (SuperCategory equiv = superCat; equiv != null; equiv = equiv.next) {
-						if (equiv.goldMarker == 1) {
+						if (equiv.getGoldMarker() == 1) {
 
 							/*
 							 * System.out.println("GOLD MARKER! "); PrintWriter
@@ -411,8 +693,9 @@ public class ChartParser {
 	}
 
 	public void printDeps(PrintWriter out, Relations relations, Sentence sentence, SuperCategory superCat) {
-		for ( FilledDependency filled : superCat.filledDeps ) {
-			filled.printFullJslot(out, relations, sentence);
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
+			FilledDependency.unpack(filled).printFullJslot(out, relations, sentence);
 		}
 
 		if (superCat.leftChild != null) {
@@ -512,22 +795,24 @@ public class ChartParser {
 	private void getWordPos(Sentence sentence, SuperCategory superCat, ArrayList<String> words, ArrayList<String> poss) {
 		Variable var = superCat.vars[superCat.cat.var];
 
-		for ( int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++ ) {
-			if ( var.fillers[i] == 0 ) {
+		for ( int i = 0; i < var.numFillers(); i++ ) {
+			if ( var.filler(i) == 0 ) {
 				continue;
 			}
 
-			words.add(sentence.words.get(var.fillers[i] - 1));
-			poss.add(sentence.postags.get(var.fillers[i] - 1));
+			words.add(sentence.words.get(var.filler(i) - 1));
+			poss.add(sentence.postags.get(var.filler(i) - 1));
 		}
 	}
 
 	public void printChartDeps(PrintWriter outChartDeps, Relations relations, Sentence sentence) {
-		for ( Cell cell : chart.chart ) {
+		for ( int i = 0; i < chart.numCells; i++ ) {
+			Cell cell = chart.chart[i];
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
 				for (SuperCategory equivSuperCat = superCat; equivSuperCat != null; equivSuperCat = equivSuperCat.next) {
-					for ( FilledDependency filled : equivSuperCat.filledDeps ) {
-						filled.printFullJslot(outChartDeps, relations, sentence);
+					for ( int j = 0; j < equivSuperCat.numFilledDeps(); j++ ) {
+						long filled = equivSuperCat.filledDep(j);
+						FilledDependency.unpack(filled).printFullJslot(outChartDeps, relations, sentence);
 					}
 				}
 			}
@@ -537,7 +822,8 @@ public class ChartParser {
 	}
 
 	public void printChartFeatures(PrintWriter outChartFeatures, Sentence sentence) {
-		for ( Cell cell : chart.chart ) {
+		for ( int i = 0; i < chart.numCells; i++ ) {
+			Cell cell = chart.chart[i];
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
 				for (SuperCategory equivSuperCat = superCat; equivSuperCat != null; equivSuperCat = equivSuperCat.next) {
 					printFeature(outChartFeatures, sentence, equivSuperCat);
@@ -3,30 +3,41 @@ package chart_parser;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
-import java.util.PriorityQueue;
+import java.util.BitSet;
 
 import org.nd4j.linalg.api.ndarray.INDArray;
 
 import cat_combination.FilledDependency;
 import cat_combination.IgnoreDepsEval;
 import cat_combination.RuleInstancesParams;
+import cat_combination.Rules;
 import cat_combination.SuperCategory;
 import io.Sentence;
 import lexicon.Relations;
 import model.Lexicon;
+import model.ParserModel;
 import uk.ac.cam.cl.depnn.io.Dependency;
 import uk.ac.cam.cl.depnn.nn.NeuralNetwork;
 import uk.ac.cam.cl.depnn.nn.SimpleNeuralNetwork;
-import utils.Pair;
 
 public class ChartParserBeam extends ChartParser {
 	private boolean cubePruning;
 	private int beamSize;
 	private double beta;
 
+	/*
+	 * see setStreamingBeam(); unaryArgs and unaryResults are scratch space
+	 * for applying the unary rules to one supercategory at a time
+	 */
+	private boolean streamingBeam;
+	private final ArrayList<SuperCategory> unaryArgs = new ArrayList<SuperCategory>();
+	private final ArrayList<SuperCategory> unaryResults = new ArrayList<SuperCategory>();
+
+	// scratch space for cube pruning; see combineBetter()
+	private final SuperCategoryHeap cubeQueue = new SuperCategoryHeap();
+	private final BitSet cubeTried = new BitSet();
+	private final int[] cubePairs = new int[2];
+
 	protected NeuralNetwork<Dependency> depnn;
 	protected boolean nnHardLabels;
 	private double nnPosThres;
@@ -35,12 +46,7 @@ public class ChartParserBeam extends ChartParser {
 	protected ArrayList<INDArray> wordEmbeddingsList;
 	protected ArrayList<INDArray> posEmbeddingsList;
 
-	private String ruleIDsFile = "grammar/ruleIDsNoEval.txt";
-	private String relRuleIDsFile = "grammar/relsNoEval.txt";
-	private String relHeadFile = "grammar/relsHeadsNoEval.txt";
-	private String relHeadFillerFile = "grammar/relsHeadsFillersNoEval.txt";
-
-	protected IgnoreDepsEval ignoreDeps = new IgnoreDepsEval(ruleIDsFile, relRuleIDsFile, relHeadFile, relHeadFillerFile, categories.dependencyRelations);
+	protected IgnoreDepsEval ignoreDeps;
 
 	public ChartParserBeam(
 					String grammarDir,
@@ -57,18 +63,47 @@ public class ChartParserBeam extends ChartParser {
 					double[] betas,
 					int beamSize,
 					double beta) throws IOException {
-		super(grammarDir, altMarkedup, eisnerNormalForm, MAX_WORDS,
-					Integer.MAX_VALUE, false, false, ruleInstancesParams,
-					lexicon, featuresFile, weightsFile, newFeatures, compactWeights, betas);
+		this(new ParserModel(grammarDir, altMarkedup, eisnerNormalForm,
+					ruleInstancesParams, lexicon, featuresFile, weightsFile,
+					newFeatures, compactWeights),
+				MAX_WORDS, cubePruning, betas, beamSize, beta);
+	}
 
-		this.chart = new Chart(MAX_WORDS, categories.dependencyRelations, false, false);
-		this.chart.setWeights(this.weights);
+	public ChartParserBeam(
+					ParserModel model,
+					int MAX_WORDS,
+					boolean cubePruning,
+					double[] betas,
+					int beamSize,
+					double beta) throws IOException {
+		super(model, MAX_WORDS, Integer.MAX_VALUE, false, false, betas);
+
+		this.ignoreDeps = model.getIgnoreDeps();
 
 		this.cubePruning = cubePruning;
 		this.beamSize = beamSize;
 		this.beta = beta;
 	}
 
+	protected ChartParserBeam(ChartParserBeam parent) {
+		super(parent);
+
+		this.ignoreDeps = parent.ignoreDeps;
+
+		this.cubePruning = parent.cubePruning;
+		this.beamSize = parent.beamSize;
+		this.beta = parent.beta;
+	}
+
+	@Override
+	protected ChartParser spanHelper() {
+		if ( getClass() != ChartParserBeam.class ) {
+			throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support concurrent cells.");
+		}
+
+		return new ChartParserBeam(this);
+	}
+
 	/*
 	 * need the decoder to provide an IgnoreDepsEval object; this is breaking
 	 * the separation between the two
@@ -103,6 +138,7 @@ public class ChartParserBeam extends ChartParser {
 		}
 
 		maxSuperCatsExceeded = false;
+		resetArenas();
 		chart.clear();
 		chart.load(sentence, betas[0], false, true);
 
@@ -160,28 +196,20 @@ public class ChartParserBeam extends ChartParser {
 			postParse(i, 1, numWords);
 		}
 
-		jloop:
-		for (int j = 2; j <= numWords; j++) {
-			for (int i = 0; i <= numWords - j; i++) {
-				setCellSize(chart, i, j);
-
-				for (int k = 1; k < j; k++) {
-					logger.trace("Combining cells: (" + i + "," + k + ") (" + (i+k) + "," + (j-k) + ")");
-
-					if (cubePruning) {
-						combineBetter(chart.cell(i, k), chart.cell(i+k, j-k), i, j, (j == numWords));
-					} else {
-						combine(chart.cell(i, k), chart.cell(i+k, j-k), i, j, (j == numWords));
-					}
-				}
+		boolean streaming = streamingBeam && !cubePruning && depnn == null;
 
-				if (cubePruning) {
-					chart.cell(i, j).combinePreSuperCategories(beamSize);
+		for (int j = 2; j <= numWords; j++) {
+			if ( streaming ) {
+				for (int i = 0; i <= numWords - j; i++) {
+					chart.cell(i, j).startBeam(beamSize, beta);
 				}
+			}
 
-				if (j < numWords) {
-					typeChange(chart.cell(i, j), i, j);
-					typeRaise(chart.cell(i, j), i, j);
+			if (parallelSpan(j, numWords)) {
+				fillSpan(j, numWords);
+			} else {
+				for (int i = 0; i <= numWords - j; i++) {
+					fillCell(i, j, numWords);
 				}
 			}
 
@@ -199,6 +227,137 @@ public class ChartParserBeam extends ChartParser {
 		return true;
 	}
 
+	/**
+	 * Fills one cell of the chart, assuming all cells of shorter spans have
+	 * been filled; the beam is applied separately, once all cells of the
+	 * span have been filled.
+	 * 
+	 * @param position position of the cell
+	 * @param span span of the cell
+	 * @param numWords number of words in sentence
+	 * @return true (there is no MAX_SUPERCATS check in the beam parser)
+	 */
+	@Override
+	protected boolean fillCell(int position, int span, int numWords) {
+		if ( chart.cell(position, span).isStreaming() ) {
+			fillCellStreaming(position, span, numWords);
+			return true;
+		}
+
+		setCellSize(chart, position, span);
+
+		for (int k = 1; k < span; k++) {
+			logger.trace("Combining cells: (" + position + "," + k + ") (" + (position+k) + "," + (span-k) + ")");
+
+			if (cubePruning) {
+				combineBetter(chart.cell(position, k), chart.cell(position+k, span-k), position, span, (span == numWords));
+			} else {
+				combine(chart.cell(position, k), chart.cell(position+k, span-k), position, span, (span == numWords));
+			}
+		}
+
+		if (cubePruning) {
+			chart.cell(position, span).combinePreSuperCategories(beamSize);
+		}
+
+		if (span < numWords) {
+			typeChange(chart.cell(position, span), position, span);
+			typeRaise(chart.cell(position, span), position, span);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Fills one cell of the chart through its streaming beam: every result is
+	 * scored and offered to the beam as soon as it is built, along with the
+	 * results of applying the unary rules to it, so results which can't make
+	 * it into the beam are dropped straight away instead of being kept until
+	 * the whole span has been filled.
+	 * 
+	 * The cell ends up with the same supercategories as with fillCell() and
+	 * applyBeam(), except that ties between equal scores can be broken
+	 * differently: the unary results of each supercategory are offered right
+	 * after it, rather than after all the binary results of the cell.
+	 * 
+	 * @param position position of the cell
+	 * @param span span of the cell
+	 * @param numWords number of words in sentence
+	 */
+	private void fillCellStreaming(int position, int span, int numWords) {
+		Cell cell = chart.cell(position, span);
+		boolean atRoot = (span == numWords);
+
+		for (int k = 1; k < span; k++) {
+			Cell rightCell = chart.cell(position+k, span-k);
+			ArrayList<SuperCategory> rightSuperCats = rightCell.getSuperCategories();
+			JoinIndex rightIndex = rightCell.joinIndex();
+
+			for (SuperCategory leftSuperCat : chart.cell(position, k).getSuperCategories()) {
+				rightIndex.lookup(leftSuperCat, joinLookup);
+
+				for (int j = 0; j < joinLookup.size; j++) {
+					results.clear();
+					rules.combine(leftSuperCat, rightSuperCats.get(joinLookup.indices[j]), results, sentence);
+
+					for (SuperCategory superCat : results) {
+						calcScore(superCat, atRoot);
+						cell.offer(superCat);
+
+						if ( !atRoot ) {
+							offerUnary(cell, superCat);
+						}
+					}
+				}
+			}
+		}
+
+		cell.endBeam();
+	}
+
+	/*
+	 * typeChange comes before typeRaise, and the results of typeChange can
+	 * be type-raised, as in parseSentence()
+	 */
+	private void offerUnary(Cell cell, SuperCategory superCat) {
+		unaryArgs.clear();
+		unaryArgs.add(superCat);
+
+		unaryResults.clear();
+		rules.typeChange(unaryArgs, unaryResults);
+
+		for (SuperCategory unarySuperCat : unaryResults) {
+			calcScore(unarySuperCat, false);
+			cell.offer(unarySuperCat);
+		}
+
+		unaryArgs.addAll(unaryResults);
+
+		unaryResults.clear();
+		rules.typeRaise(unaryArgs, unaryResults);
+
+		for (SuperCategory unarySuperCat : unaryResults) {
+			calcScore(unarySuperCat, false);
+			cell.offer(unarySuperCat);
+		}
+	}
+
+	/**
+	 * Turns the streaming beam on or off (off by default). With the
+	 * streaming beam, results are pruned as they are built rather than once
+	 * the whole span has been filled, which bounds the size of the cells at
+	 * beamSize; see fillCellStreaming().
+	 * 
+	 * The streaming beam is not used with cube pruning, which already bounds
+	 * the cells, or with the dependency network, whose scores are only added
+	 * once the span has been filled.
+	 * 
+	 * @param streamingBeam whether to use the streaming beam
+	 */
+	public void setStreamingBeam(boolean streamingBeam) {
+		this.streamingBeam = streamingBeam;
+	}
+
 	/**
 	 * Dummy function for extensions to parseSentence() by subclasses.
 	 * 
@@ -237,12 +396,7 @@ public class ChartParserBeam extends ChartParser {
 
 	public void combine(Cell leftCell, Cell rightCell, int position, int span, boolean atRoot) {
 		results.clear();
-
-		for (SuperCategory leftSuperCat : leftCell.getSuperCategories()) {
-			for (SuperCategory rightSuperCat : rightCell.getSuperCategories()) {
-				rules.combine(leftSuperCat, rightSuperCat, results, sentence);
-			}
-		}
+		combinePairs(leftCell, rightCell);
 
 		chart.addNoDP(position, span, results);
 
@@ -251,97 +405,122 @@ public class ChartParserBeam extends ChartParser {
 		}
 	}
 
+	/*
+	 * adds the results of combining every left supercategory with every
+	 * right one to results, only trying the pairs which the join index of
+	 * the right cell finds (see JoinIndex)
+	 */
+	private void combinePairs(Cell leftCell, Cell rightCell) {
+		ArrayList<SuperCategory> rightSuperCats = rightCell.getSuperCategories();
+		JoinIndex rightIndex = rightCell.joinIndex();
+
+		for (SuperCategory leftSuperCat : leftCell.getSuperCategories()) {
+			rightIndex.lookup(leftSuperCat, joinLookup);
+
+			for (int j = 0; j < joinLookup.size; j++) {
+				rules.combine(leftSuperCat, rightSuperCats.get(joinLookup.indices[j]), results, sentence);
+			}
+		}
+	}
+
+	/**
+	 * Combines two cells using cube pruning: starting from the best pair of
+	 * supercategories, the next pairs tried are the neighbours of the best
+	 * result found so far, until beamSize results have been found; the
+	 * results are added to the cell as a sorted list of preSuperCategories.
+	 * 
+	 * The frontier is kept in cubeQueue with pairs packed into ints
+	 * (leftIndex * rightSize + rightIndex), and the pairs already tried in
+	 * cubeTried, both reused across calls.
+	 * 
+	 * @param leftCell left cell
+	 * @param rightCell right cell
+	 * @param position position of the result cell
+	 * @param span span of the result cell
+	 * @param atRoot if the result cell is the root cell
+	 */
 	public void combineBetter(Cell leftCell, Cell rightCell, int position, int span, boolean atRoot) {
 		if ( !leftCell.isEmpty() && !rightCell.isEmpty() ) {
-			int leftSize = leftCell.getSuperCategories().size();
-			int rightSize = rightCell.getSuperCategories().size();
+			ArrayList<SuperCategory> leftSuperCats = leftCell.getSuperCategories();
+			ArrayList<SuperCategory> rightSuperCats = rightCell.getSuperCategories();
+			int leftSize = leftSuperCats.size();
+			int rightSize = rightSuperCats.size();
 
-			LinkedList<SuperCategory> kbest = new LinkedList<SuperCategory>();
+			Cell cell = chart.cell(position, span);
 
 			if ( leftSize*rightSize <= beamSize ) {
 				results.clear();
-
-				for (SuperCategory leftSuperCat : leftCell.getSuperCategories()) {
-					for (SuperCategory rightSuperCat : rightCell.getSuperCategories()) {
-						rules.combine(leftSuperCat, rightSuperCat, results, sentence);
-					}
-				}
+				combinePairs(leftCell, rightCell);
 
 				for (SuperCategory superCat : results) {
 					calcScore(superCat, atRoot);
-					kbest.add(superCat);
+					cell.addPreSuperCategory(superCat);
 				}
 			} else {
-				LinkedList<Pair<Integer, Integer>> pairs = new LinkedList<Pair<Integer, Integer>>();
-				PriorityQueue<Pair<SuperCategory, Pair<Integer, Integer>>> queue = 
-						new PriorityQueue<Pair<SuperCategory, Pair<Integer, Integer>>>(beamSize,
-								new Comparator<Pair<SuperCategory, Pair<Integer, Integer>>>(){
-							@Override
-							public int compare(Pair<SuperCategory, Pair<Integer, Integer>> p1, Pair<SuperCategory, Pair<Integer, Integer>> p2){
-								if ( p1.x == null ) {
-									return 0;
-								} else if ( p2.x == null ) {
-									return -1;
-								} else {
-									return p1.x.compareToScore(p2.x);
-								}
-							}});
-
-				boolean[][] track = new boolean[leftSize][rightSize];
-
-				int leftIndex = 0;
-				int rightIndex = 0;
-
-				pairs.add(new Pair<Integer, Integer>(leftIndex, rightIndex));
-				track[leftIndex][rightIndex] = true;
-
-				while (kbest.size() < beamSize) {
-					while (!pairs.isEmpty()) {
-						results.clear();
+				cubeQueue.clear();
+				cubeTried.clear();
+
+				int numBest = 0;
+				int numPairs = 0;
 
-						Pair<Integer, Integer> pair = pairs.poll();
-						leftIndex = pair.x;
-						rightIndex = pair.y;
+				cubePairs[numPairs++] = 0;
+				cubeTried.set(0);
 
-						SuperCategory leftSuperCat = leftCell.getSuperCategories().get(leftIndex);
-						SuperCategory rightSuperCat = rightCell.getSuperCategories().get(rightIndex);
+				while (numBest < beamSize) {
+					for ( int i = 0; i < numPairs; i++ ) {
+						int pair = cubePairs[i];
+						results.clear();
+
+						SuperCategory leftSuperCat = leftSuperCats.get(pair / rightSize);
+						SuperCategory rightSuperCat = rightSuperCats.get(pair % rightSize);
 
-						rules.combine(leftSuperCat, rightSuperCat, results, sentence);
+						if (Rules.mayCombine(leftSuperCat.cat, rightSuperCat.cat)) {
+							rules.combine(leftSuperCat, rightSuperCat, results, sentence);
+						}
 
 						if ( !results.isEmpty() ) {
 							for (SuperCategory resultSuperCat : results) {
 								calcScore(resultSuperCat, atRoot);
-								Pair<SuperCategory, Pair<Integer, Integer>> queueElement = 
-										new Pair<SuperCategory, Pair<Integer, Integer>>(resultSuperCat, new Pair<Integer, Integer>(leftIndex, rightIndex));
-								queue.add(queueElement);
+								cubeQueue.add(resultSuperCat, pair);
 							}
 						} else {
-								queue.add(new Pair<SuperCategory, Pair<Integer, Integer>>(null, new Pair<Integer, Integer>(leftIndex, rightIndex)));
+							cubeQueue.add(null, pair);
 						}
 					}
 
-					Pair<SuperCategory, Pair<Integer, Integer>> topElement = queue.poll();
+					numPairs = 0;
 
-					if ( topElement == null ) {
+					if ( cubeQueue.isEmpty() ) {
 						break;
-					} else if ( topElement.x != null ) {
-						kbest.add(topElement.x);
 					}
 
-					if ( topElement.y.x+1 < leftSize && !track[topElement.y.x+1][topElement.y.y] ) {
-						pairs.add(new Pair<Integer, Integer>(topElement.y.x+1, topElement.y.y));
-						track[topElement.y.x+1][topElement.y.y] = true;
+					SuperCategory top = cubeQueue.peekSuperCat();
+					int pair = cubeQueue.peekTag();
+					cubeQueue.remove();
+
+					if ( top != null ) {
+						cell.addPreSuperCategory(top);
+						numBest++;
+					}
+
+					int leftIndex = pair / rightSize;
+					int rightIndex = pair % rightSize;
+
+					if ( leftIndex+1 < leftSize && !cubeTried.get(pair + rightSize) ) {
+						cubePairs[numPairs++] = pair + rightSize;
+						cubeTried.set(pair + rightSize);
 					}
 
-					if ( topElement.y.y+1 < rightSize && !track[topElement.y.x][topElement.y.y+1] ) {
-						pairs.add(new Pair<Integer, Integer>(topElement.y.x, topElement.y.y+1));
-						track[topElement.y.x][topElement.y.y+1] = true;
+					if ( rightIndex+1 < rightSize && !cubeTried.get(pair + 1) ) {
+						cubePairs[numPairs++] = pair + 1;
+						cubeTried.set(pair + 1);
 					}
 				}
+
+				cubeQueue.clear();
 			}
 
-			Collections.sort(kbest, SuperCategory.scoreComparator());
-			chart.cell(position, span).getPreSuperCategories().add(kbest);
+			cell.endPreSuperCategories();
 		}
 	}
 
@@ -422,7 +601,7 @@ public class ChartParserBeam extends ChartParser {
 			}
 			sum += calcSumLeafInitialScore(superCat.leftChild);
 		} else {
-			sum += superCat.logPScore;
+			sum += superCat.getLogPScore();
 		}
 
 		return sum;
@@ -432,7 +611,7 @@ public class ChartParserBeam extends ChartParser {
 		SuperCategory leftChild = superCat.leftChild;
 		SuperCategory rightChild = superCat.rightChild;
 
-		double sum = superCat.depnnScore;
+		double sum = superCat.getDepnnScore();
 
 		if (leftChild != null) {
 			if (rightChild != null) {
@@ -454,13 +633,7 @@ public class ChartParserBeam extends ChartParser {
 	 * @param superCat root supercategory
 	 */
 	private void calcScoreRoot(SuperCategory superCat) {
-		featureIDs.clear();
-
-		features.collectRootFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			superCat.score += weights.getWeight(featureID);
-		}
+		superCat.score = features.scoreRoot(superCat, sentence, weights, superCat.score);
 	}
 
 	/**
@@ -471,14 +644,7 @@ public class ChartParserBeam extends ChartParser {
 	 * @param childScore child score
 	 */
 	private void calcScoreUnary(SuperCategory superCat, double childScore) {
-		superCat.score = childScore;
-		featureIDs.clear();
-
-		features.collectUnaryFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			superCat.score += weights.getWeight(featureID);
-		}
+		superCat.score = features.scoreUnary(superCat, sentence, weights, childScore);
 	}
 
 	/**
@@ -489,14 +655,7 @@ public class ChartParserBeam extends ChartParser {
 	 * @param childrenScore children score
 	 */
 	private void calcScoreBinary(SuperCategory superCat, double childrenScore) {
-		superCat.score = childrenScore;
-		featureIDs.clear();
-
-		features.collectBinaryFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			superCat.score += weights.getWeight(featureID);
-		}
+		superCat.score = features.scoreBinary(superCat, sentence, weights, childrenScore);
 	}
 
 	/**
@@ -511,13 +670,7 @@ public class ChartParserBeam extends ChartParser {
 	 * @param superCat leaf supercategory
 	 */
 	private void calcScoreLeaf(SuperCategory superCat) {
-		featureIDs.clear();
-
-		features.collectLeafFeatures(superCat, sentence, featureIDs);
-
-		for ( int featureID : featureIDs ) {
-			superCat.score += weights.getWeight(featureID);
-		}
+		superCat.score = features.scoreLeaf(superCat, sentence, weights, superCat.score);
 	}
 
 	protected Dependency makeDependency(FilledDependency dep) {
@@ -546,14 +699,15 @@ public class ChartParserBeam extends ChartParser {
 			Cell cell = chart.cell(pos, span);
 
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
-				if ( superCat.filledDeps == null || superCat.filledDeps.isEmpty() ) {
+				if ( superCat.numFilledDeps() == 0 ) {
 					indices.add(deps.size());
 					continue;
 				}
 
-				for ( FilledDependency dep : superCat.filledDeps ) {
+				for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+					long dep = superCat.filledDep(i);
 					if ( !ignoreDeps.ignoreDependency(dep, sentence) ) {
-						deps.add(makeDependency(dep));
+						deps.add(makeDependency(FilledDependency.unpack(dep)));
 					}
 				}
 
@@ -580,10 +734,10 @@ public class ChartParserBeam extends ChartParser {
 
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
 				for ( int j = indices.get(superCatCount); j < indices.get(superCatCount+1); j++ ) {
-					superCat.depnnScore += predictions[j];
+					superCat.state().depnnScore += predictions[j];
 				}
 
-				superCat.score += weights.getDepNN() * superCat.depnnScore;
+				superCat.score += weights.getDepNN() * superCat.getDepnnScore();
 				superCatCount++;
 			}
 		}
@@ -703,10 +857,12 @@ public class ChartParserBeam extends ChartParser {
 
 	@Override
 	public void printChartDeps(PrintWriter outChartDeps, Relations relations, Sentence sentence) {
-		for ( Cell cell : chart.chart ) {
+		for ( int i = 0; i < chart.numCells; i++ ) {
+			Cell cell = chart.chart[i];
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
-				for ( FilledDependency filled : superCat.filledDeps ) {
-					filled.printFullJslot(outChartDeps, relations, sentence);
+				for ( int j = 0; j < superCat.numFilledDeps(); j++ ) {
+					long filled = superCat.filledDep(j);
+					FilledDependency.unpack(filled).printFullJslot(outChartDeps, relations, sentence);
 				}
 			}
 		}
@@ -716,7 +872,8 @@ public class ChartParserBeam extends ChartParser {
 
 	@Override
 	public void printChartFeatures(PrintWriter outChartFeatures, Sentence sentence) {
-		for ( Cell cell : chart.chart ) {
+		for ( int i = 0; i < chart.numCells; i++ ) {
+			Cell cell = chart.chart[i];
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
 				printFeature(outChartFeatures, sentence, superCat);
 			}
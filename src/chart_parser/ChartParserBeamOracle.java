@@ -2,7 +2,6 @@ package chart_parser;
 
 import java.io.IOException;
 
-import cat_combination.FilledDependency;
 import cat_combination.RuleInstancesParams;
 import cat_combination.SuperCategory;
 import model.Lexicon;
@@ -68,21 +67,22 @@ public class ChartParserBeamOracle extends ChartTrainParserBeam {
 			CellTrainBeam cell = (CellTrainBeam) chart.cell(pos, span);
 
 			for ( SuperCategory superCat : cell.getSuperCategories() ) {
-				if ( superCat.filledDeps == null || superCat.filledDeps.isEmpty() ) {
+				if ( superCat.numFilledDeps() == 0 ) {
 					continue;
 				}
 
-				for ( FilledDependency dep : superCat.filledDeps ) {
+				for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+					long dep = superCat.filledDep(i);
 					if ( !oracleDecoder.ignoreDeps.ignoreDependency(dep, sentence) ) {
-						if ( cell.goldDeps.contains(dep) ) {
-							superCat.depnnScore += correctScore;
+						if ( cell.containsGoldDep(dep) ) {
+							superCat.state().depnnScore += correctScore;
 						} else {
-							superCat.depnnScore += incorrectScore;
+							superCat.state().depnnScore += incorrectScore;
 						}
 					}
 				}
 
-				superCat.score += weights.getDepNN() * superCat.depnnScore;
+				superCat.score += weights.getDepNN() * superCat.getDepnnScore();
 			}
 		}
 	}
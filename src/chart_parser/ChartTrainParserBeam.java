@@ -15,6 +15,7 @@ import cat_combination.RuleInstancesParams;
 import cat_combination.SuperCategory;
 import lexicon.Category;
 import model.Lexicon;
+import model.ParserModel;
 import training.Feature;
 
 public class ChartTrainParserBeam extends ChartParserBeam {
@@ -52,9 +53,28 @@ public class ChartTrainParserBeam extends ChartParserBeam {
 			boolean parallelUpdate,
 			boolean updateLogP,
 			boolean updateDepNN) throws IOException {
-		super(grammarDir, altMarkedup, eisnerNormalForm, MAX_WORDS, ruleInstancesParams,
-				lexicon, featuresFile, weightsFile, newFeatures, false, cubePruning,
-				betas, beamSize, beta);
+		this(new ParserModel(grammarDir, altMarkedup, eisnerNormalForm,
+					ruleInstancesParams, lexicon, featuresFile, weightsFile,
+					newFeatures, false),
+				MAX_WORDS, cubePruning, betas, beamSize, beta, parallelUpdate,
+				updateLogP, updateDepNN);
+	}
+
+	/*
+	 * trains the weights of model, which isn't shared with other parsers
+	 * since training changes them
+	 */
+	public ChartTrainParserBeam(
+			ParserModel model,
+			int MAX_WORDS,
+			boolean cubePruning,
+			double[] betas,
+			int beamSize,
+			double beta,
+			boolean parallelUpdate,
+			boolean updateLogP,
+			boolean updateDepNN) throws IOException {
+		super(model, MAX_WORDS, cubePruning, betas, beamSize, beta);
 
 		this.chart = new Chart(MAX_WORDS, categories.dependencyRelations, false, true);
 		this.chart.setWeights(this.weights);
@@ -261,7 +281,7 @@ public class ChartTrainParserBeam extends ChartParserBeam {
 		SuperCategory leftChild = superCat.leftChild;
 		SuperCategory rightChild = superCat.rightChild;
 
-		if ( superCat.marked ) {
+		if ( superCat.isMarked() ) {
 			return;
 		}
 
@@ -288,7 +308,7 @@ public class ChartTrainParserBeam extends ChartParserBeam {
 		for ( SuperCategory goldCat : goldSuperCats ) {
 			for ( SuperCategory foundCat : foundSuperCats ) {
 				if ( goldCat == foundCat ) {
-					foundCat.marked = true;
+					foundCat.state().marked = true;
 					break;
 				}
 			}
@@ -2,8 +2,6 @@ package chart_parser;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -12,6 +10,7 @@ import cat_combination.FilledDependency;
 import cat_combination.SuperCategory;
 import io.Sentence;
 import lexicon.Relations;
+import utils.LongDoubleHashMap;
 import utils.NumericalFunctions;
 
 /*
@@ -21,16 +20,17 @@ import utils.NumericalFunctions;
 
 public class InsideOutside {
 	/*
-	 * the equals method for FilledDependency ignores the ruleID and long-range
-	 * fields - for the depScores HashMap the ruleID field at least should
+	 * keyed by packed FilledDependency, comparing only the fields which the
+	 * equals method for FilledDependency compares, so it ignores the ruleID
+	 * and long-range fields - for depScores the ruleID field at least should
 	 * probably be taken into account
 	 */
-	HashMap<FilledDependency, Double> depScores;
+	LongDoubleHashMap depScores;
 
 	public static final Logger logger = LogManager.getLogger(InsideOutside.class);
 
 	public InsideOutside() {
-		depScores = new HashMap<FilledDependency, Double>();
+		depScores = new LongDoubleHashMap(FilledDependency.KEY_MASK);
 	}
 
 	public void calc(Chart chart) {
@@ -58,10 +58,10 @@ public class InsideOutside {
 		boolean start = true;
 		for (SuperCategory superCat : root.getSuperCategories()) {
 			if (start) {
-				Z = superCat.disjInside;
+				Z = superCat.state().disjInside;
 				start = false;
 			} else {
-				Z = NumericalFunctions.addLogs(Z, superCat.disjInside);
+				Z = NumericalFunctions.addLogs(Z, superCat.state().disjInside);
 			}
 		}
 		return Z;
@@ -73,7 +73,7 @@ public class InsideOutside {
 			disjInside = NumericalFunctions.addLogs(disjInside,
 					conjCalcInside(conj));
 		}
-		disj.disjInside = disjInside;
+		disj.state().disjInside = disjInside;
 	}
 
 	private double conjCalcInside(SuperCategory conj) {
@@ -83,12 +83,12 @@ public class InsideOutside {
 
 		if (leftChild != null) {
 			if (rightChild != null) {
-				inside += leftChild.disjInside + rightChild.disjInside;
+				inside += leftChild.state().disjInside + rightChild.state().disjInside;
 			} else {
-				inside += leftChild.disjInside;
+				inside += leftChild.state().disjInside;
 			}
 		}
-		conj.inside = inside;
+		conj.state().inside = inside;
 		return inside;
 	}
 
@@ -118,7 +118,7 @@ public class InsideOutside {
 
 	private void disjCalcOutside(SuperCategory disj, double invZ) {
 		for (SuperCategory conj = disj; conj != null; conj = conj.next) {
-			conjCalcOutside(conj, disj.outside, invZ);
+			conjCalcOutside(conj, disj.state().outside, invZ);
 		}
 	}
 
@@ -129,50 +129,48 @@ public class InsideOutside {
 
 		if (left != null) {
 			if (right != null) {
-				if (left.outside != 0.0) {
-					left.outside = NumericalFunctions.addLogs(left.outside,
-							right.disjInside + sum);
+				if (left.state().outside != 0.0) {
+					left.state().outside = NumericalFunctions.addLogs(left.state().outside,
+							right.state().disjInside + sum);
 				} else {
-					left.outside = right.disjInside + sum;
+					left.state().outside = right.state().disjInside + sum;
 				}
 
-				if (right.outside != 0.0) {
-					right.outside = NumericalFunctions.addLogs(right.outside,
-							left.disjInside + sum);
+				if (right.state().outside != 0.0) {
+					right.state().outside = NumericalFunctions.addLogs(right.state().outside,
+							left.state().disjInside + sum);
 				} else {
-					right.outside = left.disjInside + sum;
+					right.state().outside = left.state().disjInside + sum;
 				}
 			} else {
-				if (left.outside != 0.0) {
-					left.outside = NumericalFunctions
-							.addLogs(left.outside, sum);
+				if (left.state().outside != 0.0) {
+					left.state().outside = NumericalFunctions
+							.addLogs(left.state().outside, sum);
 				} else {
-					left.outside = sum;
+					left.state().outside = sum;
 				}
 			}
 		}
-		double prob = Math.exp(outside + conj.inside + invZ);
+		double prob = Math.exp(outside + conj.state().inside + invZ);
 
-		for ( FilledDependency filled : conj.filledDeps ) {
-			double score = prob;
-
-			Double currentScore = depScores.get(filled);
-			if (currentScore != null) {
-				score += currentScore;
-			}
-
-			depScores.put(filled, score);
+		for ( int i = 0; i < conj.numFilledDeps(); i++ ) {
+			long filled = conj.filledDep(i);
+			depScores.add(filled, prob);
 		}
 	}
 
 	public void printDepScores(PrintWriter out, Relations relations,
 			Sentence sentence) {
-		for ( Map.Entry<FilledDependency, Double> entry : depScores.entrySet() ) {
+		for ( int i = 0; i < depScores.capacity(); i++ ) {
+			if ( !depScores.isUsed(i) ) {
+				continue;
+			}
+
 			PrintWriter writer = new PrintWriter(System.out);
-			FilledDependency filled = entry.getKey();
+			FilledDependency filled = FilledDependency.unpack(depScores.key(i));
 			filled.printFull(writer, relations, sentence);
 			writer.flush();
-			logger.info("Dependency score for dep: " + entry.getValue());
+			logger.info("Dependency score for dep: " + depScores.value(i));
 		}
 	}
 
@@ -0,0 +1,237 @@
+package chart_parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import cat_combination.Rules;
+import cat_combination.SuperCategory;
+
+/*
+ * join index of the supercategories of a cell, for combining the cell as
+ * the right cell of a pair: rather than trying each left supercategory
+ * with every right one, a left supercategory looks up the right ones which
+ * share one of its join keys (see Rules.leftJoinKeys), plus those it
+ * combines with without unification (see Rules.leftGroup); this skips the
+ * pairs which would fail the first unification in Rules.combine, e.g.
+ * N/N with NP or NP with (S\NP)\(S\NP), as well as the pairs which
+ * combine has no case for
+ *
+ * lookups give the indices of the right supercategories for which
+ * Rules.mayCombine holds, in the order of the cell, so pairs are tried in
+ * the same order as when trying all of them, and the results are the same
+ *
+ * the keys are kept in an open-addressing table (as in LongHashSet), each
+ * pointing to a chain of entries in the order of the cell
+ *
+ * each cell builds its index on first use, and drops it when it changes
+ * (see Cell.joinIndex); lookups only read the index, so parsers on several
+ * threads can share it, each with its own Lookup
+ */
+
+public class JoinIndex {
+	private static final int EMPTY = -1;
+
+	private ArrayList<SuperCategory> superCats;
+
+	// indices of the supercategories in each group (see Rules.rightGroup):
+	private final int[][] groups;
+	private final int[] groupSizes;
+
+	private long[] tableKeys;
+	private int[] heads; // first entry for each key, EMPTY if the slot is free
+	private int[] tails;
+	private int mask;
+
+	// supercategory index and next entry for the same key, for each entry:
+	private int[] entryIndices;
+	private int[] nextEntries;
+	private int numEntries;
+
+	private final long[] keys = new long[Rules.MAX_RIGHT_JOIN_KEYS];
+
+	/*
+	 * scratch space for lookups; one per thread
+	 */
+	public static class Lookup {
+		public int[] indices = new int[64];
+		public int size;
+
+		private final long[] keys = new long[Rules.MAX_LEFT_JOIN_KEYS];
+
+		private void ensureCapacity(int capacity) {
+			if ( capacity > indices.length ) {
+				indices = new int[Math.max(capacity, 2 * indices.length)];
+			}
+		}
+	}
+
+	public JoinIndex() {
+		this.groups = new int[Rules.NUM_JOIN_GROUPS][0];
+		this.groupSizes = new int[Rules.NUM_JOIN_GROUPS];
+		this.entryIndices = new int[0];
+		this.nextEntries = new int[0];
+		allocateTable(16);
+	}
+
+	private void allocateTable(int capacity) {
+		tableKeys = new long[capacity];
+		heads = new int[capacity];
+		tails = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Indexes the supercategories of a cell, replacing the previous ones.
+	 *
+	 * @param superCats supercategories of the cell, which mustn't change
+	 * while the index is in use
+	 */
+	public void index(ArrayList<SuperCategory> superCats) {
+		this.superCats = superCats;
+		int size = superCats.size();
+
+		Arrays.fill(groupSizes, 0);
+		numEntries = 0;
+
+		int maxEntries = size * Rules.MAX_RIGHT_JOIN_KEYS;
+		if ( entryIndices.length < maxEntries ) {
+			entryIndices = new int[maxEntries];
+			nextEntries = new int[maxEntries];
+		}
+
+		// at most half full, if every entry had its own key
+		int capacity = tableKeys.length;
+		while ( capacity < 2 * maxEntries ) {
+			capacity *= 2;
+		}
+
+		if ( capacity > tableKeys.length ) {
+			allocateTable(capacity);
+		}
+
+		Arrays.fill(heads, EMPTY);
+
+		for ( int i = 0; i < size; i++ ) {
+			SuperCategory superCat = superCats.get(i);
+
+			int group = Rules.rightGroup(superCat.cat);
+			if ( group != Rules.NO_GROUP ) {
+				if ( groupSizes[group] == groups[group].length ) {
+					groups[group] = Arrays.copyOf(groups[group], Math.max(16, 2 * groupSizes[group]));
+				}
+
+				groups[group][groupSizes[group]++] = i;
+			}
+
+			int numKeys = Rules.rightJoinKeys(superCat.cat, keys);
+			for ( int k = 0; k < numKeys; k++ ) {
+				add(keys[k], i);
+			}
+		}
+	}
+
+	/*
+	 * appends an entry to the chain of key
+	 */
+	private void add(long key, int index) {
+		int entry = numEntries++;
+		entryIndices[entry] = index;
+		nextEntries[entry] = EMPTY;
+
+		int slot = hash(key) & mask;
+
+		while ( heads[slot] != EMPTY ) {
+			if ( tableKeys[slot] == key ) {
+				nextEntries[tails[slot]] = entry;
+				tails[slot] = entry;
+				return;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		tableKeys[slot] = key;
+		heads[slot] = entry;
+		tails[slot] = entry;
+	}
+
+	private int head(long key) {
+		int slot = hash(key) & mask;
+
+		while ( heads[slot] != EMPTY ) {
+			if ( tableKeys[slot] == key ) {
+				return heads[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		return EMPTY;
+	}
+
+	/**
+	 * Finds the indexed supercategories which leftSuperCat may combine with.
+	 *
+	 * @param leftSuperCat left supercategory
+	 * @param lookup filled with the indices of the right supercategories,
+	 * in increasing order
+	 */
+	public void lookup(SuperCategory leftSuperCat, Lookup lookup) {
+		lookup.ensureCapacity(numEntries + superCats.size());
+		int[] indices = lookup.indices;
+		int size = 0;
+		int numSources = 0;
+
+		int group = Rules.leftGroup(leftSuperCat.cat);
+		if ( group != Rules.NO_GROUP && groupSizes[group] > 0 ) {
+			System.arraycopy(groups[group], 0, indices, 0, groupSizes[group]);
+			size = groupSizes[group];
+			numSources++;
+		}
+
+		int numKeys = Rules.leftJoinKeys(leftSuperCat.cat, lookup.keys);
+		for ( int k = 0; k < numKeys; k++ ) {
+			int entry = head(lookup.keys[k]);
+
+			if ( entry != EMPTY ) {
+				numSources++;
+			}
+
+			for ( ; entry != EMPTY; entry = nextEntries[entry] ) {
+				indices[size++] = entryIndices[entry];
+			}
+		}
+
+		// each source is in order already
+		if ( numSources > 1 ) {
+			Arrays.sort(indices, 0, size);
+		}
+
+		// drop duplicates, and the pairs which only share a key by accident
+		int numIndices = 0;
+		int last = EMPTY;
+
+		for ( int i = 0; i < size; i++ ) {
+			int index = indices[i];
+
+			if ( index != last && Rules.mayCombine(leftSuperCat.cat, superCats.get(index).cat) ) {
+				indices[numIndices++] = index;
+			}
+
+			last = index;
+		}
+
+		lookup.size = numIndices;
+	}
+
+	/*
+	 * finaliser from splitmix64, as in LongHashSet
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h;
+	}
+}
@@ -15,10 +15,13 @@ import io.Sentence;
 import lexicon.Categories;
 import lexicon.Category;
 import lexicon.Relations;
+import utils.LongHashSet;
 
 public abstract class OracleDecoder extends Decoder {
 	public HashSet<FilledDependency> goldDeps;
 	// these are the dependencies we're trying to find
+	protected LongHashSet goldDepKeys;
+	// FilledDependency.key() of each of goldDeps, for looking up packed deps
 	public Category rootCat;
 	// some oracle decoders assume a root category
 	public Category newRootCat;
@@ -39,6 +42,7 @@ public abstract class OracleDecoder extends Decoder {
 
 	public OracleDecoder(Categories categories, boolean extractRuleInstances, boolean ignoreDepsFlag, boolean checkRoot) throws IOException {
 		this.goldDeps = new HashSet<FilledDependency>();
+		this.goldDepKeys = new LongHashSet();
 		this.parserDeps = new HashSet<FilledDependency>();
 		this.rootCat = null;
 		this.newRootCat = null;
@@ -66,6 +70,10 @@ public abstract class OracleDecoder extends Decoder {
 		return goldDeps.contains(dep);
 	}
 
+	public boolean containsGoldDep(long dep) {
+		return goldDepKeys.contains(FilledDependency.key(dep));
+	}
+
 	public int numGoldDepsIgnoreEval(Sentence sentence) {
 		int numGold = 0;
 
@@ -112,9 +120,10 @@ public abstract class OracleDecoder extends Decoder {
 			sentence.addOutputSupertag(superCat.cat);
 		}
 
-		for ( FilledDependency filled : superCat.filledDeps ) {
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
 			if (!ignoreDepsFlag || !ignoreDeps.ignoreDependency(filled, sentence)) {
-				parserDeps.add(filled);
+				parserDeps.add(FilledDependency.unpack(filled));
 			}
 		}
 	}
@@ -145,6 +154,7 @@ public abstract class OracleDecoder extends Decoder {
 
 	public boolean readDeps(BufferedReader in, Categories categories) throws IOException {
 		goldDeps.clear();
+		goldDepKeys.clear();
 
 		String line = in.readLine();
 
@@ -175,6 +185,7 @@ public abstract class OracleDecoder extends Decoder {
 			// keep the relID = 0 cases; these are rels in the gold we can't get (?)
 			FilledDependency dep = new FilledDependency(relID, headIndex, fillerIndex, unaryRuleID, lrange);
 			goldDeps.add(dep);
+			goldDepKeys.add(FilledDependency.key(dep.pack()));
 
 			line = in.readLine();
 		}
@@ -279,7 +290,7 @@ public abstract class OracleDecoder extends Decoder {
 
 	public void markEquivOracleDeps(SuperCategory superCat, boolean extractRuleInstances) {
 		// does this work? we effectively only mark the *conj* nodes:
-		if (superCat.goldMarker == -1 || superCat.goldMarker == 1) {
+		if (superCat.getGoldMarker() == -1 || superCat.getGoldMarker() == 1) {
 			return;
 			// already been to this equivalence class
 		}
@@ -288,10 +299,10 @@ public abstract class OracleDecoder extends Decoder {
 
 		for (SuperCategory equivSuperCat = superCat; equivSuperCat != null; equivSuperCat = equivSuperCat.next) {
 			if (equivSuperCat.score == maxScore) {
-				equivSuperCat.goldMarker = 1;
+				equivSuperCat.state().goldMarker = 1;
 				markConjOracleDeps(equivSuperCat, extractRuleInstances);
 			} else {
-				equivSuperCat.goldMarker = -1;
+				equivSuperCat.state().goldMarker = -1;
 				// don't bother recursing into incorrect derivations
 			}
 		}
@@ -5,7 +5,6 @@ import java.io.IOException;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
-import cat_combination.FilledDependency;
 import cat_combination.SuperCategory;
 import io.Sentence;
 import lexicon.Categories;
@@ -49,8 +48,9 @@ public class OracleDepsSumDecoder extends OracleDecoder {
 		 * that match the first 4 elements of the tuple but would get ignored by
 		 * the evaluate script);
 		 */
-		for ( FilledDependency filled : superCat.filledDeps ) {
-			if ( goldDeps.contains(filled) && !ignoreDeps.ignoreDependency(filled, sentence) ) {
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
+			if ( containsGoldDep(filled) && !ignoreDeps.ignoreDependency(filled, sentence) ) {
 				score++;
 			} else if ( !ignoreDeps.ignoreDependency(filled, sentence) ) {
 				score = score - 100;
@@ -55,8 +55,9 @@ public class OracleFscoreDecoder extends OracleDecoder {
 		 * that match the first 4 elements of the tuple but would get ignored by
 		 * the evaluate script - although the gold doesn't have these anyway?)
 		 */
-		for ( FilledDependency filled : superCat.filledDeps ) {
-			if ( goldDeps.contains(filled) && !ignoreDeps.ignoreDependency(filled, sentence) ) {
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
+			if ( containsGoldDep(filled) && !ignoreDeps.ignoreDependency(filled, sentence) ) {
 				score++;
 			}
 		}
@@ -79,7 +80,7 @@ public class OracleFscoreDecoder extends OracleDecoder {
 
 		if ( checkRoot ) {
 			for ( SuperCategory superCat : root.getSuperCategories() ) {
-				double currentScore = (2 * superCat.maxEquivScore) / (superCat.outside + numGoldDeps());
+				double currentScore = (2 * superCat.maxEquivScore) / (superCat.getOutside() + numGoldDeps());
 				// p.90 Auli's thesis
 
 				if ( currentScore > maxScore && superCat.cat.equals(rootCat) ) {
@@ -92,7 +93,7 @@ public class OracleFscoreDecoder extends OracleDecoder {
 		if ( bestEquivSuperCat == null || !checkRoot ) {
 			maxScore = Double.NEGATIVE_INFINITY;
 			for ( SuperCategory superCat : root.getSuperCategories() ) {
-				double currentScore = (2 * superCat.maxEquivScore) / (superCat.outside + numGoldDeps());
+				double currentScore = (2 * superCat.maxEquivScore) / (superCat.getOutside() + numGoldDeps());
 				// p.90 Auli's thesis
 
 				if ( currentScore > maxScore ) {
@@ -128,7 +129,7 @@ public class OracleFscoreDecoder extends OracleDecoder {
 
 		if ( checkRoot ) {
 			for ( SuperCategory superCat : root.getSuperCategories() ) {
-				double currentScore = (2 * superCat.maxEquivScore) / (superCat.outside + numGoldDeps());
+				double currentScore = (2 * superCat.maxEquivScore) / (superCat.getOutside() + numGoldDeps());
 				// p.90 Auli's thesis
 				if ( currentScore > maxScore && superCat.cat.equals(rootCat) ) {
 					foundRoot = true;
@@ -138,7 +139,7 @@ public class OracleFscoreDecoder extends OracleDecoder {
 
 			if ( foundRoot ) {
 				for ( SuperCategory superCat : root.getSuperCategories() ) {
-					double currentScore = (2 * superCat.maxEquivScore) / (superCat.outside + numGoldDeps());
+					double currentScore = (2 * superCat.maxEquivScore) / (superCat.getOutside() + numGoldDeps());
 					// p.90 Auli's thesis
 					if ( currentScore == maxScore && superCat.cat.equals(rootCat) ) {
 						foundMax = true;
@@ -151,14 +152,14 @@ public class OracleFscoreDecoder extends OracleDecoder {
 		if ( !foundRoot || !checkRoot ) {
 			maxScore = Double.NEGATIVE_INFINITY;
 			for ( SuperCategory superCat : root.getSuperCategories() ) {
-				double currentScore = (2 * superCat.maxEquivScore) / (superCat.outside + numGoldDeps());
+				double currentScore = (2 * superCat.maxEquivScore) / (superCat.getOutside() + numGoldDeps());
 				// p.90 Auli's thesis
 				if ( currentScore > maxScore ) {
 					maxScore = currentScore;
 				}
 			}
 			for ( SuperCategory superCat : root.getSuperCategories() ) {
-				double currentScore = (2 * superCat.maxEquivScore) / (superCat.outside + numGoldDeps());
+				double currentScore = (2 * superCat.maxEquivScore) / (superCat.getOutside() + numGoldDeps());
 				// p.90 Auli's thesis
 				if ( currentScore == maxScore ) {
 					foundMax = true;
@@ -0,0 +1,126 @@
+package chart_parser;
+
+import java.util.Arrays;
+
+import cat_combination.SuperCategory;
+
+/*
+ * priority queue of (SuperCategory, int) pairs, best score first, used by
+ * cube pruning instead of a PriorityQueue of Pairs, so that nothing is
+ * boxed or allocated once the arrays have grown; the int is a packed pair
+ * of indices into the cells being combined, or the index of a sorted list
+ * being merged
+ *
+ * the sift operations are the same as in java.util.PriorityQueue, so
+ * equal scores come out in the same order as with the PriorityQueue
+ *
+ * a null SuperCategory stands for a pair of supercategories which didn't
+ * combine; as in the comparator used with the PriorityQueue, a null
+ * compares equal to anything when it is the one being sifted, and below
+ * anything which isn't null otherwise
+ */
+
+public class SuperCategoryHeap {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private SuperCategory[] superCats;
+	private int[] tags;
+	private int size;
+
+	public SuperCategoryHeap() {
+		this.superCats = new SuperCategory[INITIAL_CAPACITY];
+		this.tags = new int[INITIAL_CAPACITY];
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public void add(SuperCategory superCat, int tag) {
+		if ( size == superCats.length ) {
+			superCats = Arrays.copyOf(superCats, 2 * size);
+			tags = Arrays.copyOf(tags, 2 * size);
+		}
+
+		int k = size++;
+
+		while ( k > 0 ) {
+			int parent = (k - 1) >>> 1;
+			if ( compare(superCat, superCats[parent]) >= 0 ) {
+				break;
+			}
+
+			superCats[k] = superCats[parent];
+			tags[k] = tags[parent];
+			k = parent;
+		}
+
+		superCats[k] = superCat;
+		tags[k] = tag;
+	}
+
+	/*
+	 * the top of the queue; only valid if the queue is not empty
+	 */
+	public SuperCategory peekSuperCat() {
+		return superCats[0];
+	}
+
+	public int peekTag() {
+		return tags[0];
+	}
+
+	/*
+	 * removes the top of the queue
+	 */
+	public void remove() {
+		int last = --size;
+		SuperCategory superCat = superCats[last];
+		int tag = tags[last];
+		superCats[last] = null;
+
+		if ( last != 0 ) {
+			siftDown(superCat, tag);
+		}
+	}
+
+	public void clear() {
+		Arrays.fill(superCats, 0, size, null);
+		size = 0;
+	}
+
+	private void siftDown(SuperCategory superCat, int tag) {
+		int k = 0;
+		int half = size >>> 1;
+
+		while ( k < half ) {
+			int child = 2 * k + 1;
+			int right = child + 1;
+
+			if ( right < size && compare(superCats[child], superCats[right]) > 0 ) {
+				child = right;
+			}
+
+			if ( compare(superCat, superCats[child]) <= 0 ) {
+				break;
+			}
+
+			superCats[k] = superCats[child];
+			tags[k] = tags[child];
+			k = child;
+		}
+
+		superCats[k] = superCat;
+		tags[k] = tag;
+	}
+
+	private static int compare(SuperCategory superCat1, SuperCategory superCat2) {
+		if ( superCat1 == null ) {
+			return 0;
+		} else if ( superCat2 == null ) {
+			return -1;
+		} else {
+			return superCat1.compareToScore(superCat2);
+		}
+	}
+}
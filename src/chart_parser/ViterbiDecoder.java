@@ -86,8 +86,9 @@ public class ViterbiDecoder extends Decoder {
 			sentence.addOutputSupertag(superCat.cat);
 		}
 
-		for ( FilledDependency filled : superCat.filledDeps ) {
-			parserDeps.add(filled);
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
+			parserDeps.add(FilledDependency.unpack(filled));
 		}
 	}
 
@@ -32,6 +32,36 @@ public class Params {
 		optionParser.accepts("beta").withRequiredArg().ofType(Double.class).defaultsTo(Double.NEGATIVE_INFINITY);
 	}
 
+	public static void addThreads(OptionParser optionParser) {
+		optionParser.accepts("threads").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+		optionParser.accepts("spanThreads").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+		optionParser.accepts("loadThreads").withRequiredArg().ofType(Integer.class).defaultsTo(1);
+	}
+
+	/*
+	 * number of bits of hashed feature IDs (see model.FeatureHashing), or 0
+	 * to read the features file
+	 */
+	public static void addFeatureHashing(OptionParser optionParser) {
+		optionParser.accepts("featureHashBits").withRequiredArg().ofType(Integer.class).defaultsTo(0);
+	}
+
+	public static void addUnifyCache(OptionParser optionParser) {
+		optionParser.accepts("unifyCache").withRequiredArg().ofType(Integer.class).defaultsTo(65536);
+		optionParser.accepts("unifyCacheEviction").withRequiredArg().ofType(String.class).defaultsTo("lru");
+	}
+
+	/*
+	 * allocation of the storage of binary SuperCategories from an arena (see
+	 * cat_combination.SuperCategoryArena), optionally keeping their filled
+	 * dependencies off the heap, in files in offHeapChartDir if given
+	 */
+	public static void addArena(OptionParser optionParser) {
+		optionParser.accepts("arena").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("offHeapChart").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("offHeapChartDir").withRequiredArg().ofType(String.class).defaultsTo("");
+	}
+
 	public static double[] betasArray(String listString) {
 		String[] list = listString.split(",");
 		double[] array = new double[list.length];
@@ -120,6 +150,7 @@ public class Params {
 		optionParser.accepts("maxWords").withRequiredArg().ofType(Integer.class).defaultsTo(150);
 
 		addDirs(optionParser);
+		addFeatureHashing(optionParser);
 
 		optionParser.accepts("altMarkedup").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
 		optionParser.accepts("eisnerNormalForm").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
@@ -148,6 +179,32 @@ public class Params {
 		return optionParser;
 	}
 
+	public static OptionParser getCompileModelOptionParser() {
+		OptionParser optionParser = getBaseOptionParser();
+
+		addDirs(optionParser);
+
+		optionParser.accepts("compactWeights").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
+		optionParser.accepts("pruneThreshold").withRequiredArg().ofType(Double.class).defaultsTo(0.0);
+		optionParser.accepts("weightType").withRequiredArg().ofType(String.class).defaultsTo("double");
+
+		// optional dev set evaluation of the compiled bundle
+		optionParser.accepts("evalInput").withRequiredArg().ofType(String.class);
+		optionParser.accepts("evalGoldDeps").requiredIf("evalInput").withRequiredArg().ofType(String.class);
+		optionParser.accepts("maxWords").withRequiredArg().ofType(Integer.class).defaultsTo(250);
+		optionParser.accepts("maxSupercats").withRequiredArg().ofType(Integer.class).defaultsTo(300000);
+		optionParser.accepts("altMarkedup").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("eisnerNormalForm").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
+		optionParser.accepts("adaptiveSupertagging").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("betas").withRequiredArg().ofType(String.class).defaultsTo("0.0001,0.001,0.01,0.03,0.075");
+
+		optionParser.accepts("weights").withRequiredArg().ofType(String.class).required();
+		optionParser.accepts("output").withRequiredArg().ofType(String.class).required();
+		optionParser.accepts("log").withRequiredArg().ofType(String.class).required();
+
+		return optionParser;
+	}
+
 	public static OptionParser getParserOptionParser() {
 		OptionParser optionParser = getBaseOptionParser();
 
@@ -155,6 +212,7 @@ public class Params {
 		optionParser.accepts("maxSupercats").withRequiredArg().ofType(Integer.class).defaultsTo(300000);
 
 		addDirs(optionParser);
+		addFeatureHashing(optionParser);
 
 		optionParser.accepts("altMarkedup").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
 		optionParser.accepts("eisnerNormalForm").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
@@ -166,8 +224,13 @@ public class Params {
 		optionParser.accepts("input").withRequiredArg().ofType(String.class).required();
 		optionParser.accepts("output").withRequiredArg().ofType(String.class).required();
 		optionParser.accepts("log").withRequiredArg().ofType(String.class).required();
-		optionParser.accepts("weights").withRequiredArg().ofType(String.class).required();
+		optionParser.accepts("model").withRequiredArg().ofType(String.class);
+		optionParser.accepts("mapWeights").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("weights").requiredUnless("model").withRequiredArg().ofType(String.class);
 		addFromTo(optionParser);
+		addThreads(optionParser);
+		addUnifyCache(optionParser);
+		addArena(optionParser);
 
 		return optionParser;
 	}
@@ -178,11 +241,13 @@ public class Params {
 		optionParser.accepts("maxWords").withRequiredArg().ofType(Integer.class).defaultsTo(150);
 
 		addDirs(optionParser);
+		addFeatureHashing(optionParser);
 
 		optionParser.accepts("altMarkedup").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
 		optionParser.accepts("eisnerNormalForm").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
 		optionParser.accepts("newFeatures").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
 		optionParser.accepts("cubePruning").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("streamingBeam").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
 		optionParser.accepts("compactWeights").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
 		optionParser.accepts("depnn");
 		optionParser.accepts("modelDir").requiredIf("depnn").withRequiredArg().ofType(String.class);
@@ -198,8 +263,13 @@ public class Params {
 		optionParser.accepts("input").withRequiredArg().ofType(String.class).required();
 		optionParser.accepts("output").withRequiredArg().ofType(String.class).required();
 		optionParser.accepts("log").withRequiredArg().ofType(String.class).required();
-		optionParser.accepts("weights").withRequiredArg().ofType(String.class).required();
+		optionParser.accepts("model").withRequiredArg().ofType(String.class);
+		optionParser.accepts("mapWeights").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
+		optionParser.accepts("weights").requiredUnless("model").withRequiredArg().ofType(String.class);
 		addFromTo(optionParser);
+		addThreads(optionParser);
+		addUnifyCache(optionParser);
+		addArena(optionParser);
 
 		return optionParser;
 	}
@@ -258,6 +328,7 @@ public class Params {
 		optionParser.accepts("maxSupercats").withRequiredArg().ofType(Integer.class).defaultsTo(1000000);
 
 		addDirs(optionParser);
+		addFeatureHashing(optionParser);
 
 		optionParser.accepts("altMarkedup").withRequiredArg().ofType(Boolean.class).defaultsTo(false);
 		optionParser.accepts("eisnerNormalForm").withRequiredArg().ofType(Boolean.class).defaultsTo(true);
@@ -25,6 +25,9 @@ public class Categories {
 	// ID also indexes into an array of relation objects:
 	public Relations dependencyRelations;
 
+	// shared versions of the categories built by the parser, with int IDs:
+	public CategoryInterner interner;
+
 	// used in ruleInstances (and elsewhere) - use just one canonical
 	// version of each category to prevent building the same category
 	// over and over
@@ -40,6 +43,7 @@ public class Categories {
 	// ALT_MARKEDUP signals to use the alternative lines in the markedup file (marked ! in the file)
 	public Categories(String grammarDir, boolean ALT_MARKEDUP) throws IOException {
 		dependencyRelations = new Relations();
+		interner = new CategoryInterner();
 		readMarkedupFile(grammarDir, ALT_MARKEDUP);
 		seenCategories = new HashMap<String, Category>();
 		canonicalCats = new HashMap<Category, Category>();
@@ -150,6 +154,7 @@ public class Categories {
 						// be explicit
 
 						cat.reorderVariables(seenVariables, new ByteWrapper((byte) (0)));
+						cat = interner.intern(cat);
 
 						markedupStrings.put(plainCatString, markedupCatString);
 						plainCategoryStrings.put(markedupCatString, plainCatString);
@@ -175,6 +180,7 @@ public class Categories {
 							Arrays.fill(seenVariables, VarID.NONE);
 
 							cat.reorderVariables(seenVariables, new ByteWrapper((byte) (0)));
+							cat = interner.intern(cat);
 
 							markedupStrings.put(plainCatString, markedupCatString);
 							plainCategoryStrings.put(markedupCatString, plainCatString);
@@ -436,6 +442,7 @@ public class Categories {
 
 				Arrays.fill(seenVariables, VarID.NONE);
 				cat.reorderVariables(seenVariables, new ByteWrapper((byte) (0)));
+				cat = interner.intern(cat);
 
 				/*
 				 * seenVariables[VarID.X] is the new variable corresponding to
@@ -452,25 +459,31 @@ public class Categories {
 		}
 	}
 
-	public Category canonize(String catString) {
+	/*
+	 * the canonize methods are synchronized so that models can be loaded on
+	 * several threads (see ParserModel)
+	 */
+	public synchronized Category canonize(String catString) {
 		Category cat = seenCategories.get(catString);
 		if ( cat == null ) {
 			cat = parse(catString);
 			if ( cat == null ) {
 				throw new Error("failed to parse catString!" + catString);
 			}
+			cat = interner.intern(cat);
 			canonicalCats.put(cat, cat);
 		}
 		return cat;
 	}
 
 	/*
-	 * Returns the input if it's not found in the canonical map; otherwise
-	 * returns the canonical version
+	 * Returns the (interned) input if it's not found in the canonical map;
+	 * otherwise returns the canonical version
 	 */
-	public Category canonize(Category checkCat) {
+	public synchronized Category canonize(Category checkCat) {
 		Category cat = canonicalCats.get(checkCat);
 		if ( cat == null ) {
+			checkCat = interner.intern(checkCat);
 			canonicalCats.put(checkCat, checkCat);
 			return checkCat;
 		} else {
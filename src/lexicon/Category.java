@@ -6,6 +6,7 @@ import utils.Hash;
 public class Category {
 	public static final byte BWD_SLASH = 0;
 	public static final byte FWD_SLASH = 1;
+	public static final int NO_ID = -1;
 
 	public byte var;
 	public final short relID;
@@ -24,6 +25,16 @@ public class Category {
 	public final Category result;
 	public byte numArgs;
 
+	/*
+	 * set by CategoryInterner: id is unique to the category including its
+	 * variables, equivalenceID is shared by all categories which are equal
+	 * according to equals(); both are NO_ID for categories which haven't
+	 * been interned (interned categories must not be changed afterwards,
+	 * e.g. by reorderVariables)
+	 */
+	int id = NO_ID;
+	int equivalenceID = NO_ID;
+
 	// constructor for basic categories:
 	public Category(Atom atom, GrammaticalFeature feature, byte var, short relID, short lrange) {
 		this.var = var;
@@ -189,6 +200,14 @@ public class Category {
 		return h;
 	}
 
+	public int getID() {
+		return id;
+	}
+
+	public int getEquivalenceID() {
+		return equivalenceID;
+	}
+
 	public long getEhash() {
 		return equivalenceHash.value();
 	}
@@ -204,12 +223,21 @@ public class Category {
 
 	@Override
 	public boolean equals(Object other) {
+		if ( this == other ) {
+			return true;
+		}
+
 		if ( other == null || getClass() != other.getClass() ) {
 			return false;
 		}
 
 		Category cother = (Category) other;
 
+		// interned categories are equal iff they're in the same class
+		if ( this.equivalenceID != NO_ID && cother.equivalenceID != NO_ID ) {
+			return this.equivalenceID == cother.equivalenceID;
+		}
+
 		// not equal if hashes are different
 		if ( this.equivalenceHash.value() != cother.equivalenceHash.value() ) {
 			return false;
@@ -244,6 +272,10 @@ public class Category {
 	}
 
 	public boolean equalsWithVars(Object other) {
+		if ( this == other ) {
+			return true;
+		}
+
 		if ( other == null || getClass() != other.getClass() ) {
 			return false;
 		}
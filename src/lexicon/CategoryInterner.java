@@ -0,0 +1,190 @@
+package lexicon;
+
+import java.util.HashMap;
+
+/*
+ * hash-consing of categories: every distinct category (including its
+ * variables, relation IDs and lranges) is built once and shared, and gets
+ * a dense int ID; since the children of an interned category are
+ * themselves interned, a node is identified by its own fields plus the IDs
+ * of its children, so interning costs one table lookup per node
+ *
+ * interned categories also get an equivalence ID, the same for all
+ * categories which are equal according to Category.equals() (which
+ * ignores variables), so that equals() on two interned categories is an
+ * int comparison
+ *
+ * one interner is shared by all the parsers using a Categories object;
+ * each thread keeps its own cache of the shared table, so the lock is
+ * only taken for categories the thread hasn't seen yet; once MAX_CATEGORIES
+ * categories have been interned, new categories are built as before,
+ * without IDs
+ */
+
+public class CategoryInterner {
+	public static final int MAX_CATEGORIES = 1 << 20;
+
+	private static final long BASIC = -1L;
+
+	private final CategoryTable shared;
+	private final HashMap<Category, Integer> equivalenceIDs;
+	private final ThreadLocal<CategoryTable> caches;
+
+	public CategoryInterner() {
+		this.shared = new CategoryTable();
+		this.equivalenceIDs = new HashMap<Category, Integer>();
+		this.caches = new ThreadLocal<CategoryTable>() {
+			@Override
+			protected CategoryTable initialValue() {
+				return new CategoryTable();
+			}
+		};
+	}
+
+	/**
+	 * Returns the interned version of a category, interning it (and its
+	 * children) if necessary; the category must not be changed afterwards.
+	 *
+	 * @param cat category
+	 * @return shared category identical to cat
+	 */
+	public Category intern(Category cat) {
+		if ( cat.id != Category.NO_ID ) {
+			return cat;
+		}
+
+		if ( cat.isBasic() ) {
+			return intern(cat, node(cat.atom.value(), cat.feature.value(), cat.var, (byte) (0), cat.relID, cat.lrange), BASIC);
+		}
+
+		Category result = intern(cat.result);
+		Category argument = intern(cat.argument);
+
+		if ( result.id == Category.NO_ID || argument.id == Category.NO_ID ) {
+			return cat;
+		}
+
+		if ( result != cat.result || argument != cat.argument ) {
+			cat = new Category(result, cat.slash, argument, cat.var, cat.relID, cat.lrange);
+		}
+
+		return intern(cat, node(Atom.NONE, GrammaticalFeature.NONE, cat.var, cat.slash, cat.relID, cat.lrange), children(result, argument));
+	}
+
+	/**
+	 * Interning version of Category.TransVariable: copies other whilst
+	 * translating its variables using transTable (and filling in feat for a
+	 * feature variable), but only builds the nodes not interned already.
+	 *
+	 * @param other category to be translated
+	 * @param transTable translation table for the variables
+	 * @param feat feature for feature variables
+	 * @return interned translated category
+	 */
+	public Category transVariable(Category other, byte[] transTable, GrammaticalFeature feat) {
+		byte var = transTable[other.var];
+
+		if ( other.isBasic() ) {
+			byte feature = (other.feature.isVar() && !feat.isNone()) ? feat.value() : other.feature.value();
+			long node = node(other.atom.value(), feature, var, (byte) (0), other.relID, other.lrange);
+
+			Category cat = get(node, BASIC);
+			if ( cat != null ) {
+				return cat;
+			}
+
+			return intern(new Category(other, transTable, feat), node, BASIC);
+		}
+
+		Category result = transVariable(other.result, transTable, feat);
+		Category argument = transVariable(other.argument, transTable, feat);
+
+		return complex(result, other.slash, argument, var, other.relID, other.lrange);
+	}
+
+	/**
+	 * Interning version of the complex Category constructor.
+	 */
+	public Category complex(Category result, byte slash, Category argument, byte var, short relID, short lrange) {
+		if ( result.id == Category.NO_ID || argument.id == Category.NO_ID ) {
+			return new Category(result, slash, argument, var, relID, lrange);
+		}
+
+		long node = node(Atom.NONE, GrammaticalFeature.NONE, var, slash, relID, lrange);
+		long children = children(result, argument);
+
+		Category cat = get(node, children);
+		if ( cat != null ) {
+			return cat;
+		}
+
+		return intern(new Category(result, slash, argument, var, relID, lrange), node, children);
+	}
+
+	public synchronized int size() {
+		return shared.size();
+	}
+
+	private Category get(long node, long children) {
+		CategoryTable cache = caches.get();
+		Category cat = cache.get(node, children);
+
+		if ( cat == null ) {
+			synchronized ( this ) {
+				cat = shared.get(node, children);
+			}
+
+			if ( cat != null ) {
+				cache.put(node, children, cat);
+			}
+		}
+
+		return cat;
+	}
+
+	/*
+	 * returns the shared version of cat, which becomes the shared version
+	 * if there isn't one yet (another thread may have added one since the
+	 * lookup in get)
+	 */
+	private Category intern(Category cat, long node, long children) {
+		Category shared;
+
+		synchronized ( this ) {
+			shared = this.shared.get(node, children);
+
+			if ( shared == null ) {
+				if ( this.shared.size() >= MAX_CATEGORIES ) {
+					return cat;
+				}
+
+				Integer equivalenceID = equivalenceIDs.get(cat);
+				if ( equivalenceID == null ) {
+					equivalenceID = equivalenceIDs.size();
+					equivalenceIDs.put(cat, equivalenceID);
+				}
+
+				cat.id = this.shared.size();
+				cat.equivalenceID = equivalenceID;
+				this.shared.put(node, children, cat);
+				shared = cat;
+			}
+		}
+
+		caches.get().put(node, children, shared);
+		return shared;
+	}
+
+	private static long node(byte atom, byte feature, byte var, byte slash, short relID, short lrange) {
+		return (atom & 0xFFL)
+				| (feature & 0xFFL) << 8
+				| (var & 0xFFL) << 16
+				| (slash & 0xFFL) << 24
+				| (relID & 0xFFFFL) << 32
+				| (lrange & 0xFFFFL) << 48;
+	}
+
+	private static long children(Category result, Category argument) {
+		return ((long) (result.id) << 32) | (argument.id & 0xFFFFFFFFL);
+	}
+}
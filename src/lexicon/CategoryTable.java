@@ -0,0 +1,96 @@
+package lexicon;
+
+/*
+ * open-addressing hash table from packed category nodes (see
+ * CategoryInterner) to the interned categories; uses linear probing on
+ * parallel arrays, so lookups don't allocate
+ *
+ * the capacity is a power of two and the table is kept at most half full
+ */
+
+class CategoryTable {
+	private static final int INITIAL_CAPACITY = 256;
+
+	private long[] keys; // node and children of slot i are at 2*i and 2*i + 1
+	private Category[] values;
+	private int size;
+	private int mask;
+
+	CategoryTable() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[2 * capacity];
+		values = new Category[capacity];
+		size = 0;
+		mask = capacity - 1;
+	}
+
+	Category get(long node, long children) {
+		int slot = hash(node, children) & mask;
+
+		while ( true ) {
+			Category cat = values[slot];
+
+			if ( cat == null ) {
+				return null;
+			}
+
+			if ( keys[2 * slot] == node && keys[2 * slot + 1] == children ) {
+				return cat;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/*
+	 * assumes the key isn't in the table yet
+	 */
+	void put(long node, long children, Category cat) {
+		if ( 2 * (size + 1) > values.length ) {
+			resize();
+		}
+
+		int slot = hash(node, children) & mask;
+
+		while ( values[slot] != null ) {
+			slot = (slot + 1) & mask;
+		}
+
+		keys[2 * slot] = node;
+		keys[2 * slot + 1] = children;
+		values[slot] = cat;
+		size++;
+	}
+
+	int size() {
+		return size;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		Category[] oldValues = values;
+
+		allocate(2 * oldValues.length);
+
+		for ( int i = 0; i < oldValues.length; i++ ) {
+			if ( oldValues[i] != null ) {
+				put(oldKeys[2 * i], oldKeys[2 * i + 1], oldValues[i]);
+			}
+		}
+	}
+
+	/*
+	 * finaliser from splitmix64; the packed fields sit in fixed bit ranges,
+	 * so need mixing before the low bits can be used as a slot
+	 */
+	private static int hash(long node, long children) {
+		long h = node * 0x9E3779B97F4A7C15L + children;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h;
+	}
+}
@@ -0,0 +1,85 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import lexicon.Category;
+
+/*
+ * dense IDs for the categories appearing in the features, so that features
+ * can be packed into longs (see FeatureKeys); a category which doesn't
+ * appear in any feature has no ID, and so can't be part of any feature
+ *
+ * as long as all the feature categories are interned (see
+ * lexicon.CategoryInterner), lookups go through an array indexed by the
+ * equivalence ID of the category rather than the HashMap
+ */
+
+public class CategoryIDs {
+	public static final int NONE = -1;
+
+	private HashMap<Category, Integer> categoryIDs;
+	private int[] equivalenceIDs; // from equivalence ID to category ID
+	private boolean allInterned;
+
+	public CategoryIDs() {
+		this.categoryIDs = new HashMap<Category, Integer>();
+		this.equivalenceIDs = new int[0];
+		this.allInterned = true;
+	}
+
+	/**
+	 * Returns the ID of a category, or NONE if the category doesn't appear in
+	 * any feature. Categories are compared using Category.equals(), as in the
+	 * feature HashMaps.
+	 * 
+	 * @param cat category
+	 * @return ID of cat, or NONE
+	 */
+	public int getID(Category cat) {
+		int equivalenceID = cat.getEquivalenceID();
+
+		if ( allInterned && equivalenceID != Category.NO_ID ) {
+			return equivalenceID < equivalenceIDs.length ? equivalenceIDs[equivalenceID] : NONE;
+		}
+
+		Integer ID = categoryIDs.get(cat);
+		if ( ID == null ) {
+			return NONE;
+		} else {
+			return ID;
+		}
+	}
+
+	/**
+	 * Returns the ID of a category, giving it a new ID if it doesn't have one
+	 * yet; only used while reading features.
+	 * 
+	 * @param cat category
+	 * @return ID of cat
+	 */
+	public int addCategory(Category cat) {
+		Integer ID = categoryIDs.get(cat);
+		if ( ID == null ) {
+			ID = categoryIDs.size();
+			categoryIDs.put(cat, ID);
+
+			int equivalenceID = cat.getEquivalenceID();
+			if ( equivalenceID == Category.NO_ID ) {
+				allInterned = false;
+			} else {
+				if ( equivalenceID >= equivalenceIDs.length ) {
+					int oldLength = equivalenceIDs.length;
+					equivalenceIDs = Arrays.copyOf(equivalenceIDs, Math.max(2 * oldLength, equivalenceID + 1));
+					Arrays.fill(equivalenceIDs, oldLength, equivalenceIDs.length, NONE);
+				}
+				equivalenceIDs[equivalenceID] = ID;
+			}
+		}
+		return ID;
+	}
+
+	public int size() {
+		return categoryIDs.size();
+	}
+}
@@ -5,6 +5,16 @@ import lexicon.Categories;
 public interface Feature<T> {
 	public T canonize(Categories categories);
 
+	/**
+	 * Packs the feature into a key of two longs (see FeatureKeys), giving
+	 * its categories IDs if they don't have one yet.
+	 * 
+	 * @param categoryIDs category IDs
+	 * @param key array of length 2 which receives the key
+	 * @return false if the feature doesn't fit into a key
+	 */
+	public boolean pack(CategoryIDs categoryIDs, long[] key);
+
 	@Override
 	public String toString();
 }
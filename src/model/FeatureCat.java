@@ -1,8 +1,5 @@
 package model;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import cat_combination.SuperCategory;
 import lexicon.Categories;
 import lexicon.Category;
@@ -25,15 +22,30 @@ public class FeatureCat implements Feature<FeatureCat> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory superCat, short featureType, FeatureIDs<FeatureCat> featureIDs, ArrayList<Integer> ids) {
-		HashMap<FeatureCat, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
-		FeatureCat feature = new FeatureCat(featureType, superCat.cat);
-		Integer id = featureIDsHashMap.get(feature);
-		if (id != null) {
-			ids.add(id);
+	public static void collectFeatures(SuperCategory superCat, short featureType, FeatureIDs<FeatureCat> featureIDs, FeatureCollector collector) {
+		int id = getID(featureIDs, featureType, superCat.cat);
+		if (id != FeatureIDs.NONE) {
+			collector.add(id);
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureCat> featureIDs, short featureType, Category cat) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int catID = categoryIDs.getID(cat);
+
+			if ( catID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(catID) ) {
+				return featureIDs.getID(FeatureKeys.cat(featureType, catID), 0L);
+			}
+		}
+
+		return featureIDs.getID(new FeatureCat(featureType, cat));
+	}
+
 	public static void count(FeatureCounts<FeatureCat> featureCatCounts, short featureType, SuperCategory superCat) {
 		featureCatCounts.addCount(new FeatureCat(featureType, superCat.cat));
 	}
@@ -66,6 +78,19 @@ public class FeatureCat implements Feature<FeatureCat> {
 		return new FeatureCat(featureType, canonicalCat);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int catID = categoryIDs.addCategory(cat);
+
+		if ( !FeatureKeys.fitsCat(catID) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.cat(featureType, catID);
+		key[1] = 0L;
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + cat;
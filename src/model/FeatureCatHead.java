@@ -1,7 +1,6 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import cat_combination.SuperCategory;
 import cat_combination.Variable;
@@ -30,31 +29,46 @@ public class FeatureCatHead implements Feature<FeatureCatHead> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory superCat, short featureType, ArrayList<Integer> tokenIDs, FeatureIDs<FeatureCatHead> featureIDs, ArrayList<Integer> ids) {
-		HashMap<FeatureCatHead, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
+	public static void collectFeatures(SuperCategory superCat, short featureType, ArrayList<Integer> tokenIDs, FeatureIDs<FeatureCatHead> featureIDs, FeatureCollector collector) {
 		Variable var = superCat.vars[superCat.cat.var];
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			FeatureCatHead feature = new FeatureCatHead(featureType, superCat.cat, tokenIDs.get(var.fillers[i] - 1));
-			Integer id = featureIDsHashMap.get(feature);
-			if (id != null) {
-				ids.add(id);
+			int id = getID(featureIDs, featureType, superCat.cat, tokenIDs.get(var.filler(i) - 1));
+			if (id != FeatureIDs.NONE) {
+				collector.add(id);
 			}
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureCatHead> featureIDs, short featureType, Category cat, int head) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int catID = categoryIDs.getID(cat);
+
+			if ( catID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(catID) && FeatureKeys.fitsHead(head) ) {
+				return featureIDs.getID(FeatureKeys.catHead(featureType, catID, head), 0L);
+			}
+		}
+
+		return featureIDs.getID(new FeatureCatHead(featureType, cat, head));
+	}
+
 	public static void count(FeatureCounts<FeatureCatHead> featureCatHeadCounts, Sentence sentence, short[] featureTypes, SuperCategory superCat) {
 		Variable var = superCat.vars[superCat.cat.var];
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			int head = sentence.wordIDs.get(var.fillers[i] - 1);
-			int pos = sentence.postagIDs.get(var.fillers[i] - 1);
+			int head = sentence.wordIDs.get(var.filler(i) - 1);
+			int pos = sentence.postagIDs.get(var.filler(i) - 1);
 
 			featureCatHeadCounts.addCount(new FeatureCatHead(featureTypes[0], superCat.cat, head));
 			featureCatHeadCounts.addCount(new FeatureCatHead(featureTypes[1], superCat.cat, pos));
@@ -89,6 +103,19 @@ public class FeatureCatHead implements Feature<FeatureCatHead> {
 		return new FeatureCatHead(featureType, canonicalCat, head);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int catID = categoryIDs.addCategory(cat);
+
+		if ( !FeatureKeys.fitsCat(catID) || !FeatureKeys.fitsHead(head) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.catHead(featureType, catID, head);
+		key[1] = 0L;
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + cat + " " + head;
@@ -0,0 +1,11 @@
+package model;
+
+/*
+ * receives the IDs of the features of a chart item, as found by the
+ * collectFeatures methods of the feature classes; Features either stores
+ * them (for training and printing) or adds up their weights (for parsing)
+ */
+
+public interface FeatureCollector {
+	public void add(int ID);
+}
@@ -0,0 +1,113 @@
+package model;
+
+import org.apache.logging.log4j.Logger;
+
+/*
+ * hashed feature IDs: instead of looking features up in a dictionary (see
+ * FeatureIDs), the hash code of a feature is mixed and reduced to an index
+ * into a weight vector of fixed width, so any feature has an ID, and
+ * features which share an index share a weight
+ *
+ * feature hash codes only depend on feature types, category strings and
+ * word and POS IDs, so a model trained with a given width and lexicon
+ * gives the same IDs when parsing
+ *
+ * collision statistics are optional, since they need a fingerprint per
+ * index and aren't safe to collect from several threads: the first feature
+ * seen at an index owns it, and lookups of a different feature at an owned
+ * index count as collisions (features with equal hash codes can't be told
+ * apart, but they'd collide in any case)
+ */
+
+public class FeatureHashing {
+	private final int width;
+	private final int mask;
+
+	private final int[] fingerprints; // null unless collecting statistics
+	private int numUsed;
+	private long numLookups;
+	private long numCollisions;
+
+	/**
+	 * @param bits log2 of the width of the weight vector, between 1 and 30
+	 * @param collectStats whether to keep collision statistics
+	 */
+	public FeatureHashing(int bits, boolean collectStats) {
+		if ( bits < 1 || bits > 30 ) {
+			throw new IllegalArgumentException("number of hash bits should be between 1 and 30, not " + bits);
+		}
+
+		this.width = 1 << bits;
+		this.mask = width - 1;
+		this.fingerprints = collectStats ? new int[width] : null;
+	}
+
+	/**
+	 * @return number of weights, which is the number of feature IDs
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * @param hashCode hash code of a feature
+	 * @return ID of the feature
+	 */
+	public int getID(int hashCode) {
+		int ID = mix(hashCode) & mask;
+
+		if ( fingerprints != null ) {
+			// 0 marks an unused index
+			int fingerprint = (hashCode == 0) ? 1 : hashCode;
+
+			numLookups++;
+			if ( fingerprints[ID] == 0 ) {
+				fingerprints[ID] = fingerprint;
+				numUsed++;
+			} else if ( fingerprints[ID] != fingerprint ) {
+				numCollisions++;
+			}
+		}
+
+		return ID;
+	}
+
+	public boolean collectsStats() {
+		return fingerprints != null;
+	}
+
+	public int getNumUsed() {
+		return numUsed;
+	}
+
+	public long getNumLookups() {
+		return numLookups;
+	}
+
+	public long getNumCollisions() {
+		return numCollisions;
+	}
+
+	public void logStats(Logger logger) {
+		if ( fingerprints == null ) {
+			logger.info("Hashed features: width " + width + ", no collision statistics");
+			return;
+		}
+
+		logger.info("Hashed features: width " + width + ", " + numUsed + " IDs used (" + (100.0 * numUsed / width) + "%), "
+				+ numCollisions + " of " + numLookups + " lookups collided (" + (numLookups > 0 ? 100.0 * numCollisions / numLookups : 0.0) + "%)");
+	}
+
+	/*
+	 * finaliser from murmur3, so that the low bits depend on all the bits of
+	 * the hash code
+	 */
+	private static int mix(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+}
@@ -4,28 +4,140 @@ import java.io.PrintWriter;
 import java.util.HashMap;
 import java.util.Map;
 
+/*
+ * feature to ID map, which starts off as a HashMap (needed for counting
+ * and printing features) and can be packed for parsing: pack() moves the
+ * features into a PackedFeatureTable keyed on category IDs and heads, so
+ * that looking up a feature doesn't need a feature object; features which
+ * can't be packed (see FeatureKeys) stay in the HashMap
+ *
+ * hashed feature IDs (see FeatureHashing) have no map at all: every
+ * feature has an ID, worked out from its hash code
+ */
+
 public class FeatureIDs<T extends Feature<T>> {
-	private HashMap<T,Integer> featureIDs;
+	public static final int NONE = Integer.MIN_VALUE;
+
+	private HashMap<T,Integer> featureIDs; // null if hashed
+	private final FeatureHashing hashing; // null unless hashed
+
+	private CategoryIDs categoryIDs;
+	private PackedFeatureTable packedIDs;
+	private long[] key = new long[2];
 
 	public FeatureIDs() {
 		this.featureIDs = new HashMap<T,Integer>(1000000);
+		this.hashing = null;
+	}
+
+	/**
+	 * Creates hashed feature IDs; hashing can be shared by all the
+	 * FeatureIDs of a model.
+	 * 
+	 * @param hashing hashing of features to IDs
+	 */
+	public FeatureIDs(FeatureHashing hashing) {
+		this.featureIDs = null;
+		this.hashing = hashing;
 	}
 
+	/*
+	 * once packed, only contains the features which couldn't be packed
+	 */
 	public HashMap<T,Integer> getFeatureIDs() {
 		return featureIDs;
 	}
 
+	public boolean isHashed() {
+		return hashing != null;
+	}
+
+	public boolean isPacked() {
+		return packedIDs != null;
+	}
+
+	public CategoryIDs getCategoryIDs() {
+		return categoryIDs;
+	}
+
 	public void addFeature(T feature, int ID) {
-		featureIDs.put(feature, ID);
+		checkUnhashed();
+
+		if ( packedIDs != null && feature.pack(categoryIDs, key) ) {
+			packedIDs.put(key[0], key[1], ID);
+		} else {
+			featureIDs.put(feature, ID);
+		}
+	}
+
+	/**
+	 * Moves the features into a PackedFeatureTable; category IDs are taken
+	 * from categoryIDs, which can be shared by all the FeatureIDs of a model.
+	 * 
+	 * @param categoryIDs category IDs, extended with the categories of the
+	 * features
+	 */
+	public void pack(CategoryIDs categoryIDs) {
+		checkUnhashed();
+
+		if ( packedIDs != null ) {
+			throw new Error("feature IDs already packed!");
+		}
+
+		this.categoryIDs = categoryIDs;
+		this.packedIDs = new PackedFeatureTable();
+
+		HashMap<T,Integer> unpacked = new HashMap<T,Integer>();
+
+		for (Map.Entry<T, Integer> entry : featureIDs.entrySet()) {
+			if ( entry.getKey().pack(categoryIDs, key) ) {
+				packedIDs.put(key[0], key[1], entry.getValue());
+			} else {
+				unpacked.put(entry.getKey(), entry.getValue());
+			}
+		}
+
+		this.featureIDs = unpacked;
+	}
+
+	/**
+	 * Returns the ID of a packed feature.
+	 * 
+	 * @param hi first half of key (see FeatureKeys)
+	 * @param lo second half of key
+	 * @return feature ID, or NONE
+	 */
+	public int getID(long hi, long lo) {
+		return packedIDs.get(hi, lo);
+	}
+
+	/**
+	 * Returns the ID of a feature from the HashMap, or from its hash code if
+	 * hashed.
+	 * 
+	 * @param feature feature
+	 * @return feature ID, or NONE
+	 */
+	public int getID(T feature) {
+		if ( hashing != null ) {
+			return hashing.getID(feature.hashCode());
+		}
+
+		Integer ID = featureIDs.get(feature);
+		return ID == null ? NONE : ID;
 	}
 
 	public void print(PrintWriter out) {
+		checkUnpacked();
+
 		for (Map.Entry<T, Integer> entry : featureIDs.entrySet()) {
 			out.println(entry.getKey() + " " + entry.getValue());
 		}
 	}
 
 	public void printWeights(Weights weights, PrintWriter out) {
+		checkUnpacked();
+
 		for (Map.Entry<T, Integer> entry : featureIDs.entrySet()) {
 			int index = entry.getValue();
 			if ( index == -2 ) {
@@ -37,4 +149,18 @@ public class FeatureIDs<T extends Feature<T>> {
 			out.println();
 		}
 	}
+
+	private void checkUnhashed() {
+		if ( hashing != null ) {
+			throw new UnsupportedOperationException("Hashed feature IDs have no features to add, pack or print.");
+		}
+	}
+
+	private void checkUnpacked() {
+		checkUnhashed();
+
+		if ( packedIDs != null ) {
+			throw new UnsupportedOperationException("Can't print packed feature IDs.");
+		}
+	}
 }
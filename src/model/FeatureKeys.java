@@ -0,0 +1,69 @@
+package model;
+
+/*
+ * packing of features into keys of two longs for PackedFeatureTable
+ *
+ * a key is made of the feature type (16 bits), category IDs (16 bits each,
+ * see CategoryIDs), heads (24 bits each, stored as head + 1 so that the -1
+ * of unknown words fits) and distances (16 bits); each feature class packs
+ * its fields as follows:
+ *
+ * FeatureCat:              hi = type cat
+ * FeatureCatHead:          hi = type cat head
+ * FeatureRule:             hi = type cat cat cat
+ * FeatureRuleHead:         hi = type cat cat cat, lo = head
+ * FeatureRuleHeadHead:     hi = type cat cat cat, lo = head head
+ * FeatureRuleHeadDist:     hi = type cat cat cat, lo = head distance
+ * FeatureRuleRuleHead:     hi = type cat cat cat, lo = head
+ * FeatureRuleRuleHeadHead: hi = type cat cat cat, lo = cat head head
+ *
+ * features with a category ID or head which doesn't fit are not packed
+ * (FeatureIDs keeps them in its HashMap instead)
+ */
+
+public final class FeatureKeys {
+	static final int CAT_BITS = 16;
+	static final int HEAD_BITS = 24;
+
+	private static final long CAT_MASK = (1L << CAT_BITS) - 1;
+	private static final long HEAD_MASK = (1L << HEAD_BITS) - 1;
+
+	private FeatureKeys() {
+	}
+
+	static boolean fitsCat(int catID) {
+		return catID >= 0 && catID <= CAT_MASK;
+	}
+
+	static boolean fitsHead(int head) {
+		return head >= -1 && head < HEAD_MASK;
+	}
+
+	static long cat(short featureType, int cat) {
+		return (featureType & 0xFFFFL) << CAT_BITS | cat;
+	}
+
+	static long catHead(short featureType, int cat, int head) {
+		return cat(featureType, cat) << HEAD_BITS | (head + 1);
+	}
+
+	static long rule(short featureType, int cat1, int cat2, int cat3) {
+		return ((featureType & 0xFFFFL) << 48) | ((long) cat1 << 32) | ((long) cat2 << 16) | cat3;
+	}
+
+	static long head(int head) {
+		return head + 1;
+	}
+
+	static long heads(int head1, int head2) {
+		return ((long) (head1 + 1) << HEAD_BITS) | (head2 + 1);
+	}
+
+	static long headDist(int head, short distance) {
+		return ((long) (head + 1) << 16) | (distance & 0xFFFFL);
+	}
+
+	static long catHeads(int cat, int head1, int head2) {
+		return ((long) cat << 48) | heads(head1, head2);
+	}
+}
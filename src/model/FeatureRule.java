@@ -1,8 +1,5 @@
 package model;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-
 import cat_combination.SuperCategory;
 import lexicon.Categories;
 import lexicon.Category;
@@ -31,15 +28,32 @@ public class FeatureRule implements Feature<FeatureRule> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, FeatureIDs<FeatureRule> featureIDs, ArrayList<Integer> ids) {
-		HashMap<FeatureRule, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
-		FeatureRule feature = new FeatureRule(featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat);
-		Integer id = featureIDsHashMap.get(feature);
-		if (id != null) {
-			ids.add(id);
+	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, FeatureIDs<FeatureRule> featureIDs, FeatureCollector collector) {
+		int id = getID(featureIDs, featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat);
+		if (id != FeatureIDs.NONE) {
+			collector.add(id);
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureRule> featureIDs, short featureType, Category leftCat, Category rightCat, Category resultCat) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int leftID = categoryIDs.getID(leftCat);
+			int rightID = categoryIDs.getID(rightCat);
+			int resultID = categoryIDs.getID(resultCat);
+
+			if ( leftID == CategoryIDs.NONE || rightID == CategoryIDs.NONE || resultID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(leftID) && FeatureKeys.fitsCat(rightID) && FeatureKeys.fitsCat(resultID) ) {
+				return featureIDs.getID(FeatureKeys.rule(featureType, leftID, rightID, resultID), 0L);
+			}
+		}
+
+		return featureIDs.getID(new FeatureRule(featureType, leftCat, rightCat, resultCat));
+	}
+
 	public static void count(FeatureCounts<FeatureRule> featureRuleCounts, short featureType, SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat) {
 		featureRuleCounts.addCount(new FeatureRule(featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat));
 	}
@@ -75,6 +89,21 @@ public class FeatureRule implements Feature<FeatureRule> {
 		return new FeatureRule(featureType, canonicalLeftCat, canonicalRightCat, canonicalResultCat);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int leftID = categoryIDs.addCategory(leftCat);
+		int rightID = categoryIDs.addCategory(rightCat);
+		int resultID = categoryIDs.addCategory(resultCat);
+
+		if ( !FeatureKeys.fitsCat(leftID) || !FeatureKeys.fitsCat(rightID) || !FeatureKeys.fitsCat(resultID) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.rule(featureType, leftID, rightID, resultID);
+		key[1] = 0L;
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + leftCat + " " + rightCat + " " + resultCat;
@@ -1,7 +1,6 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import cat_combination.SuperCategory;
 import cat_combination.Variable;
@@ -36,31 +35,48 @@ public class FeatureRuleHead implements Feature<FeatureRuleHead> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> tokenIDs, FeatureIDs<FeatureRuleHead> featureIDs, ArrayList<Integer> ids){
-		HashMap<FeatureRuleHead, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
+	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> tokenIDs, FeatureIDs<FeatureRuleHead> featureIDs, FeatureCollector collector){
 		Variable var = resultSuperCat.vars[resultSuperCat.cat.var];
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			FeatureRuleHead feature = new FeatureRuleHead(featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, tokenIDs.get(var.fillers[i] - 1));
-			Integer id = featureIDsHashMap.get(feature);
-			if (id != null) {
-				ids.add(id);
+			int id = getID(featureIDs, featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, tokenIDs.get(var.filler(i) - 1));
+			if (id != FeatureIDs.NONE) {
+				collector.add(id);
 			}
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureRuleHead> featureIDs, short featureType, Category leftCat, Category rightCat, Category resultCat, int head) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int leftID = categoryIDs.getID(leftCat);
+			int rightID = categoryIDs.getID(rightCat);
+			int resultID = categoryIDs.getID(resultCat);
+
+			if ( leftID == CategoryIDs.NONE || rightID == CategoryIDs.NONE || resultID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(leftID) && FeatureKeys.fitsCat(rightID) && FeatureKeys.fitsCat(resultID) && FeatureKeys.fitsHead(head) ) {
+				return featureIDs.getID(FeatureKeys.rule(featureType, leftID, rightID, resultID), FeatureKeys.head(head));
+			}
+		}
+
+		return featureIDs.getID(new FeatureRuleHead(featureType, leftCat, rightCat, resultCat, head));
+	}
+
 	public static void count(FeatureCounts<FeatureRuleHead> featureRuleHeadCounts, Sentence sentence, short[] featureTypes, SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat) {
 		Variable var = resultSuperCat.vars[resultSuperCat.cat.var];
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			int head = sentence.wordIDs.get(var.fillers[i] - 1);
-			int pos = sentence.postagIDs.get(var.fillers[i] - 1);
+			int head = sentence.wordIDs.get(var.filler(i) - 1);
+			int pos = sentence.postagIDs.get(var.filler(i) - 1);
 
 			featureRuleHeadCounts.addCount(new FeatureRuleHead(featureTypes[0], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, head));
 			featureRuleHeadCounts.addCount(new FeatureRuleHead(featureTypes[1], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, pos));
@@ -100,6 +116,21 @@ public class FeatureRuleHead implements Feature<FeatureRuleHead> {
 		return new FeatureRuleHead(featureType, canonicalLeftCat, canonicalRightCat, canonicalResultCat, head);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int leftID = categoryIDs.addCategory(leftCat);
+		int rightID = categoryIDs.addCategory(rightCat);
+		int resultID = categoryIDs.addCategory(resultCat);
+
+		if ( !FeatureKeys.fitsCat(leftID) || !FeatureKeys.fitsCat(rightID) || !FeatureKeys.fitsCat(resultID) || !FeatureKeys.fitsHead(head) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.rule(featureType, leftID, rightID, resultID);
+		key[1] = FeatureKeys.head(head);
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + leftCat + " " + rightCat + " " + resultCat + " " + head;
@@ -1,7 +1,6 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import cat_combination.SuperCategory;
 import cat_combination.Variable;
@@ -39,70 +38,87 @@ public class FeatureRuleHeadDist implements Feature<FeatureRuleHeadDist> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> tokenIDs, ArrayList<String> postags, FeatureIDs<FeatureRuleHeadDist> featureIDs, ArrayList<Integer> ids) {
-		HashMap<FeatureRuleHeadDist, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
+	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> tokenIDs, ArrayList<String> postags, FeatureIDs<FeatureRuleHeadDist> featureIDs, FeatureCollector collector) {
 		Variable var = resultSuperCat.vars[resultSuperCat.cat.var];
 		Variable leftVar = leftSuperCat.vars[leftSuperCat.cat.var];
 		Variable rightVar = rightSuperCat.vars[rightSuperCat.cat.var];
 
 		// all combinations of head results and head arguments:
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			for (int j = 0; j < leftVar.fillers.length && leftVar.fillers[j] != Variable.SENTINEL; j++) {
-				if (leftVar.fillers[j] == 0) {
+			for (int j = 0; j < leftVar.numFillers(); j++) {
+				if (leftVar.filler(j) == 0) {
 					continue;
 				}
 
-				for (int k = 0; k < rightVar.fillers.length && rightVar.fillers[k] != Variable.SENTINEL; k++) {
-					if (rightVar.fillers[k] == 0) {
+				for (int k = 0; k < rightVar.numFillers(); k++) {
+					if (rightVar.filler(k) == 0) {
 						continue;
 					}
 
 					// one of the head arguments must be equal to the head result:
-					if (var.fillers[i] != leftVar.fillers[j] && var.fillers[i] != rightVar.fillers[k]) {
+					if (var.filler(i) != leftVar.filler(j) && var.filler(i) != rightVar.filler(k)) {
 						continue;
 					}
 
-					short distance = FeatureRuleHeadDist.calcDistance(featureType, leftVar.fillers[j], rightVar.fillers[k], postags);
+					short distance = FeatureRuleHeadDist.calcDistance(featureType, leftVar.filler(j), rightVar.filler(k), postags);
 
-					FeatureRuleHeadDist feature = new FeatureRuleHeadDist(featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, tokenIDs.get(var.fillers[i] - 1), distance);
-					Integer id = featureIDsHashMap.get(feature);
-					if (id != null) {
-						ids.add(id);
+					int id = getID(featureIDs, featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, tokenIDs.get(var.filler(i) - 1), distance);
+					if (id != FeatureIDs.NONE) {
+						collector.add(id);
 					}
 				}
 			}
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureRuleHeadDist> featureIDs, short featureType, Category leftCat, Category rightCat, Category resultCat, int head, short distance) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int leftID = categoryIDs.getID(leftCat);
+			int rightID = categoryIDs.getID(rightCat);
+			int resultID = categoryIDs.getID(resultCat);
+
+			if ( leftID == CategoryIDs.NONE || rightID == CategoryIDs.NONE || resultID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(leftID) && FeatureKeys.fitsCat(rightID) && FeatureKeys.fitsCat(resultID) && FeatureKeys.fitsHead(head) ) {
+				return featureIDs.getID(FeatureKeys.rule(featureType, leftID, rightID, resultID), FeatureKeys.headDist(head, distance));
+			}
+		}
+
+		return featureIDs.getID(new FeatureRuleHeadDist(featureType, leftCat, rightCat, resultCat, head, distance));
+	}
+
 	public static void count(FeatureCounts<FeatureRuleHeadDist> featureRuleHeadDistCounts, Sentence sentence, short[] featureTypes, SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat) {
 		Variable var = resultSuperCat.vars[resultSuperCat.cat.var];
 		Variable leftVar = leftSuperCat.vars[leftSuperCat.cat.var];
 		Variable rightVar = rightSuperCat.vars[rightSuperCat.cat.var];
 
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			int head = sentence.wordIDs.get(var.fillers[i] - 1);
-			int pos = sentence.postagIDs.get(var.fillers[i] - 1);
+			int head = sentence.wordIDs.get(var.filler(i) - 1);
+			int pos = sentence.postagIDs.get(var.filler(i) - 1);
 
-			for (int j = 0; j < leftVar.fillers.length && leftVar.fillers[j] != Variable.SENTINEL; j++) {
-				if (leftVar.fillers[j] == 0) {
+			for (int j = 0; j < leftVar.numFillers(); j++) {
+				if (leftVar.filler(j) == 0) {
 					continue;
 				}
 
-				for (int k = 0; k < rightVar.fillers.length && rightVar.fillers[k] != Variable.SENTINEL; k++) {
-					if (rightVar.fillers[k] == 0) {
+				for (int k = 0; k < rightVar.numFillers(); k++) {
+					if (rightVar.filler(k) == 0) {
 						continue;
 					}
 
 					// one of the head arguments must be equal to the head result:
-					if (var.fillers[i] != leftVar.fillers[j] && var.fillers[i] != rightVar.fillers[k]) {
+					if (var.filler(i) != leftVar.filler(j) && var.filler(i) != rightVar.filler(k)) {
 						continue;
 					}
 
@@ -110,15 +126,15 @@ public class FeatureRuleHeadDist implements Feature<FeatureRuleHeadDist> {
 					ArrayList<String> postags = sentence.postags;
 
 					// rule + result head + distance:
-					distance = FeatureRuleHeadDist.calcDistance(featureTypes[0], leftVar.fillers[j], rightVar.fillers[k], postags);
+					distance = FeatureRuleHeadDist.calcDistance(featureTypes[0], leftVar.filler(j), rightVar.filler(k), postags);
 					featureRuleHeadDistCounts.addCount(new FeatureRuleHeadDist(featureTypes[0], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, head, distance));
 					featureRuleHeadDistCounts.addCount(new FeatureRuleHeadDist(featureTypes[1], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, pos, distance));
 
-					distance = FeatureRuleHeadDist.calcDistance(featureTypes[2], leftVar.fillers[j], rightVar.fillers[k], postags);
+					distance = FeatureRuleHeadDist.calcDistance(featureTypes[2], leftVar.filler(j), rightVar.filler(k), postags);
 					featureRuleHeadDistCounts.addCount(new FeatureRuleHeadDist(featureTypes[2], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, head, distance));
 					featureRuleHeadDistCounts.addCount(new FeatureRuleHeadDist(featureTypes[3], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, pos, distance));
 
-					distance = FeatureRuleHeadDist.calcDistance(featureTypes[4], leftVar.fillers[j], rightVar.fillers[k], postags);
+					distance = FeatureRuleHeadDist.calcDistance(featureTypes[4], leftVar.filler(j), rightVar.filler(k), postags);
 					featureRuleHeadDistCounts.addCount(new FeatureRuleHeadDist(featureTypes[4], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, head, distance));
 					featureRuleHeadDistCounts.addCount(new FeatureRuleHeadDist(featureTypes[5], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, pos, distance));
 				}
@@ -200,6 +216,21 @@ public class FeatureRuleHeadDist implements Feature<FeatureRuleHeadDist> {
 		return new FeatureRuleHeadDist(featureType, canonicalLeftCat, canonicalRightCat, canonicalResultCat, head, distance);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int leftID = categoryIDs.addCategory(leftCat);
+		int rightID = categoryIDs.addCategory(rightCat);
+		int resultID = categoryIDs.addCategory(resultCat);
+
+		if ( !FeatureKeys.fitsCat(leftID) || !FeatureKeys.fitsCat(rightID) || !FeatureKeys.fitsCat(resultID) || !FeatureKeys.fitsHead(head) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.rule(featureType, leftID, rightID, resultID);
+		key[1] = FeatureKeys.headDist(head, distance);
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + leftCat + " " + rightCat + " " + resultCat + " " + head + " " + distance;
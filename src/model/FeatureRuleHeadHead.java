@@ -1,7 +1,6 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import cat_combination.SuperCategory;
 import cat_combination.Variable;
@@ -39,48 +38,65 @@ public class FeatureRuleHeadHead implements Feature<FeatureRuleHeadHead> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> leftTokenIDs, ArrayList<Integer> rightTokenIDs, FeatureIDs<FeatureRuleHeadHead> featureIDs, ArrayList<Integer> ids) {
-		HashMap<FeatureRuleHeadHead, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
+	public static void collectFeatures(SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> leftTokenIDs, ArrayList<Integer> rightTokenIDs, FeatureIDs<FeatureRuleHeadHead> featureIDs, FeatureCollector collector) {
 		Variable leftVar = leftSuperCat.vars[leftSuperCat.cat.var];
 		Variable rightVar = rightSuperCat.vars[rightSuperCat.cat.var];
 
-		for (int i = 0; i < leftVar.fillers.length && leftVar.fillers[i] != Variable.SENTINEL; i++) {
-			if (leftVar.fillers[i] == 0) {
+		for (int i = 0; i < leftVar.numFillers(); i++) {
+			if (leftVar.filler(i) == 0) {
 				continue;
 			}
 
-			for (int j = 0; j < rightVar.fillers.length && rightVar.fillers[j] != Variable.SENTINEL; j++) {
-				if (rightVar.fillers[j] == 0) {
+			for (int j = 0; j < rightVar.numFillers(); j++) {
+				if (rightVar.filler(j) == 0) {
 					continue;
 				}
 
-				FeatureRuleHeadHead feature = new FeatureRuleHeadHead(featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, leftTokenIDs.get(leftVar.fillers[i] - 1), rightTokenIDs.get(rightVar.fillers[j] - 1));
-				Integer id = featureIDsHashMap.get(feature);
-				if (id != null) {
-					ids.add(id);
+				int id = getID(featureIDs, featureType, leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, leftTokenIDs.get(leftVar.filler(i) - 1), rightTokenIDs.get(rightVar.filler(j) - 1));
+				if (id != FeatureIDs.NONE) {
+					collector.add(id);
 				}
 			}
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureRuleHeadHead> featureIDs, short featureType, Category leftCat, Category rightCat, Category resultCat, int leftHead, int rightHead) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int leftID = categoryIDs.getID(leftCat);
+			int rightID = categoryIDs.getID(rightCat);
+			int resultID = categoryIDs.getID(resultCat);
+
+			if ( leftID == CategoryIDs.NONE || rightID == CategoryIDs.NONE || resultID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(leftID) && FeatureKeys.fitsCat(rightID) && FeatureKeys.fitsCat(resultID) && FeatureKeys.fitsHead(leftHead) && FeatureKeys.fitsHead(rightHead) ) {
+				return featureIDs.getID(FeatureKeys.rule(featureType, leftID, rightID, resultID), FeatureKeys.heads(leftHead, rightHead));
+			}
+		}
+
+		return featureIDs.getID(new FeatureRuleHeadHead(featureType, leftCat, rightCat, resultCat, leftHead, rightHead));
+	}
+
 	public static void count(FeatureCounts<FeatureRuleHeadHead> featureRuleHeadHeadCounts, Sentence sentence, short[] featureTypes, SuperCategory leftSuperCat, SuperCategory rightSuperCat, SuperCategory resultSuperCat) {
 		Variable leftVar = leftSuperCat.vars[leftSuperCat.cat.var];
 		Variable rightVar = rightSuperCat.vars[rightSuperCat.cat.var];
 
-		for (int i = 0; i < leftVar.fillers.length && leftVar.fillers[i] != Variable.SENTINEL; i++) {
-			if (leftVar.fillers[i] == 0) {
+		for (int i = 0; i < leftVar.numFillers(); i++) {
+			if (leftVar.filler(i) == 0) {
 				continue;
 			}
 
-			for (int j = 0; j < rightVar.fillers.length && rightVar.fillers[j] != Variable.SENTINEL; j++) {
-				if (rightVar.fillers[j] == 0) {
+			for (int j = 0; j < rightVar.numFillers(); j++) {
+				if (rightVar.filler(j) == 0) {
 					continue;
 				}
 
-				int leftHead = sentence.wordIDs.get(leftVar.fillers[i] - 1);
-				int rightHead = sentence.wordIDs.get(rightVar.fillers[j] - 1);
-				int leftPos = sentence.postagIDs.get(leftVar.fillers[i] - 1);
-				int rightPos = sentence.postagIDs.get(rightVar.fillers[j] - 1);
+				int leftHead = sentence.wordIDs.get(leftVar.filler(i) - 1);
+				int rightHead = sentence.wordIDs.get(rightVar.filler(j) - 1);
+				int leftPos = sentence.postagIDs.get(leftVar.filler(i) - 1);
+				int rightPos = sentence.postagIDs.get(rightVar.filler(j) - 1);
 
 				// rule + argument heads:
 				featureRuleHeadHeadCounts.addCount(new FeatureRuleHeadHead(featureTypes[0], leftSuperCat.cat, rightSuperCat.cat, resultSuperCat.cat, leftHead, rightHead));
@@ -124,6 +140,21 @@ public class FeatureRuleHeadHead implements Feature<FeatureRuleHeadHead> {
 		return new FeatureRuleHeadHead(featureType, canonicalLeftCat, canonicalRightCat, canonicalResultCat, leftHead, rightHead);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int leftID = categoryIDs.addCategory(leftCat);
+		int rightID = categoryIDs.addCategory(rightCat);
+		int resultID = categoryIDs.addCategory(resultCat);
+
+		if ( !FeatureKeys.fitsCat(leftID) || !FeatureKeys.fitsCat(rightID) || !FeatureKeys.fitsCat(resultID) || !FeatureKeys.fitsHead(leftHead) || !FeatureKeys.fitsHead(rightHead) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.rule(featureType, leftID, rightID, resultID);
+		key[1] = FeatureKeys.heads(leftHead, rightHead);
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + leftCat + " " + rightCat + " " + resultCat + " " + leftHead + " " + rightHead;
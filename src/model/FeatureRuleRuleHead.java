@@ -1,7 +1,6 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import cat_combination.SuperCategory;
 import cat_combination.Variable;
@@ -36,31 +35,48 @@ public class FeatureRuleRuleHead implements Feature<FeatureRuleRuleHead> {
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory grandChildSuperCat, SuperCategory childSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> tokenIDs, FeatureIDs<FeatureRuleRuleHead> featureIDs, ArrayList<Integer> ids){
-		HashMap<FeatureRuleRuleHead, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
+	public static void collectFeatures(SuperCategory grandChildSuperCat, SuperCategory childSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> tokenIDs, FeatureIDs<FeatureRuleRuleHead> featureIDs, FeatureCollector collector){
 		Variable var = resultSuperCat.vars[resultSuperCat.cat.var];
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			FeatureRuleRuleHead feature = new FeatureRuleRuleHead(featureType, grandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, tokenIDs.get(var.fillers[i] - 1));
-			Integer id = featureIDsHashMap.get(feature);
-			if (id != null) {
-				ids.add(id);
+			int id = getID(featureIDs, featureType, grandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, tokenIDs.get(var.filler(i) - 1));
+			if (id != FeatureIDs.NONE) {
+				collector.add(id);
 			}
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureRuleRuleHead> featureIDs, short featureType, Category grandChildCat, Category childCat, Category resultCat, int head) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int grandChildID = categoryIDs.getID(grandChildCat);
+			int childID = categoryIDs.getID(childCat);
+			int resultID = categoryIDs.getID(resultCat);
+
+			if ( grandChildID == CategoryIDs.NONE || childID == CategoryIDs.NONE || resultID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(grandChildID) && FeatureKeys.fitsCat(childID) && FeatureKeys.fitsCat(resultID) && FeatureKeys.fitsHead(head) ) {
+				return featureIDs.getID(FeatureKeys.rule(featureType, grandChildID, childID, resultID), FeatureKeys.head(head));
+			}
+		}
+
+		return featureIDs.getID(new FeatureRuleRuleHead(featureType, grandChildCat, childCat, resultCat, head));
+	}
+
 	public static void count(FeatureCounts<FeatureRuleRuleHead> featureRuleHeadCounts, Sentence sentence, short[] featureTypes, SuperCategory grandChildSuperCat, SuperCategory childSuperCat, SuperCategory resultSuperCat) {
 		Variable var = resultSuperCat.vars[resultSuperCat.cat.var];
-		for (int i = 0; i < var.fillers.length && var.fillers[i] != Variable.SENTINEL; i++) {
-			if (var.fillers[i] == 0) {
+		for (int i = 0; i < var.numFillers(); i++) {
+			if (var.filler(i) == 0) {
 				continue;
 			}
 
-			int head = sentence.wordIDs.get(var.fillers[i] - 1);
-			int pos = sentence.postagIDs.get(var.fillers[i] - 1);
+			int head = sentence.wordIDs.get(var.filler(i) - 1);
+			int pos = sentence.postagIDs.get(var.filler(i) - 1);
 
 			featureRuleHeadCounts.addCount(new FeatureRuleRuleHead(featureTypes[0], grandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, head));
 			featureRuleHeadCounts.addCount(new FeatureRuleRuleHead(featureTypes[1], grandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, pos));
@@ -99,6 +115,21 @@ public class FeatureRuleRuleHead implements Feature<FeatureRuleRuleHead> {
 		return new FeatureRuleRuleHead(featureType, canonicalGrandChildCat, canonicalChildCat, canonicalResultCat, head);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int grandChildID = categoryIDs.addCategory(grandChildCat);
+		int childID = categoryIDs.addCategory(childCat);
+		int resultID = categoryIDs.addCategory(resultCat);
+
+		if ( !FeatureKeys.fitsCat(grandChildID) || !FeatureKeys.fitsCat(childID) || !FeatureKeys.fitsCat(resultID) || !FeatureKeys.fitsHead(head) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.rule(featureType, grandChildID, childID, resultID);
+		key[1] = FeatureKeys.head(head);
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + grandChildCat + " " + childCat + " " + resultCat + " " + head;
@@ -1,7 +1,6 @@
 package model;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 
 import cat_combination.SuperCategory;
 import cat_combination.Variable;
@@ -42,48 +41,66 @@ public class FeatureRuleRuleHeadHead implements Feature<FeatureRuleRuleHeadHead>
 		featureIDs.addFeature(feature, ID);
 	}
 
-	public static void collectFeatures(SuperCategory leftGrandChildSuperCat, SuperCategory rightGrandChildSuperCat, SuperCategory childSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> leftTokenIDs, ArrayList<Integer> rightTokenIDs, FeatureIDs<FeatureRuleRuleHeadHead> featureIDs, ArrayList<Integer> ids) {
-		HashMap<FeatureRuleRuleHeadHead, Integer> featureIDsHashMap = featureIDs.getFeatureIDs();
+	public static void collectFeatures(SuperCategory leftGrandChildSuperCat, SuperCategory rightGrandChildSuperCat, SuperCategory childSuperCat, SuperCategory resultSuperCat, short featureType, ArrayList<Integer> leftTokenIDs, ArrayList<Integer> rightTokenIDs, FeatureIDs<FeatureRuleRuleHeadHead> featureIDs, FeatureCollector collector) {
 		Variable leftGrandChildVar = leftGrandChildSuperCat.vars[leftGrandChildSuperCat.cat.var];
 		Variable rightGrandChildVar = rightGrandChildSuperCat.vars[rightGrandChildSuperCat.cat.var];
 
-		for (int i = 0; i < leftGrandChildVar.fillers.length && leftGrandChildVar.fillers[i] != Variable.SENTINEL; i++) {
-			if (leftGrandChildVar.fillers[i] == 0) {
+		for (int i = 0; i < leftGrandChildVar.numFillers(); i++) {
+			if (leftGrandChildVar.filler(i) == 0) {
 				continue;
 			}
 
-			for (int j = 0; j < rightGrandChildVar.fillers.length && rightGrandChildVar.fillers[j] != Variable.SENTINEL; j++) {
-				if (rightGrandChildVar.fillers[j] == 0) {
+			for (int j = 0; j < rightGrandChildVar.numFillers(); j++) {
+				if (rightGrandChildVar.filler(j) == 0) {
 					continue;
 				}
 
-				FeatureRuleRuleHeadHead feature = new FeatureRuleRuleHeadHead(featureType, leftGrandChildSuperCat.cat, rightGrandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, leftTokenIDs.get(leftGrandChildVar.fillers[i] - 1), rightTokenIDs.get(rightGrandChildVar.fillers[j] - 1));
-				Integer id = featureIDsHashMap.get(feature);
-				if (id != null) {
-					ids.add(id);
+				int id = getID(featureIDs, featureType, leftGrandChildSuperCat.cat, rightGrandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, leftTokenIDs.get(leftGrandChildVar.filler(i) - 1), rightTokenIDs.get(rightGrandChildVar.filler(j) - 1));
+				if (id != FeatureIDs.NONE) {
+					collector.add(id);
 				}
 			}
 		}
 	}
 
+	private static int getID(FeatureIDs<FeatureRuleRuleHeadHead> featureIDs, short featureType, Category leftGrandChildCat, Category rightGrandChildCat, Category childCat, Category resultCat, int leftHead, int rightHead) {
+		if ( featureIDs.isPacked() ) {
+			CategoryIDs categoryIDs = featureIDs.getCategoryIDs();
+			int leftGrandChildID = categoryIDs.getID(leftGrandChildCat);
+			int rightGrandChildID = categoryIDs.getID(rightGrandChildCat);
+			int childID = categoryIDs.getID(childCat);
+			int resultID = categoryIDs.getID(resultCat);
+
+			if ( leftGrandChildID == CategoryIDs.NONE || rightGrandChildID == CategoryIDs.NONE || childID == CategoryIDs.NONE || resultID == CategoryIDs.NONE ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( FeatureKeys.fitsCat(leftGrandChildID) && FeatureKeys.fitsCat(rightGrandChildID) && FeatureKeys.fitsCat(childID) && FeatureKeys.fitsCat(resultID) && FeatureKeys.fitsHead(leftHead) && FeatureKeys.fitsHead(rightHead) ) {
+				return featureIDs.getID(FeatureKeys.rule(featureType, leftGrandChildID, rightGrandChildID, childID), FeatureKeys.catHeads(resultID, leftHead, rightHead));
+			}
+		}
+
+		return featureIDs.getID(new FeatureRuleRuleHeadHead(featureType, leftGrandChildCat, rightGrandChildCat, childCat, resultCat, leftHead, rightHead));
+	}
+
 	public static void count(FeatureCounts<FeatureRuleRuleHeadHead> featureRuleHeadHeadCounts, Sentence sentence, short[] featureTypes, SuperCategory leftGrandChildSuperCat, SuperCategory rightGrandChildSuperCat, SuperCategory childSuperCat, SuperCategory resultSuperCat) {
 		Variable leftGrandChildVar = leftGrandChildSuperCat.vars[leftGrandChildSuperCat.cat.var];
 		Variable rightGrandChildVar = rightGrandChildSuperCat.vars[rightGrandChildSuperCat.cat.var];
 
-		for (int i = 0; i < leftGrandChildVar.fillers.length && leftGrandChildVar.fillers[i] != Variable.SENTINEL; i++) {
-			if (leftGrandChildVar.fillers[i] == 0) {
+		for (int i = 0; i < leftGrandChildVar.numFillers(); i++) {
+			if (leftGrandChildVar.filler(i) == 0) {
 				continue;
 			}
 
-			for (int j = 0; j < rightGrandChildVar.fillers.length && rightGrandChildVar.fillers[j] != Variable.SENTINEL; j++) {
-				if (rightGrandChildVar.fillers[j] == 0) {
+			for (int j = 0; j < rightGrandChildVar.numFillers(); j++) {
+				if (rightGrandChildVar.filler(j) == 0) {
 					continue;
 				}
 
-				int leftHead = sentence.wordIDs.get(leftGrandChildVar.fillers[i] - 1);
-				int rightHead = sentence.wordIDs.get(rightGrandChildVar.fillers[j] - 1);
-				int leftPos = sentence.postagIDs.get(leftGrandChildVar.fillers[i] - 1);
-				int rightPos = sentence.postagIDs.get(rightGrandChildVar.fillers[j] - 1);
+				int leftHead = sentence.wordIDs.get(leftGrandChildVar.filler(i) - 1);
+				int rightHead = sentence.wordIDs.get(rightGrandChildVar.filler(j) - 1);
+				int leftPos = sentence.postagIDs.get(leftGrandChildVar.filler(i) - 1);
+				int rightPos = sentence.postagIDs.get(rightGrandChildVar.filler(j) - 1);
 
 				// rule + argument heads:
 				featureRuleHeadHeadCounts.addCount(new FeatureRuleRuleHeadHead(featureTypes[0], leftGrandChildSuperCat.cat, rightGrandChildSuperCat.cat, childSuperCat.cat, resultSuperCat.cat, leftHead, rightHead));
@@ -129,6 +146,22 @@ public class FeatureRuleRuleHeadHead implements Feature<FeatureRuleRuleHeadHead>
 		return new FeatureRuleRuleHeadHead(featureType, canonicalLeftGrandChildCat, canonicalRightGrandChildCat, canonicalChildCat, canonicalResultCat, leftHead, rightHead);
 	}
 
+	@Override
+	public boolean pack(CategoryIDs categoryIDs, long[] key) {
+		int leftGrandChildID = categoryIDs.addCategory(leftGrandChildCat);
+		int rightGrandChildID = categoryIDs.addCategory(rightGrandChildCat);
+		int childID = categoryIDs.addCategory(childCat);
+		int resultID = categoryIDs.addCategory(resultCat);
+
+		if ( !FeatureKeys.fitsCat(leftGrandChildID) || !FeatureKeys.fitsCat(rightGrandChildID) || !FeatureKeys.fitsCat(childID) || !FeatureKeys.fitsCat(resultID) || !FeatureKeys.fitsHead(leftHead) || !FeatureKeys.fitsHead(rightHead) ) {
+			return false;
+		}
+
+		key[0] = FeatureKeys.rule(featureType, leftGrandChildID, rightGrandChildID, childID);
+		key[1] = FeatureKeys.catHeads(resultID, leftHead, rightHead);
+		return true;
+	}
+
 	@Override
 	public String toString() {
 		return featureType + " " + leftGrandChildCat + " " + rightGrandChildCat + " " + childCat + " " + resultCat + " " + leftHead + " " + rightHead;
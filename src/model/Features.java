@@ -5,6 +5,11 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -13,6 +18,8 @@ import cat_combination.SuperCategory;
 import io.Preface;
 import io.Sentence;
 import lexicon.Categories;
+import lexicon.Category;
+import utils.ChunkedLines;
 
 public class Features {
 	// FeatureCat
@@ -118,6 +125,23 @@ public class Features {
 	final public static short ruleRuleBinaryRightPosWord = 4131;
 	final public static short ruleRuleBinaryRightPosPos= 4141;
 
+	/*
+	 * feature families, one per feature class; a feature has NUM_CATS
+	 * category fields followed by NUM_VALUES integer fields (heads and
+	 * distances)
+	 */
+	static final int CAT = 0;
+	static final int CAT_HEAD = 1;
+	static final int RULE = 2;
+	static final int RULE_HEAD = 3;
+	static final int RULE_HEAD_HEAD = 4;
+	static final int RULE_HEAD_DIST = 5;
+	static final int RULE_RULE_HEAD = 6;
+	static final int RULE_RULE_HEAD_HEAD = 7;
+
+	static final int[] NUM_CATS = { 1, 1, 3, 3, 3, 3, 3, 4 };
+	static final int[] NUM_VALUES = { 0, 1, 0, 1, 2, 2, 1, 2 };
+
 	public FeatureIDs<FeatureCat> featureCatIDs;
 	public FeatureIDs<FeatureCatHead> featureCatHeadIDs;
 	public FeatureIDs<FeatureRule> featureRuleIDs;
@@ -129,15 +153,12 @@ public class Features {
 
 	public int numFeatures;
 
-	private static boolean newFeatures;
+	private boolean newFeatures;
+	private FeatureHashing hashing; // null unless the feature IDs are hashed
 
 	public static final Logger logger = LogManager.getLogger(Features.class);
 
-	public static void setNewFeatures(boolean n) {
-		newFeatures = n;
-	}
-
-	public static boolean getNewFeatures() {
+	public boolean getNewFeatures() {
 		return newFeatures;
 	}
 
@@ -153,7 +174,7 @@ public class Features {
 
 		readFeatures(featuresFile, categories);
 
-		Features.setNewFeatures(newFeatures);
+		this.newFeatures = newFeatures;
 	}
 
 	public Features(String featuresFile, String weightsFile, Weights weights, Categories categories, boolean newFeatures) throws IOException {
@@ -168,7 +189,170 @@ public class Features {
 
 		readFeaturesWeights(featuresFile, weightsFile, weights, categories);
 
-		Features.setNewFeatures(newFeatures);
+		this.newFeatures = newFeatures;
+	}
+
+	/**
+	 * As Features(featuresFile, categories, newFeatures), but the features
+	 * file is parsed in chunks on executor, which has numThreads threads
+	 * (see ParserModel).
+	 */
+	public Features(String featuresFile, Categories categories, boolean newFeatures, ExecutorService executor, int numThreads) throws IOException {
+		this(featuresFile, categories, newFeatures, executor, numThreads, ChunkedLines.CHUNK_SIZE);
+	}
+
+	/*
+	 * as above, with chunks of chunkSize lines
+	 */
+	Features(String featuresFile, Categories categories, boolean newFeatures, ExecutorService executor, int numThreads, int chunkSize) throws IOException {
+		this.featureCatIDs = new FeatureIDs<FeatureCat>();
+		this.featureCatHeadIDs = new FeatureIDs<FeatureCatHead>();
+		this.featureRuleIDs = new FeatureIDs<FeatureRule>();
+		this.featureRuleHeadIDs = new FeatureIDs<FeatureRuleHead>();
+		this.featureRuleHeadHeadIDs = new FeatureIDs<FeatureRuleHeadHead>();
+		this.featureRuleHeadDistIDs = new FeatureIDs<FeatureRuleHeadDist>();
+		this.featureRuleRuleHeadIDs = new FeatureIDs<FeatureRuleRuleHead>();
+		this.featureRuleRuleHeadHeadIDs = new FeatureIDs<FeatureRuleRuleHeadHead>();
+
+		ArrayList<FeatureChunk> chunks = ChunkedLines.getAll(readFeatureChunks(featuresFile, categories, null, executor, numThreads, chunkSize));
+		numFeatures = numLines(chunks);
+		addFeatureChunks(chunks, null, numFeatures, executor);
+		logger.info("Total number of features read in: " + numFeatures);
+
+		this.newFeatures = newFeatures;
+	}
+
+	/**
+	 * As the compactWeights constructor above, but the features and weights
+	 * files are parsed in chunks on executor, which has numThreads threads
+	 * (see ParserModel).
+	 */
+	public Features(String featuresFile, String weightsFile, Weights weights, Categories categories, boolean newFeatures, ExecutorService executor, int numThreads) throws IOException {
+		this(featuresFile, weightsFile, weights, categories, newFeatures, executor, numThreads, ChunkedLines.CHUNK_SIZE);
+	}
+
+	/*
+	 * as above, with chunks of chunkSize lines
+	 */
+	Features(String featuresFile, String weightsFile, Weights weights, Categories categories, boolean newFeatures, ExecutorService executor, int numThreads, int chunkSize) throws IOException {
+		this.featureCatIDs = new FeatureIDs<FeatureCat>();
+		this.featureCatHeadIDs = new FeatureIDs<FeatureCatHead>();
+		this.featureRuleIDs = new FeatureIDs<FeatureRule>();
+		this.featureRuleHeadIDs = new FeatureIDs<FeatureRuleHead>();
+		this.featureRuleHeadHeadIDs = new FeatureIDs<FeatureRuleHeadHead>();
+		this.featureRuleHeadDistIDs = new FeatureIDs<FeatureRuleHeadDist>();
+		this.featureRuleRuleHeadIDs = new FeatureIDs<FeatureRuleRuleHead>();
+		this.featureRuleRuleHeadHeadIDs = new FeatureIDs<FeatureRuleRuleHeadHead>();
+
+		double[] allWeights = Weights.readWeights(weightsFile, weights, executor, numThreads, chunkSize);
+
+		/*
+		 * as in readFeaturesWeights(), features with zero weights are left
+		 * out without being parsed, so the weights are read first
+		 */
+		int[] IDs = new int[allWeights.length];
+		double[] weightsArray = new double[allWeights.length];
+		int ID = 0;
+
+		for ( int i = 0; i < allWeights.length; i++ ) {
+			if ( allWeights[i] == 0.0 ) {
+				IDs[i] = FeatureIDs.NONE;
+			} else {
+				IDs[i] = ID;
+				weightsArray[ID++] = allWeights[i];
+			}
+		}
+
+		ArrayList<FeatureChunk> chunks = ChunkedLines.getAll(readFeatureChunks(featuresFile, categories, IDs, executor, numThreads, chunkSize));
+
+		if ( numLines(chunks) < allWeights.length ) {
+			throw new IllegalArgumentException("number of features < number of weights!");
+		}
+
+		addFeatureChunks(chunks, IDs, allWeights.length, executor);
+		weights.useWeights(Arrays.copyOf(weightsArray, ID));
+
+		numFeatures = ID;
+		logger.info("Total number of features read in: " + numFeatures);
+
+		this.newFeatures = newFeatures;
+	}
+
+	/**
+	 * Reads the features and weights of a model bundle; like the
+	 * compactWeights constructor above, but without any text parsing.
+	 * Mapped weights are read from the bundle without being copied (see
+	 * Weights).
+	 */
+	public Features(ModelBundle bundle, Weights weights, Categories categories, boolean newFeatures, boolean mapWeights) {
+		this.featureCatIDs = new FeatureIDs<FeatureCat>();
+		this.featureCatHeadIDs = new FeatureIDs<FeatureCatHead>();
+		this.featureRuleIDs = new FeatureIDs<FeatureRule>();
+		this.featureRuleHeadIDs = new FeatureIDs<FeatureRuleHead>();
+		this.featureRuleHeadHeadIDs = new FeatureIDs<FeatureRuleHeadHead>();
+		this.featureRuleHeadDistIDs = new FeatureIDs<FeatureRuleHeadDist>();
+		this.featureRuleRuleHeadIDs = new FeatureIDs<FeatureRuleRuleHead>();
+		this.featureRuleRuleHeadHeadIDs = new FeatureIDs<FeatureRuleRuleHeadHead>();
+
+		bundle.readFeatures(this, categories);
+		bundle.readWeights(weights, mapWeights);
+
+		this.newFeatures = newFeatures;
+	}
+
+	/**
+	 * Creates features with hashed IDs (see FeatureHashing), which need no
+	 * features file; numFeatures is the width of the hashing, and any
+	 * feature found in a chart has an ID.
+	 */
+	public Features(FeatureHashing hashing, boolean newFeatures) {
+		this.featureCatIDs = new FeatureIDs<FeatureCat>(hashing);
+		this.featureCatHeadIDs = new FeatureIDs<FeatureCatHead>(hashing);
+		this.featureRuleIDs = new FeatureIDs<FeatureRule>(hashing);
+		this.featureRuleHeadIDs = new FeatureIDs<FeatureRuleHead>(hashing);
+		this.featureRuleHeadHeadIDs = new FeatureIDs<FeatureRuleHeadHead>(hashing);
+		this.featureRuleHeadDistIDs = new FeatureIDs<FeatureRuleHeadDist>(hashing);
+		this.featureRuleRuleHeadIDs = new FeatureIDs<FeatureRuleRuleHead>(hashing);
+		this.featureRuleRuleHeadHeadIDs = new FeatureIDs<FeatureRuleRuleHeadHead>(hashing);
+
+		this.numFeatures = hashing.width();
+		this.hashing = hashing;
+		this.newFeatures = newFeatures;
+
+		logger.info("Hashing features into " + numFeatures + " IDs");
+	}
+
+	/**
+	 * @return hashing of the feature IDs, or null if they come from a
+	 * features file
+	 */
+	public FeatureHashing getHashing() {
+		return hashing;
+	}
+
+	/**
+	 * Packs the feature IDs (see FeatureIDs) so that looking up features while
+	 * parsing doesn't allocate; packed features can no longer be printed, so
+	 * this is for parsing only.
+	 */
+	public void packFeatureIDs() {
+		if ( hashing != null ) {
+			// nothing to pack
+			return;
+		}
+
+		CategoryIDs categoryIDs = new CategoryIDs();
+
+		featureCatIDs.pack(categoryIDs);
+		featureCatHeadIDs.pack(categoryIDs);
+		featureRuleIDs.pack(categoryIDs);
+		featureRuleHeadIDs.pack(categoryIDs);
+		featureRuleHeadHeadIDs.pack(categoryIDs);
+		featureRuleHeadDistIDs.pack(categoryIDs);
+		featureRuleRuleHeadIDs.pack(categoryIDs);
+		featureRuleRuleHeadHeadIDs.pack(categoryIDs);
+
+		logger.info("Number of feature categories: " + categoryIDs.size());
 	}
 
 	private void readFeatures(String featuresFile, Categories categories) throws IOException {
@@ -190,7 +374,7 @@ public class Features {
 	}
 
 	private void readFeaturesWeights(String featuresFile, String weightsFile, Weights weights, Categories categories) throws IOException {
-		ArrayList<Double> weightsList = new ArrayList<Double>();
+		double[] weightsArray = new double[1024];
 
 		try ( BufferedReader featuresIn = new BufferedReader(new FileReader(featuresFile));
 			  BufferedReader weightsIn = new BufferedReader(new FileReader(weightsFile)) ) {
@@ -202,7 +386,7 @@ public class Features {
 			String weightsLine = null;
 
 			int ID = 0;
-			Double weight;
+			double weight;
 
 			while ((weightsLine = weightsIn.readLine()) != null) {
 				if ( weightsLine.startsWith("logp") ) {
@@ -219,21 +403,18 @@ public class Features {
 
 				if ( weight == 0.0 ) {
 					continue;
-				} else {
-					weightsList.add(weight);
 				}
 
+				if ( ID == weightsArray.length ) {
+					weightsArray = Arrays.copyOf(weightsArray, 2 * weightsArray.length);
+				}
+				weightsArray[ID] = weight;
+
 				readFeature(featuresLine, ID, categories);
 				ID++;
 			}
 
-			double[] weightsListArray = new double[weightsList.size()];
-
-			for ( int i = 0; i < weightsList.size(); i++ ) {
-				weightsListArray[i] = weightsList.get(i);
-			}
-
-			weights.setWeights(weightsListArray);
+			weights.useWeights(Arrays.copyOf(weightsArray, ID));
 
 			numFeatures = ID;
 			logger.info("Total number of features read in: " + numFeatures);
@@ -243,81 +424,270 @@ public class Features {
 	private void readFeature(String featuresLine, int ID, Categories categories) {
 		String[] tokens = featuresLine.split("\\s");
 		short featureType = Short.parseShort(tokens[0]);
+		int family = family(featureType);
+
+		// the feature type, the fields, and the count at the end
+		if (tokens.length != NUM_CATS[family] + NUM_VALUES[family] + 2) {
+			throw new Error("features of type " + featureType + " should have " + (NUM_CATS[family] + NUM_VALUES[family] + 2) + " fields!");
+		}
+
+		switch (family) {
+			case CAT:
+				FeatureCat.readFeature(featureType, tokens, featureCatIDs, ID, categories);
+				break;
+			case CAT_HEAD:
+				FeatureCatHead.readFeature(featureType, tokens, featureCatHeadIDs, ID, categories);
+				break;
+			case RULE:
+				FeatureRule.readFeature(featureType, tokens, featureRuleIDs, ID, categories);
+				break;
+			case RULE_HEAD:
+				FeatureRuleHead.readFeature(featureType, tokens, featureRuleHeadIDs, ID, categories);
+				break;
+			case RULE_HEAD_HEAD:
+				FeatureRuleHeadHead.readFeature(featureType, tokens, featureRuleHeadHeadIDs, ID, categories);
+				break;
+			case RULE_HEAD_DIST:
+				FeatureRuleHeadDist.readFeature(featureType, tokens, featureRuleHeadDistIDs, ID, categories);
+				break;
+			case RULE_RULE_HEAD:
+				FeatureRuleRuleHead.readFeature(featureType, tokens, featureRuleRuleHeadIDs, ID, categories);
+				break;
+			case RULE_RULE_HEAD_HEAD:
+				FeatureRuleRuleHeadHead.readFeature(featureType, tokens, featureRuleRuleHeadHeadIDs, ID, categories);
+				break;
+		}
+	}
+
+	/*
+	 * same as readFeature(), for a feature whose category and integer fields
+	 * have already been read (see ModelBundle)
+	 */
+	void addFeature(short featureType, Category[] cats, int[] values, int ID) {
+		addFeature(family(featureType), newFeature(featureType, cats, values), ID);
+	}
+
+	/*
+	 * builds a feature of the class which goes with the family of its type
+	 */
+	private static Feature<?> newFeature(short featureType, Category[] cats, int[] values) {
+		switch (family(featureType)) {
+			case CAT:
+				return new FeatureCat(featureType, cats[0]);
+			case CAT_HEAD:
+				return new FeatureCatHead(featureType, cats[0], values[0]);
+			case RULE:
+				return new FeatureRule(featureType, cats[0], cats[1], cats[2]);
+			case RULE_HEAD:
+				return new FeatureRuleHead(featureType, cats[0], cats[1], cats[2], values[0]);
+			case RULE_HEAD_HEAD:
+				return new FeatureRuleHeadHead(featureType, cats[0], cats[1], cats[2], values[0], values[1]);
+			case RULE_HEAD_DIST:
+				return new FeatureRuleHeadDist(featureType, cats[0], cats[1], cats[2], values[0], (short) (values[1]));
+			case RULE_RULE_HEAD:
+				return new FeatureRuleRuleHead(featureType, cats[0], cats[1], cats[2], values[0]);
+			case RULE_RULE_HEAD_HEAD:
+				return new FeatureRuleRuleHeadHead(featureType, cats[0], cats[1], cats[2], cats[3], values[0], values[1]);
+			default:
+				throw new Error("run out of feature types!");
+		}
+	}
+
+	private void addFeature(int family, Feature<?> feature, int ID) {
+		switch (family) {
+			case CAT:
+				featureCatIDs.addFeature((FeatureCat) feature, ID);
+				break;
+			case CAT_HEAD:
+				featureCatHeadIDs.addFeature((FeatureCatHead) feature, ID);
+				break;
+			case RULE:
+				featureRuleIDs.addFeature((FeatureRule) feature, ID);
+				break;
+			case RULE_HEAD:
+				featureRuleHeadIDs.addFeature((FeatureRuleHead) feature, ID);
+				break;
+			case RULE_HEAD_HEAD:
+				featureRuleHeadHeadIDs.addFeature((FeatureRuleHeadHead) feature, ID);
+				break;
+			case RULE_HEAD_DIST:
+				featureRuleHeadDistIDs.addFeature((FeatureRuleHeadDist) feature, ID);
+				break;
+			case RULE_RULE_HEAD:
+				featureRuleRuleHeadIDs.addFeature((FeatureRuleRuleHead) feature, ID);
+				break;
+			case RULE_RULE_HEAD_HEAD:
+				featureRuleRuleHeadHeadIDs.addFeature((FeatureRuleRuleHeadHead) feature, ID);
+				break;
+		}
+	}
 
+	/*
+	 * features of a chunk of the features file, parsed on a loading thread
+	 * (see ChunkedLines)
+	 */
+	private static class FeatureChunk {
+		final Feature<?>[] features;
+		final byte[] families;
+
+		FeatureChunk(int size) {
+			this.features = new Feature<?>[size];
+			this.families = new byte[size];
+		}
+	}
+
+	/*
+	 * as readFeature(), without adding the features; each chunk keeps its
+	 * own map from category strings to categories, so that loading threads
+	 * rarely take the lock in Categories.canonize()
+	 *
+	 * if IDs isn't null, the lines without an ID (see addFeatureChunks())
+	 * are skipped, and their features left null
+	 */
+	private static FeatureChunk parseFeatures(String[] lines, int firstLine, int[] IDs, Categories categories) {
+		FeatureChunk chunk = new FeatureChunk(lines.length);
+		HashMap<String, Category> seenCategories = new HashMap<String, Category>();
+		Category[] cats = new Category[4];
+		int[] values = new int[2];
+
+		for ( int i = 0; i < lines.length; i++ ) {
+			if ( IDs != null && (firstLine + i >= IDs.length || IDs[firstLine + i] == FeatureIDs.NONE) ) {
+				continue;
+			}
+
+			String[] tokens = lines[i].split("\\s");
+			short featureType = Short.parseShort(tokens[0]);
+			int family = family(featureType);
+			int numCats = NUM_CATS[family];
+			int numValues = NUM_VALUES[family];
+
+			if (tokens.length != numCats + numValues + 2) {
+				throw new Error("features of type " + featureType + " should have " + (numCats + numValues + 2) + " fields!");
+			}
+
+			for ( int j = 0; j < numCats; j++ ) {
+				Category cat = seenCategories.get(tokens[1 + j]);
+				if ( cat == null ) {
+					cat = categories.canonize(tokens[1 + j]);
+					seenCategories.put(tokens[1 + j], cat);
+				}
+				cats[j] = cat;
+			}
+
+			for ( int j = 0; j < numValues; j++ ) {
+				values[j] = Integer.parseInt(tokens[1 + numCats + j]);
+			}
+
+			chunk.features[i] = newFeature(featureType, cats, values);
+			chunk.families[i] = (byte) (family);
+		}
+
+		return chunk;
+	}
+
+	/*
+	 * reads the features file, handing out chunks of lines to executor
+	 */
+	private static ArrayList<Future<FeatureChunk>> readFeatureChunks(String featuresFile, final Categories categories, final int[] IDs, ExecutorService executor, int numThreads, int chunkSize) throws IOException {
+		try ( BufferedReader featuresIn = new BufferedReader(new FileReader(featuresFile)) ) {
+			Preface.readPreface(featuresIn);
+
+			return ChunkedLines.parse(featuresIn, chunkSize, executor, numThreads, new ChunkedLines.Parser<FeatureChunk>() {
+				@Override
+				public FeatureChunk parse(String[] lines, int firstLine) {
+					return parseFeatures(lines, firstLine, IDs, categories);
+				}
+			});
+		}
+	}
+
+	/*
+	 * adds the first numLines features of the chunks, with the IDs in IDs
+	 * (or their line numbers if IDs is null); each family has its own
+	 * FeatureIDs, so the families are added concurrently
+	 */
+	private void addFeatureChunks(final ArrayList<FeatureChunk> chunks, final int[] IDs, final int numLines, ExecutorService executor) throws IOException {
+		ArrayList<Future<Object>> families = new ArrayList<Future<Object>>();
+
+		for ( int family = CAT; family <= RULE_RULE_HEAD_HEAD; family++ ) {
+			final int chunkFamily = family;
+
+			families.add(executor.submit(new Callable<Object>() {
+				@Override
+				public Object call() {
+					int line = 0;
+
+					for ( FeatureChunk chunk : chunks ) {
+						for ( int i = 0; i < chunk.features.length && line < numLines; i++, line++ ) {
+							int ID = (IDs == null) ? line : IDs[line];
+
+							if ( chunk.families[i] == chunkFamily && ID != FeatureIDs.NONE ) {
+								addFeature(chunkFamily, chunk.features[i], ID);
+							}
+						}
+					}
+
+					return null;
+				}
+			}));
+		}
+
+		ChunkedLines.getAll(families);
+	}
+
+	private static int numLines(ArrayList<FeatureChunk> chunks) {
+		int numLines = 0;
+
+		for ( FeatureChunk chunk : chunks ) {
+			numLines += chunk.features.length;
+		}
+
+		return numLines;
+	}
+
+	/**
+	 * @param featureType feature type
+	 * @return family of the feature type, which decides its fields and its
+	 * feature class
+	 */
+	static int family(short featureType) {
 		switch (featureType) {
 			case Features.catRoot: // fall through
 			case Features.catLex: // |
-				if (tokens.length != 3) {
-					throw new Error("catRoot and catLex features should have 3 fields!");
-				}
-				FeatureCat.readFeature(featureType, tokens, featureCatIDs, ID, categories);
-				break;
+				return CAT;
 			case Features.catRootWord: // fall through
 			case Features.catRootPos: // |
 			case Features.catLexWord: // |
 			case Features.catLexPos: // |
-				if (tokens.length != 4) {
-					throw new Error("catRootWord and catLexWord features should have 4 fields!");
-				}
-				FeatureCatHead.readFeature(featureType, tokens, featureCatHeadIDs, ID, categories);
-				break;
+				return CAT_HEAD;
 			case Features.ruleBinary: // fall through
 			case Features.ruleUnary: // |
-				if (tokens.length != 5) {
-					throw new Error("ruleBinary and ruleUnary features should have 5 fields!");
-				}
-				FeatureRule.readFeature(featureType, tokens, featureRuleIDs, ID, categories);
-				break;
+				return RULE;
 			case Features.ruleBinaryWord: // fall through
 			case Features.ruleBinaryPos: // |
 			case Features.ruleUnaryWord: // |
 			case Features.ruleUnaryPos: // |
-				if (tokens.length != 6) {
-					throw new Error("ruleBinaryWord and ruleUnaryWord features should have 6 fields!");
-				}
-				FeatureRuleHead.readFeature(featureType, tokens, featureRuleHeadIDs, ID, categories);
-				break;
+			case Features.ruleUnaryWord2: // |
+			case Features.ruleUnaryPos2: // |
+				return RULE_HEAD;
 			case Features.ruleBinaryWordWord: // fall through
 			case Features.ruleBinaryWordPos: // |
 			case Features.ruleBinaryPosWord: // |
 			case Features.ruleBinaryPosPos: // |
-				if (tokens.length != 7) {
-					throw new Error("ruleBinaryWordWord features should have 7 fields!");
-				}
-				FeatureRuleHeadHead.readFeature(featureType, tokens, featureRuleHeadHeadIDs, ID, categories);
-				break;
-			case Features.ruleBinaryWordDistAdj: // fall through
-			case Features.ruleBinaryWordDistPunct: // |
-			case Features.ruleBinaryWordDistVerb: // |
-			case Features.ruleBinaryPosDistAdj: // |
-			case Features.ruleBinaryPosDistPunct: // |
-			case Features.ruleBinaryPosDistVerb: // |
-				if (tokens.length != 7) {
-					throw new Error("ruleBinaryWordDist features should have 7 fields!");
-				}
-				FeatureRuleHeadDist.readFeature(featureType, tokens, featureRuleHeadDistIDs, ID, categories);
-				break;
-			case Features.ruleUnaryWord2: // fall through
-			case Features.ruleUnaryPos2: // |
-				if (tokens.length != 6) {
-					throw new Error("features should have 6 fields!");
-				}
-				FeatureRuleHead.readFeature(featureType, tokens, featureRuleHeadIDs, ID, categories);
-				break;
-			case Features.ruleBinaryWordWord2: // fall through
+			case Features.ruleBinaryWordWord2: // |
 			case Features.ruleBinaryWordPos2: // |
 			case Features.ruleBinaryPosWord2: // |
 			case Features.ruleBinaryPosPos2: // |
 			case Features.ruleUnaryUnaryWordWord2: // |
-			case Features.ruleUnaryUnaryWordPos2 : // |
+			case Features.ruleUnaryUnaryWordPos2: // |
 			case Features.ruleUnaryUnaryPosWord2: // |
 			case Features.ruleUnaryUnaryPosPos2: // |
 			case Features.ruleNullUnaryWordWord2: // |
-			case Features.ruleNullUnaryWordPos2 : // |
+			case Features.ruleNullUnaryWordPos2: // |
 			case Features.ruleNullUnaryPosWord2: // |
 			case Features.ruleNullUnaryPosPos2: // |
 			case Features.ruleUnaryNullWordWord2: // |
-			case Features.ruleUnaryNullWordPos2 : // |
+			case Features.ruleUnaryNullWordPos2: // |
 			case Features.ruleUnaryNullPosWord2: // |
 			case Features.ruleUnaryNullPosPos2: // |
 			case Features.ruleUnaryBinaryWordWord2: // |
@@ -340,204 +710,238 @@ public class Features {
 			case Features.ruleBinaryNullWordPos2: // |
 			case Features.ruleBinaryNullPosWord2: // |
 			case Features.ruleBinaryNullPosPos2: // |
-				if (tokens.length != 7) {
-					throw new Error("features should have 7 fields!");
-				}
-				FeatureRuleHeadHead.readFeature(featureType, tokens, featureRuleHeadHeadIDs, ID, categories);
-				break;
-			case Features.ruleRuleUnaryLeftWord:
-			case Features.ruleRuleUnaryLeftPos:
-			case Features.ruleRuleUnaryRightWord:
-			case Features.ruleRuleUnaryRightPos:
-				if (tokens.length != 6) {
-					throw new Error("features should have 6 fields!");
-				}
-				FeatureRuleRuleHead.readFeature(featureType, tokens, featureRuleRuleHeadIDs, ID, categories);
-				break;
-			case Features.ruleRuleBinaryLeftWordWord:
-			case Features.ruleRuleBinaryLeftWordPos:
-			case Features.ruleRuleBinaryLeftPosWord:
-			case Features.ruleRuleBinaryLeftPosPos:
-			case Features.ruleRuleBinaryRightWordWord:
-			case Features.ruleRuleBinaryRightWordPos:
-			case Features.ruleRuleBinaryRightPosWord:
-			case Features.ruleRuleBinaryRightPosPos:
-				if (tokens.length != 8) {
-					throw new Error("features should have 8 fields!");
-				}
-				FeatureRuleRuleHeadHead.readFeature(featureType, tokens, featureRuleRuleHeadHeadIDs, ID, categories);
-				break;
+				return RULE_HEAD_HEAD;
+			case Features.ruleBinaryWordDistAdj: // fall through
+			case Features.ruleBinaryWordDistPunct: // |
+			case Features.ruleBinaryWordDistVerb: // |
+			case Features.ruleBinaryPosDistAdj: // |
+			case Features.ruleBinaryPosDistPunct: // |
+			case Features.ruleBinaryPosDistVerb: // |
+				return RULE_HEAD_DIST;
+			case Features.ruleRuleUnaryLeftWord: // fall through
+			case Features.ruleRuleUnaryLeftPos: // |
+			case Features.ruleRuleUnaryRightWord: // |
+			case Features.ruleRuleUnaryRightPos: // |
+				return RULE_RULE_HEAD;
+			case Features.ruleRuleBinaryLeftWordWord: // fall through
+			case Features.ruleRuleBinaryLeftWordPos: // |
+			case Features.ruleRuleBinaryLeftPosWord: // |
+			case Features.ruleRuleBinaryLeftPosPos: // |
+			case Features.ruleRuleBinaryRightWordWord: // |
+			case Features.ruleRuleBinaryRightWordPos: // |
+			case Features.ruleRuleBinaryRightPosWord: // |
+			case Features.ruleRuleBinaryRightPosPos: // |
+				return RULE_RULE_HEAD_HEAD;
 			default:
 				throw new Error("run out of feature types!");
 		}
 	}
 
+	/*
+	 * the collect*Features methods append the IDs of the features of a chart
+	 * item to a list (for training and printing); the score* methods add the
+	 * weights of the same features to a given score as they are found,
+	 * without boxing the IDs or building the list (the weights are added in
+	 * the same order as when summing over the list, so the scores are the
+	 * same)
+	 */
+
 	public void collectLeafFeatures(SuperCategory superCat, Sentence sentence, ArrayList<Integer> featureIDs) {
-		FeatureCat.collectFeatures(superCat, catLex, featureCatIDs, featureIDs);
-		FeatureCatHead.collectFeatures(superCat, catLexWord, sentence.wordIDs, featureCatHeadIDs, featureIDs);
-		FeatureCatHead.collectFeatures(superCat, catLexPos, sentence.postagIDs, featureCatHeadIDs, featureIDs);
+		collectLeafFeatures(superCat, sentence, new FeatureList(featureIDs));
+	}
+
+	public double scoreLeaf(SuperCategory superCat, Sentence sentence, Weights weights, double score) {
+		FeatureScore featureScore = new FeatureScore(weights, score);
+		collectLeafFeatures(superCat, sentence, featureScore);
+		return featureScore.score;
+	}
+
+	private void collectLeafFeatures(SuperCategory superCat, Sentence sentence, FeatureCollector collector) {
+		FeatureCat.collectFeatures(superCat, catLex, featureCatIDs, collector);
+		FeatureCatHead.collectFeatures(superCat, catLexWord, sentence.wordIDs, featureCatHeadIDs, collector);
+		FeatureCatHead.collectFeatures(superCat, catLexPos, sentence.postagIDs, featureCatHeadIDs, collector);
 	}
 
 	public void collectUnaryFeatures(SuperCategory superCat, Sentence sentence, ArrayList<Integer> featureIDs) {
-		FeatureRule.collectFeatures(superCat.leftChild, superCat.leftChild, superCat, ruleUnary, featureRuleIDs, featureIDs);
-		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.leftChild, superCat, ruleUnaryWord, sentence.wordIDs, featureRuleHeadIDs, featureIDs);
-		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.leftChild, superCat, ruleUnaryPos, sentence.postagIDs, featureRuleHeadIDs, featureIDs);
+		collectUnaryFeatures(superCat, sentence, new FeatureList(featureIDs));
+	}
 
-		if ( Features.newFeatures ) {
+	public double scoreUnary(SuperCategory superCat, Sentence sentence, Weights weights, double score) {
+		FeatureScore featureScore = new FeatureScore(weights, score);
+		collectUnaryFeatures(superCat, sentence, featureScore);
+		return featureScore.score;
+	}
+
+	private void collectUnaryFeatures(SuperCategory superCat, Sentence sentence, FeatureCollector collector) {
+		FeatureRule.collectFeatures(superCat.leftChild, superCat.leftChild, superCat, ruleUnary, featureRuleIDs, collector);
+		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.leftChild, superCat, ruleUnaryWord, sentence.wordIDs, featureRuleHeadIDs, collector);
+		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.leftChild, superCat, ruleUnaryPos, sentence.postagIDs, featureRuleHeadIDs, collector);
+
+		if ( newFeatures ) {
 			if ( superCat.leftChild.leftChild!= null ) {
 				if ( superCat.leftChild.rightChild != null ) {
-					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+					FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat, ruleBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+					FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 	
 				} else {
-					FeatureRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.leftChild, superCat, ruleUnaryWord2, sentence.wordIDs, featureRuleHeadIDs, featureIDs);
-					FeatureRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.leftChild, superCat, ruleUnaryPos2, sentence.postagIDs, featureRuleHeadIDs, featureIDs);
+					FeatureRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.leftChild, superCat, ruleUnaryWord2, sentence.wordIDs, featureRuleHeadIDs, collector);
+					FeatureRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.leftChild, superCat, ruleUnaryPos2, sentence.postagIDs, featureRuleHeadIDs, collector);
 	
-					FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-					FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+					FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+					FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 				}
 			}
 		}
 	}
 
 	public void collectBinaryFeatures(SuperCategory superCat, Sentence sentence, ArrayList<Integer> featureIDs) {
+		collectBinaryFeatures(superCat, sentence, new FeatureList(featureIDs));
+	}
+
+	public double scoreBinary(SuperCategory superCat, Sentence sentence, Weights weights, double score) {
+		FeatureScore featureScore = new FeatureScore(weights, score);
+		collectBinaryFeatures(superCat, sentence, featureScore);
+		return featureScore.score;
+	}
+
+	private void collectBinaryFeatures(SuperCategory superCat, Sentence sentence, FeatureCollector collector) {
 		// just the rule:
-		FeatureRule.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinary, featureRuleIDs, featureIDs);
+		FeatureRule.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinary, featureRuleIDs, collector);
 
 		// rule + result head:
-		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWord, sentence.wordIDs, featureRuleHeadIDs, featureIDs);
-		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPos, sentence.postagIDs, featureRuleHeadIDs, featureIDs);
+		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWord, sentence.wordIDs, featureRuleHeadIDs, collector);
+		FeatureRuleHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPos, sentence.postagIDs, featureRuleHeadIDs, collector);
 
 		// rule + combining heads:
-		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+		FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 
 		// rule + result head + distance:
-		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordDistAdj, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, featureIDs);
-		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordDistPunct, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, featureIDs);
-		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordDistVerb, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, featureIDs);
-		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosDistAdj, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, featureIDs);
-		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosDistPunct, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, featureIDs);
-		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosDistVerb, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, featureIDs);
-
-		if ( Features.newFeatures ) {
+		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordDistAdj, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, collector);
+		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordDistPunct, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, collector);
+		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryWordDistVerb, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, collector);
+		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosDistAdj, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, collector);
+		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosDistPunct, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, collector);
+		FeatureRuleHeadDist.collectFeatures(superCat.leftChild, superCat.rightChild, superCat, ruleBinaryPosDistVerb, sentence.wordIDs, sentence.postags, featureRuleHeadDistIDs, collector);
+
+		if ( newFeatures ) {
 			if ( superCat.leftChild.leftChild != null ) {
 				if ( superCat.leftChild.rightChild != null ) {
 					if ( superCat.rightChild.leftChild != null ) {
 						if ( superCat.rightChild.rightChild != null ) {
 							// case 8: binary, binary, binary
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleBinaryBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 	
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 						} else {
 							// case 7: binary, binary, unary
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleBinaryUnaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 	
-							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 						}
 					} else {
 						// case 3: binary, binary, null
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleBinaryNullPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild.rightChild, superCat.leftChild, superCat, ruleRuleBinaryLeftPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 					}
 				} else {
 					if ( superCat.rightChild.leftChild != null ) {
 						if ( superCat.rightChild.rightChild != null ) {
 							// case 6: binary, unary, binary
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.rightChild, superCat, ruleUnaryBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 	
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+							FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 						} else {
 							// case 5: binary, unary, unary
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+							FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild.leftChild, superCat, ruleUnaryUnaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+							FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 	
-							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+							FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 						}
 					} else {
 						// case 1: binary, unary, null
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild.leftChild, superCat.rightChild, superCat, ruleUnaryNullPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-						FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-						FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+						FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+						FeatureRuleRuleHead.collectFeatures(superCat.leftChild.leftChild, superCat.leftChild, superCat, ruleRuleUnaryLeftPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 					}
 				}
 			} else {
 				if ( superCat.rightChild.leftChild != null ) {
 					if ( superCat.rightChild.rightChild != null ) {
 						// case 4: binary, null, binary
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.rightChild, superCat, ruleNullBinaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, featureIDs);
-						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, featureIDs);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordWord, sentence.wordIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightWordPos, sentence.wordIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosWord, sentence.postagIDs, sentence.wordIDs, featureRuleRuleHeadHeadIDs, collector);
+						FeatureRuleRuleHeadHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild.rightChild, superCat.rightChild, superCat, ruleRuleBinaryRightPosPos, sentence.postagIDs, sentence.postagIDs, featureRuleRuleHeadHeadIDs, collector);
 					} else {
 						// case 2: binary, null, unary
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, featureIDs);
-						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, featureIDs);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryWordWord2, sentence.wordIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryWordPos2, sentence.wordIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryPosWord2, sentence.postagIDs, sentence.wordIDs, featureRuleHeadHeadIDs, collector);
+						FeatureRuleHeadHead.collectFeatures(superCat.leftChild, superCat.rightChild.leftChild, superCat, ruleNullUnaryPosPos2, sentence.postagIDs, sentence.postagIDs, featureRuleHeadHeadIDs, collector);
 	
-						FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightWord, sentence.wordIDs, featureRuleRuleHeadIDs, featureIDs);
-						FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightPos, sentence.postagIDs, featureRuleRuleHeadIDs, featureIDs);
+						FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightWord, sentence.wordIDs, featureRuleRuleHeadIDs, collector);
+						FeatureRuleRuleHead.collectFeatures(superCat.rightChild.leftChild, superCat.rightChild, superCat, ruleRuleUnaryRightPos, sentence.postagIDs, featureRuleRuleHeadIDs, collector);
 					}
 				}
 			}
@@ -545,9 +949,19 @@ public class Features {
 	}
 
 	public void collectRootFeatures(SuperCategory superCat, Sentence sentence, ArrayList<Integer> featureIDs) {
-		FeatureCat.collectFeatures(superCat, catRoot, featureCatIDs, featureIDs);
-		FeatureCatHead.collectFeatures(superCat, catRootWord, sentence.wordIDs, featureCatHeadIDs, featureIDs);
-		FeatureCatHead.collectFeatures(superCat, catRootPos, sentence.postagIDs, featureCatHeadIDs, featureIDs);
+		collectRootFeatures(superCat, sentence, new FeatureList(featureIDs));
+	}
+
+	public double scoreRoot(SuperCategory superCat, Sentence sentence, Weights weights, double score) {
+		FeatureScore featureScore = new FeatureScore(weights, score);
+		collectRootFeatures(superCat, sentence, featureScore);
+		return featureScore.score;
+	}
+
+	private void collectRootFeatures(SuperCategory superCat, Sentence sentence, FeatureCollector collector) {
+		FeatureCat.collectFeatures(superCat, catRoot, featureCatIDs, collector);
+		FeatureCatHead.collectFeatures(superCat, catRootWord, sentence.wordIDs, featureCatHeadIDs, collector);
+		FeatureCatHead.collectFeatures(superCat, catRootPos, sentence.postagIDs, featureCatHeadIDs, collector);
 	}
 
 	public void print(PrintWriter out) {
@@ -564,6 +978,15 @@ public class Features {
 	public void printWeights(Weights weights, PrintWriter out) {
 		out.println("logp:" + weights.getLogP());
 		out.println("depnn:" + weights.getDepNN());
+
+		if ( hashing != null ) {
+			for ( int ID = 0; ID < numFeatures; ID++ ) {
+				out.println(weights.getWeight(ID));
+			}
+
+			return;
+		}
+
 		featureCatIDs.printWeights(weights, out);
 		featureCatHeadIDs.printWeights(weights, out);
 		featureRuleIDs.printWeights(weights, out);
@@ -573,4 +996,32 @@ public class Features {
 		featureRuleRuleHeadIDs.printWeights(weights, out);
 		featureRuleRuleHeadHeadIDs.printWeights(weights, out);
 	}
+
+	private static class FeatureList implements FeatureCollector {
+		private final ArrayList<Integer> featureIDs;
+
+		FeatureList(ArrayList<Integer> featureIDs) {
+			this.featureIDs = featureIDs;
+		}
+
+		@Override
+		public void add(int ID) {
+			featureIDs.add(ID);
+		}
+	}
+
+	private static class FeatureScore implements FeatureCollector {
+		private final Weights weights;
+		double score;
+
+		FeatureScore(Weights weights, double score) {
+			this.weights = weights;
+			this.score = score;
+		}
+
+		@Override
+		public void add(int ID) {
+			score += weights.getWeight(ID);
+		}
+	}
 }
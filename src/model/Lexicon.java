@@ -16,6 +16,13 @@ public class Lexicon {
 		readWordPosFile(file);
 	}
 
+	/*
+	 * used by ModelBundle
+	 */
+	Lexicon(HashMap<String,Integer> lexicon) {
+		this.lexicon = lexicon;
+	}
+
 	public int getID(String word) {
 		// returns -1 if word not in lexicon
 		Integer ID = lexicon.get(word);
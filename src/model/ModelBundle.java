@@ -0,0 +1,529 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import io.Preface;
+import lexicon.Categories;
+import lexicon.Category;
+
+/*
+ * binary, memory-mapped version of the lexicon, features and weights files
+ * of a model, written by compile() (see CompileModel) and loaded without
+ * any text parsing: categories are stored once, as strings, and canonized
+ * once each, features refer to them by index, and the weights are stored
+ * as raw doubles
+ *
+ * layout (big-endian), sections in this order:
+ *   MAGIC, VERSION
+ *   logp, depnn (doubles)
+ *   weight type (int, the ordinal of a WeightType), scale (double)
+ *   lexicon: number of entries, then the strings in ID order
+ *   categories: number of strings, then the strings
+ *   features: number of features, then for each the feature type (short)
+ *     followed by Features.NUM_CATS category indices and Features.NUM_VALUES
+ *     values for its family (ints)
+ *   weights: padding up to a multiple of 8 bytes, then one weight per
+ *     feature, of the weight type; SHORT weights are multiplied by the
+ *     scale
+ * strings are an int byte length followed by UTF-8
+ *
+ * features can be pruned when compiling, leaving out those whose weights
+ * are small, and weights can be stored as floats or shorts, making the
+ * bundle (and the mapped weights, see Weights) smaller at some cost in
+ * accuracy; version 1 bundles, which had neither the weight type nor the
+ * scale, have to be compiled again
+ *
+ * the grammar is still read from the grammar directory, since it's small
+ * and the categories of the bundle are canonized against it
+ */
+
+public class ModelBundle {
+	public static final int MAGIC = 0x4343474D; // "CCGM"
+	public static final int VERSION = 2;
+
+	public enum WeightType {
+		DOUBLE(8), FLOAT(4), SHORT(2);
+
+		public final int size; // bytes per weight
+
+		WeightType(int size) {
+			this.size = size;
+		}
+
+		public static WeightType fromString(String weightType) {
+			try {
+				return valueOf(weightType.toUpperCase());
+			} catch ( IllegalArgumentException e ) {
+				throw new IllegalArgumentException("Unknown weight type: " + weightType);
+			}
+		}
+	}
+
+	private final ByteBuffer buffer;
+
+	private final double logp;
+	private final double depnn;
+	private final WeightType weightType;
+	private final double scale;
+	private final int lexiconPosition;
+	private final int categoriesPosition;
+	private final int featuresPosition;
+	private final int weightsPosition;
+	private final int numFeatures;
+
+	public static final Logger logger = LogManager.getLogger(ModelBundle.class);
+
+	/**
+	 * Maps a bundle written by compile().
+	 *
+	 * @param file bundle file
+	 * @throws IOException
+	 */
+	public ModelBundle(String file) throws IOException {
+		try ( RandomAccessFile in = new RandomAccessFile(file, "r");
+				FileChannel channel = in.getChannel() ) {
+			if ( channel.size() > Integer.MAX_VALUE ) {
+				throw new IllegalArgumentException("model bundle " + file + " is too large to map");
+			}
+
+			// the mapping stays valid after the channel is closed
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		ByteBuffer in = buffer.duplicate();
+
+		if ( in.remaining() < 8 || in.getInt() != MAGIC ) {
+			throw new IOException(file + " is not a model bundle");
+		}
+
+		checkRemaining(in, 4, file);
+		int version = in.getInt();
+		if ( version != VERSION ) {
+			throw new IOException("model bundle " + file + " has version " + version + ", expected " + VERSION);
+		}
+
+		// logp, depnn, weight type and scale
+		checkRemaining(in, 8 + 8 + 4 + 8, file);
+		this.logp = in.getDouble();
+		this.depnn = in.getDouble();
+
+		int type = in.getInt();
+		if ( type < 0 || type >= WeightType.values().length ) {
+			throw new IOException("model bundle " + file + " has unknown weight type " + type);
+		}
+
+		this.weightType = WeightType.values()[type];
+		this.scale = in.getDouble();
+
+		this.lexiconPosition = in.position();
+		skipStrings(in, file);
+
+		this.categoriesPosition = in.position();
+		skipStrings(in, file);
+
+		this.featuresPosition = in.position();
+		checkRemaining(in, 4, file);
+		this.numFeatures = in.getInt();
+		for ( int i = 0; i < numFeatures; i++ ) {
+			checkRemaining(in, 2, file);
+			int family = Features.family(in.getShort());
+			skip(in, 4 * (Features.NUM_CATS[family] + Features.NUM_VALUES[family]), file);
+		}
+
+		skip(in, align(in.position()) - in.position(), file);
+		this.weightsPosition = in.position();
+
+		if ( in.remaining() != (long) (weightType.size) * numFeatures ) {
+			throw new IOException("model bundle " + file + " is truncated");
+		}
+	}
+
+	public int getNumFeatures() {
+		return numFeatures;
+	}
+
+	public WeightType getWeightType() {
+		return weightType;
+	}
+
+	/**
+	 * @return the lexicon of the bundle
+	 */
+	public Lexicon readLexicon() {
+		ByteBuffer in = buffer.duplicate();
+		in.position(lexiconPosition);
+
+		int size = in.getInt();
+		HashMap<String,Integer> lexicon = new HashMap<String,Integer>(2 * size);
+
+		for ( int ID = 0; ID < size; ID++ ) {
+			lexicon.put(readString(in), ID);
+		}
+
+		return new Lexicon(lexicon);
+	}
+
+	/**
+	 * Adds the features of the bundle to features, which is assumed to be
+	 * empty, canonizing their categories with categories.
+	 *
+	 * @param features features
+	 * @param categories categories
+	 */
+	public void readFeatures(Features features, Categories categories) {
+		ByteBuffer in = buffer.duplicate();
+		in.position(categoriesPosition);
+
+		Category[] catTable = new Category[in.getInt()];
+		for ( int i = 0; i < catTable.length; i++ ) {
+			catTable[i] = categories.canonize(readString(in));
+		}
+
+		in.position(featuresPosition + 4);
+
+		Category[] cats = new Category[4];
+		int[] values = new int[2];
+
+		for ( int ID = 0; ID < numFeatures; ID++ ) {
+			short featureType = in.getShort();
+			int family = Features.family(featureType);
+
+			for ( int i = 0; i < Features.NUM_CATS[family]; i++ ) {
+				cats[i] = catTable[in.getInt()];
+			}
+
+			for ( int i = 0; i < Features.NUM_VALUES[family]; i++ ) {
+				values[i] = in.getInt();
+			}
+
+			features.addFeature(featureType, cats, values, ID);
+		}
+
+		features.numFeatures = numFeatures;
+		logger.info("Total number of features read in: " + numFeatures);
+	}
+
+	/**
+	 * Sets the weights, logp and depnn of weights to those of the bundle.
+	 *
+	 * @param weights weights
+	 * @param map whether to read the weights straight from the mapped
+	 * bundle rather than copying them into an array
+	 */
+	public void readWeights(Weights weights, boolean map) {
+		ByteBuffer in = buffer.duplicate();
+		in.position(weightsPosition);
+
+		if ( map ) {
+			switch ( weightType ) {
+				case DOUBLE:
+					weights.setWeights(in.asDoubleBuffer());
+					break;
+				case FLOAT:
+					weights.setWeights(in.asFloatBuffer());
+					break;
+				case SHORT:
+					weights.setWeights(in.asShortBuffer(), scale);
+					break;
+			}
+		} else {
+			double[] array = new double[numFeatures];
+
+			switch ( weightType ) {
+				case DOUBLE:
+					in.asDoubleBuffer().get(array);
+					break;
+				case FLOAT:
+					for ( int i = 0; i < numFeatures; i++ ) {
+						array[i] = in.getFloat();
+					}
+					break;
+				case SHORT:
+					for ( int i = 0; i < numFeatures; i++ ) {
+						array[i] = in.getShort() * scale;
+					}
+					break;
+			}
+
+			weights.useWeights(array);
+		}
+
+		weights.setLogP(logp);
+		weights.setDepNN(depnn);
+	}
+
+	/**
+	 * Writes a bundle from the text lexicon, features and weights files of
+	 * a model, with all the weights as doubles.
+	 *
+	 * @param lexiconFile lexicon file
+	 * @param featuresFile features file
+	 * @param weightsFile weights file (one per feature, plus logp and depnn)
+	 * @param compactWeights whether to leave out features whose weight is 0.0,
+	 * as Features does with compactWeights
+	 * @param bundleFile output file
+	 * @throws IOException
+	 */
+	public static void compile(String lexiconFile, String featuresFile, String weightsFile, boolean compactWeights, String bundleFile) throws IOException {
+		compile(lexiconFile, featuresFile, weightsFile, compactWeights, 0.0, WeightType.DOUBLE, bundleFile);
+	}
+
+	/**
+	 * Writes a bundle from the text lexicon, features and weights files of
+	 * a model, pruning and quantizing the weights; logs how many features
+	 * were pruned, the errors from quantizing and the size of the bundle,
+	 * so that these can be weighed against the accuracy of the parser.
+	 *
+	 * @param lexiconFile lexicon file
+	 * @param featuresFile features file
+	 * @param weightsFile weights file (one per feature, plus logp and depnn)
+	 * @param compactWeights whether to leave out features whose weight is 0.0,
+	 * as Features does with compactWeights
+	 * @param pruneThreshold features whose weights have smaller absolute
+	 * values are left out
+	 * @param weightType how the weights are stored
+	 * @param bundleFile output file
+	 * @throws IOException
+	 */
+	public static void compile(String lexiconFile, String featuresFile, String weightsFile, boolean compactWeights, double pruneThreshold, WeightType weightType, String bundleFile) throws IOException {
+		double[] logpDepnn = new double[2];
+		BitSet dropped = new BitSet();
+		LinkedHashMap<String,Integer> catIndices = new LinkedHashMap<String,Integer>();
+		double[] weights = new double[1024];
+		int numFeatures = 0;
+		int numLines = 0;
+		int numPruned = 0;
+		double maxWeight = 0.0; // absolute value
+
+		/*
+		 * first pass: weights, and the categories of the features which are
+		 * kept, which are written before the features
+		 */
+		try ( BufferedReader featuresIn = new BufferedReader(new FileReader(featuresFile));
+				BufferedReader weightsIn = new BufferedReader(new FileReader(weightsFile)) ) {
+			Preface.readPreface(featuresIn);
+			Preface.readPreface(weightsIn);
+
+			String featuresLine = null;
+
+			while ( (featuresLine = featuresIn.readLine()) != null ) {
+				Double weight = readWeight(weightsIn, logpDepnn);
+				if ( weight == null ) {
+					throw new IllegalArgumentException("number of weights != number of features!");
+				}
+
+				if ( compactWeights && weight == 0.0 ) {
+					dropped.set(numLines++);
+					continue;
+				}
+
+				if ( Math.abs(weight) < pruneThreshold ) {
+					dropped.set(numLines++);
+					numPruned++;
+					continue;
+				}
+
+				numLines++;
+
+				String[] tokens = splitFeature(featuresLine);
+				int numCats = Features.NUM_CATS[Features.family(Short.parseShort(tokens[0]))];
+				for ( int i = 1; i <= numCats; i++ ) {
+					if ( !catIndices.containsKey(tokens[i]) ) {
+						catIndices.put(tokens[i], catIndices.size());
+					}
+				}
+
+				if ( numFeatures == weights.length ) {
+					weights = Arrays.copyOf(weights, 2 * weights.length);
+				}
+				weights[numFeatures++] = weight;
+				maxWeight = Math.max(maxWeight, Math.abs(weight));
+			}
+
+			if ( readWeight(weightsIn, logpDepnn) != null ) {
+				throw new IllegalArgumentException("number of weights != number of features!");
+			}
+		}
+
+		try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(bundleFile)));
+				BufferedReader lexiconIn = new BufferedReader(new FileReader(lexiconFile));
+				BufferedReader featuresIn = new BufferedReader(new FileReader(featuresFile)) ) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeDouble(logpDepnn[0]);
+			out.writeDouble(logpDepnn[1]);
+
+			// spreads the shorts over the range of the weights
+			double scale = (weightType == WeightType.SHORT && maxWeight > 0.0) ? maxWeight / Short.MAX_VALUE : 1.0;
+			out.writeInt(weightType.ordinal());
+			out.writeDouble(scale);
+
+			Preface.readPreface(lexiconIn);
+			ArrayList<String> lexicon = new ArrayList<String>();
+			String wordPos = null;
+			while ( (wordPos = lexiconIn.readLine()) != null ) {
+				lexicon.add(wordPos);
+			}
+
+			out.writeInt(lexicon.size());
+			for ( String string : lexicon ) {
+				writeString(out, string);
+			}
+
+			out.writeInt(catIndices.size());
+			for ( String string : catIndices.keySet() ) {
+				writeString(out, string);
+			}
+
+			Preface.readPreface(featuresIn);
+			out.writeInt(numFeatures);
+
+			String featuresLine = null;
+			for ( int line = 0; (featuresLine = featuresIn.readLine()) != null; line++ ) {
+				if ( dropped.get(line) ) {
+					continue;
+				}
+
+				String[] tokens = splitFeature(featuresLine);
+				short featureType = Short.parseShort(tokens[0]);
+				int family = Features.family(featureType);
+				int numCats = Features.NUM_CATS[family];
+
+				out.writeShort(featureType);
+				for ( int i = 1; i <= numCats; i++ ) {
+					out.writeInt(catIndices.get(tokens[i]));
+				}
+				for ( int i = 1; i <= Features.NUM_VALUES[family]; i++ ) {
+					out.writeInt(Integer.parseInt(tokens[numCats + i]));
+				}
+			}
+
+			while ( out.size() % 8 != 0 ) {
+				out.writeByte(0);
+			}
+
+			double maxError = 0.0;
+			double sumError = 0.0;
+
+			for ( int i = 0; i < numFeatures; i++ ) {
+				double stored = weights[i];
+
+				switch ( weightType ) {
+					case DOUBLE:
+						out.writeDouble(weights[i]);
+						break;
+					case FLOAT:
+						out.writeFloat((float) (weights[i]));
+						stored = (float) (weights[i]);
+						break;
+					case SHORT:
+						short quantized = (short) (Math.round(weights[i] / scale));
+						out.writeShort(quantized);
+						stored = quantized * scale;
+						break;
+				}
+
+				double error = Math.abs(stored - weights[i]);
+				maxError = Math.max(maxError, error);
+				sumError += error;
+			}
+
+			logger.info("Wrote " + numFeatures + " features, " + catIndices.size() + " categories and " + lexicon.size() + " lexicon entries");
+			logger.info("Pruned " + numPruned + " features with |weight| < " + pruneThreshold);
+			logger.info("Weights stored as " + weightType + ": max |error| " + maxError + ", mean |error| " + (numFeatures > 0 ? sumError / numFeatures : 0.0));
+			logger.info("Bundle size: " + out.size() + " bytes");
+		}
+	}
+
+	/*
+	 * reads the next weight, recording any logp and depnn lines on the way;
+	 * returns null at the end of the file
+	 */
+	private static Double readWeight(BufferedReader weightsIn, double[] logpDepnn) throws IOException {
+		String weightsLine = null;
+
+		while ( (weightsLine = weightsIn.readLine()) != null ) {
+			if ( weightsLine.startsWith("logp") ) {
+				logpDepnn[0] = Double.parseDouble(weightsLine.split(":")[1]);
+			} else if ( weightsLine.startsWith("depnn") ) {
+				logpDepnn[1] = Double.parseDouble(weightsLine.split(":")[1]);
+			} else {
+				return Double.parseDouble(weightsLine);
+			}
+		}
+
+		return null;
+	}
+
+	private static String[] splitFeature(String featuresLine) {
+		String[] tokens = featuresLine.split("\\s");
+		int family = Features.family(Short.parseShort(tokens[0]));
+
+		// the feature type, the fields, and the count at the end
+		if ( tokens.length != Features.NUM_CATS[family] + Features.NUM_VALUES[family] + 2 ) {
+			throw new Error("features of type " + tokens[0] + " should have " + (Features.NUM_CATS[family] + Features.NUM_VALUES[family] + 2) + " fields!");
+		}
+
+		return tokens;
+	}
+
+	private static void writeString(DataOutputStream out, String string) throws IOException {
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(ByteBuffer in) {
+		byte[] bytes = new byte[in.getInt()];
+		in.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void skipStrings(ByteBuffer in, String file) throws IOException {
+		checkRemaining(in, 4, file);
+		int size = in.getInt();
+
+		// each string has at least its length
+		checkRemaining(in, 4L * size, file);
+		for ( int i = 0; i < size; i++ ) {
+			checkRemaining(in, 4, file);
+			skip(in, in.getInt(), file);
+		}
+	}
+
+	private static void skip(ByteBuffer in, int length, String file) throws IOException {
+		checkRemaining(in, length, file);
+		in.position(in.position() + length);
+	}
+
+	/*
+	 * the header is checked as it's read, so that a truncated (or corrupted)
+	 * bundle gives an IOException rather than a BufferUnderflowException
+	 */
+	private static void checkRemaining(ByteBuffer in, long length, String file) throws IOException {
+		if ( length < 0 || in.remaining() < length ) {
+			throw new IOException("model bundle " + file + " is truncated");
+		}
+	}
+
+	private static int align(int position) {
+		return (position + 7) & ~7;
+	}
+}
@@ -0,0 +1,120 @@
+package model;
+
+import java.util.Arrays;
+
+/*
+ * open-addressing hash table from keys of two longs (packed features, see
+ * FeatureKeys) to feature IDs; uses linear probing on parallel primitive
+ * arrays, so lookups don't allocate
+ *
+ * the capacity is a power of two and the table is kept at most half full
+ */
+
+public class PackedFeatureTable {
+	private static final int EMPTY = FeatureIDs.NONE;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private long[] keys; // hi and lo of slot i are at 2*i and 2*i + 1
+	private int[] IDs;
+	private int size;
+	private int mask;
+
+	public PackedFeatureTable() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[2 * capacity];
+		IDs = new int[capacity];
+		Arrays.fill(IDs, EMPTY);
+		size = 0;
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the ID stored for a key.
+	 * 
+	 * @param hi first half of key
+	 * @param lo second half of key
+	 * @return ID, or FeatureIDs.NONE if the key is not in the table
+	 */
+	public int get(long hi, long lo) {
+		int slot = hash(hi, lo) & mask;
+
+		while ( true ) {
+			int ID = IDs[slot];
+
+			if ( ID == EMPTY ) {
+				return FeatureIDs.NONE;
+			}
+
+			if ( keys[2 * slot] == hi && keys[2 * slot + 1] == lo ) {
+				return ID;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Stores ID for a key, replacing any previous ID.
+	 * 
+	 * @param hi first half of key
+	 * @param lo second half of key
+	 * @param ID feature ID; must not be FeatureIDs.NONE
+	 */
+	public void put(long hi, long lo, int ID) {
+		if ( ID == EMPTY ) {
+			throw new IllegalArgumentException("Invalid feature ID: " + ID);
+		}
+
+		if ( 2 * (size + 1) > IDs.length ) {
+			resize();
+		}
+
+		int slot = hash(hi, lo) & mask;
+
+		while ( IDs[slot] != EMPTY ) {
+			if ( keys[2 * slot] == hi && keys[2 * slot + 1] == lo ) {
+				IDs[slot] = ID;
+				return;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		keys[2 * slot] = hi;
+		keys[2 * slot + 1] = lo;
+		IDs[slot] = ID;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldIDs = IDs;
+
+		allocate(2 * oldIDs.length);
+
+		for ( int i = 0; i < oldIDs.length; i++ ) {
+			if ( oldIDs[i] != EMPTY ) {
+				put(oldKeys[2 * i], oldKeys[2 * i + 1], oldIDs[i]);
+			}
+		}
+	}
+
+	/*
+	 * the packed fields sit in fixed bit ranges, so the key needs to be mixed
+	 * before its low bits can be used as a slot (finaliser from splitmix64)
+	 */
+	private static int hash(long hi, long lo) {
+		long h = hi * 0x9E3779B97F4A7C15L + lo;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h;
+	}
+}
@@ -0,0 +1,201 @@
+package model;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cat_combination.IgnoreDepsEval;
+import cat_combination.RuleInstancesParams;
+import cat_combination.Rules;
+import lexicon.Categories;
+import utils.ChunkedLines;
+
+/*
+ * the read-only part of a parser: grammar, rule instances, features,
+ * weights and lexicon; one ParserModel is loaded once and shared by any
+ * number of parsers (e.g. one per thread), each of which keeps its own
+ * chart and scratch space
+ *
+ * nothing in here is modified after construction, except for the
+ * IgnoreDepsEval object which is loaded on first use
+ */
+
+public class ParserModel {
+	public final Categories categories;
+	public final Rules rules;
+	// prototype rules; parsers take a copy using new Rules(rules)
+	public final Lexicon lexicon;
+	public final Features features;
+	public final Weights weights;
+
+	private IgnoreDepsEval ignoreDeps;
+
+	private static final String ruleIDsFile = "grammar/ruleIDsNoEval.txt";
+	private static final String relRuleIDsFile = "grammar/relsNoEval.txt";
+	private static final String relHeadFile = "grammar/relsHeadsNoEval.txt";
+	private static final String relHeadFillerFile = "grammar/relsHeadsFillersNoEval.txt";
+
+	public ParserModel(
+					String grammarDir,
+					boolean altMarkedup,
+					boolean eisnerNormalForm,
+					RuleInstancesParams ruleInstancesParams,
+					Lexicon lexicon,
+					String featuresFile,
+					String weightsFile,
+					boolean newFeatures,
+					boolean compactWeights) throws IOException {
+		this.categories = new Categories(grammarDir, altMarkedup);
+		this.rules = new Rules(eisnerNormalForm, categories, ruleInstancesParams);
+		this.lexicon = lexicon;
+
+		if ( compactWeights ) {
+			this.weights = new Weights();
+			this.features = new Features(featuresFile, weightsFile, weights, categories, newFeatures);
+		} else {
+			this.features = (featuresFile != null ? new Features(featuresFile, categories, newFeatures) : null);
+			this.weights = (weightsFile != null ? new Weights(weightsFile, features.numFeatures) : null);
+		}
+	}
+
+	/**
+	 * As the constructor above, but loads the model on numThreads threads:
+	 * the lexicon, the rules and the features and weights are loaded
+	 * concurrently once the categories have been read,
+	 * and the features and weights files are parsed in chunks (see
+	 * ChunkedLines), so that loading a large model is bound by reading the
+	 * files rather than by parsing them.
+	 */
+	public ParserModel(
+					String grammarDir,
+					boolean altMarkedup,
+					boolean eisnerNormalForm,
+					final RuleInstancesParams ruleInstancesParams,
+					final String lexiconFile,
+					String featuresFile,
+					final String weightsFile,
+					boolean newFeatures,
+					boolean compactWeights,
+					final int numThreads) throws IOException {
+		// loaders wait for parsers, so they can't share a pool
+		ExecutorService loaders = Executors.newCachedThreadPool();
+		final ExecutorService parsers = Executors.newFixedThreadPool(Math.max(numThreads, 1));
+
+		try {
+			Future<Lexicon> lexiconFuture = loaders.submit(new Callable<Lexicon>() {
+				@Override
+				public Lexicon call() throws IOException {
+					return new Lexicon(lexiconFile);
+				}
+			});
+
+			final Categories categories = new Categories(grammarDir, altMarkedup);
+			this.categories = categories;
+
+			final boolean eisner = eisnerNormalForm;
+			Future<Rules> rulesFuture = loaders.submit(new Callable<Rules>() {
+				@Override
+				public Rules call() throws IOException {
+					return new Rules(eisner, categories, ruleInstancesParams);
+				}
+			});
+
+			if ( compactWeights ) {
+				this.weights = new Weights();
+				this.features = new Features(featuresFile, weightsFile, weights, categories, newFeatures, parsers, numThreads);
+			} else {
+				final Weights weights = new Weights();
+				Future<double[]> weightsFuture = null;
+
+				if ( weightsFile != null && !weightsFile.equals("zero") ) {
+					weightsFuture = loaders.submit(new Callable<double[]>() {
+						@Override
+						public double[] call() throws IOException {
+							return Weights.readWeights(weightsFile, weights, parsers, numThreads, ChunkedLines.CHUNK_SIZE);
+						}
+					});
+				}
+
+				this.features = new Features(featuresFile, categories, newFeatures, parsers, numThreads);
+
+				if ( weightsFile == null ) {
+					this.weights = null;
+				} else if ( weightsFuture == null ) {
+					this.weights = new Weights(weightsFile, features.numFeatures);
+				} else {
+					double[] array = ChunkedLines.get(weightsFuture);
+
+					if ( array.length != features.numFeatures ) {
+						throw new IllegalArgumentException("number of weights != number of features!");
+					}
+
+					weights.useWeights(array);
+					this.weights = weights;
+				}
+			}
+
+			this.lexicon = ChunkedLines.get(lexiconFuture);
+			this.rules = ChunkedLines.get(rulesFuture);
+		} finally {
+			loaders.shutdownNow();
+			parsers.shutdownNow();
+		}
+	}
+
+	/**
+	 * Uses hashed feature IDs (see FeatureHashing) instead of a features
+	 * file; the weights file has one weight per ID, or is "zero".
+	 */
+	public ParserModel(
+					String grammarDir,
+					boolean altMarkedup,
+					boolean eisnerNormalForm,
+					RuleInstancesParams ruleInstancesParams,
+					Lexicon lexicon,
+					FeatureHashing hashing,
+					String weightsFile,
+					boolean newFeatures) throws IOException {
+		this.categories = new Categories(grammarDir, altMarkedup);
+		this.rules = new Rules(eisnerNormalForm, categories, ruleInstancesParams);
+		this.lexicon = lexicon;
+		this.features = new Features(hashing, newFeatures);
+		this.weights = (weightsFile != null ? new Weights(weightsFile, features.numFeatures) : null);
+	}
+
+	/**
+	 * Loads the lexicon, features and weights from a model bundle (see
+	 * ModelBundle) instead of the text files; mapped weights stay in the
+	 * bundle, and are shared by all the processes mapping it.
+	 */
+	public ParserModel(
+					String grammarDir,
+					boolean altMarkedup,
+					boolean eisnerNormalForm,
+					RuleInstancesParams ruleInstancesParams,
+					ModelBundle bundle,
+					boolean newFeatures,
+					boolean mapWeights) throws IOException {
+		this.categories = new Categories(grammarDir, altMarkedup);
+		this.rules = new Rules(eisnerNormalForm, categories, ruleInstancesParams);
+		this.lexicon = bundle.readLexicon();
+		this.weights = new Weights();
+		this.features = new Features(bundle, weights, categories, newFeatures, mapWeights);
+	}
+
+	/**
+	 * Returns the set of dependencies ignored by the evaluation script,
+	 * loading it on first use.
+	 *
+	 * @return set of ignored dependencies
+	 * @throws IOException
+	 */
+	public synchronized IgnoreDepsEval getIgnoreDeps() throws IOException {
+		if ( ignoreDeps == null ) {
+			ignoreDeps = new IgnoreDepsEval(ruleIDsFile, relRuleIDsFile, relHeadFile, relHeadFillerFile, categories.dependencyRelations);
+		}
+
+		return ignoreDeps;
+	}
+}
@@ -3,11 +3,28 @@ package model;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
 
 import io.Preface;
+import utils.ChunkedLines;
+
+/*
+ * the weights are either in an array, or in a read-only buffer mapped from
+ * a model bundle (see ModelBundle), which every process mapping the same
+ * bundle shares through the page cache; mapped weights can also be floats,
+ * or shorts multiplied by a scale, if the bundle was quantized
+ */
 
 public class Weights {
 	private double[] weights;
+	private DoubleBuffer mappedWeights; // null unless the weights are mapped doubles
+	private FloatBuffer floatWeights;
+	private ShortBuffer shortWeights;
+	private double scale;
 	private double logp;
 	private double depnn;
 
@@ -23,7 +40,56 @@ public class Weights {
 	}
 
 	public void setWeights(double[] weights) {
-		this.weights = weights.clone();
+		useWeights(weights.clone());
+	}
+
+	/*
+	 * as setWeights(), without copying the array, for arrays built by the
+	 * loaders
+	 */
+	void useWeights(double[] weights) {
+		clear();
+		this.weights = weights;
+	}
+
+	/**
+	 * Reads the weights straight from a buffer, without copying them; the
+	 * weights can't be changed afterwards.
+	 * 
+	 * @param mappedWeights buffer, usually mapped from a file
+	 */
+	public void setWeights(DoubleBuffer mappedWeights) {
+		clear();
+		this.mappedWeights = mappedWeights;
+	}
+
+	/**
+	 * As setWeights(DoubleBuffer), for weights stored as floats.
+	 */
+	public void setWeights(FloatBuffer floatWeights) {
+		clear();
+		this.floatWeights = floatWeights;
+	}
+
+	/**
+	 * As setWeights(DoubleBuffer), for weights stored as shorts, which are
+	 * multiplied by scale.
+	 */
+	public void setWeights(ShortBuffer shortWeights, double scale) {
+		clear();
+		this.shortWeights = shortWeights;
+		this.scale = scale;
+	}
+
+	private void clear() {
+		this.weights = null;
+		this.mappedWeights = null;
+		this.floatWeights = null;
+		this.shortWeights = null;
+	}
+
+	public boolean isMapped() {
+		return mappedWeights != null || floatWeights != null || shortWeights != null;
 	}
 
 	private void readWeights(String weightsFile) throws IOException {
@@ -53,11 +119,92 @@ public class Weights {
 		}
 	}
 
+	/*
+	 * weights of a chunk of a weights file, parsed on a loading thread (see
+	 * ChunkedLines); logp and depnn are NaN unless the chunk has them
+	 */
+	private static class WeightChunk {
+		final double[] weights;
+		int numWeights;
+		double logp = Double.NaN;
+		double depnn = Double.NaN;
+
+		WeightChunk(int size) {
+			this.weights = new double[size];
+		}
+	}
+
+	/*
+	 * reads a weights file on executor, which has numThreads threads, in
+	 * chunks of chunkSize lines, and sets the logp and depnn weights of
+	 * weights; returns the other weights, in file order
+	 */
+	static double[] readWeights(String weightsFile, Weights weights, ExecutorService executor, int numThreads, int chunkSize) throws IOException {
+		ArrayList<WeightChunk> chunks;
+
+		try ( BufferedReader in = new BufferedReader(new FileReader(weightsFile)) ) {
+			Preface.readPreface(in);
+
+			chunks = ChunkedLines.getAll(ChunkedLines.parse(in, chunkSize, executor, numThreads, new ChunkedLines.Parser<WeightChunk>() {
+				@Override
+				public WeightChunk parse(String[] lines, int firstLine) {
+					WeightChunk chunk = new WeightChunk(lines.length);
+
+					for ( String line : lines ) {
+						if ( line.startsWith("logp") ) {
+							chunk.logp = Double.parseDouble(line.split(":")[1]);
+						} else if ( line.startsWith("depnn") ) {
+							chunk.depnn = Double.parseDouble(line.split(":")[1]);
+						} else {
+							chunk.weights[chunk.numWeights++] = Double.parseDouble(line);
+						}
+					}
+
+					return chunk;
+				}
+			}));
+		}
+
+		int numWeights = 0;
+		for ( WeightChunk chunk : chunks ) {
+			numWeights += chunk.numWeights;
+		}
+
+		double[] array = new double[numWeights];
+		int ID = 0;
+
+		for ( WeightChunk chunk : chunks ) {
+			System.arraycopy(chunk.weights, 0, array, ID, chunk.numWeights);
+			ID += chunk.numWeights;
+
+			if ( !Double.isNaN(chunk.logp) ) {
+				weights.setLogP(chunk.logp);
+			}
+			if ( !Double.isNaN(chunk.depnn) ) {
+				weights.setDepNN(chunk.depnn);
+			}
+		}
+
+		return array;
+	}
+
 	public double getWeight(int ID) {
-		return weights[ID];
+		if ( weights != null ) {
+			return weights[ID];
+		} else if ( mappedWeights != null ) {
+			return mappedWeights.get(ID);
+		} else if ( floatWeights != null ) {
+			return floatWeights.get(ID);
+		}
+
+		return shortWeights.get(ID) * scale;
 	}
 
 	public void setWeight(int ID, double weight) {
+		if ( isMapped() ) {
+			throw new UnsupportedOperationException("Can't change mapped weights.");
+		}
+
 		weights[ID] = weight;
 	}
 
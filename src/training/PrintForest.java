@@ -4,7 +4,6 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.ArrayList;
-import java.util.HashSet;
 
 import cat_combination.FilledDependency;
 import cat_combination.SuperCategory;
@@ -15,18 +14,19 @@ import lexicon.Categories;
 import lexicon.Category;
 import model.Features;
 import utils.IntWrapper;
+import utils.LongHashSet;
 
 public class PrintForest {
 	ArrayList<Integer> featureIDs; // used to collect features before printing
 	Features features; // the complete feature set
 
-	HashSet<FilledDependency> goldDeps;
+	LongHashSet goldDeps; // FilledDependency.key() of the gold dependencies
 	Category rootCat;
 
 	public PrintForest(Features features) {
 		featureIDs = new ArrayList<Integer>();
 		this.features = features;
-		goldDeps = new HashSet<FilledDependency>();
+		goldDeps = new LongHashSet();
 	}
 
 	public boolean print(PrintWriter out, Chart chart, Sentence sentence) {
@@ -129,11 +129,11 @@ public class PrintForest {
 	private void printLeafFeatures(PrintWriter out, SuperCategory superCat,
 			Sentence sentence, ArrayList<Integer> featureIDs) {
 		out.print("0 ");
-		out.print(superCat.inside + " "); // log_prob of the lexical category
+		out.print(superCat.getInside() + " "); // log_prob of the lexical category
 		// stored here
 		// (as well as on score, but that's
 		// already been used by the decoder)
-		if (superCat.goldMarker == 1) {
+		if (superCat.getGoldMarker() == 1) {
 			out.print("1 ");
 		}
 		else {
@@ -148,7 +148,7 @@ public class PrintForest {
 	private void printUnaryFeatures(PrintWriter out, SuperCategory superCat,
 			Sentence sentence, ArrayList<Integer> featureIDs) {
 		out.print("1 " + superCat.leftChild.marker + " ");
-		if (superCat.goldMarker == 1) {
+		if (superCat.getGoldMarker() == 1) {
 			out.print("1 ");
 		}
 		else {
@@ -165,7 +165,7 @@ public class PrintForest {
 		out.print("2 " + superCat.leftChild.marker + " "
 				+ superCat.rightChild.marker + " ");
 		// countGoldDeps(superCat) + " ");
-		if (superCat.goldMarker == 1) {
+		if (superCat.getGoldMarker() == 1) {
 			out.print("1 ");
 		}
 		else {
@@ -182,7 +182,7 @@ public class PrintForest {
 		out.print("3 " + superCat.leftChild.marker + " "
 				+ superCat.rightChild.marker + " ");
 		// countGoldDeps(superCat) + " ");
-		if (superCat.goldMarker == 1) {
+		if (superCat.getGoldMarker() == 1) {
 			out.print("1 ");
 		}
 		else {
@@ -208,8 +208,9 @@ public class PrintForest {
 
 	private int countGoldDeps(SuperCategory superCat) {
 		int score = 0;
-		for ( FilledDependency filled : superCat.filledDeps ) {
-			if (goldDeps.contains(filled)) {
+		for ( int i = 0; i < superCat.numFilledDeps(); i++ ) {
+			long filled = superCat.filledDep(i);
+			if (goldDeps.contains(FilledDependency.key(filled))) {
 				score++;
 			}
 			else {
@@ -258,7 +259,7 @@ public class PrintForest {
 
 			FilledDependency dep = new FilledDependency(relID, headIndex,
 					fillerIndex, unaryRuleID, lrange);
-			goldDeps.add(dep);
+			goldDeps.add(FilledDependency.key(dep.pack()));
 
 			line = in.readLine();
 		}
@@ -0,0 +1,139 @@
+package utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/*
+ * parsing of large text files on several threads: the calling thread reads
+ * the lines and hands them out in chunks, which are parsed concurrently on
+ * an executor, so that reading runs at disk speed rather than at the speed
+ * of one thread splitting lines; the results come back in file order
+ *
+ * the reader waits for the oldest chunk once too many are pending, so at
+ * most a few chunks of unparsed lines are held in memory
+ *
+ * chunk parsers must not block on the executor they run on
+ */
+
+public final class ChunkedLines {
+	public interface Parser<R> {
+		/**
+		 * @param lines lines of the chunk, in file order
+		 * @param firstLine index of the first line of the chunk in the file
+		 * (not counting lines read before the chunks started)
+		 * @return result for the chunk
+		 */
+		R parse(String[] lines, int firstLine);
+	}
+
+	public static final int CHUNK_SIZE = 1 << 16;
+	private static final int PENDING_PER_THREAD = 4;
+
+	private ChunkedLines() {
+	}
+
+	/**
+	 * Reads the rest of in, parsing it in chunks on executor.
+	 *
+	 * @param in reader, positioned at the first line to parse
+	 * @param chunkSize number of lines per chunk, usually CHUNK_SIZE
+	 * @param executor executor for parsing
+	 * @param numThreads number of threads of executor
+	 * @param parser parser applied to each chunk
+	 * @return results of the chunks, in file order; getAll() waits for them
+	 * @throws IOException
+	 */
+	public static <R> ArrayList<Future<R>> parse(BufferedReader in, int chunkSize, ExecutorService executor, int numThreads, final Parser<R> parser) throws IOException {
+		ArrayList<Future<R>> results = new ArrayList<Future<R>>();
+		int maxPending = PENDING_PER_THREAD * Math.max(numThreads, 1);
+		int numWaited = 0;
+		int numLines = 0;
+
+		while ( true ) {
+			final String[] lines = readChunk(in, chunkSize);
+			final int firstLine = numLines;
+
+			if ( lines.length == 0 ) {
+				break;
+			}
+
+			while ( results.size() - numWaited >= maxPending ) {
+				get(results.get(numWaited++));
+			}
+
+			results.add(executor.submit(new Callable<R>() {
+				@Override
+				public R call() {
+					return parser.parse(lines, firstLine);
+				}
+			}));
+
+			numLines += lines.length;
+		}
+
+		return results;
+	}
+
+	/**
+	 * Waits for all the results.
+	 */
+	public static <R> ArrayList<R> getAll(List<Future<R>> futures) throws IOException {
+		ArrayList<R> results = new ArrayList<R>(futures.size());
+
+		for ( Future<R> future : futures ) {
+			results.add(get(future));
+		}
+
+		return results;
+	}
+
+	/**
+	 * Waits for a result, passing on any exception thrown while computing
+	 * it (as OrderedWorkerPool does).
+	 */
+	public static <R> R get(Future<R> future) throws IOException {
+		try {
+			return future.get();
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch ( ExecutionException e ) {
+			Throwable cause = e.getCause();
+
+			if ( cause instanceof IOException ) {
+				throw (IOException) cause;
+			} else if ( cause instanceof RuntimeException ) {
+				throw (RuntimeException) cause;
+			} else if ( cause instanceof Error ) {
+				throw (Error) cause;
+			} else {
+				throw new IOException(cause);
+			}
+		}
+	}
+
+	private static String[] readChunk(BufferedReader in, int chunkSize) throws IOException {
+		String[] lines = new String[chunkSize];
+		int numLines = 0;
+		String line;
+
+		while ( numLines < chunkSize && (line = in.readLine()) != null ) {
+			lines[numLines++] = line;
+		}
+
+		if ( numLines < chunkSize ) {
+			String[] lastLines = new String[numLines];
+			System.arraycopy(lines, 0, lastLines, 0, numLines);
+			return lastLines;
+		}
+
+		return lines;
+	}
+}
@@ -0,0 +1,136 @@
+package utils;
+
+import java.util.Arrays;
+
+/*
+ * open-addressing hash map from longs to doubles, along the lines of
+ * LongHashSet; keys are compared under a mask, so that longs carrying extra
+ * fields the map should ignore share an entry, which keeps the first key
+ * added to it
+ *
+ * the capacity is a power of two and the table is kept at most half full
+ */
+
+public class LongDoubleHashMap {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final long keyMask;
+
+	private long[] keys;
+	private double[] values;
+	private boolean[] used;
+	private int size;
+	private int mask;
+
+	/**
+	 * @param keyMask bits of the keys which are compared
+	 */
+	public LongDoubleHashMap(long keyMask) {
+		this.keyMask = keyMask;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new double[capacity];
+		used = new boolean[capacity];
+		size = 0;
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @param key key
+	 * @param missing value returned if there is no entry for key
+	 * @return value of the entry for key, or missing
+	 */
+	public double get(long key, double missing) {
+		int slot = find(key);
+		return used[slot] ? values[slot] : missing;
+	}
+
+	/**
+	 * Adds value to the value of the entry for key, creating the entry (with
+	 * value) if there isn't one.
+	 */
+	public void add(long key, double value) {
+		if ( 2 * (size + 1) > keys.length ) {
+			resize();
+		}
+
+		int slot = find(key);
+
+		if ( used[slot] ) {
+			values[slot] += value;
+		} else {
+			keys[slot] = key;
+			values[slot] = value;
+			used[slot] = true;
+			size++;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(used, false);
+		size = 0;
+	}
+
+	/*
+	 * entries are read by going through the slots from 0 to capacity() - 1
+	 * and skipping those which aren't used
+	 */
+	public int capacity() {
+		return keys.length;
+	}
+
+	public boolean isUsed(int slot) {
+		return used[slot];
+	}
+
+	public long key(int slot) {
+		return keys[slot];
+	}
+
+	public double value(int slot) {
+		return values[slot];
+	}
+
+	private int find(long key) {
+		long masked = key & keyMask;
+		int slot = hash(masked) & mask;
+
+		while ( used[slot] && (keys[slot] & keyMask) != masked ) {
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		double[] oldValues = values;
+		boolean[] oldUsed = used;
+
+		allocate(2 * oldKeys.length);
+
+		for ( int i = 0; i < oldKeys.length; i++ ) {
+			if ( oldUsed[i] ) {
+				add(oldKeys[i], oldValues[i]);
+			}
+		}
+	}
+
+	/*
+	 * finaliser from splitmix64, as in LongHashSet
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h;
+	}
+}
@@ -0,0 +1,110 @@
+package utils;
+
+import java.util.Arrays;
+
+/*
+ * open-addressing hash set of non-negative longs; uses linear probing on a
+ * single primitive array, so neither contains() nor add() allocates
+ *
+ * the capacity is a power of two and the table is kept at most half full
+ */
+
+public class LongHashSet {
+	private static final long EMPTY = -1L;
+	private static final int INITIAL_CAPACITY = 64;
+
+	private long[] keys;
+	private int size;
+	private int mask;
+
+	public LongHashSet() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+		mask = capacity - 1;
+	}
+
+	public boolean contains(long key) {
+		int slot = hash(key) & mask;
+
+		while ( true ) {
+			long current = keys[slot];
+
+			if ( current == key ) {
+				return true;
+			}
+
+			if ( current == EMPTY ) {
+				return false;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	/**
+	 * Adds a key to the set.
+	 * 
+	 * @param key key; must not be negative
+	 * @return true if the key wasn't in the set already
+	 */
+	public boolean add(long key) {
+		if ( key < 0 ) {
+			throw new IllegalArgumentException("Invalid key: " + key);
+		}
+
+		if ( 2 * (size + 1) > keys.length ) {
+			resize();
+		}
+
+		int slot = hash(key) & mask;
+
+		while ( keys[slot] != EMPTY ) {
+			if ( keys[slot] == key ) {
+				return false;
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		keys[slot] = key;
+		size++;
+		return true;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+
+		allocate(2 * oldKeys.length);
+
+		for ( long key : oldKeys ) {
+			if ( key != EMPTY ) {
+				add(key);
+			}
+		}
+	}
+
+	/*
+	 * finaliser from splitmix64, since keys are often small and consecutive
+	 */
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		h = h ^ (h >>> 31);
+		return (int) h;
+	}
+}
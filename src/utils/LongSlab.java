@@ -0,0 +1,135 @@
+package utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * growable store of longs kept off the Java heap, in direct buffers or in
+ * buffers mapped from a temporary file (only held open while a chunk is
+ * being mapped); longs are allocated in blocks, addressed by int offsets,
+ * and all released at once by reset(), which keeps the memory for reuse
+ *
+ * the store is split into chunks of CHUNK_SIZE longs and a block never
+ * crosses a chunk boundary, so offsets index a chunk and a position in it
+ *
+ * only one thread allocates and writes, but any thread may read blocks
+ * which have been handed over to it; the array of chunks is never
+ * reallocated, so that reads don't race with new chunks being added
+ */
+
+public class LongSlab {
+	private static final int CHUNK_BITS = 20;
+	public static final int CHUNK_SIZE = 1 << CHUNK_BITS; // 8MB of longs
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+	private static final int MAX_CHUNKS = 1 << (31 - CHUNK_BITS); // int offsets
+
+	private final LongBuffer[] chunks;
+	private int numChunks;
+	private final File dir; // null unless file-backed
+	private File file; // created with the first chunk
+	private int end; // offset of the first unallocated long
+
+	/**
+	 * Creates a store in direct (off-heap) memory.
+	 */
+	public LongSlab() {
+		this.chunks = new LongBuffer[MAX_CHUNKS];
+		this.dir = null;
+		this.end = 0;
+	}
+
+	/**
+	 * Creates a store backed by a temporary file in dir, which is deleted
+	 * when the JVM exits; the operating system pages it in and out. The file
+	 * is created when the first chunk is needed.
+	 *
+	 * @param dir directory for the file
+	 */
+	public LongSlab(File dir) {
+		this.chunks = new LongBuffer[MAX_CHUNKS];
+		this.dir = dir;
+		this.end = 0;
+	}
+
+	/**
+	 * @param size number of longs, at most CHUNK_SIZE
+	 * @return offset of a block of size longs, whose values are left over
+	 * from before the last reset
+	 */
+	public int allocate(int size) {
+		if ( size > CHUNK_SIZE ) {
+			throw new IllegalArgumentException("block of " + size + " longs is larger than a chunk");
+		}
+
+		if ( (end & CHUNK_MASK) + size > CHUNK_SIZE ) {
+			end = (end | CHUNK_MASK) + 1;
+		}
+
+		if ( end < 0 || end + size < 0 ) {
+			throw new Error("slab is full");
+		}
+
+		int chunk = (end + size - 1) >>> CHUNK_BITS;
+		while ( numChunks <= chunk ) {
+			chunks[numChunks] = newChunk(numChunks);
+			numChunks++;
+		}
+
+		int offset = end;
+		end += size;
+		return offset;
+	}
+
+	public long get(int offset) {
+		return chunks[offset >>> CHUNK_BITS].get(offset & CHUNK_MASK);
+	}
+
+	public void set(int offset, long value) {
+		chunks[offset >>> CHUNK_BITS].put(offset & CHUNK_MASK, value);
+	}
+
+	/**
+	 * Makes all the longs available again.
+	 */
+	public void reset() {
+		end = 0;
+	}
+
+	/**
+	 * @return number of bytes of memory (or file) held by the store
+	 */
+	public long capacity() {
+		return (long) (numChunks) * CHUNK_SIZE * 8;
+	}
+
+	private LongBuffer newChunk(int chunk) {
+		long numBytes = (long) (CHUNK_SIZE) * 8;
+		ByteBuffer buffer;
+
+		if ( dir == null ) {
+			buffer = ByteBuffer.allocateDirect((int) (numBytes));
+		} else {
+			try {
+				if ( file == null ) {
+					file = File.createTempFile("chart", ".slab", dir);
+					file.deleteOnExit();
+				}
+
+				// the mapping stays valid after the file is closed
+				try ( RandomAccessFile out = new RandomAccessFile(file, "rw");
+						FileChannel channel = out.getChannel() ) {
+					buffer = channel.map(FileChannel.MapMode.READ_WRITE, chunk * numBytes, numBytes);
+				}
+			} catch ( IOException e ) {
+				throw new Error("failed to map chunk " + chunk + " of the slab file in " + dir, e);
+			}
+		}
+
+		return buffer.order(ByteOrder.nativeOrder()).asLongBuffer();
+	}
+}
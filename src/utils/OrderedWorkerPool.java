@@ -0,0 +1,160 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a job over a stream of items on a fixed set of workers (e.g. one
+ * parser per thread), writing the output of the items in input order.
+ *
+ * Each job writes into private buffers, one per output stream; the buffers
+ * are copied to the real output streams once all earlier items have been
+ * written, so the output is identical to running the items one at a time.
+ * At most a few items per worker are in flight at any time, which bounds
+ * the amount of buffered output.
+ *
+ * @param <W> worker type; a worker is used by at most one thread at a time
+ * @param <T> item type
+ */
+public class OrderedWorkerPool<W, T> implements AutoCloseable {
+	public interface Job<W, T> {
+		void run(W worker, T item, PrintWriter[] outs) throws IOException;
+	}
+
+	private static final int PENDING_PER_WORKER = 4;
+
+	private final Job<W, T> job;
+	private final PrintWriter[] outs;
+	private final BlockingQueue<W> idleWorkers;
+	private final ExecutorService executor;
+	private final ArrayDeque<Future<String[]>> pending;
+	private final int maxPending;
+
+	/**
+	 * @param workers workers, each of which gets its own thread
+	 * @param job job run for each item
+	 * @param outs output streams, in the order the job expects them; null
+	 * entries are passed on to the job as null
+	 */
+	public OrderedWorkerPool(List<W> workers, Job<W, T> job, PrintWriter... outs) {
+		if ( workers.isEmpty() ) {
+			throw new IllegalArgumentException("Need at least one worker.");
+		}
+
+		this.job = job;
+		this.outs = outs;
+		this.idleWorkers = new ArrayBlockingQueue<W>(workers.size(), false, workers);
+		this.executor = Executors.newFixedThreadPool(workers.size());
+		this.pending = new ArrayDeque<Future<String[]>>();
+		this.maxPending = PENDING_PER_WORKER * workers.size();
+	}
+
+	/**
+	 * Queues item for processing, first writing out the oldest items if too
+	 * many are in flight.
+	 *
+	 * @param item item to be processed
+	 * @throws IOException if the job failed on an earlier item
+	 */
+	public void submit(final T item) throws IOException {
+		while ( pending.size() >= maxPending ) {
+			writeNext();
+		}
+
+		pending.add(executor.submit(new Callable<String[]>() {
+			@Override
+			public String[] call() throws Exception {
+				W worker = idleWorkers.take();
+
+				try {
+					return runJob(worker, item);
+				} finally {
+					idleWorkers.put(worker);
+				}
+			}
+		}));
+	}
+
+	/**
+	 * Waits for all queued items and writes out their output.
+	 *
+	 * @throws IOException if the job failed on any item
+	 */
+	public void finish() throws IOException {
+		while ( !pending.isEmpty() ) {
+			writeNext();
+		}
+
+		executor.shutdown();
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private String[] runJob(W worker, T item) throws IOException {
+		StringWriter[] buffers = new StringWriter[outs.length];
+		PrintWriter[] bufferOuts = new PrintWriter[outs.length];
+
+		for ( int i = 0; i < outs.length; i++ ) {
+			if ( outs[i] != null ) {
+				buffers[i] = new StringWriter();
+				bufferOuts[i] = new PrintWriter(buffers[i]);
+			}
+		}
+
+		job.run(worker, item, bufferOuts);
+
+		String[] output = new String[outs.length];
+
+		for ( int i = 0; i < outs.length; i++ ) {
+			if ( outs[i] != null ) {
+				bufferOuts[i].flush();
+				output[i] = buffers[i].toString();
+			}
+		}
+
+		return output;
+	}
+
+	private void writeNext() throws IOException {
+		String[] output;
+
+		try {
+			output = pending.poll().get();
+		} catch ( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch ( ExecutionException e ) {
+			Throwable cause = e.getCause();
+
+			if ( cause instanceof IOException ) {
+				throw (IOException) cause;
+			} else if ( cause instanceof RuntimeException ) {
+				throw (RuntimeException) cause;
+			} else if ( cause instanceof Error ) {
+				throw (Error) cause;
+			} else {
+				throw new IOException(cause);
+			}
+		}
+
+		for ( int i = 0; i < outs.length; i++ ) {
+			if ( outs[i] != null ) {
+				outs[i].write(output[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package cat_combination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class FilledDependencyTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Test
+	public void packTest() {
+		long packed = FilledDependency.pack((short) (1200), (short) (3), (short) (17), (short) (93), (short) (2), (short) (1));
+
+		assertEquals(1200, FilledDependency.relID(packed));
+		assertEquals(3, FilledDependency.headIndex(packed));
+		assertEquals(17, FilledDependency.fillerIndex(packed));
+		assertEquals(93, FilledDependency.unaryRuleID(packed));
+		assertEquals(2, FilledDependency.conjFactor(packed));
+		assertEquals(1, FilledDependency.lrange(packed));
+
+		FilledDependency dep = FilledDependency.unpack(packed);
+		assertEquals(packed, dep.pack());
+		assertEquals("3 1200 17 93", dep.toString());
+	}
+
+	@Test
+	public void keyTest() {
+		FilledDependency dep1 = new FilledDependency((short) (5), (short) (1), (short) (2), (short) (0), (short) (0));
+		FilledDependency dep2 = new FilledDependency((short) (5), (short) (1), (short) (2), (short) (11), (short) (1));
+		FilledDependency dep3 = new FilledDependency((short) (5), (short) (2), (short) (1), (short) (0), (short) (0));
+
+		// keys are equal exactly when the dependencies are
+		assertTrue(dep1.equals(dep2));
+		assertEquals(FilledDependency.key(dep1.pack()), FilledDependency.key(dep2.pack()));
+		assertTrue(!dep1.equals(dep3));
+		assertTrue(FilledDependency.key(dep1.pack()) != FilledDependency.key(dep3.pack()));
+		assertTrue(FilledDependency.key(dep2.pack()) >= 0);
+	}
+
+	@Test
+	public void fromUnfilledTest() {
+		Dependency dep = new Dependency((short) (5), (short) (4), (byte) (1), (short) (0));
+		Variable var = Variable.unify(Variable.chain(Variable.filled((short) (7))), Variable.filled((short) (2)));
+		long[] deps = new long[3];
+
+		assertEquals(2, FilledDependency.fromUnfilled(dep, var, (short) (0), deps, 0));
+		assertEquals(new FilledDependency(dep, (short) (2), (short) (2), (short) (0)).pack(), deps[0]);
+		assertEquals(new FilledDependency(dep, (short) (7), (short) (2), (short) (0)).pack(), deps[1]);
+	}
+
+	@Test
+	public void outOfRangeTest() {
+		exception.expect(IllegalArgumentException.class);
+		FilledDependency.pack((short) (5), (short) (1), (short) (2), (short) (300), (short) (1), (short) (0));
+	}
+}
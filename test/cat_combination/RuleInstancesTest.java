@@ -0,0 +1,135 @@
+package cat_combination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.Test;
+
+import lexicon.Atom;
+import lexicon.Category;
+import lexicon.CategoryInterner;
+import lexicon.GrammaticalFeature;
+import lexicon.VarID;
+
+public class RuleInstancesTest {
+	private static final CategoryInterner interner = new CategoryInterner();
+
+	private static final byte[][] atoms = {
+		{ Atom.S, GrammaticalFeature.NONE },
+		{ Atom.S, GrammaticalFeature.X },
+		{ Atom.S, GrammaticalFeature.DCL },
+		{ Atom.NP, GrammaticalFeature.NONE },
+		{ Atom.NP, GrammaticalFeature.NB },
+		{ Atom.N, GrammaticalFeature.NONE },
+	};
+
+	private static Category basic(byte[] atom, byte var) {
+		return new Category(new Atom(atom[0]), new GrammaticalFeature(atom[1]), var, (short) (0), (short) (0));
+	}
+
+	/*
+	 * every basic category, and every (result\argument) with a variable on
+	 * the argument, so that equal categories differ in their variables
+	 */
+	private static Category[] categories() {
+		Category[] cats = new Category[atoms.length + atoms.length * atoms.length];
+		int numCats = 0;
+
+		for ( byte[] atom : atoms ) {
+			cats[numCats++] = basic(atom, VarID.X);
+		}
+
+		for ( int i = 0; i < atoms.length; i++ ) {
+			for ( int j = 0; j < atoms.length; j++ ) {
+				byte var = (i + j) % 2 == 0 ? VarID.Y : VarID.Z;
+				cats[numCats++] = new Category(basic(atoms[i], VarID.X), Category.BWD_SLASH, basic(atoms[j], var), VarID.X, (short) (0), (short) (0));
+			}
+		}
+
+		return cats;
+	}
+
+	private static Category[] intern(Category[] cats) {
+		Category[] interned = new Category[cats.length];
+		for ( int i = 0; i < cats.length; i++ ) {
+			interned[i] = interner.intern(cats[i]);
+		}
+		return interned;
+	}
+
+	/*
+	 * a third of the pairs, by position
+	 */
+	private static void addPairs(RuleInstances ruleInstances, Category[] cats) {
+		for ( int i = 0; i < cats.length; i++ ) {
+			for ( int j = 0; j < cats.length; j++ ) {
+				if ( (i * 7 + j) % 3 == 0 ) {
+					ruleInstances.add(new RuleCategoryPair(cats[i], cats[j]));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void internedTest() throws IOException {
+		Category[] plainCats = categories();
+		Category[] internedCats = intern(categories());
+
+		RuleInstances plain = new RuleInstances(null, null);
+		addPairs(plain, plainCats);
+		assertFalse(plain.allInterned);
+
+		RuleInstances interned = new RuleInstances(null, null);
+		addPairs(interned, internedCats);
+		assertTrue(interned.allInterned);
+
+		// queries use categories built separately, and with other variables
+		Category[] plainQueries = categories();
+		Category[] internedQueries = intern(categories());
+
+		int numFound = 0;
+		for ( int i = 0; i < plainQueries.length; i++ ) {
+			for ( int j = 0; j < plainQueries.length; j++ ) {
+				boolean expected = plain.contains(plainQueries[i], plainQueries[j]);
+
+				assertEquals(expected, interned.contains(internedQueries[i], internedQueries[j]));
+				assertEquals(expected, interned.contains(plainQueries[i], plainQueries[j]));
+				assertEquals(expected, plain.contains(internedQueries[i], internedQueries[j]));
+
+				if ( expected ) {
+					numFound++;
+				}
+			}
+		}
+
+		assertTrue(numFound > 0);
+	}
+
+	@Test
+	public void equivalenceTest() throws IOException {
+		Category S = basic(atoms[0], VarID.X);
+		Category SX = basic(atoms[1], VarID.X);
+		Category Sdcl = basic(atoms[2], VarID.X);
+		Category NP = basic(atoms[3], VarID.X);
+		Category NPnb = basic(atoms[4], VarID.X);
+
+		RuleInstances plain = new RuleInstances(null, null);
+		plain.add(new RuleCategoryPair(S, NP));
+
+		RuleInstances interned = new RuleInstances(null, null);
+		interned.add(new RuleCategoryPair(interner.intern(S), interner.intern(NP)));
+
+		for ( RuleInstances ruleInstances : new RuleInstances[] { plain, interned } ) {
+			// S[X] = S, but S[dcl] != S and NP[nb] != NP
+			assertTrue(ruleInstances.contains(interner.intern(SX), interner.intern(NP)));
+			assertTrue(ruleInstances.contains(SX, NP));
+			assertFalse(ruleInstances.contains(interner.intern(Sdcl), interner.intern(NP)));
+			assertFalse(ruleInstances.contains(Sdcl, NP));
+			assertFalse(ruleInstances.contains(interner.intern(S), interner.intern(NPnb)));
+			assertFalse(ruleInstances.contains(NP, S));
+		}
+	}
+}
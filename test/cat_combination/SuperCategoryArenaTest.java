@@ -0,0 +1,65 @@
+package cat_combination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+public class SuperCategoryArenaTest {
+	@Test
+	public void variablesTest() {
+		SuperCategoryArena arena = new SuperCategoryArena();
+
+		Variable[] first = arena.variables(3);
+		Variable[] second = arena.variables(3);
+
+		assertEquals(3, first.length);
+		assertNotSame(first, second);
+		assertEquals(5, arena.variables(5).length);
+
+		// enough arrays to make the pool grow
+		for ( int i = 0; i < 5000; i++ ) {
+			arena.variables(3);
+		}
+
+		arena.reset();
+		assertSame(first, arena.variables(3));
+		assertSame(second, arena.variables(3));
+	}
+
+	@Test
+	public void dependenciesTest() {
+		SuperCategoryArena arena = new SuperCategoryArena();
+
+		ArrayList<Dependency> deps = arena.dependencies();
+		deps.add(new Dependency((short) (1), (short) (1), (byte) (1), (short) (0)));
+		assertNotSame(deps, arena.dependencies());
+
+		arena.reset();
+		ArrayList<Dependency> reused = arena.dependencies();
+		assertSame(deps, reused);
+		assertTrue(reused.isEmpty());
+	}
+
+	@Test
+	public void filledDepsTest() {
+		SuperCategoryArena arena = new SuperCategoryArena(true, null);
+
+		long[] deps = arena.filledDepsBuffer(2);
+		deps[0] = 5L;
+		deps[1] = -1L;
+
+		int offset = arena.storeFilledDeps(deps, 2);
+		assertEquals(2L, arena.getSlab().get(offset));
+		assertEquals(5L, arena.getSlab().get(offset + 1));
+		assertEquals(-1L, arena.getSlab().get(offset + 2));
+
+		arena.reset();
+		assertEquals(offset, arena.storeFilledDeps(deps, 0));
+		assertTrue(arena.emptyCopy().isOffHeap());
+	}
+}
@@ -0,0 +1,112 @@
+package cat_combination;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import lexicon.Atom;
+import lexicon.Category;
+import lexicon.CategoryInterner;
+import lexicon.GrammaticalFeature;
+import lexicon.VarID;
+
+public class UnifyCacheTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	private static final CategoryInterner interner = new CategoryInterner();
+
+	private static Category basic(byte atom, byte feature, byte var) {
+		return interner.intern(new Category(new Atom(atom), new GrammaticalFeature(feature), var, (short) (0), (short) (0)));
+	}
+
+	private static Category complex(Category result, byte slash, Category argument, byte var) {
+		return interner.complex(result, slash, argument, var, (short) (0), (short) (0));
+	}
+
+	// pairs of categories, some of which unify (with and without a feature)
+	private static final Category[][] pairs = {
+		{ basic(Atom.NP, GrammaticalFeature.NONE, VarID.Y), basic(Atom.NP, GrammaticalFeature.NB, VarID.X) },
+		{ basic(Atom.S, GrammaticalFeature.X, VarID.X), basic(Atom.S, GrammaticalFeature.DCL, VarID.Y) },
+		{ basic(Atom.S, GrammaticalFeature.NG, VarID.X), basic(Atom.S, GrammaticalFeature.DCL, VarID.X) },
+		{ complex(basic(Atom.S, GrammaticalFeature.X, VarID.X), Category.BWD_SLASH, basic(Atom.NP, GrammaticalFeature.NONE, VarID.Y), VarID.X),
+			complex(basic(Atom.S, GrammaticalFeature.DCL, VarID.Z), Category.BWD_SLASH, basic(Atom.NP, GrammaticalFeature.NONE, VarID.W), VarID.Z) },
+		{ basic(Atom.N, GrammaticalFeature.NONE, VarID.X), basic(Atom.NP, GrammaticalFeature.NONE, VarID.X) },
+	};
+
+	private static void assertSameState(Unify expected, Unify actual) {
+		assertEquals(expected.feature.value(), actual.feature.value());
+		assertEquals(expected.numVariables, actual.numVariables);
+		assertArrayEquals(expected.trans1, actual.trans1);
+		assertArrayEquals(expected.trans2, actual.trans2);
+		assertArrayEquals(expected.old1, actual.old1);
+		assertArrayEquals(expected.old2, actual.old2);
+		assertArrayEquals(expected.seen, actual.seen);
+		assertEquals(expected.order.value, actual.order.value);
+	}
+
+	private static void checkAgainstUncached(UnifyCache.Eviction eviction, int size) {
+		Unify uncached = new Unify();
+		Unify cached = new Unify();
+		cached.cache = new UnifyCache(size, eviction);
+
+		for ( int round = 0; round < 3; round++ ) {
+			for ( Category[] pair : pairs ) {
+				boolean expected = uncached.unify(pair[0], pair[1]);
+				assertEquals(expected, cached.unify(pair[0], pair[1]));
+
+				if ( expected ) {
+					assertSameState(uncached, cached);
+				}
+			}
+		}
+
+		// the last pair fails the hash check before the cache is consulted
+		assertEquals(3 * (pairs.length - 1), cached.cache.hits + cached.cache.misses);
+	}
+
+	@Test
+	public void lruTest() {
+		checkAgainstUncached(UnifyCache.Eviction.LRU, 64);
+
+		Unify cached = new Unify();
+		cached.cache = new UnifyCache(64, UnifyCache.Eviction.LRU);
+		cached.unify(pairs[0][0], pairs[0][1]);
+		cached.unify(pairs[0][0], pairs[0][1]);
+		assertEquals(1, cached.cache.hits);
+		assertEquals(1, cached.cache.misses);
+	}
+
+	@Test
+	public void directTest() {
+		// a single slot, so every pair evicts the previous one
+		checkAgainstUncached(UnifyCache.Eviction.DIRECT, 1);
+	}
+
+	@Test
+	public void copyTest() {
+		Unify unification = new Unify();
+		assertNull(new Unify(unification).cache);
+
+		unification.cache = new UnifyCache(100, UnifyCache.Eviction.LRU);
+		unification.unify(pairs[0][0], pairs[0][1]);
+
+		UnifyCache copy = new Unify(unification).cache;
+		assertTrue(copy != unification.cache);
+		assertEquals(128, copy.capacity());
+		assertEquals(0, copy.hits + copy.misses);
+	}
+
+	@Test
+	public void evictionTest() {
+		assertEquals(UnifyCache.Eviction.DIRECT, UnifyCache.Eviction.fromString("direct"));
+
+		exception.expect(IllegalArgumentException.class);
+		UnifyCache.Eviction.fromString("fifo");
+	}
+}
@@ -0,0 +1,99 @@
+package cat_combination;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import lexicon.Atom;
+import lexicon.Category;
+import lexicon.GrammaticalFeature;
+import lexicon.VarID;
+
+public class UnifyTest {
+	private static Category basic(byte atom, byte feature, byte var) {
+		return new Category(new Atom(atom), new GrammaticalFeature(feature), var, (short) (0), (short) (0));
+	}
+
+	// (S[feature]{X}\NP{Y}){X}/NP{Z}
+	private static Category transitive(byte feature) {
+		Category vp = new Category(basic(Atom.S, feature, VarID.X), Category.BWD_SLASH, basic(Atom.NP, GrammaticalFeature.NONE, VarID.Y), VarID.X, (short) (0), (short) (0));
+		return new Category(vp, Category.FWD_SLASH, basic(Atom.NP, GrammaticalFeature.NONE, VarID.Z), VarID.X, (short) (0), (short) (0));
+	}
+
+	private static final Category dcl = transitive(GrammaticalFeature.DCL);
+	private static final Category ng = transitive(GrammaticalFeature.NG);
+	private static final Category X = transitive(GrammaticalFeature.X);
+
+	@Test
+	public void unifyTest() {
+		Unify unification = new Unify();
+
+		// same shape, so the hash check passes, but the features clash
+		assertFalse(unification.unify(dcl, ng));
+
+		assertTrue(unification.unify(X, dcl));
+		assertEquals(GrammaticalFeature.DCL, unification.feature.value());
+		assertEquals(4, unification.numVariables);
+
+		// X, Y and Z each unify with the same variable on the other side
+		for ( byte var = VarID.X; var <= VarID.Z; var++ ) {
+			assertEquals(var, unification.trans1[var]);
+			assertEquals(var, unification.trans2[var]);
+			assertEquals(var, unification.old1[var]);
+			assertEquals(var, unification.old2[var]);
+		}
+	}
+
+	private static final int CALLS = 100000;
+
+	// bytes the JVM may allocate on this thread while the loop runs,
+	// whatever the number of calls
+	private static final long ALLOCATION_BUDGET = 1024;
+
+	/*
+	 * failed unifications are the large majority, and shouldn't allocate
+	 * anything; needs a JVM which can count allocated bytes per thread
+	 */
+	@Test
+	public void failedUnificationDoesNotAllocate() {
+		Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		Unify unification = new Unify();
+		long threadID = Thread.currentThread().getId();
+
+		// warm up with the whole loop, so that it's compiled before it's
+		// measured, and measure the cost of the measurement itself
+		failMany(unification, CALLS);
+		long start = threads.getThreadAllocatedBytes(threadID);
+		long overhead = threads.getThreadAllocatedBytes(threadID) - start;
+
+		long before = threads.getThreadAllocatedBytes(threadID);
+		int failures = failMany(unification, CALLS);
+		long allocated = threads.getThreadAllocatedBytes(threadID) - before - overhead;
+
+		assertEquals(2 * CALLS, failures);
+		assertTrue("allocated " + allocated + " bytes", allocated <= ALLOCATION_BUDGET);
+	}
+
+	private static int failMany(Unify unification, int n) {
+		int failures = 0;
+
+		for ( int i = 0; i < n; i++ ) {
+			if ( !unification.unify(dcl, ng) ) {
+				failures++;
+			}
+			if ( !unification.unify(ng, dcl) ) {
+				failures++;
+			}
+		}
+
+		return failures;
+	}
+}
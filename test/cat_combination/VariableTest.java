@@ -0,0 +1,70 @@
+package cat_combination;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class VariableTest {
+	private static final short S = Variable.SENTINEL;
+
+	private static short[] fillers(Variable var) {
+		short[] fillers = new short[Variable.NUM_FILLERS];
+		for ( int i = 0; i < fillers.length; i++ ) {
+			fillers[i] = var.filler(i);
+		}
+		return fillers;
+	}
+
+	@Test
+	public void unfilledTest() {
+		Variable var = Variable.UNFILLED_VARIABLE;
+
+		// the last position is 0, as in the C&C array version
+		assertArrayEquals(new short[] { 0, S, S, S, S, S, S, 0 }, fillers(var));
+		assertTrue(var.isUnfilledNoChain());
+		assertEquals(1, var.countFillers());
+	}
+
+	@Test
+	public void filledTest() {
+		Variable var = Variable.filled((short) (3));
+
+		assertArrayEquals(new short[] { 3, S, S, S, S, S, S, 0 }, fillers(var));
+		assertTrue(var.isSingleConst());
+		assertSame(var, Variable.filled((short) (3)));
+		assertEquals(Variable.filled((short) (1000)), Variable.filled((short) (1000)));
+	}
+
+	@Test
+	public void chainTest() {
+		Variable chain = Variable.chain(Variable.filled((short) (3)));
+
+		assertArrayEquals(new short[] { 0, 3, S, S, S, S, S, S }, fillers(chain));
+		assertTrue(chain.isUnfilled());
+		assertTrue(chain.isSet());
+		assertSame(Variable.UNFILLED_VARIABLE, Variable.chain(chain));
+	}
+
+	@Test
+	public void unifyTest() {
+		Variable pears = Variable.chain(Variable.filled((short) (5)));
+		Variable apples = Variable.filled((short) (2));
+
+		// "apples and pears"
+		Variable unified = Variable.unify(pears, apples);
+		assertArrayEquals(new short[] { 2, 5, S, S, S, S, S, S }, fillers(unified));
+		assertEquals(2, unified.numFillers());
+
+		// unifying with the unfilled variable changes nothing
+		assertSame(apples, Variable.unify(Variable.UNFILLED_VARIABLE, apples));
+		assertSame(unified, Variable.unify(unified, Variable.UNFILLED_VARIABLE));
+		assertSame(Variable.UNFILLED_VARIABLE, Variable.unify(Variable.UNFILLED_VARIABLE, Variable.UNFILLED_VARIABLE));
+
+		assertFalse(unified.equals(apples));
+		assertEquals(unified.hashCode(), Variable.unify(pears, Variable.filled((short) (2))).hashCode());
+	}
+}
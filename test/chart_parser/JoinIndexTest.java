@@ -0,0 +1,96 @@
+package chart_parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import cat_combination.Rules;
+import cat_combination.SuperCategory;
+import lexicon.Atom;
+import lexicon.Category;
+import lexicon.GrammaticalFeature;
+import lexicon.VarID;
+
+public class JoinIndexTest {
+	private static Category basic(byte atom) {
+		return basic(atom, GrammaticalFeature.NONE);
+	}
+
+	private static Category basic(byte atom, byte feature) {
+		return new Category(new Atom(atom), new GrammaticalFeature(feature), VarID.X, (short) (0), (short) (0));
+	}
+
+	private static Category fwd(Category result, Category argument) {
+		return new Category(result, Category.FWD_SLASH, argument, VarID.X, (short) (0), (short) (0));
+	}
+
+	private static Category bwd(Category result, Category argument) {
+		return new Category(result, Category.BWD_SLASH, argument, VarID.X, (short) (0), (short) (0));
+	}
+
+	private static final Category N = basic(Atom.N);
+	private static final Category NP = basic(Atom.NP);
+	private static final Category PP = basic(Atom.PP);
+	private static final Category S = basic(Atom.S, GrammaticalFeature.DCL);
+	private static final Category VP = bwd(S, NP);
+	private static final Category COMMA = basic(Atom.COMMA);
+	private static final Category CONJ = basic(Atom.CONJ);
+
+	private static final Category[] cats = {
+		N, NP, PP, S, VP, COMMA, CONJ,
+		fwd(N, N), fwd(NP, N), bwd(NP, NP), fwd(VP, NP), bwd(VP, VP), fwd(VP, VP),
+		fwd(fwd(VP, NP), PP), bwd(S, S), fwd(PP, NP), bwd(N, N), fwd(S, S),
+		bwd(bwd(S, S), NP), fwd(fwd(fwd(VP, PP), PP), NP)
+	};
+
+	@Test
+	public void mayCombineTest() {
+		// application
+		assertTrue(Rules.mayCombine(fwd(NP, N), N));
+		assertFalse(Rules.mayCombine(fwd(N, N), NP));
+		assertTrue(Rules.mayCombine(NP, VP));
+		assertFalse(Rules.mayCombine(NP, bwd(VP, VP)));
+		assertTrue(Rules.mayCombine(VP, bwd(VP, VP)));
+
+		// composition, including the generalised rules
+		assertTrue(Rules.mayCombine(fwd(VP, VP), fwd(VP, NP)));
+		assertTrue(Rules.mayCombine(fwd(VP, VP), fwd(fwd(VP, PP), NP)));
+		assertFalse(Rules.mayCombine(fwd(S, S), fwd(NP, N)));
+		assertTrue(Rules.mayCombine(fwd(VP, NP), bwd(VP, VP)));
+		assertTrue(Rules.mayCombine(bwd(S, S), bwd(S, S)));
+
+		// punctuation and conjunctions don't need unification
+		assertTrue(Rules.mayCombine(fwd(N, N), COMMA));
+		assertTrue(Rules.mayCombine(CONJ, VP));
+		assertFalse(Rules.mayCombine(COMMA, COMMA));
+	}
+
+	@Test
+	public void lookupTest() {
+		ArrayList<SuperCategory> rightSuperCats = new ArrayList<SuperCategory>();
+		for ( Category cat : cats ) {
+			rightSuperCats.add(SuperCategory.Lexical((short) (1), cat, (short) (0)));
+		}
+
+		JoinIndex index = new JoinIndex();
+		index.index(rightSuperCats);
+		JoinIndex.Lookup lookup = new JoinIndex.Lookup();
+
+		for ( Category leftCat : cats ) {
+			index.lookup(SuperCategory.Lexical((short) (1), leftCat, (short) (0)), lookup);
+
+			int numFound = 0;
+			for ( int j = 0; j < cats.length; j++ ) {
+				if ( Rules.mayCombine(leftCat, cats[j]) ) {
+					assertEquals(j, lookup.indices[numFound++]);
+				}
+			}
+
+			assertEquals(numFound, lookup.size);
+		}
+	}
+}
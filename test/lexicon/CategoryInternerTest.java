@@ -0,0 +1,78 @@
+package lexicon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class CategoryInternerTest {
+	private static Category basic(byte atom, byte feature, byte var) {
+		return new Category(new Atom(atom), new GrammaticalFeature(feature), var, (short) (0), (short) (0));
+	}
+
+	// (S[dcl]{X}\NP{Y}){X}
+	private static Category verb(byte subjectVar) {
+		return new Category(basic(Atom.S, GrammaticalFeature.DCL, VarID.X), Category.BWD_SLASH, basic(Atom.NP, GrammaticalFeature.NONE, subjectVar), VarID.X, (short) (0), (short) (0));
+	}
+
+	@Test
+	public void internTest() {
+		CategoryInterner interner = new CategoryInterner();
+
+		Category cat1 = interner.intern(verb(VarID.Y));
+		Category cat2 = interner.intern(verb(VarID.Y));
+		Category cat3 = interner.intern(verb(VarID.Z));
+
+		assertSame(cat1, cat2);
+		assertSame(cat1.argument, cat2.argument);
+		assertTrue(cat1.getID() != cat3.getID());
+		assertEquals(5, interner.size());
+	}
+
+	@Test
+	public void equivalenceTest() {
+		CategoryInterner interner = new CategoryInterner();
+
+		Category cat1 = interner.intern(verb(VarID.Y));
+		Category cat2 = interner.intern(verb(VarID.Z));
+		Category SX = interner.intern(basic(Atom.S, GrammaticalFeature.X, VarID.X));
+		Category S = interner.intern(basic(Atom.S, GrammaticalFeature.NONE, VarID.X));
+		Category NPnb = interner.intern(basic(Atom.NP, GrammaticalFeature.NB, VarID.X));
+
+		// the same answers as equals() on uninterned categories
+		assertTrue(cat1.equals(cat2));
+		assertEquals(cat1.getEquivalenceID(), cat2.getEquivalenceID());
+		assertTrue(SX.equals(S));
+		assertFalse(SX.equals(cat1.result));
+		assertFalse(NPnb.equals(cat1.argument));
+		assertTrue(verb(VarID.W).equals(cat1));
+	}
+
+	@Test
+	public void transVariableTest() {
+		CategoryInterner interner = new CategoryInterner();
+		Category cat = interner.intern(verb(VarID.Y));
+
+		byte[] identity = new byte[VarID.NUM_VARS];
+		byte[] swap = new byte[VarID.NUM_VARS];
+		for ( byte i = 0; i < VarID.NUM_VARS; i++ ) {
+			identity[i] = i;
+			swap[i] = i;
+		}
+		swap[VarID.Y] = VarID.Z;
+
+		GrammaticalFeature none = new GrammaticalFeature(GrammaticalFeature.NONE);
+
+		assertSame(cat, interner.transVariable(cat, identity, none));
+
+		Category translated = interner.transVariable(cat, swap, none);
+		Category copy = Category.TransVariable(cat, swap, none);
+
+		assertSame(cat.result, translated.result);
+		assertTrue(copy.equalsWithVars(translated));
+		assertEquals(VarID.Z, translated.argument.var);
+		assertSame(translated, interner.intern(copy));
+	}
+}
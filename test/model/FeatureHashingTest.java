@@ -0,0 +1,60 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class FeatureHashingTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Test
+	public void getIDTest() {
+		FeatureHashing hashing = new FeatureHashing(10, false);
+		assertEquals(1024, hashing.width());
+
+		for ( int i = 0; i < 10000; i++ ) {
+			int ID = hashing.getID(i);
+			assertTrue(ID >= 0 && ID < 1024);
+			assertEquals(ID, new FeatureHashing(10, false).getID(i));
+		}
+	}
+
+	@Test
+	public void statsTest() {
+		FeatureHashing hashing = new FeatureHashing(1, true);
+
+		// three features in two IDs collide at least once
+		hashing.getID(1);
+		hashing.getID(2);
+		hashing.getID(3);
+		hashing.getID(1);
+
+		assertEquals(4, hashing.getNumLookups());
+		assertEquals(2, hashing.getNumUsed());
+		assertTrue(hashing.getNumCollisions() >= 1);
+
+		// looking up the same feature again isn't a collision
+		long numCollisions = hashing.getNumCollisions();
+		hashing.getID(1);
+		assertEquals(numCollisions, hashing.getNumCollisions());
+	}
+
+	@Test
+	public void bitsTest() {
+		exception.expect(IllegalArgumentException.class);
+		new FeatureHashing(31, false);
+	}
+
+	@Test
+	public void addFeatureTest() {
+		FeatureIDs<FeatureCat> featureIDs = new FeatureIDs<FeatureCat>(new FeatureHashing(4, false));
+		assertTrue(featureIDs.isHashed());
+
+		exception.expect(UnsupportedOperationException.class);
+		featureIDs.addFeature(null, 0);
+	}
+}
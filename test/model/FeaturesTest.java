@@ -0,0 +1,69 @@
+package model;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import lexicon.Categories;
+
+public class FeaturesTest {
+	// small enough for the model files to be split into several chunks
+	private static final int CHUNK_SIZE = 3;
+	private static final int NUM_THREADS = 2;
+
+	/*
+	 * loads the features and weights files with and without chunks, and
+	 * checks that both give the same IDs and weights
+	 */
+	private static void checkChunked(String featuresFile, String weightsFile, boolean compactWeights) throws IOException {
+		Categories categories = new Categories(ModelFiles.grammarDir(), false);
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+		try {
+			Features features;
+			Weights weights;
+			Features chunked;
+			Weights chunkedWeights = new Weights();
+
+			if ( compactWeights ) {
+				weights = new Weights();
+				features = new Features(featuresFile, weightsFile, weights, categories, false);
+				chunked = new Features(featuresFile, weightsFile, chunkedWeights, categories, false, executor, NUM_THREADS, CHUNK_SIZE);
+			} else {
+				features = new Features(featuresFile, categories, false);
+				weights = new Weights(weightsFile, features.numFeatures);
+				chunked = new Features(featuresFile, categories, false, executor, NUM_THREADS, CHUNK_SIZE);
+				chunkedWeights.useWeights(Weights.readWeights(weightsFile, chunkedWeights, executor, NUM_THREADS, CHUNK_SIZE));
+			}
+
+			ModelFiles.assertSameIDs(features, chunked);
+			ModelFiles.assertSameWeights(weights, chunkedWeights, features.numFeatures);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void chunkedTest() throws IOException {
+		checkChunked(ModelFiles.write(ModelFiles.FEATURES), ModelFiles.write(ModelFiles.WEIGHTS), false);
+	}
+
+	@Test
+	public void chunkedCompactTest() throws IOException {
+		checkChunked(ModelFiles.write(ModelFiles.FEATURES), ModelFiles.write(ModelFiles.WEIGHTS), true);
+	}
+
+	@Test
+	public void zeroWeightTest() throws IOException {
+		// features with zero weights aren't parsed, so they needn't be valid
+		String[] featureLines = Arrays.copyOf(ModelFiles.FEATURES, ModelFiles.FEATURES.length + 1);
+		featureLines[featureLines.length - 1] = "7 NP";
+		String[] weightLines = Arrays.copyOf(ModelFiles.WEIGHTS, ModelFiles.WEIGHTS.length + 1);
+		weightLines[weightLines.length - 1] = "0.0";
+
+		checkChunked(ModelFiles.write(featureLines), ModelFiles.write(weightLines), true);
+	}
+}
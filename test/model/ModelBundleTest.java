@@ -0,0 +1,195 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import lexicon.Categories;
+
+public class ModelBundleTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	private static String write(String... lines) throws IOException {
+		return ModelFiles.write(lines);
+	}
+
+	private static String compile(boolean compactWeights, String weightsFile) throws IOException {
+		return compile(compactWeights, 0.0, ModelBundle.WeightType.DOUBLE, weightsFile);
+	}
+
+	private static String compile(boolean compactWeights, double pruneThreshold, ModelBundle.WeightType weightType, String weightsFile) throws IOException {
+		String featuresFile = write("1 S[dcl] 10", "5 N 0 3", "7 NP S\\NP S[dcl] 4", "17 NP S\\NP S[dcl] 2 1 5");
+		return compile(compactWeights, pruneThreshold, weightType, featuresFile, weightsFile);
+	}
+
+	private static String compile(boolean compactWeights, double pruneThreshold, ModelBundle.WeightType weightType, String featuresFile, String weightsFile) throws IOException {
+		String lexiconFile = write("the", "DT", "dog", "NN");
+
+		File bundleFile = File.createTempFile("model", ".bundle");
+		bundleFile.deleteOnExit();
+
+		ModelBundle.compile(lexiconFile, featuresFile, weightsFile, compactWeights, pruneThreshold, weightType, bundleFile.getPath());
+		return bundleFile.getPath();
+	}
+
+	@Test
+	public void compileTest() throws IOException {
+		ModelBundle bundle = new ModelBundle(compile(false, write("logp:1.5", "0.25", "0.0", "-2.0", "3.0")));
+		assertEquals(4, bundle.getNumFeatures());
+
+		Lexicon lexicon = bundle.readLexicon();
+		assertEquals(0, lexicon.getID("the"));
+		assertEquals(3, lexicon.getID("NN"));
+		assertEquals(-1, lexicon.getID("cat"));
+
+		Weights weights = new Weights();
+		bundle.readWeights(weights, false);
+		assertEquals(1.5, weights.getLogP(), 0.0);
+		assertEquals(0.25, weights.getWeight(0), 0.0);
+		assertEquals(0.0, weights.getWeight(1), 0.0);
+		assertEquals(3.0, weights.getWeight(3), 0.0);
+	}
+
+	@Test
+	public void compactTest() throws IOException {
+		ModelBundle bundle = new ModelBundle(compile(true, write("0.25", "0.0", "-2.0", "depnn:0.5", "3.0")));
+		assertEquals(3, bundle.getNumFeatures());
+
+		Weights weights = new Weights();
+		bundle.readWeights(weights, false);
+		assertEquals(0.5, weights.getDepNN(), 0.0);
+		assertEquals(-2.0, weights.getWeight(1), 0.0);
+		assertEquals(3.0, weights.getWeight(2), 0.0);
+	}
+
+	@Test
+	public void mappedWeightsTest() throws IOException {
+		ModelBundle bundle = new ModelBundle(compile(false, write("logp:1.5", "0.25", "0.0", "-2.0", "3.0")));
+
+		Weights weights = new Weights();
+		bundle.readWeights(weights, true);
+		assertTrue(weights.isMapped());
+		assertEquals(1.5, weights.getLogP(), 0.0);
+		assertEquals(0.25, weights.getWeight(0), 0.0);
+		assertEquals(-2.0, weights.getWeight(2), 0.0);
+
+		exception.expect(UnsupportedOperationException.class);
+		weights.setWeight(0, 1.0);
+	}
+
+	@Test
+	public void quantizedTest() throws IOException {
+		String weightsFile = write("0.25", "0.001", "-2.0", "3.0");
+
+		ModelBundle floats = new ModelBundle(compile(false, 0.01, ModelBundle.WeightType.FLOAT, weightsFile));
+		assertEquals(3, floats.getNumFeatures());
+		assertEquals(ModelBundle.WeightType.FLOAT, floats.getWeightType());
+
+		Weights floatWeights = new Weights();
+		floats.readWeights(floatWeights, true);
+		assertEquals(0.25, floatWeights.getWeight(0), 0.0);
+		assertEquals(-2.0, floatWeights.getWeight(1), 0.0);
+
+		ModelBundle shorts = new ModelBundle(compile(false, 0.0, ModelBundle.WeightType.SHORT, weightsFile));
+		assertEquals(4, shorts.getNumFeatures());
+
+		Weights mapped = new Weights();
+		shorts.readWeights(mapped, true);
+		Weights copied = new Weights();
+		shorts.readWeights(copied, false);
+
+		// the largest weight is exact, the others within half a step
+		assertEquals(3.0, mapped.getWeight(3), 1e-12);
+		for ( int i = 0; i < 4; i++ ) {
+			assertEquals(mapped.getWeight(i), copied.getWeight(i), 0.0);
+		}
+		assertEquals(0.001, copied.getWeight(1), 3.0 / Short.MAX_VALUE / 2);
+		assertEquals(-2.0, copied.getWeight(2), 3.0 / Short.MAX_VALUE / 2);
+	}
+
+	@Test
+	public void numWeightsTest() throws IOException {
+		exception.expect(IllegalArgumentException.class);
+		compile(false, write("0.25", "0.0", "-2.0"));
+	}
+
+	@Test
+	public void notBundleTest() throws IOException {
+		exception.expect(IOException.class);
+		new ModelBundle(write("0.25"));
+	}
+
+	@Test
+	public void weightTypeTest() throws IOException {
+		String bundleFile = compile(false, write("0.25", "0.0", "-2.0", "3.0"));
+
+		// the weight type follows the magic number, version, logp and depnn
+		try ( RandomAccessFile out = new RandomAccessFile(bundleFile, "rw") ) {
+			out.seek(24);
+			out.writeInt(ModelBundle.WeightType.values().length);
+		}
+
+		exception.expect(IOException.class);
+		exception.expectMessage("unknown weight type");
+		new ModelBundle(bundleFile);
+	}
+
+	@Test
+	public void truncatedTest() throws IOException {
+		byte[] bundle = Files.readAllBytes(new File(compile(false, write("logp:1.5", "0.25", "0.0", "-2.0", "3.0"))).toPath());
+
+		// cut off anywhere, in the header, the tables or the weights
+		for ( int length = 0; length < bundle.length; length++ ) {
+			File truncated = File.createTempFile("model", ".bundle");
+			truncated.deleteOnExit();
+			Files.write(truncated.toPath(), Arrays.copyOf(bundle, length));
+
+			try {
+				new ModelBundle(truncated.getPath());
+				fail("read a bundle cut off after " + length + " of " + bundle.length + " bytes");
+			} catch ( IOException e ) {
+				// expected
+			}
+
+			truncated.delete();
+		}
+	}
+
+	@Test
+	public void featuresTest() throws IOException {
+		String featuresFile = write(ModelFiles.FEATURES);
+		String weightsFile = write(ModelFiles.WEIGHTS);
+		Categories categories = new Categories(ModelFiles.grammarDir(), false);
+
+		for ( boolean compactWeights : new boolean[] { false, true } ) {
+			Features text;
+			Weights textWeights;
+
+			if ( compactWeights ) {
+				textWeights = new Weights();
+				text = new Features(featuresFile, weightsFile, textWeights, categories, false);
+			} else {
+				text = new Features(featuresFile, categories, false);
+				textWeights = new Weights(weightsFile, text.numFeatures);
+			}
+
+			ModelBundle bundle = new ModelBundle(compile(compactWeights, 0.0, ModelBundle.WeightType.DOUBLE, featuresFile, weightsFile));
+			Weights bundleWeights = new Weights();
+			Features fromBundle = new Features(bundle, bundleWeights, categories, false, false);
+
+			ModelFiles.assertSameIDs(text, fromBundle);
+			ModelFiles.assertSameWeights(textWeights, bundleWeights, text.numFeatures);
+		}
+	}
+}
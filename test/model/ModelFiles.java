@@ -0,0 +1,108 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+/*
+ * small model files for the model tests, written to temporary files
+ */
+public class ModelFiles {
+	// one or two features of each family, some of which share categories
+	public static final String[] FEATURES = {
+		"1 S[dcl] 10",
+		"4 N 3",
+		"5 N 0 3",
+		"3 NP 1 2",
+		"7 NP (S[dcl]\\NP) S[dcl] 4",
+		"9 NP (S[dcl]\\NP) S[dcl] 0 2",
+		"13 NP (S[dcl]\\NP) S[dcl] 0 1 2",
+		"17 NP (S[dcl]\\NP) S[dcl] 2 1 5",
+		"4010 N NP NP 0 2",
+		"4110 NP ((S[dcl]\\NP)/NP) (S[dcl]\\NP) S[dcl] 1 0 2",
+	};
+
+	// weights for FEATURES, with zero weights to be compacted away (from
+	// families which keep another feature)
+	public static final String[] WEIGHTS = {
+		"logp:1.5", "0.25", "0.0", "-2.0", "0.0", "1.0", "depnn:0.5", "3.0", "0.5", "-0.5", "2.0", "0.125",
+	};
+
+	/**
+	 * Writes a file with the mandatory preface followed by lines.
+	 */
+	public static String write(String... lines) throws IOException {
+		File file = File.createTempFile("model", ".txt");
+		file.deleteOnExit();
+
+		try ( PrintWriter out = new PrintWriter(file) ) {
+			out.println("# mandatory preface");
+			out.println();
+			for ( String line : lines ) {
+				out.println(line);
+			}
+		}
+
+		return file.getPath();
+	}
+
+	/**
+	 * Writes a grammar directory with no markedup categories or type-raised
+	 * categories, which is enough for canonizing plain category strings.
+	 */
+	public static String grammarDir() throws IOException {
+		File dir = Files.createTempDirectory("grammar").toFile();
+		dir.deleteOnExit();
+
+		for ( String name : new String[] { "markedup", "trNP", "trPP", "trAP", "trVP_to" } ) {
+			File file = new File(dir, name);
+			file.deleteOnExit();
+
+			try ( PrintWriter out = new PrintWriter(file) ) {
+				if ( name.equals("markedup") ) {
+					out.println("# mandatory preface");
+					out.println();
+				}
+			}
+		}
+
+		return dir.getPath();
+	}
+
+	/**
+	 * Checks that two Features map the same features to the same IDs, for
+	 * every family.
+	 */
+	public static void assertSameIDs(Features expected, Features actual) {
+		assertEquals(expected.numFeatures, actual.numFeatures);
+		assertSameIDs(expected.featureCatIDs, actual.featureCatIDs);
+		assertSameIDs(expected.featureCatHeadIDs, actual.featureCatHeadIDs);
+		assertSameIDs(expected.featureRuleIDs, actual.featureRuleIDs);
+		assertSameIDs(expected.featureRuleHeadIDs, actual.featureRuleHeadIDs);
+		assertSameIDs(expected.featureRuleHeadHeadIDs, actual.featureRuleHeadHeadIDs);
+		assertSameIDs(expected.featureRuleHeadDistIDs, actual.featureRuleHeadDistIDs);
+		assertSameIDs(expected.featureRuleRuleHeadIDs, actual.featureRuleRuleHeadIDs);
+		assertSameIDs(expected.featureRuleRuleHeadHeadIDs, actual.featureRuleRuleHeadHeadIDs);
+	}
+
+	private static <T extends Feature<T>> void assertSameIDs(FeatureIDs<T> expected, FeatureIDs<T> actual) {
+		assertFalse(expected.getFeatureIDs().isEmpty());
+		assertEquals(expected.getFeatureIDs(), actual.getFeatureIDs());
+	}
+
+	/**
+	 * Checks that two Weights have the same logp, depnn and weights.
+	 */
+	public static void assertSameWeights(Weights expected, Weights actual, int numFeatures) {
+		assertEquals(expected.getLogP(), actual.getLogP(), 0.0);
+		assertEquals(expected.getDepNN(), actual.getDepNN(), 0.0);
+
+		for ( int ID = 0; ID < numFeatures; ID++ ) {
+			assertEquals(expected.getWeight(ID), actual.getWeight(ID), 0.0);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class PackedFeatureTableTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Test
+	public void putGetTest() {
+		PackedFeatureTable table = new PackedFeatureTable();
+
+		// enough keys to force several resizes
+		for ( int i = 0; i < 10000; i++ ) {
+			table.put(FeatureKeys.rule((short) 7, i, i + 1, i + 2), FeatureKeys.heads(i - 1, i), i);
+		}
+
+		assertEquals(10000, table.size());
+
+		for ( int i = 0; i < 10000; i++ ) {
+			assertEquals(i, table.get(FeatureKeys.rule((short) 7, i, i + 1, i + 2), FeatureKeys.heads(i - 1, i)));
+		}
+
+		assertEquals(FeatureIDs.NONE, table.get(FeatureKeys.rule((short) 8, 0, 1, 2), FeatureKeys.heads(-1, 0)));
+	}
+
+	@Test
+	public void replaceTest() {
+		PackedFeatureTable table = new PackedFeatureTable();
+		table.put(1L, 2L, 3);
+		table.put(1L, 2L, 4);
+		assertEquals(1, table.size());
+		assertEquals(4, table.get(1L, 2L));
+	}
+
+	@Test
+	public void invalidIDTest() {
+		exception.expect(IllegalArgumentException.class);
+		new PackedFeatureTable().put(1L, 2L, FeatureIDs.NONE);
+	}
+}
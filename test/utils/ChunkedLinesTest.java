@@ -0,0 +1,85 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ChunkedLinesTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	private static final ChunkedLines.Parser<String> parser = new ChunkedLines.Parser<String>() {
+		@Override
+		public String parse(String[] lines, int firstLine) {
+			StringBuilder result = new StringBuilder(firstLine + ":");
+
+			for ( String line : lines ) {
+				if ( line.isEmpty() ) {
+					throw new IllegalArgumentException("empty line");
+				}
+
+				result.append(line);
+			}
+
+			return result.toString();
+		}
+	};
+
+	private static BufferedReader reader(String... lines) {
+		StringBuilder text = new StringBuilder();
+
+		for ( String line : lines ) {
+			text.append(line).append('\n');
+		}
+
+		return new BufferedReader(new StringReader(text.toString()));
+	}
+
+	@Test
+	public void chunksInFileOrder() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try {
+			ArrayList<String> results = ChunkedLines.getAll(ChunkedLines.parse(reader("a", "b", "c", "d", "e", "f", "g"), 3, executor, 2, parser));
+
+			assertEquals(3, results.size());
+			assertEquals("0:abc", results.get(0));
+			assertEquals("3:def", results.get(1));
+			assertEquals("6:g", results.get(2));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void emptyFile() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(1);
+
+		try {
+			assertEquals(0, ChunkedLines.parse(reader(), 3, executor, 1, parser).size());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void exceptionPassedOn() throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		try {
+			exception.expect(IllegalArgumentException.class);
+			ChunkedLines.getAll(ChunkedLines.parse(reader("a", "b", "c", "", "e"), 2, executor, 2, parser));
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
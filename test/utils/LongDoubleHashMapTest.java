@@ -0,0 +1,54 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongDoubleHashMapTest {
+	@Test
+	public void addGetTest() {
+		LongDoubleHashMap map = new LongDoubleHashMap(-1L);
+		HashMap<Long, Double> expected = new HashMap<Long, Double>();
+		Random random = new Random(7);
+
+		for ( int i = 0; i < 10000; i++ ) {
+			long key = random.nextInt(500);
+			double value = random.nextDouble();
+			Double current = expected.get(key);
+
+			expected.put(key, current == null ? value : current + value);
+			map.add(key, value);
+		}
+
+		assertEquals(expected.size(), map.size());
+		for ( long key = 0; key < 600; key++ ) {
+			Double value = expected.get(key);
+			assertEquals(value == null ? -1.0 : value, map.get(key, -1.0), 0.0);
+		}
+
+		map.clear();
+		assertEquals(0, map.size());
+		assertEquals(-1.0, map.get(1, -1.0), 0.0);
+	}
+
+	@Test
+	public void maskTest() {
+		LongDoubleHashMap map = new LongDoubleHashMap(0xFFFFL);
+
+		map.add(0x10005L, 1.0);
+		map.add(0x20005L, 2.0);
+
+		assertEquals(1, map.size());
+		assertEquals(3.0, map.get(0x5L, 0.0), 0.0);
+
+		for ( int i = 0; i < map.capacity(); i++ ) {
+			if ( map.isUsed(i) ) {
+				// the entry keeps the first key
+				assertEquals(0x10005L, map.key(i));
+			}
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class LongHashSetTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	@Test
+	public void addContainsTest() {
+		LongHashSet set = new LongHashSet();
+		HashSet<Long> expected = new HashSet<Long>();
+		Random random = new Random(7);
+
+		for ( int i = 0; i < 10000; i++ ) {
+			long key = ((long) (random.nextInt(200)) << 32) | random.nextInt(200);
+			assertEquals(expected.add(key), set.add(key));
+		}
+
+		assertEquals(expected.size(), set.size());
+
+		for ( long i = 0; i < 200; i++ ) {
+			for ( long j = 0; j < 200; j++ ) {
+				long key = (i << 32) | j;
+				assertEquals(expected.contains(key), set.contains(key));
+			}
+		}
+
+		assertFalse(set.contains(Long.MAX_VALUE));
+		assertTrue(set.add(Long.MAX_VALUE));
+		assertTrue(set.contains(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void negativeKeyTest() {
+		exception.expect(IllegalArgumentException.class);
+		new LongHashSet().add(-1L);
+	}
+}
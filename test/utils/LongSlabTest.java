@@ -0,0 +1,49 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+
+import org.junit.Test;
+
+public class LongSlabTest {
+	private static void fill(LongSlab slab) {
+		int first = slab.allocate(3);
+		slab.set(first, 1L);
+		slab.set(first + 2, Long.MIN_VALUE);
+
+		// doesn't fit in the rest of the first chunk
+		int second = slab.allocate(LongSlab.CHUNK_SIZE - 1);
+		assertEquals(LongSlab.CHUNK_SIZE, second);
+		slab.set(second + LongSlab.CHUNK_SIZE - 2, 42L);
+
+		assertEquals(1L, slab.get(first));
+		assertEquals(Long.MIN_VALUE, slab.get(first + 2));
+		assertEquals(42L, slab.get(second + LongSlab.CHUNK_SIZE - 2));
+		assertEquals(2L * LongSlab.CHUNK_SIZE * 8, slab.capacity());
+
+		slab.reset();
+		assertEquals(first, slab.allocate(1));
+		assertEquals(2L * LongSlab.CHUNK_SIZE * 8, slab.capacity());
+	}
+
+	@Test
+	public void directTest() {
+		fill(new LongSlab());
+	}
+
+	@Test
+	public void fileTest() {
+		fill(new LongSlab(new File(System.getProperty("java.io.tmpdir"))));
+	}
+
+	@Test
+	public void tooLargeTest() {
+		try {
+			new LongSlab().allocate(LongSlab.CHUNK_SIZE + 1);
+			fail("expected an IllegalArgumentException");
+		} catch ( IllegalArgumentException e ) {
+		}
+	}
+}
@@ -0,0 +1,84 @@
+package utils;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class OrderedWorkerPoolTest {
+	@Rule
+	public ExpectedException exception = ExpectedException.none();
+
+	private static final OrderedWorkerPool.Job<StringBuilder, Integer> job =
+			new OrderedWorkerPool.Job<StringBuilder, Integer>() {
+		@Override
+		public void run(StringBuilder worker, Integer item, PrintWriter[] outs) throws IOException {
+			if ( item < 0 ) {
+				throw new IOException("negative item");
+			}
+
+			// later items finish first
+			try {
+				Thread.sleep((20 - item % 20) / 4);
+			} catch ( InterruptedException e ) {
+				throw new IOException(e);
+			}
+
+			outs[0].println(item);
+
+			if ( outs[1] != null ) {
+				outs[1].print(item + " ");
+			}
+		}
+	};
+
+	@Test
+	public void outputInInputOrder() throws IOException {
+		StringWriter out = new StringWriter();
+		StringWriter expected = new StringWriter();
+		PrintWriter expectedOut = new PrintWriter(expected);
+
+		ArrayList<StringBuilder> workers = new ArrayList<StringBuilder>();
+		for ( int i = 0; i < 4; i++ ) {
+			workers.add(new StringBuilder());
+		}
+
+		try ( OrderedWorkerPool<StringBuilder, Integer> pool =
+				new OrderedWorkerPool<StringBuilder, Integer>(workers, job, new PrintWriter(out), null) ) {
+			for ( int i = 0; i < 100; i++ ) {
+				pool.submit(i);
+				expectedOut.println(i);
+			}
+
+			pool.finish();
+		}
+
+		expectedOut.flush();
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	@Test
+	public void jobExceptionIsRethrown() throws IOException {
+		exception.expect(IOException.class);
+
+		try ( OrderedWorkerPool<StringBuilder, Integer> pool =
+				new OrderedWorkerPool<StringBuilder, Integer>(Arrays.asList(new StringBuilder()), job, new PrintWriter(new StringWriter()), null) ) {
+			pool.submit(1);
+			pool.submit(-1);
+			pool.finish();
+		}
+	}
+
+	@Test
+	public void noWorkers() {
+		exception.expect(IllegalArgumentException.class);
+		new OrderedWorkerPool<StringBuilder, Integer>(new ArrayList<StringBuilder>(), job);
+	}
+}